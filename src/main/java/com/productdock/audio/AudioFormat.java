@@ -0,0 +1,23 @@
+package com.productdock.audio;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Audio container formats accepted for transcription. The extension matches the Transcribe media format.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum AudioFormat {
+    MP3("mp3", "audio/mpeg"),
+    MP4("mp4", "audio/mp4"),
+    M4A("m4a", "audio/mp4"),
+    WAV("wav", "audio/wav"),
+    FLAC("flac", "audio/flac"),
+    OGG("ogg", "audio/ogg"),
+    WEBM("webm", "audio/webm"),
+    AMR("amr", "audio/amr");
+
+    private final String extension;
+    private final String contentType;
+}
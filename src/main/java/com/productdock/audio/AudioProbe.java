@@ -0,0 +1,521 @@
+package com.productdock.audio;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Recognizes the format of an audio file from its bytes and checks that it holds usable audio,
+ * before the file is uploaded to S3 and a transcription job is started.
+ * <p>
+ * Nothing is decoded, only headers are parsed: the duration comes from frame headers or container metadata,
+ * a file is truncated if its data ends before its headers say it does. Silence is recognized where it shows
+ * without decoding, in the samples of PCM WAV files, the side information of MP3 frames and the frame types
+ * of AMR files. Truncation and silence are only reported if the whole file is probed, a probe of the start of
+ * a stream recognizes the format and the duration if the headers announce it.
+ */
+public final class AudioProbe {
+
+    /**
+     * The number of bytes from the start of a stream that are enough to recognize its format.
+     */
+    public static final int HEADER_BYTES = 64 * 1024;
+
+    private static final AudioInfo UNKNOWN = new AudioInfo(null, null, false, false);
+
+    // Junk in front of the first MP3 frame that is skipped
+    private static final int MAX_MP3_SYNC_OFFSET = 4096;
+
+    // Peak of a PCM sample, scaled to 16 bits, up to which a WAV file counts as silent (about -72 dBFS)
+    private static final int WAV_SILENCE_PEAK = 8;
+    private static final int WAVE_FORMAT_PCM = 0x0001;
+    private static final int WAVE_FORMAT_EXTENSIBLE = 0xFFFE;
+
+    private static final long EBML_HEADER = 0x1A45DFA3L;
+    private static final long EBML_DOC_TYPE = 0x4282L;
+    private static final long MATROSKA_SEGMENT = 0x18538067L;
+    private static final long MATROSKA_INFO = 0x1549A966L;
+    private static final long MATROSKA_TIMECODE_SCALE = 0x2AD7B1L;
+    private static final long MATROSKA_DURATION = 0x4489L;
+    private static final long MATROSKA_CLUSTER = 0x1F43B675L;
+
+    // Speech bytes per AMR frame type, after the one byte frame header. -1 marks reserved frame types
+    private static final int[] AMR_NB_FRAME_BYTES = {12, 13, 15, 17, 19, 20, 26, 31, 5, -1, -1, -1, -1, -1, -1, 0};
+    private static final int[] AMR_WB_FRAME_BYTES = {17, 23, 32, 36, 40, 46, 50, 58, 60, 5, -1, -1, -1, -1, 0, 0};
+    private static final int AMR_FRAME_MILLIS = 20;
+
+    private AudioProbe() {
+    }
+
+    /**
+     * The result of probing an audio file.
+     *
+     * @param format the recognized format, or null if the file is no audio format accepted for transcription
+     * @param duration the duration of the audio, or null if it cannot be told from the probed bytes
+     * @param truncated whether the file ends before its headers say it does, or holds no audio at all
+     * @param silent whether the file holds nothing but silence
+     */
+    public record AudioInfo(AudioFormat format, Duration duration, boolean truncated, boolean silent) {
+    }
+
+    /**
+     * Probes an audio file.
+     *
+     * @param audio the whole file, or the first bytes of a stream
+     * @param complete whether the bytes are the whole file
+     * @return the format, duration and defects of the audio
+     */
+    public static AudioInfo probe(byte[] audio, boolean complete) {
+        if (startsWith(audio, 0, "RIFF") && startsWith(audio, 8, "WAVE")) {
+            return probeWav(audio, complete);
+        }
+        if (startsWith(audio, 0, "OggS")) {
+            return probeOgg(audio, complete);
+        }
+        if (startsWith(audio, 0, "#!AMR")) {
+            return probeAmr(audio, complete);
+        }
+        if (audio.length >= 4 && (readInt(audio, 0) & 0xFFFFFFFFL) == EBML_HEADER) {
+            return probeWebm(audio, complete);
+        }
+        if (startsWith(audio, 4, "ftyp")) {
+            return probeMp4(audio, complete);
+        }
+
+        // FLAC files may start with an ID3 tag just like MP3 files
+        int start = 0;
+        int tagLength;
+        while ((tagLength = Mp3Frames.id3v2Length(audio, start)) > 0) {
+            start += tagLength;
+        }
+        if (startsWith(audio, start, "fLaC")) {
+            return probeFlac(audio, start, complete);
+        }
+        return probeMp3(audio, start, complete);
+    }
+
+    private static AudioInfo probeWav(byte[] audio, boolean complete) {
+        int formatTag = -1;
+        int bitsPerSample = 0;
+        long byteRate = 0;
+        long pos = 12;
+        while (pos + 8 <= audio.length) {
+            int chunk = (int) pos;
+            long size = readIntLe(audio, chunk + 4) & 0xFFFFFFFFL;
+            int body = chunk + 8;
+            if (startsWith(audio, chunk, "fmt ") && body + 16 <= audio.length) {
+                formatTag = readShortLe(audio, body);
+                byteRate = readIntLe(audio, body + 8) & 0xFFFFFFFFL;
+                bitsPerSample = readShortLe(audio, body + 14);
+            } else if (startsWith(audio, chunk, "data")) {
+                if (formatTag < 0 || byteRate == 0) {
+                    return new AudioInfo(AudioFormat.WAV, null, true, false);
+                }
+                return probeWavData(audio, body, size, formatTag, byteRate, bitsPerSample, complete);
+            }
+            // Chunks are padded to an even size
+            pos = body + size + (size & 1);
+        }
+        // The data chunk is missing, or starts beyond the probed start of a stream
+        return new AudioInfo(AudioFormat.WAV, null, complete, false);
+    }
+
+    private static AudioInfo probeWavData(byte[] audio, int dataStart, long size, int formatTag, long byteRate,
+                                          int bitsPerSample, boolean complete) {
+        long available = audio.length - dataStart;
+        // Streaming encoders write the header before they know the size
+        boolean sizeUnknown = size == 0 || size == 0xFFFFFFFFL;
+        if (!complete) {
+            return new AudioInfo(AudioFormat.WAV, sizeUnknown ? null : Duration.ofMillis(size * 1000 / byteRate), false, false);
+        }
+
+        long dataSize = sizeUnknown ? available : size;
+        boolean truncated = dataSize == 0 || dataSize > available;
+        boolean silent = !truncated && isSilentPcm(audio, dataStart, (int) dataSize, formatTag, bitsPerSample);
+        return new AudioInfo(AudioFormat.WAV, Duration.ofMillis(dataSize * 1000 / byteRate), truncated, silent);
+    }
+
+    private static boolean isSilentPcm(byte[] audio, int offset, int length, int formatTag, int bitsPerSample) {
+        if ((formatTag != WAVE_FORMAT_PCM && formatTag != WAVE_FORMAT_EXTENSIBLE)
+                || bitsPerSample < 8 || bitsPerSample > 32 || bitsPerSample % 8 != 0) {
+            return false;
+        }
+        int bytesPerSample = bitsPerSample / 8;
+        for (int i = offset; i + bytesPerSample <= offset + length; i += bytesPerSample) {
+            // 8 bit samples are unsigned, wider samples are signed little-endian and their top 16 bits are enough
+            int sample = bytesPerSample == 1
+                    ? ((audio[i] & 0xFF) - 128) << 8
+                    : audio[i + bytesPerSample - 1] << 8 | audio[i + bytesPerSample - 2] & 0xFF;
+            if (Math.abs(sample) > WAV_SILENCE_PEAK) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static AudioInfo probeMp3(byte[] audio, int start, boolean complete) {
+        int first = findMp3Frames(audio, start);
+        if (first < 0) {
+            return UNKNOWN;
+        }
+
+        long frames = 0;
+        long samples = 0;
+        long announcedFrames = -1;
+        boolean silent = true;
+        boolean cut = false;
+        int sampleRate = 0;
+        int samplesPerFrame = 0;
+        int pos = first;
+        while (pos + 4 <= audio.length) {
+            Mp3Frames.FrameHeader header = Mp3Frames.parseHeader(audio, pos);
+            if (header == null) {
+                // An ID3v1 or APE tag, or trailing junk
+                break;
+            }
+            if (pos + header.frameLength() > audio.length) {
+                cut = true;
+                break;
+            }
+            if (pos == first && Mp3Frames.isInfoFrame(audio, pos, header)) {
+                announcedFrames = Mp3Frames.infoFrameCount(audio, pos, header);
+            } else {
+                frames++;
+                samples += header.samplesPerFrame();
+                silent &= Mp3Frames.isSilentFrame(audio, pos, header);
+            }
+            sampleRate = header.sampleRate();
+            samplesPerFrame = header.samplesPerFrame();
+            pos += header.frameLength();
+        }
+
+        if (!complete) {
+            Duration duration = announcedFrames > 0 ? ofSamples(announcedFrames * samplesPerFrame, sampleRate) : null;
+            return new AudioInfo(AudioFormat.MP3, duration, false, false);
+        }
+        // Encoders differ in whether the VBR header counts itself
+        boolean truncated = frames == 0 || cut || announcedFrames > 0 && frames + 1 < announcedFrames;
+        return new AudioInfo(AudioFormat.MP3, ofSamples(samples, sampleRate), truncated, frames > 0 && silent);
+    }
+
+    /**
+     * Finds the first Layer III frame that is followed by another frame of the same stream.
+     * A single frame header is no proof, any two bytes can look like a frame sync.
+     */
+    private static int findMp3Frames(byte[] audio, int start) {
+        int end = Math.min(audio.length, start + MAX_MP3_SYNC_OFFSET);
+        for (int pos = start; pos < end; pos++) {
+            Mp3Frames.FrameHeader header = Mp3Frames.parseHeader(audio, pos);
+            if (header == null || header.layer() != 3) {
+                continue;
+            }
+            int next = pos + header.frameLength();
+            if (next == audio.length) {
+                return pos;
+            }
+            Mp3Frames.FrameHeader nextHeader = Mp3Frames.parseHeader(audio, next);
+            if (nextHeader != null && nextHeader.mpegVersion() == header.mpegVersion()
+                    && nextHeader.sampleRate() == header.sampleRate()) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    private static AudioInfo probeFlac(byte[] audio, int start, boolean complete) {
+        long totalSamples = 0;
+        int sampleRate = 0;
+        boolean lastBlock = false;
+        long pos = start + 4;
+        while (!lastBlock && pos + 4 <= audio.length) {
+            int block = (int) pos;
+            lastBlock = (audio[block] & 0x80) != 0;
+            int type = audio[block] & 0x7F;
+            int body = block + 4;
+            if (type == 0 && body + 18 <= audio.length) {
+                // STREAMINFO: a 20 bit sample rate and 36 bit sample count after the block and frame sizes
+                sampleRate = (audio[body + 10] & 0xFF) << 12 | (audio[body + 11] & 0xFF) << 4 | (audio[body + 12] & 0xFF) >> 4;
+                totalSamples = (audio[body + 13] & 0x0FL) << 32 | readInt(audio, body + 14) & 0xFFFFFFFFL;
+            }
+            pos = body + (long) readInt24(audio, block + 1);
+        }
+
+        Duration duration = totalSamples > 0 && sampleRate > 0 ? ofSamples(totalSamples, sampleRate) : null;
+        if (!complete) {
+            return new AudioInfo(AudioFormat.FLAC, duration, false, false);
+        }
+        // Audio frames follow the metadata and start with a sync code
+        boolean hasFrames = lastBlock && pos + 2 <= audio.length
+                && (audio[(int) pos] & 0xFF) == 0xFF && (audio[(int) pos + 1] & 0xFE) == 0xF8;
+        return new AudioInfo(AudioFormat.FLAC, duration, sampleRate == 0 || !hasFrames, false);
+    }
+
+    private static AudioInfo probeOgg(byte[] audio, boolean complete) {
+        long lastGranule = -1;
+        int sampleRate = 0;
+        int preSkip = 0;
+        boolean ended = false;
+        boolean cut = false;
+        int pos = 0;
+        while (pos + 27 <= audio.length && startsWith(audio, pos, "OggS")) {
+            int segments = audio[pos + 26] & 0xFF;
+            int body = pos + 27 + segments;
+            if (body > audio.length) {
+                cut = true;
+                break;
+            }
+            int bodySize = 0;
+            for (int i = pos + 27; i < body; i++) {
+                bodySize += audio[i] & 0xFF;
+            }
+            if (body + bodySize > audio.length) {
+                cut = true;
+                break;
+            }
+
+            // The first page holds the identification header of the codec
+            if (pos == 0 && bodySize >= 16 && startsWith(audio, body, "OpusHead")) {
+                sampleRate = 48000;
+                preSkip = readShortLe(audio, body + 10);
+            } else if (pos == 0 && bodySize >= 16 && startsWith(audio, body + 1, "vorbis")) {
+                sampleRate = readIntLe(audio, body + 12);
+            }
+            long granule = readLongLe(audio, pos + 6);
+            if (granule != -1) {
+                lastGranule = granule;
+            }
+            ended = (audio[pos + 5] & 0x04) != 0;
+            pos = body + bodySize;
+        }
+
+        if (!complete) {
+            return new AudioInfo(AudioFormat.OGG, null, false, false);
+        }
+        // The last page of a stream carries the end of stream flag
+        boolean truncated = cut || pos < audio.length || !ended || lastGranule <= 0;
+        Duration duration = sampleRate > 0 && lastGranule > preSkip ? ofSamples(lastGranule - preSkip, sampleRate) : null;
+        return new AudioInfo(AudioFormat.OGG, duration, truncated, false);
+    }
+
+    private static AudioInfo probeWebm(byte[] audio, boolean complete) {
+        EbmlElement header = readEbmlElement(audio, 0);
+        if (header == null || header.end() > audio.length) {
+            return UNKNOWN;
+        }
+        String docType = null;
+        for (EbmlElement child = readEbmlElement(audio, header.body()); child != null && child.end() <= header.end();
+             child = readEbmlElement(audio, (int) child.end())) {
+            if (child.id() == EBML_DOC_TYPE) {
+                docType = new String(audio, child.body(), (int) child.size(), StandardCharsets.US_ASCII).trim();
+            }
+        }
+        // Transcribe accepts WebM, but no other Matroska files
+        if (!"webm".equals(docType)) {
+            return UNKNOWN;
+        }
+
+        EbmlElement segment = readEbmlElement(audio, (int) header.end());
+        if (segment == null || segment.id() != MATROSKA_SEGMENT) {
+            return new AudioInfo(AudioFormat.WEBM, null, complete, false);
+        }
+        long timecodeScale = 1_000_000;
+        double durationTicks = 0;
+        for (EbmlElement child = readEbmlElement(audio, segment.body()); child != null && child.id() != MATROSKA_CLUSTER;
+             child = child.size() < 0 ? null : readEbmlElement(audio, (int) Math.min(child.end(), audio.length))) {
+            if (child.id() != MATROSKA_INFO) {
+                continue;
+            }
+            for (EbmlElement info = readEbmlElement(audio, child.body()); info != null && info.end() <= Math.min(child.end(), audio.length);
+                 info = readEbmlElement(audio, (int) info.end())) {
+                if (info.id() == MATROSKA_TIMECODE_SCALE) {
+                    timecodeScale = readUnsigned(audio, info.body(), (int) info.size());
+                } else if (info.id() == MATROSKA_DURATION && info.size() == 4) {
+                    durationTicks = Float.intBitsToFloat(readInt(audio, info.body()));
+                } else if (info.id() == MATROSKA_DURATION && info.size() == 8) {
+                    durationTicks = Double.longBitsToDouble(readLong(audio, info.body()));
+                }
+            }
+            break;
+        }
+
+        // Live recorders leave the segment size open and write no duration
+        Duration duration = durationTicks > 0 ? Duration.ofNanos((long) (durationTicks * timecodeScale)) : null;
+        boolean truncated = complete && segment.size() >= 0 && segment.end() > audio.length;
+        return new AudioInfo(AudioFormat.WEBM, duration, truncated, false);
+    }
+
+    /**
+     * An EBML element header, the size is -1 if it is unknown.
+     */
+    private record EbmlElement(long id, int body, long size) {
+        long end() {
+            return size < 0 ? Long.MAX_VALUE : body + size;
+        }
+    }
+
+    private static EbmlElement readEbmlElement(byte[] audio, int pos) {
+        if (pos >= audio.length) {
+            return null;
+        }
+        int idLength = ebmlVintLength(audio[pos]);
+        if (idLength > 4 || pos + idLength >= audio.length) {
+            return null;
+        }
+        int sizeLength = ebmlVintLength(audio[pos + idLength]);
+        if (sizeLength > 8 || pos + idLength + sizeLength > audio.length) {
+            return null;
+        }
+        long id = readUnsigned(audio, pos, idLength);
+        long marker = 1L << (7 * sizeLength);
+        long size = readUnsigned(audio, pos + idLength, sizeLength) - marker;
+        return new EbmlElement(id, pos + idLength + sizeLength, size == marker - 1 ? -1 : size);
+    }
+
+    /**
+     * The number of leading zero bits of a variable size integer tells its length in bytes.
+     */
+    private static int ebmlVintLength(byte first) {
+        return Integer.numberOfLeadingZeros(first & 0xFF) - 23;
+    }
+
+    private static AudioInfo probeMp4(byte[] audio, boolean complete) {
+        AudioFormat format = startsWith(audio, 8, "M4A ") || startsWith(audio, 8, "M4B ") ? AudioFormat.M4A : AudioFormat.MP4;
+        boolean hasMovie = false;
+        boolean hasMediaData = false;
+        boolean cut = false;
+        Duration duration = null;
+        long pos = 0;
+        while (pos + 8 <= audio.length) {
+            int box = (int) pos;
+            long size = readInt(audio, box) & 0xFFFFFFFFL;
+            int headerLength = 8;
+            if (size == 1 && box + 16 <= audio.length) {
+                size = readLong(audio, box + 8);
+                headerLength = 16;
+            } else if (size == 0) {
+                // The last box may extend to the end of the file
+                size = audio.length - pos;
+            }
+            if (size < headerLength) {
+                cut = true;
+                break;
+            }
+
+            if (startsWith(audio, box + 4, "mdat")) {
+                hasMediaData = true;
+            } else if (startsWith(audio, box + 4, "moov")) {
+                hasMovie = true;
+                duration = readMovieDuration(audio, box + headerLength, (int) Math.min(pos + size, audio.length));
+            }
+            if (pos + size > audio.length) {
+                cut = true;
+                break;
+            }
+            pos += size;
+        }
+
+        if (!complete) {
+            // The movie box is often written at the end, after the media data
+            return new AudioInfo(format, duration, false, false);
+        }
+        return new AudioInfo(format, duration, cut || !hasMovie || !hasMediaData, false);
+    }
+
+    private static Duration readMovieDuration(byte[] audio, int start, int end) {
+        int pos = start;
+        while (pos + 8 <= end) {
+            long size = readInt(audio, pos) & 0xFFFFFFFFL;
+            if (size < 8) {
+                return null;
+            }
+            int body = pos + 8;
+            if (startsWith(audio, pos + 4, "mvhd") && body + 32 <= end) {
+                // Version 1 has 64 bit times and duration
+                boolean version1 = audio[body] == 1;
+                long timescale = readInt(audio, body + (version1 ? 20 : 12)) & 0xFFFFFFFFL;
+                long duration = version1 ? readLong(audio, body + 24) : readInt(audio, body + 16) & 0xFFFFFFFFL;
+                return timescale > 0 ? ofSamples(duration, timescale) : null;
+            }
+            pos += (int) Math.min(size, end - pos);
+        }
+        return null;
+    }
+
+    private static AudioInfo probeAmr(byte[] audio, boolean complete) {
+        boolean wideband = startsWith(audio, 0, "#!AMR-WB\n");
+        if (!wideband && !startsWith(audio, 0, "#!AMR\n")) {
+            return UNKNOWN;
+        }
+        int[] frameBytes = wideband ? AMR_WB_FRAME_BYTES : AMR_NB_FRAME_BYTES;
+        // The frame types above the speech modes are comfort noise or no data, sent during silence
+        int speechFrameTypes = wideband ? 9 : 8;
+
+        long frames = 0;
+        boolean silent = true;
+        boolean corrupt = false;
+        int pos = wideband ? 9 : 6;
+        while (pos < audio.length) {
+            int frameType = (audio[pos] >> 3) & 0x0F;
+            int size = frameBytes[frameType];
+            if (size < 0 || pos + 1 + size > audio.length) {
+                corrupt = true;
+                break;
+            }
+            frames++;
+            silent &= frameType >= speechFrameTypes;
+            pos += 1 + size;
+        }
+
+        if (!complete) {
+            return new AudioInfo(AudioFormat.AMR, null, false, false);
+        }
+        return new AudioInfo(AudioFormat.AMR, Duration.ofMillis(frames * AMR_FRAME_MILLIS), corrupt || frames == 0, frames > 0 && silent);
+    }
+
+    private static Duration ofSamples(long samples, long sampleRate) {
+        return sampleRate > 0 ? Duration.ofMillis(samples * 1000 / sampleRate) : null;
+    }
+
+    private static boolean startsWith(byte[] audio, int offset, String ascii) {
+        if (offset < 0 || offset + ascii.length() > audio.length) {
+            return false;
+        }
+        for (int i = 0; i < ascii.length(); i++) {
+            if (audio[offset + i] != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long readUnsigned(byte[] audio, int offset, int length) {
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            value = value << 8 | audio[i] & 0xFF;
+        }
+        return value;
+    }
+
+    private static int readInt24(byte[] audio, int offset) {
+        return (int) readUnsigned(audio, offset, 3);
+    }
+
+    private static int readInt(byte[] audio, int offset) {
+        return (int) readUnsigned(audio, offset, 4);
+    }
+
+    private static long readLong(byte[] audio, int offset) {
+        return readUnsigned(audio, offset, 8);
+    }
+
+    private static int readShortLe(byte[] audio, int offset) {
+        return (audio[offset] & 0xFF) | (audio[offset + 1] & 0xFF) << 8;
+    }
+
+    private static int readIntLe(byte[] audio, int offset) {
+        return readShortLe(audio, offset) | readShortLe(audio, offset + 2) << 16;
+    }
+
+    private static long readLongLe(byte[] audio, int offset) {
+        return readIntLe(audio, offset) & 0xFFFFFFFFL | (long) readIntLe(audio, offset + 4) << 32;
+    }
+}
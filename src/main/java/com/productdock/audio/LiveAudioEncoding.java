@@ -0,0 +1,28 @@
+package com.productdock.audio;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Audio encodings accepted for live transcription. The value matches the Transcribe Streaming media encoding.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum LiveAudioEncoding {
+    PCM("pcm"),
+    OGG_OPUS("ogg-opus"),
+    FLAC("flac");
+
+    private final String value;
+
+    /**
+     * @param value the encoding as given by the client, for example "pcm"
+     * @return the encoding, or empty if it is not supported
+     */
+    public static Optional<LiveAudioEncoding> fromValue(String value) {
+        return Arrays.stream(values()).filter(encoding -> encoding.value.equalsIgnoreCase(value)).findFirst();
+    }
+}
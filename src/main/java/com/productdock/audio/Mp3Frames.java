@@ -0,0 +1,263 @@
+package com.productdock.audio;
+
+import java.util.Arrays;
+
+/**
+ * Helpers for working with raw MPEG audio frames, e.g. to concatenate MP3 streams
+ * produced by separate Polly requests into one playable stream.
+ */
+public final class Mp3Frames {
+
+    private static final int ID3V2_HEADER_LENGTH = 10;
+    private static final int ID3V1_TAG_LENGTH = 128;
+
+    private static final int[][] BITRATES_KBPS = {
+            {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448}, // MPEG-1 Layer I
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},    // MPEG-1 Layer II
+            {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320},     // MPEG-1 Layer III
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},    // MPEG-2/2.5 Layer I
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160}          // MPEG-2/2.5 Layer II and III
+    };
+
+    private static final int[][] SAMPLE_RATES = {
+            {44100, 48000, 32000}, // MPEG-1
+            {22050, 24000, 16000}, // MPEG-2
+            {11025, 12000, 8000}   // MPEG-2.5
+    };
+
+    private Mp3Frames() {
+    }
+
+    /**
+     * Parsed MPEG audio frame header.
+     *
+     * @param mpegVersion 1 for MPEG-1, 2 for MPEG-2 and 25 for MPEG-2.5
+     * @param layer the layer (1, 2 or 3)
+     * @param bitrateKbps the bitrate in kbit/s
+     * @param sampleRate the sample rate in Hz
+     * @param mono whether the frame holds a single channel
+     * @param frameLength the length of the whole frame in bytes, header included
+     * @param samplesPerFrame the number of samples per channel encoded in the frame
+     */
+    public record FrameHeader(int mpegVersion, int layer, int bitrateKbps, int sampleRate, boolean mono,
+                              int frameLength, int samplesPerFrame) {
+    }
+
+    /**
+     * Parses the frame header at the given offset.
+     *
+     * @param audio the audio bytes
+     * @param offset the offset of the frame sync word
+     * @return the frame header, or null if there is no valid frame header at the offset
+     */
+    public static FrameHeader parseHeader(byte[] audio, int offset) {
+        if (offset < 0 || offset + 4 > audio.length) {
+            return null;
+        }
+        int b1 = audio[offset + 1] & 0xFF;
+        int b2 = audio[offset + 2] & 0xFF;
+        int b3 = audio[offset + 3] & 0xFF;
+        if ((audio[offset] & 0xFF) != 0xFF || (b1 & 0xE0) != 0xE0) {
+            return null;
+        }
+
+        int versionBits = (b1 >> 3) & 0x03;
+        int layerBits = (b1 >> 1) & 0x03;
+        int bitrateIndex = (b2 >> 4) & 0x0F;
+        int sampleRateIndex = (b2 >> 2) & 0x03;
+        if (versionBits == 1 || layerBits == 0 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+            return null;
+        }
+
+        int mpegVersion = versionBits == 3 ? 1 : versionBits == 2 ? 2 : 25;
+        int layer = 4 - layerBits;
+        int padding = (b2 >> 1) & 0x01;
+        boolean mono = ((b3 >> 6) & 0x03) == 3;
+
+        int bitrateTable = mpegVersion == 1 ? layer - 1 : (layer == 1 ? 3 : 4);
+        int bitrateKbps = BITRATES_KBPS[bitrateTable][bitrateIndex];
+        int sampleRate = SAMPLE_RATES[mpegVersion == 1 ? 0 : mpegVersion == 2 ? 1 : 2][sampleRateIndex];
+
+        int frameLength;
+        int samplesPerFrame;
+        if (layer == 1) {
+            frameLength = (12 * bitrateKbps * 1000 / sampleRate + padding) * 4;
+            samplesPerFrame = 384;
+        } else if (layer == 2 || mpegVersion == 1) {
+            frameLength = 144 * bitrateKbps * 1000 / sampleRate + padding;
+            samplesPerFrame = 1152;
+        } else {
+            frameLength = 72 * bitrateKbps * 1000 / sampleRate + padding;
+            samplesPerFrame = 576;
+        }
+        return new FrameHeader(mpegVersion, layer, bitrateKbps, sampleRate, mono, frameLength, samplesPerFrame);
+    }
+
+    /**
+     * Returns the length of the ID3v2 tag at the given offset.
+     *
+     * @param audio the audio bytes
+     * @param offset the offset to check
+     * @return the length of the tag including its header and footer, or 0 if there is no tag
+     */
+    public static int id3v2Length(byte[] audio, int offset) {
+        if (offset + ID3V2_HEADER_LENGTH > audio.length
+                || audio[offset] != 'I' || audio[offset + 1] != 'D' || audio[offset + 2] != '3') {
+            return 0;
+        }
+        int size = (audio[offset + 6] & 0x7F) << 21 | (audio[offset + 7] & 0x7F) << 14
+                | (audio[offset + 8] & 0x7F) << 7 | (audio[offset + 9] & 0x7F);
+        boolean hasFooter = (audio[offset + 5] & 0x10) != 0;
+        return ID3V2_HEADER_LENGTH + size + (hasFooter ? ID3V2_HEADER_LENGTH : 0);
+    }
+
+    /**
+     * Strips everything but audio frames from an MP3 stream: leading ID3v2 tags, a leading
+     * Xing/Info (VBR header) frame and a trailing ID3v1 tag. The result can be appended to another stream.
+     *
+     * @param audio the MP3 bytes
+     * @return the bare audio frames
+     */
+    public static byte[] stripMetadata(byte[] audio) {
+        int start = 0;
+        int tagLength;
+        while ((tagLength = id3v2Length(audio, start)) > 0) {
+            start += tagLength;
+        }
+
+        FrameHeader header = parseHeader(audio, start);
+        if (header != null && isInfoFrame(audio, start, header)) {
+            start += header.frameLength();
+        }
+
+        int end = audio.length;
+        if (end - start >= ID3V1_TAG_LENGTH
+                && audio[end - ID3V1_TAG_LENGTH] == 'T' && audio[end - ID3V1_TAG_LENGTH + 1] == 'A' && audio[end - ID3V1_TAG_LENGTH + 2] == 'G') {
+            end -= ID3V1_TAG_LENGTH;
+        }
+
+        if (start == 0 && end == audio.length) {
+            return audio;
+        }
+        return Arrays.copyOfRange(audio, Math.min(start, end), end);
+    }
+
+    /**
+     * Checks whether the Layer III frame carries a Xing/Info/VBRI header instead of audio.
+     *
+     * @param audio the audio bytes
+     * @param offset the offset of the frame
+     * @param header the header of the frame
+     * @return whether the frame is a VBR header frame
+     */
+    public static boolean isInfoFrame(byte[] audio, int offset, FrameHeader header) {
+        if (header.layer() != 3) {
+            return false;
+        }
+        int sideInfoLength = getSideInfoLength(header);
+        return hasTag(audio, offset + 4 + sideInfoLength, "Xing")
+                || hasTag(audio, offset + 4 + sideInfoLength, "Info")
+                || hasTag(audio, offset + 4 + 32, "VBRI");
+    }
+
+    /**
+     * Returns the number of audio frames announced by the Xing/Info/VBRI header frame at the given offset.
+     *
+     * @param audio the audio bytes
+     * @param offset the offset of the VBR header frame
+     * @param header the header of the frame
+     * @return the number of frames, or -1 if the frame is no VBR header frame or does not announce the count
+     */
+    public static long infoFrameCount(byte[] audio, int offset, FrameHeader header) {
+        if (!isInfoFrame(audio, offset, header)) {
+            return -1;
+        }
+        int xing = offset + 4 + getSideInfoLength(header);
+        if (hasTag(audio, xing, "Xing") || hasTag(audio, xing, "Info")) {
+            // The flags tell which fields follow, the frame count comes first
+            if (xing + 12 > audio.length || (readInt(audio, xing + 4) & 0x01) == 0) {
+                return -1;
+            }
+            return readInt(audio, xing + 8) & 0xFFFFFFFFL;
+        }
+        int vbri = offset + 4 + 32;
+        if (vbri + 18 > audio.length) {
+            return -1;
+        }
+        return readInt(audio, vbri + 14) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Checks whether a Layer III frame encodes digital silence. Encoders spend no Huffman bits
+     * on silent granules, so the part2_3_length of every granule and channel in the side information is 0.
+     *
+     * @param audio the audio bytes
+     * @param offset the offset of the frame
+     * @param header the header of the frame
+     * @return whether the frame is silent, false for frames that are not Layer III
+     */
+    public static boolean isSilentFrame(byte[] audio, int offset, FrameHeader header) {
+        return mainDataBits(audio, offset, header) == 0;
+    }
+
+    /**
+     * Returns the number of bits a Layer III frame spends on scale factors and Huffman coded samples, the sum of
+     * the part2_3_length of every granule and channel. Quiet audio needs far fewer bits than speech or music,
+     * so the count tells loud from quiet frames without decoding them.
+     *
+     * @param audio the audio bytes
+     * @param offset the offset of the frame
+     * @param header the header of the frame
+     * @return the number of main data bits, or -1 for frames that are not Layer III or are cut off
+     */
+    public static int mainDataBits(byte[] audio, int offset, FrameHeader header) {
+        if (header.layer() != 3) {
+            return -1;
+        }
+        boolean crcProtected = (audio[offset + 1] & 0x01) == 0;
+        int sideInfo = offset + 4 + (crcProtected ? 2 : 0);
+        if (sideInfo + getSideInfoLength(header) > audio.length) {
+            return -1;
+        }
+
+        int channels = header.mono() ? 1 : 2;
+        int granules = header.mpegVersion() == 1 ? 2 : 1;
+        // main_data_begin, private bits and, for MPEG-1, the scale factor selection come first
+        int bit = header.mpegVersion() == 1 ? 9 + (header.mono() ? 5 : 3) + 4 * channels : 8 + channels;
+        int granuleBits = header.mpegVersion() == 1 ? 59 : 63;
+        int mainDataBits = 0;
+        for (int granule = 0; granule < granules * channels; granule++) {
+            mainDataBits += readBits(audio, sideInfo, bit, 12);
+            bit += granuleBits;
+        }
+        return mainDataBits;
+    }
+
+    private static int getSideInfoLength(FrameHeader header) {
+        return header.mpegVersion() == 1 ? (header.mono() ? 17 : 32) : (header.mono() ? 9 : 17);
+    }
+
+    private static int readBits(byte[] audio, int offset, int bit, int count) {
+        int value = 0;
+        for (int i = bit; i < bit + count; i++) {
+            value = value << 1 | (audio[offset + i / 8] >> (7 - i % 8)) & 0x01;
+        }
+        return value;
+    }
+
+    private static int readInt(byte[] audio, int offset) {
+        return (audio[offset] & 0xFF) << 24 | (audio[offset + 1] & 0xFF) << 16 | (audio[offset + 2] & 0xFF) << 8 | (audio[offset + 3] & 0xFF);
+    }
+
+    private static boolean hasTag(byte[] audio, int offset, String tag) {
+        if (offset + tag.length() > audio.length) {
+            return false;
+        }
+        for (int i = 0; i < tag.length(); i++) {
+            if (audio[offset + i] != tag.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
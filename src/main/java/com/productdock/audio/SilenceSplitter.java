@@ -0,0 +1,341 @@
+package com.productdock.audio;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Splits long recordings at pauses, so the parts can be transcribed in parallel without cutting a word in two.
+ * <p>
+ * The audio is measured in short units and every unit is either quiet or not: PCM WAV files in 20 ms windows whose
+ * RMS level is compared with a threshold in dBFS, MP3 files frame by frame, a frame is quiet if it spends a fraction
+ * of the main data bits of the median frame. A run of quiet units at least as long as the minimum silence is a
+ * pause, each cut is made in the middle of the pause closest to the next segment length. Other formats are compressed
+ * in ways that cannot be measured without decoding and are not split.
+ * <p>
+ * WAV segments get a header of their own, MP3 segments are whole frames. The first frame of an MP3 segment may refer
+ * to bits of the frame before it, which decoders skip, as the cut is in a pause nothing audible is lost.
+ * <p>
+ * Recordings that are streamed are split by {@link StreamingSilenceSplitter} with the same measures.
+ */
+public final class SilenceSplitter {
+
+    private static final int WAV_WINDOW_MILLIS = 20;
+    private static final int WAVE_FORMAT_PCM = 0x0001;
+    private static final int WAVE_FORMAT_EXTENSIBLE = 0xFFFE;
+    private static final double FULL_SCALE = 32768;
+    static final double MP3_QUIET_BITS_RATIO = 0.2;
+
+    private SilenceSplitter() {
+    }
+
+    /**
+     * How recordings are split.
+     *
+     * @param segmentLength        the length segments are cut at, as close as a pause allows
+     * @param minSilence           the shortest pause a cut is made in
+     * @param silenceThresholdDbfs the RMS level below which PCM audio counts as silence
+     */
+    public record SplitSettings(Duration segmentLength, Duration minSilence, double silenceThresholdDbfs) {
+    }
+
+    /**
+     * A part of a split recording.
+     *
+     * @param audio  the audio of the part, playable on its own
+     * @param offset the time in the recording the part starts at
+     */
+    public record AudioSegment(byte[] audio, Duration offset) {
+    }
+
+    /**
+     * Splits a recording at pauses near every segment length.
+     *
+     * @param audio    the whole recording
+     * @param format   the probed format of the recording
+     * @param settings how the recording is split
+     * @return the segments in order, a single segment holding the whole recording if it is not split
+     */
+    public static List<AudioSegment> split(byte[] audio, AudioFormat format, SplitSettings settings) {
+        List<AudioSegment> segments = switch (format) {
+            case WAV -> splitWav(audio, settings);
+            case MP3 -> splitMp3(audio, settings);
+            default -> null;
+        };
+        return segments != null ? segments : List.of(new AudioSegment(audio, Duration.ZERO));
+    }
+
+    /**
+     * Chooses where to cut a recording measured in units.
+     *
+     * @param unitStartMillis the start of every unit, followed by the end of the recording
+     * @param quiet           whether each unit is quiet
+     * @return the indexes of the units that start a new segment, in order
+     */
+    static List<Integer> findCuts(long[] unitStartMillis, boolean[] quiet, SplitSettings settings) {
+        int units = quiet.length;
+        long endMillis = unitStartMillis[units];
+        long segmentMillis = settings.segmentLength().toMillis();
+        long minSilenceMillis = settings.minSilence().toMillis();
+
+        // The middle of every pause long enough, pauses at the very start or end are no use
+        List<Integer> candidates = new ArrayList<>();
+        int runStart = -1;
+        for (int i = 0; i <= units; i++) {
+            if (i < units && quiet[i]) {
+                if (runStart < 0) {
+                    runStart = i;
+                }
+            } else if (runStart >= 0) {
+                if (runStart > 0 && i < units && unitStartMillis[i] - unitStartMillis[runStart] >= minSilenceMillis) {
+                    candidates.add((runStart + i) / 2);
+                }
+                runStart = -1;
+            }
+        }
+
+        List<Integer> cuts = new ArrayList<>();
+        long segmentStart = 0;
+        while (endMillis - segmentStart > segmentMillis) {
+            long target = segmentStart + segmentMillis;
+            int best = -1;
+            for (int candidate : candidates) {
+                long at = unitStartMillis[candidate];
+                // Neither the segment nor the rest after it should end up shorter than half a segment
+                if (at - segmentStart < segmentMillis / 2 || endMillis - at < segmentMillis / 2) {
+                    continue;
+                }
+                if (best < 0 || Math.abs(at - target) < Math.abs(unitStartMillis[best] - target)) {
+                    best = candidate;
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            cuts.add(best);
+            segmentStart = unitStartMillis[best];
+        }
+        return cuts;
+    }
+
+    private static List<AudioSegment> splitWav(byte[] audio, SplitSettings settings) {
+        if (!startsWith(audio, 0, "RIFF") || !startsWith(audio, 8, "WAVE")) {
+            return null;
+        }
+        int fmtBody = -1;
+        int fmtSize = 0;
+        long pos = 12;
+        while (pos + 8 <= audio.length) {
+            int chunk = (int) pos;
+            long size = readIntLe(audio, chunk + 4) & 0xFFFFFFFFL;
+            int body = chunk + 8;
+            if (startsWith(audio, chunk, "fmt ") && size >= 16 && body + size <= audio.length) {
+                fmtBody = body;
+                fmtSize = (int) size;
+            } else if (startsWith(audio, chunk, "data")) {
+                if (fmtBody < 0) {
+                    return null;
+                }
+                // Streaming encoders write the header before they know the size
+                long available = audio.length - body;
+                int dataSize = (int) (size == 0 || size > available ? available : size);
+                return splitWavData(audio, fmtBody, fmtSize, body, dataSize, settings);
+            }
+            // Chunks are padded to an even size
+            pos = body + size + (size & 1);
+        }
+        return null;
+    }
+
+    private static List<AudioSegment> splitWavData(byte[] audio, int fmtBody, int fmtSize, int dataStart, int dataSize,
+                                                   SplitSettings settings) {
+        int windowBytes = wavWindowBytes(audio, fmtBody);
+        if (windowBytes < 0) {
+            return null;
+        }
+        long byteRate = readIntLe(audio, fmtBody + 8) & 0xFFFFFFFFL;
+        int bitsPerSample = readShortLe(audio, fmtBody + 14);
+        int windows = (dataSize + windowBytes - 1) / windowBytes;
+        if (windows == 0) {
+            return null;
+        }
+        long[] windowStartMillis = new long[windows + 1];
+        boolean[] quiet = new boolean[windows];
+        for (int i = 0; i < windows; i++) {
+            int start = i * windowBytes;
+            windowStartMillis[i] = start * 1000L / byteRate;
+            quiet[i] = rmsDbfs(audio, dataStart + start, Math.min(windowBytes, dataSize - start), bitsPerSample / 8)
+                    < settings.silenceThresholdDbfs();
+        }
+        windowStartMillis[windows] = dataSize * 1000L / byteRate;
+        List<Integer> cuts = findCuts(windowStartMillis, quiet, settings);
+        if (cuts.isEmpty()) {
+            return null;
+        }
+
+        List<AudioSegment> segments = new ArrayList<>();
+        int segmentStart = 0;
+        for (int cut : append(cuts, windows)) {
+            int from = segmentStart * windowBytes;
+            int to = Math.min(cut * windowBytes, dataSize);
+            segments.add(new AudioSegment(buildWav(audio, fmtBody, fmtSize, dataStart + from, to - from),
+                    Duration.ofMillis(windowStartMillis[segmentStart])));
+            segmentStart = cut;
+        }
+        return segments;
+    }
+
+    /**
+     * Sizes the windows the level of PCM audio is measured in, whole sample frames of about 20 ms.
+     *
+     * @param audio   the bytes holding the format chunk
+     * @param fmtBody the offset of the body of the format chunk
+     * @return the window size in bytes, or -1 if the audio is no PCM audio that can be measured
+     */
+    static int wavWindowBytes(byte[] audio, int fmtBody) {
+        int formatTag = readShortLe(audio, fmtBody);
+        long byteRate = readIntLe(audio, fmtBody + 8) & 0xFFFFFFFFL;
+        int blockAlign = readShortLe(audio, fmtBody + 12);
+        int bitsPerSample = readShortLe(audio, fmtBody + 14);
+        if ((formatTag != WAVE_FORMAT_PCM && formatTag != WAVE_FORMAT_EXTENSIBLE)
+                || bitsPerSample < 8 || bitsPerSample > 32 || bitsPerSample % 8 != 0 || blockAlign == 0 || byteRate == 0) {
+            return -1;
+        }
+        return (int) Math.max(blockAlign, byteRate * WAV_WINDOW_MILLIS / 1000 / blockAlign * blockAlign);
+    }
+
+    static double rmsDbfs(byte[] audio, int offset, int length, int bytesPerSample) {
+        double sumOfSquares = 0;
+        int samples = 0;
+        for (int i = offset; i + bytesPerSample <= offset + length; i += bytesPerSample) {
+            // 8 bit samples are unsigned, wider samples are signed little-endian and their top 16 bits are enough
+            int sample = bytesPerSample == 1
+                    ? ((audio[i] & 0xFF) - 128) << 8
+                    : audio[i + bytesPerSample - 1] << 8 | audio[i + bytesPerSample - 2] & 0xFF;
+            sumOfSquares += (double) sample * sample;
+            samples++;
+        }
+        if (sumOfSquares == 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return 10 * Math.log10(sumOfSquares / samples / (FULL_SCALE * FULL_SCALE));
+    }
+
+    private static byte[] buildWav(byte[] audio, int fmtBody, int fmtSize, int dataOffset, int dataSize) {
+        byte[] header = wavHeader(audio, fmtBody, fmtSize, dataSize);
+        byte[] wav = Arrays.copyOf(header, header.length + dataSize);
+        System.arraycopy(audio, dataOffset, wav, header.length, dataSize);
+        return wav;
+    }
+
+    /**
+     * Builds the header of a WAV file holding only the given format chunk and a data chunk.
+     *
+     * @param dataSize the size of the data chunk, or -1 if it is not known yet
+     */
+    static byte[] wavHeader(byte[] audio, int fmtBody, int fmtSize, long dataSize) {
+        int fmtPadding = fmtSize & 1;
+        ByteBuffer header = ByteBuffer.allocate(12 + 8 + fmtSize + fmtPadding + 8).order(ByteOrder.LITTLE_ENDIAN);
+        // Like streaming encoders, sizes not known yet are written as the largest size
+        header.put(ascii("RIFF")).putInt(dataSize < 0 ? -1 : (int) (header.capacity() - 8 + dataSize)).put(ascii("WAVE"));
+        header.put(ascii("fmt ")).putInt(fmtSize).put(audio, fmtBody, fmtSize);
+        if (fmtPadding > 0) {
+            header.put((byte) 0);
+        }
+        header.put(ascii("data")).putInt(dataSize < 0 ? -1 : (int) dataSize);
+        return header.array();
+    }
+
+    private static List<AudioSegment> splitMp3(byte[] audio, SplitSettings settings) {
+        int pos = 0;
+        int tagLength;
+        while ((tagLength = Mp3Frames.id3v2Length(audio, pos)) > 0) {
+            pos += tagLength;
+        }
+
+        List<Integer> frameOffsets = new ArrayList<>();
+        List<Integer> frameBits = new ArrayList<>();
+        List<Long> frameStartMillis = new ArrayList<>();
+        long samples = 0;
+        int sampleRate = 0;
+        while (pos + 4 <= audio.length) {
+            Mp3Frames.FrameHeader header = Mp3Frames.parseHeader(audio, pos);
+            if (header == null || header.layer() != 3 || pos + header.frameLength() > audio.length) {
+                // An ID3v1 or APE tag, trailing junk or a cut off frame
+                break;
+            }
+            // The VBR header frame holds no audio, the segments do without it
+            if (!frameOffsets.isEmpty() || !Mp3Frames.isInfoFrame(audio, pos, header)) {
+                sampleRate = header.sampleRate();
+                frameOffsets.add(pos);
+                frameBits.add(Mp3Frames.mainDataBits(audio, pos, header));
+                frameStartMillis.add(samples * 1000 / sampleRate);
+                samples += header.samplesPerFrame();
+            }
+            pos += header.frameLength();
+        }
+        int frames = frameOffsets.size();
+        if (frames == 0) {
+            return null;
+        }
+        int framesEnd = pos;
+
+        int[] sortedBits = frameBits.stream().mapToInt(Integer::intValue).sorted().toArray();
+        double quietBits = sortedBits[frames / 2] * MP3_QUIET_BITS_RATIO;
+        long[] startMillis = new long[frames + 1];
+        boolean[] quiet = new boolean[frames];
+        for (int i = 0; i < frames; i++) {
+            startMillis[i] = frameStartMillis.get(i);
+            quiet[i] = frameBits.get(i) <= quietBits;
+        }
+        startMillis[frames] = samples * 1000 / sampleRate;
+        List<Integer> cuts = findCuts(startMillis, quiet, settings);
+        if (cuts.isEmpty()) {
+            return null;
+        }
+
+        List<AudioSegment> segments = new ArrayList<>();
+        int segmentStart = 0;
+        for (int cut : append(cuts, frames)) {
+            int to = cut < frames ? frameOffsets.get(cut) : framesEnd;
+            segments.add(new AudioSegment(Arrays.copyOfRange(audio, frameOffsets.get(segmentStart), to),
+                    Duration.ofMillis(startMillis[segmentStart])));
+            segmentStart = cut;
+        }
+        return segments;
+    }
+
+    private static List<Integer> append(List<Integer> cuts, int end) {
+        List<Integer> bounds = new ArrayList<>(cuts);
+        bounds.add(end);
+        return bounds;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    static boolean startsWith(byte[] audio, int offset, String ascii) {
+        if (offset < 0 || offset + ascii.length() > audio.length) {
+            return false;
+        }
+        for (int i = 0; i < ascii.length(); i++) {
+            if (audio[offset + i] != ascii.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int readShortLe(byte[] audio, int offset) {
+        return (audio[offset] & 0xFF) | (audio[offset + 1] & 0xFF) << 8;
+    }
+
+    static int readIntLe(byte[] audio, int offset) {
+        return readShortLe(audio, offset) | readShortLe(audio, offset + 2) << 16;
+    }
+}
@@ -0,0 +1,368 @@
+package com.productdock.audio;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Splits a recording at pauses while it is read, so a long upload can be stored segment by segment without
+ * holding it in memory.
+ * <p>
+ * The audio is measured in the same units as {@link SilenceSplitter}. The length of a stream is not known in
+ * advance, so a segment is cut in the middle of the first pause of at least the minimum silence once it is as long
+ * as the segment length, and only the pause being measured is held back. Without a pause a segment goes on,
+ * the last segment is whatever is left.
+ * <p>
+ * WAV segments get a header of their own whose sizes are left open, like streaming encoders write them.
+ * MP3 segments are whole frames, leading tags and the VBR header frame are dropped. Other formats and audio that
+ * cannot be measured are passed through as a single segment.
+ * <p>
+ * Each segment has to be read to its end before the next one is asked for. Not thread-safe.
+ */
+public final class StreamingSilenceSplitter {
+
+    private static final int HEAD_BYTES = AudioProbe.HEADER_BYTES;
+    private static final int RAW_CHUNK_BYTES = 64 * 1024;
+    // part2_3_length has 12 bits per granule and channel, at most four of them in a frame
+    private static final int MAX_MAIN_DATA_BITS = 4 * 4095;
+    private static final int MP3_MEDIAN_INTERVAL_FRAMES = 1000;
+
+    private final InputStream source;
+    private final AudioFormat format;
+    private final long segmentMillis;
+    private final long minSilenceMillis;
+    private final double silenceThresholdDbfs;
+
+    private UnitReader units;
+    // The header every WAV segment starts with, null for other formats
+    private byte[] segmentHeader;
+    // The second half of the pause the last segment was cut in, it starts the next segment
+    private final Deque<Unit> carried = new ArrayDeque<>();
+    private SegmentStream current;
+    private boolean ended;
+
+    /**
+     * @param audio    the recording, read no further than its audio ends
+     * @param format   the probed format of the recording
+     * @param settings how the recording is split
+     */
+    public StreamingSilenceSplitter(InputStream audio, AudioFormat format, SilenceSplitter.SplitSettings settings) {
+        this.source = audio;
+        this.format = format;
+        this.segmentMillis = settings.segmentLength().toMillis();
+        this.minSilenceMillis = settings.minSilence().toMillis();
+        this.silenceThresholdDbfs = settings.silenceThresholdDbfs();
+    }
+
+    /**
+     * A part of a streamed recording.
+     *
+     * @param audio  the part as a file of the format of the recording, to be read to its end
+     * @param offset the time in the recording the part starts at
+     */
+    public record StreamedSegment(InputStream audio, Duration offset) {
+    }
+
+    /**
+     * Cuts the next segment off the recording. The first segment is returned even if the recording is empty.
+     *
+     * @return the next segment, or null once the recording has ended
+     * @throws IOException if the recording cannot be read
+     */
+    public StreamedSegment nextSegment() throws IOException {
+        if (units == null) {
+            units = openUnits();
+        } else if (!current.complete || current.hasPending()) {
+            throw new IllegalStateException("The previous segment was not read to its end");
+        } else if (ended) {
+            return null;
+        }
+        long startMillis = carried.isEmpty() ? (current == null ? 0 : current.endMillis) : carried.peekFirst().startMillis();
+        current = new SegmentStream(startMillis);
+        return new StreamedSegment(current, Duration.ofMillis(startMillis));
+    }
+
+    private UnitReader openUnits() throws IOException {
+        BufferedInputStream in = new BufferedInputStream(source, HEAD_BYTES);
+        in.mark(HEAD_BYTES);
+        byte[] head = in.readNBytes(HEAD_BYTES);
+        in.reset();
+        UnitReader reader = switch (format) {
+            case WAV -> openWav(head, in);
+            case MP3 -> openMp3(head, in);
+            default -> null;
+        };
+        return reader != null ? reader : new RawUnits(in, 0);
+    }
+
+    private UnitReader openWav(byte[] head, InputStream in) throws IOException {
+        if (!SilenceSplitter.startsWith(head, 0, "RIFF") || !SilenceSplitter.startsWith(head, 8, "WAVE")) {
+            return null;
+        }
+        int fmtBody = -1;
+        int fmtSize = 0;
+        long pos = 12;
+        while (pos + 8 <= head.length) {
+            int chunk = (int) pos;
+            long size = SilenceSplitter.readIntLe(head, chunk + 4) & 0xFFFFFFFFL;
+            int body = chunk + 8;
+            if (SilenceSplitter.startsWith(head, chunk, "fmt ") && size >= 16 && body + size <= head.length) {
+                fmtBody = body;
+                fmtSize = (int) size;
+            } else if (SilenceSplitter.startsWith(head, chunk, "data")) {
+                int windowBytes = fmtBody < 0 ? -1 : SilenceSplitter.wavWindowBytes(head, fmtBody);
+                if (windowBytes < 0) {
+                    return null;
+                }
+                in.skipNBytes(body);
+                segmentHeader = SilenceSplitter.wavHeader(head, fmtBody, fmtSize, -1);
+                // Streaming encoders write the header before they know the size
+                long dataSize = size == 0 || size == 0xFFFFFFFFL ? Long.MAX_VALUE : size;
+                return new WavUnits(in, windowBytes, SilenceSplitter.readIntLe(head, fmtBody + 8) & 0xFFFFFFFFL,
+                        SilenceSplitter.readShortLe(head, fmtBody + 14) / 8, dataSize);
+            }
+            // Chunks are padded to an even size
+            pos = body + size + (size & 1);
+        }
+        return null;
+    }
+
+    private UnitReader openMp3(byte[] head, InputStream in) throws IOException {
+        int pos = 0;
+        int tagLength;
+        while ((tagLength = Mp3Frames.id3v2Length(head, pos)) > 0) {
+            pos += tagLength;
+        }
+        try {
+            in.skipNBytes(pos);
+        } catch (EOFException e) {
+            return null;
+        }
+        return new Mp3Units(in);
+    }
+
+    /**
+     * A piece of audio measured as a whole, a WAV window or an MP3 frame.
+     */
+    private record Unit(byte[] bytes, long startMillis, long endMillis, boolean quiet) {
+    }
+
+    private interface UnitReader {
+
+        /**
+         * @return the next unit, or null at the end of the audio
+         */
+        Unit next() throws IOException;
+    }
+
+    private final class SegmentStream extends InputStream {
+
+        private final long startMillis;
+        private final Deque<byte[]> pending = new ArrayDeque<>();
+        // The quiet units after the segment length was reached, cut in the middle once they make a pause
+        private final List<Unit> pause = new ArrayList<>();
+        private byte[] buffer = new byte[0];
+        private int position;
+        private long endMillis;
+        private boolean complete;
+
+        SegmentStream(long startMillis) {
+            this.startMillis = startMillis;
+            this.endMillis = startMillis;
+            if (segmentHeader != null) {
+                pending.add(segmentHeader);
+            }
+            while (!carried.isEmpty()) {
+                add(carried.poll());
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+            if (len == 0) {
+                return 0;
+            }
+            while (position == buffer.length) {
+                if (!pending.isEmpty()) {
+                    buffer = pending.poll();
+                    position = 0;
+                } else if (complete) {
+                    return -1;
+                } else {
+                    readUnit();
+                }
+            }
+            int read = Math.min(len, buffer.length - position);
+            System.arraycopy(buffer, position, b, off, read);
+            position += read;
+            return read;
+        }
+
+        boolean hasPending() {
+            return position < buffer.length || !pending.isEmpty();
+        }
+
+        private void readUnit() throws IOException {
+            Unit unit = units.next();
+            if (unit == null) {
+                pause.forEach(this::add);
+                pause.clear();
+                complete = true;
+                ended = true;
+                return;
+            }
+            if (!unit.quiet() || unit.startMillis() - startMillis < segmentMillis) {
+                pause.forEach(this::add);
+                pause.clear();
+                add(unit);
+                return;
+            }
+            pause.add(unit);
+            if (unit.endMillis() - pause.get(0).startMillis() >= minSilenceMillis) {
+                int middle = pause.size() / 2;
+                pause.subList(0, middle).forEach(this::add);
+                carried.addAll(pause.subList(middle, pause.size()));
+                pause.clear();
+                complete = true;
+            }
+        }
+
+        private void add(Unit unit) {
+            pending.add(unit.bytes());
+            endMillis = unit.endMillis();
+        }
+    }
+
+    private final class WavUnits implements UnitReader {
+
+        private final InputStream in;
+        private final int windowBytes;
+        private final long byteRate;
+        private final int bytesPerSample;
+        private long remaining;
+        private long position;
+
+        WavUnits(InputStream in, int windowBytes, long byteRate, int bytesPerSample, long dataSize) {
+            this.in = in;
+            this.windowBytes = windowBytes;
+            this.byteRate = byteRate;
+            this.bytesPerSample = bytesPerSample;
+            this.remaining = dataSize;
+        }
+
+        @Override
+        public Unit next() throws IOException {
+            byte[] window = in.readNBytes((int) Math.min(windowBytes, remaining));
+            if (window.length == 0) {
+                return null;
+            }
+            remaining -= window.length;
+            long startMillis = position * 1000 / byteRate;
+            position += window.length;
+            return new Unit(window, startMillis, position * 1000 / byteRate,
+                    SilenceSplitter.rmsDbfs(window, 0, window.length, bytesPerSample) < silenceThresholdDbfs);
+        }
+    }
+
+    private final class Mp3Units implements UnitReader {
+
+        private final InputStream in;
+        // How many frames spent each number of main data bits, for the median
+        private final int[] bitsHistogram = new int[MAX_MAIN_DATA_BITS + 1];
+        private long frames;
+        private double quietBits;
+        private long samples;
+        private long endMillis;
+        private UnitReader rest;
+
+        Mp3Units(InputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public Unit next() throws IOException {
+            if (rest != null) {
+                return rest.next();
+            }
+            byte[] frame = in.readNBytes(4);
+            if (frame.length == 0) {
+                return null;
+            }
+            Mp3Frames.FrameHeader header = frame.length == 4 ? Mp3Frames.parseHeader(frame, 0) : null;
+            if (header == null || header.layer() != 3) {
+                // An ID3v1 or APE tag or trailing junk, passed on with the last segment
+                return passRest(frame);
+            }
+            frame = Arrays.copyOf(frame, header.frameLength());
+            int read = in.readNBytes(frame, 4, frame.length - 4);
+            if (read < frame.length - 4) {
+                return passRest(Arrays.copyOf(frame, 4 + read));
+            }
+            // The VBR header frame holds no audio, the segments do without it
+            if (frames == 0 && Mp3Frames.isInfoFrame(frame, 0, header)) {
+                return next();
+            }
+
+            int bits = Mp3Frames.mainDataBits(frame, 0, header);
+            if (bits < 0 || bits > MAX_MAIN_DATA_BITS) {
+                bits = MAX_MAIN_DATA_BITS;
+            }
+            bitsHistogram[bits]++;
+            if (frames++ % MP3_MEDIAN_INTERVAL_FRAMES == 0) {
+                quietBits = medianBits() * SilenceSplitter.MP3_QUIET_BITS_RATIO;
+            }
+            long startMillis = endMillis;
+            samples += header.samplesPerFrame();
+            endMillis = samples * 1000 / header.sampleRate();
+            return new Unit(frame, startMillis, endMillis, bits <= quietBits);
+        }
+
+        private int medianBits() {
+            long seen = 0;
+            for (int bits = 0; bits < bitsHistogram.length; bits++) {
+                seen += bitsHistogram[bits];
+                if (seen > frames / 2) {
+                    return bits;
+                }
+            }
+            return MAX_MAIN_DATA_BITS;
+        }
+
+        private Unit passRest(byte[] bytes) {
+            rest = new RawUnits(in, endMillis);
+            return new Unit(bytes, endMillis, endMillis, false);
+        }
+    }
+
+    private static final class RawUnits implements UnitReader {
+
+        private final InputStream in;
+        private final long millis;
+
+        RawUnits(InputStream in, long millis) {
+            this.in = in;
+            this.millis = millis;
+        }
+
+        @Override
+        public Unit next() throws IOException {
+            byte[] chunk = in.readNBytes(RAW_CHUNK_BYTES);
+            return chunk.length == 0 ? null : new Unit(chunk, millis, millis, false);
+        }
+    }
+}
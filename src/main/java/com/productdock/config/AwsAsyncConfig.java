@@ -0,0 +1,108 @@
+package com.productdock.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.comprehend.ComprehendAsyncClient;
+import software.amazon.awssdk.services.polly.PollyAsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.transcribe.TranscribeAsyncClient;
+
+/**
+ * Async AWS clients for the non-blocking mode, enabled with {@code aws.async.enabled}.
+ * <p>
+ * All clients share one Netty HTTP client, so a few event loop threads serve every AWS call
+ * and no thread is held while AWS is working.
+ */
+@Configuration
+@ConditionalOnProperty(name = "aws.async.enabled", havingValue = "true")
+public class AwsAsyncConfig {
+
+    @Value("${aws.region}")
+    private String awsRegion;
+
+    @Value("${aws.async.max-concurrency}")
+    private int maxConcurrency;
+
+    /**
+     * Creates the Netty HTTP client shared by all async AWS clients.
+     * The SDK does not close shared HTTP clients, so it is closed with the application context.
+     *
+     * @return SdkAsyncHttpClient limited to the configured number of concurrent connections.
+     */
+    @Bean(destroyMethod = "close")
+    public SdkAsyncHttpClient awsAsyncHttpClient() {
+        return NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(maxConcurrency)
+                .build();
+    }
+
+    /**
+     * Creates a PollyAsyncClient bean on the shared HTTP client.
+     *
+     * @param awsAsyncHttpClient the shared HTTP client
+     * @return PollyAsyncClient configured with the specified region and default credentials.
+     */
+    @Bean
+    public PollyAsyncClient pollyAsyncClient(SdkAsyncHttpClient awsAsyncHttpClient) {
+        return PollyAsyncClient.builder()
+                .region(Region.of(awsRegion))
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .overrideConfiguration(AwsConfig.NO_RETRIES)
+                .httpClient(awsAsyncHttpClient)
+                .build();
+    }
+
+    /**
+     * Creates a ComprehendAsyncClient bean on the shared HTTP client.
+     *
+     * @param awsAsyncHttpClient the shared HTTP client
+     * @return ComprehendAsyncClient configured with the specified region and default credentials.
+     */
+    @Bean
+    public ComprehendAsyncClient comprehendAsyncClient(SdkAsyncHttpClient awsAsyncHttpClient) {
+        return ComprehendAsyncClient.builder()
+                .region(Region.of(awsRegion))
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .overrideConfiguration(AwsConfig.NO_RETRIES)
+                .httpClient(awsAsyncHttpClient)
+                .build();
+    }
+
+    /**
+     * Creates a TranscribeAsyncClient bean on the shared HTTP client.
+     *
+     * @param awsAsyncHttpClient the shared HTTP client
+     * @return TranscribeAsyncClient configured with the specified region and default credentials.
+     */
+    @Bean
+    public TranscribeAsyncClient transcribeAsyncClient(SdkAsyncHttpClient awsAsyncHttpClient) {
+        return TranscribeAsyncClient.builder()
+                .region(Region.of(awsRegion))
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .overrideConfiguration(AwsConfig.NO_RETRIES)
+                .httpClient(awsAsyncHttpClient)
+                .build();
+    }
+
+    /**
+     * Creates a S3AsyncClient bean on the shared HTTP client.
+     *
+     * @param awsAsyncHttpClient the shared HTTP client
+     * @return S3AsyncClient configured with the specified region and default credentials.
+     */
+    @Bean
+    public S3AsyncClient s3AsyncClient(SdkAsyncHttpClient awsAsyncHttpClient) {
+        return S3AsyncClient.builder()
+                .region(Region.of(awsRegion))
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .overrideConfiguration(AwsConfig.NO_RETRIES)
+                .httpClient(awsAsyncHttpClient)
+                .build();
+    }
+}
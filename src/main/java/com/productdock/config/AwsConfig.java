@@ -4,18 +4,38 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.comprehend.ComprehendClient;
 import software.amazon.awssdk.services.polly.PollyClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.transcribe.TranscribeClient;
+import software.amazon.awssdk.services.transcribestreaming.TranscribeStreamingAsyncClient;
+import software.amazon.awssdk.services.transcribestreaming.TranscribeStreamingAsyncClientBuilder;
+
+import java.net.URI;
 
 @Configuration
 public class AwsConfig {
 
+    // Retries are made by the retry policies of the repositories, see RetryConfig
+    static final ClientOverrideConfiguration NO_RETRIES = ClientOverrideConfiguration.builder()
+            .retryStrategy(AwsRetryStrategy.doNotRetry())
+            .build();
+
     @Value("${aws.region}")
     private String awsRegion;
 
+    @Value("${spring.threads.virtual.enabled}")
+    private boolean virtualThreadsEnabled;
+
+    @Value("${aws.transcribe.streaming.endpoint}")
+    private String transcribeStreamingEndpoint;
+
     /**
      * Creates a PollyClient bean.
      * <p>
@@ -29,6 +49,8 @@ public class AwsConfig {
         return PollyClient.builder()
                 .region(Region.of(awsRegion))
                 .credentialsProvider(DefaultCredentialsProvider.create())
+                .overrideConfiguration(NO_RETRIES)
+                .httpClientBuilder(httpClientBuilder())
                 .build();
     }
 
@@ -45,6 +67,8 @@ public class AwsConfig {
         return ComprehendClient.builder()
                 .region(Region.of(awsRegion))
                 .credentialsProvider(DefaultCredentialsProvider.create())
+                .overrideConfiguration(NO_RETRIES)
+                .httpClientBuilder(httpClientBuilder())
                 .build();
     }
 
@@ -61,6 +85,8 @@ public class AwsConfig {
         return TranscribeClient.builder()
                 .region(Region.of(awsRegion))
                 .credentialsProvider(DefaultCredentialsProvider.create())
+                .overrideConfiguration(NO_RETRIES)
+                .httpClientBuilder(httpClientBuilder())
                 .build();
     }
 
@@ -77,6 +103,45 @@ public class AwsConfig {
         return S3Client.builder()
                 .region(Region.of(awsRegion))
                 .credentialsProvider(DefaultCredentialsProvider.create())
+                .overrideConfiguration(NO_RETRIES)
+                .httpClientBuilder(httpClientBuilder())
                 .build();
     }
+
+    /**
+     * Creates a TranscribeStreamingAsyncClient bean for live transcription.
+     * <p>
+     * Transcribe Streaming is only offered as an async client over HTTP/2, it brings its own Netty HTTP client
+     * and is not affected by {@code aws.async.enabled}. A live stream cannot be replayed, so it is not retried.
+     * The endpoint can be overridden, for example to run against a local fake of the service.
+     *
+     * @return TranscribeStreamingAsyncClient configured with the specified region and default credentials.
+     */
+    @Bean(destroyMethod = "close")
+    public TranscribeStreamingAsyncClient transcribeStreamingAsyncClient() {
+        TranscribeStreamingAsyncClientBuilder builder = TranscribeStreamingAsyncClient.builder()
+                .region(Region.of(awsRegion))
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .overrideConfiguration(NO_RETRIES);
+        if (!transcribeStreamingEndpoint.isBlank()) {
+            builder.endpointOverride(URI.create(transcribeStreamingEndpoint));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Chooses the HTTP client of the blocking AWS clients.
+     * <p>
+     * The Apache client guards its connection pool with synchronized blocks, which pin a virtual thread
+     * to its carrier while it waits for a connection. HttpURLConnection only uses j.u.c. locks since Java 21,
+     * so virtual threads blocked on AWS I/O are unmounted and free their carrier.
+     *
+     * @return the HTTP client builder for the current threading mode
+     */
+    private SdkHttpClient.Builder<?> httpClientBuilder() {
+        if (VirtualThreads.isActive(virtualThreadsEnabled)) {
+            return UrlConnectionHttpClient.builder();
+        }
+        return ApacheHttpClient.builder();
+    }
 }
@@ -13,7 +13,8 @@ public class CorsConfig {
      * Configures CORS settings for the application.
      * <p>
      * This method allows cross-origin requests from the frontend app to the "/api/**" endpoints
-     * with GET, POST and OPTIONS methods.
+     * with GET, POST and OPTIONS methods. The audio location and range headers are exposed,
+     * so the frontend can seek within synthesized audio, and so is the retry delay of 503 responses.
      *
      * @return a WebMvcConfigurer instance with CORS configuration.
      */
@@ -26,7 +27,8 @@ public class CorsConfig {
                         //.allowedOrigins("*")
                         .allowedOrigins("https://talkscribe.org")
                         .allowedMethods("GET", "POST", "OPTIONS")
-                        .allowedHeaders("*");
+                        .allowedHeaders("*")
+                        .exposedHeaders("Content-Location", "Content-Range", "Accept-Ranges", "Retry-After");
             }
         };
     }
@@ -0,0 +1,90 @@
+package com.productdock.config;
+
+import com.productdock.resilience.Bulkhead;
+import com.productdock.resilience.CircuitBreaker;
+import com.productdock.resilience.DependencyGuard;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Circuit breakers and bulkheads of the AWS dependencies.
+ * <p>
+ * Each dependency has its own guard, so an outage or slowdown of one of them fails fast
+ * and does not hold the threads and connections the others need.
+ */
+@Configuration
+public class DependencyGuardConfig {
+
+    @Value("${circuit-breaker.failure-rate-percent}")
+    private int failureRatePercent;
+
+    @Value("${circuit-breaker.window-size}")
+    private int windowSize;
+
+    @Value("${circuit-breaker.min-calls}")
+    private int minCalls;
+
+    @Value("${circuit-breaker.open-duration-ms}")
+    private long openDurationMillis;
+
+    @Value("${circuit-breaker.half-open-calls}")
+    private int halfOpenCalls;
+
+    @Value("${bulkhead.max-wait-ms}")
+    private long maxWaitMillis;
+
+    /**
+     * Creates the guard of the Polly calls.
+     *
+     * @return DependencyGuard for Polly calls
+     */
+    @Bean
+    public DependencyGuard pollyGuard(@Value("${bulkhead.polly.max-concurrent}") int maxConcurrent,
+                                      MeterRegistry meterRegistry) {
+        return dependencyGuard("polly", "Polly", maxConcurrent, meterRegistry);
+    }
+
+    /**
+     * Creates the guard of the Comprehend calls.
+     *
+     * @return DependencyGuard for Comprehend calls
+     */
+    @Bean
+    public DependencyGuard comprehendGuard(@Value("${bulkhead.comprehend.max-concurrent}") int maxConcurrent,
+                                           MeterRegistry meterRegistry) {
+        return dependencyGuard("comprehend", "Comprehend", maxConcurrent, meterRegistry);
+    }
+
+    /**
+     * Creates the guard of the Transcribe calls.
+     *
+     * @return DependencyGuard for Transcribe calls
+     */
+    @Bean
+    public DependencyGuard transcribeGuard(@Value("${bulkhead.transcribe.max-concurrent}") int maxConcurrent,
+                                           MeterRegistry meterRegistry) {
+        return dependencyGuard("transcribe", "Transcribe", maxConcurrent, meterRegistry);
+    }
+
+    /**
+     * Creates the guard of the S3 calls.
+     *
+     * @return DependencyGuard for S3 calls
+     */
+    @Bean
+    public DependencyGuard s3Guard(@Value("${bulkhead.s3.max-concurrent}") int maxConcurrent,
+                                   MeterRegistry meterRegistry) {
+        return dependencyGuard("s3", "S3", maxConcurrent, meterRegistry);
+    }
+
+    private DependencyGuard dependencyGuard(String name, String displayName, int maxConcurrent, MeterRegistry meterRegistry) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(name, failureRatePercent, windowSize, minCalls,
+                Duration.ofMillis(openDurationMillis), halfOpenCalls, meterRegistry);
+        Bulkhead bulkhead = new Bulkhead(name, maxConcurrent, Duration.ofMillis(maxWaitMillis), meterRegistry);
+        return new DependencyGuard(displayName, circuitBreaker, bulkhead, meterRegistry);
+    }
+}
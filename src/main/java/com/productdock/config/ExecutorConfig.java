@@ -0,0 +1,154 @@
+package com.productdock.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ExecutorConfig {
+
+    private static final int COMPREHEND_BATCH_THREADS = 4;
+
+    @Value("${spring.threads.virtual.enabled}")
+    private boolean virtualThreadsEnabled;
+
+    /**
+     * Creates the executor of asynchronous Spring MVC requests, such as streamed audio responses.
+     * <p>
+     * Spring Boot only provides this executor when the application defines no executor of its own,
+     * so it is defined here the way Spring Boot would: on virtual threads if they are enabled,
+     * otherwise as a thread pool configured with the {@code spring.task.execution} properties.
+     *
+     * @param threadPoolTaskExecutorBuilder  the builder configured by Spring Boot for platform threads
+     * @param simpleAsyncTaskExecutorBuilder the builder configured by Spring Boot for virtual threads
+     * @return AsyncTaskExecutor for asynchronous request processing
+     */
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder threadPoolTaskExecutorBuilder,
+                                                     SimpleAsyncTaskExecutorBuilder simpleAsyncTaskExecutorBuilder) {
+        if (VirtualThreads.isActive(virtualThreadsEnabled)) {
+            return simpleAsyncTaskExecutorBuilder.build();
+        }
+        return threadPoolTaskExecutorBuilder.build();
+    }
+
+    /**
+     * Creates the executor that synthesizes segments of long texts in parallel.
+     * <p>
+     * The number of threads bounds the number of concurrent Polly calls made for long texts across all requests,
+     * while each request bounds its own parallelism separately. With virtual threads every segment gets a thread
+     * of its own and the same bound is kept as a concurrency limit.
+     *
+     * @param threads the number of synthesis threads
+     * @return Executor for segment synthesis
+     */
+    @Bean
+    public Executor speechSynthesisExecutor(@Value("${tts.long-text.executor-threads}") int threads) {
+        if (VirtualThreads.isActive(virtualThreadsEnabled)) {
+            return virtualThreadExecutor("tts-synthesis-", threads);
+        }
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("tts-synthesis-"));
+    }
+
+    /**
+     * Creates the executor that sends batched Comprehend language detections.
+     *
+     * @return Executor for Comprehend batches
+     */
+    @Bean
+    public Executor comprehendBatchExecutor() {
+        if (VirtualThreads.isActive(virtualThreadsEnabled)) {
+            return virtualThreadExecutor("comprehend-batch-", COMPREHEND_BATCH_THREADS);
+        }
+        return Executors.newFixedThreadPool(COMPREHEND_BATCH_THREADS, new CustomizableThreadFactory("comprehend-batch-"));
+    }
+
+    /**
+     * Creates the executor that makes hedged blocking Polly calls, so the caller can wait for whichever answers first.
+     * Threads are only created while calls are hedged and the number of hedged calls is limited by the retry budget.
+     *
+     * @return Executor for hedged Polly calls
+     */
+    @Bean
+    public Executor pollyHedgingExecutor() {
+        if (VirtualThreads.isActive(virtualThreadsEnabled)) {
+            return virtualThreadExecutor("polly-hedging-", SimpleAsyncTaskExecutor.UNBOUNDED_CONCURRENCY);
+        }
+        return Executors.newCachedThreadPool(new CustomizableThreadFactory("polly-hedging-"));
+    }
+
+    /**
+     * Creates the executor that uploads the parts of streamed audio files to S3 in parallel.
+     * Each upload limits its own parts in flight, the number of threads bounds the part uploads of all requests.
+     *
+     * @param threads the number of upload threads
+     * @return Executor for S3 part uploads
+     */
+    @Bean
+    public Executor s3UploadExecutor(@Value("${s3.multipart.upload-threads}") int threads) {
+        if (VirtualThreads.isActive(virtualThreadsEnabled)) {
+            return virtualThreadExecutor("s3-upload-", threads);
+        }
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("s3-upload-"));
+    }
+
+    /**
+     * Creates the executor that deletes finished transcription jobs. Transcribe has no batch delete,
+     * the number of threads bounds how many jobs are deleted at once.
+     *
+     * @param threads the number of cleanup threads
+     * @return Executor for Transcribe job deletions
+     */
+    @Bean
+    public Executor transcriptionCleanupExecutor(@Value("${stt.cleanup.delete-threads}") int threads) {
+        if (VirtualThreads.isActive(virtualThreadsEnabled)) {
+            return virtualThreadExecutor("stt-cleanup-", threads);
+        }
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("stt-cleanup-"));
+    }
+
+    /**
+     * Creates the executor that uploads the segments of split recordings and starts their transcription jobs
+     * in parallel. The number of threads bounds the segments started at once across all requests.
+     *
+     * @param threads the number of segment threads
+     * @return Executor for segment uploads
+     */
+    @Bean
+    public Executor transcriptionSegmentExecutor(@Value("${stt.long-audio.upload-threads}") int threads) {
+        if (VirtualThreads.isActive(virtualThreadsEnabled)) {
+            return virtualThreadExecutor("stt-segment-", threads);
+        }
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("stt-segment-"));
+    }
+
+    /**
+     * Creates the executor that checks the status of watched transcription jobs when the AWS clients are blocking.
+     * The number of threads bounds the status checks made at once.
+     *
+     * @param threads the number of watch threads
+     * @return Executor for status checks of watched jobs
+     */
+    @Bean
+    public Executor transcriptionWatchExecutor(@Value("${transcribe.watch.threads}") int threads) {
+        if (VirtualThreads.isActive(virtualThreadsEnabled)) {
+            return virtualThreadExecutor("stt-watch-", threads);
+        }
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("stt-watch-"));
+    }
+
+    private SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix, int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        return executor;
+    }
+}
@@ -0,0 +1,98 @@
+package com.productdock.config;
+
+import com.productdock.security.JdbcProxyManager;
+import com.productdock.security.RedisProxyManager;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import redis.clients.jedis.DefaultJedisClientConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisPooled;
+
+/**
+ * Backends of the cluster-wide rate limiting, chosen with {@code rate-limit.distributed.mode}:
+ * {@code jdbc} for a database table, {@code redis} for a Redis server, {@code none} to limit each instance on its own.
+ * <p>
+ * Backend calls time out quickly, a slow or unreachable backend makes the instances limit locally.
+ */
+@Configuration
+public class RateLimitConfig {
+
+    private static final String MODE = "rate-limit.distributed.mode";
+
+    @Value("${rate-limit.distributed.timeout-ms}")
+    private int timeoutMillis;
+
+    /**
+     * Creates the connection pool of the rate limit database. The pool starts without connecting,
+     * so an unreachable database does not fail the startup.
+     *
+     * @return HikariDataSource of the configured database
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = MODE, havingValue = "jdbc")
+    public HikariDataSource rateLimitDataSource(@Value("${rate-limit.distributed.jdbc.url}") String url,
+                                                @Value("${rate-limit.distributed.jdbc.username}") String username,
+                                                @Value("${rate-limit.distributed.jdbc.password}") String password,
+                                                @Value("${rate-limit.distributed.jdbc.max-pool-size}") int maxPoolSize) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("rate-limit");
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMaximumPoolSize(maxPoolSize);
+        config.setConnectionTimeout(Math.max(250, timeoutMillis));
+        config.setValidationTimeout(Math.max(250, timeoutMillis));
+        config.setInitializationFailTimeout(-1);
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Creates the buckets kept in the rate limit database.
+     *
+     * @param rateLimitDataSource the rate limit database
+     * @return JdbcProxyManager on the database
+     */
+    @Bean
+    @ConditionalOnProperty(name = MODE, havingValue = "jdbc")
+    public ProxyManager<String> jdbcProxyManager(HikariDataSource rateLimitDataSource,
+                                                 @Value("${rate-limit.distributed.jdbc.create-table}") boolean createTable) {
+        JdbcProxyManager proxyManager = new JdbcProxyManager(rateLimitDataSource,
+                Math.max(1, (timeoutMillis + 999) / 1000), createTable);
+        proxyManager.init();
+        return proxyManager;
+    }
+
+    /**
+     * Creates the pooled client of the rate limit Redis server.
+     *
+     * @return JedisPooled connected lazily to the configured server
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = MODE, havingValue = "redis")
+    public JedisPooled rateLimitJedis(@Value("${rate-limit.distributed.redis.host}") String host,
+                                      @Value("${rate-limit.distributed.redis.port}") int port,
+                                      @Value("${rate-limit.distributed.redis.password}") String password) {
+        return new JedisPooled(new HostAndPort(host, port), DefaultJedisClientConfig.builder()
+                .connectionTimeoutMillis(timeoutMillis)
+                .socketTimeoutMillis(timeoutMillis)
+                .password(password.isEmpty() ? null : password)
+                .build());
+    }
+
+    /**
+     * Creates the buckets kept in the rate limit Redis server.
+     *
+     * @param rateLimitJedis the client of the Redis server
+     * @return RedisProxyManager on the server
+     */
+    @Bean
+    @ConditionalOnProperty(name = MODE, havingValue = "redis")
+    public ProxyManager<String> redisProxyManager(JedisPooled rateLimitJedis) {
+        return new RedisProxyManager(rateLimitJedis);
+    }
+}
@@ -0,0 +1,118 @@
+package com.productdock.config;
+
+import com.productdock.resilience.HedgingPolicy;
+import com.productdock.resilience.RetryBudget;
+import com.productdock.resilience.RetryPolicy;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+/**
+ * Retry policies of the AWS clients.
+ * <p>
+ * The SDK clients are built without retries of their own, so every retry is made by these policies
+ * and counted against the shared retry budget.
+ */
+@Configuration
+public class RetryConfig {
+
+    /**
+     * Creates the retry budget shared by all AWS clients.
+     *
+     * @param ratio         retries allowed per first attempt
+     * @param minPerSecond  retries allowed per second regardless of traffic
+     * @param maxBalance    the maximum number of retries the budget holds
+     * @param meterRegistry the registry for the budget balance gauge
+     * @return RetryBudget shared by all retry and hedging policies
+     */
+    @Bean
+    public RetryBudget retryBudget(@Value("${retry.budget.ratio}") double ratio,
+                                   @Value("${retry.budget.min-per-second}") double minPerSecond,
+                                   @Value("${retry.budget.max-balance}") double maxBalance,
+                                   MeterRegistry meterRegistry) {
+        RetryBudget retryBudget = new RetryBudget(ratio, minPerSecond, maxBalance);
+        Gauge.builder("aws.retry.budget.balance", retryBudget, RetryBudget::getBalance)
+                .description("Retries currently available to AWS calls")
+                .register(meterRegistry);
+        return retryBudget;
+    }
+
+    /**
+     * Creates the retry policy of the Polly client.
+     *
+     * @return RetryPolicy for Polly calls
+     */
+    @Bean
+    public RetryPolicy pollyRetryPolicy(@Value("${retry.polly.max-attempts}") int maxAttempts,
+                                        @Value("${retry.polly.base-delay-ms}") long baseDelayMillis,
+                                        @Value("${retry.polly.max-delay-ms}") long maxDelayMillis,
+                                        RetryBudget retryBudget, MeterRegistry meterRegistry) {
+        return new RetryPolicy("polly", maxAttempts, Duration.ofMillis(baseDelayMillis), Duration.ofMillis(maxDelayMillis),
+                retryBudget, meterRegistry);
+    }
+
+    /**
+     * Creates the retry policy of the Comprehend client.
+     *
+     * @return RetryPolicy for Comprehend calls
+     */
+    @Bean
+    public RetryPolicy comprehendRetryPolicy(@Value("${retry.comprehend.max-attempts}") int maxAttempts,
+                                             @Value("${retry.comprehend.base-delay-ms}") long baseDelayMillis,
+                                             @Value("${retry.comprehend.max-delay-ms}") long maxDelayMillis,
+                                             RetryBudget retryBudget, MeterRegistry meterRegistry) {
+        return new RetryPolicy("comprehend", maxAttempts, Duration.ofMillis(baseDelayMillis), Duration.ofMillis(maxDelayMillis),
+                retryBudget, meterRegistry);
+    }
+
+    /**
+     * Creates the retry policy of the Transcribe client.
+     *
+     * @return RetryPolicy for Transcribe calls
+     */
+    @Bean
+    public RetryPolicy transcribeRetryPolicy(@Value("${retry.transcribe.max-attempts}") int maxAttempts,
+                                             @Value("${retry.transcribe.base-delay-ms}") long baseDelayMillis,
+                                             @Value("${retry.transcribe.max-delay-ms}") long maxDelayMillis,
+                                             RetryBudget retryBudget, MeterRegistry meterRegistry) {
+        return new RetryPolicy("transcribe", maxAttempts, Duration.ofMillis(baseDelayMillis), Duration.ofMillis(maxDelayMillis),
+                retryBudget, meterRegistry);
+    }
+
+    /**
+     * Creates the retry policy of the S3 client.
+     *
+     * @return RetryPolicy for S3 calls
+     */
+    @Bean
+    public RetryPolicy s3RetryPolicy(@Value("${retry.s3.max-attempts}") int maxAttempts,
+                                     @Value("${retry.s3.base-delay-ms}") long baseDelayMillis,
+                                     @Value("${retry.s3.max-delay-ms}") long maxDelayMillis,
+                                     RetryBudget retryBudget, MeterRegistry meterRegistry) {
+        return new RetryPolicy("s3", maxAttempts, Duration.ofMillis(baseDelayMillis), Duration.ofMillis(maxDelayMillis),
+                retryBudget, meterRegistry);
+    }
+
+    /**
+     * Creates the hedging policy of the Polly client.
+     *
+     * @param pollyHedgingExecutor the executor for hedged blocking calls
+     * @return HedgingPolicy for Polly calls
+     */
+    @Bean
+    public HedgingPolicy pollyHedgingPolicy(@Value("${polly.hedging.enabled}") boolean enabled,
+                                            @Value("${polly.hedging.min-delay-ms}") long minDelayMillis,
+                                            @Value("${polly.hedging.min-samples}") int minSamples,
+                                            RetryBudget retryBudget,
+                                            @Qualifier("pollyHedgingExecutor") Executor pollyHedgingExecutor,
+                                            MeterRegistry meterRegistry) {
+        return new HedgingPolicy("polly", enabled, Duration.ofMillis(minDelayMillis), minSamples, retryBudget,
+                pollyHedgingExecutor, meterRegistry);
+    }
+}
@@ -0,0 +1,21 @@
+package com.productdock.config;
+
+import org.springframework.boot.system.JavaVersion;
+
+/**
+ * Decides whether work runs on virtual threads, the same way Spring Boot does for the servlet container
+ * and the task scheduler: {@code spring.threads.virtual.enabled} is set and the application runs on Java 21 or later.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @param enabled the value of {@code spring.threads.virtual.enabled}
+     * @return true if virtual threads are enabled and supported by the running JVM
+     */
+    static boolean isActive(boolean enabled) {
+        return enabled && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE);
+    }
+}
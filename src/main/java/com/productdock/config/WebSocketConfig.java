@@ -0,0 +1,51 @@
+package com.productdock.config;
+
+import com.productdock.controller.LiveTranscriptionHandler;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final LiveTranscriptionHandler liveTranscriptionHandler;
+
+    @Value("${stt.live.max-frame-bytes}")
+    private int maxFrameBytes;
+
+    @Value("${stt.live.idle-timeout-ms}")
+    private long idleTimeoutMillis;
+
+    /**
+     * Registers the live transcription socket, open to the same origin as the REST API.
+     *
+     * @param registry the registry of WebSocket handlers
+     */
+    @Override
+    public void registerWebSocketHandlers(@NotNull WebSocketHandlerRegistry registry) {
+        registry.addHandler(liveTranscriptionHandler, "/api/speech-to-text/live")
+                .setAllowedOrigins("https://talkscribe.org");
+    }
+
+    /**
+     * Configures the WebSocket container: audio frames up to the configured size are accepted,
+     * and sockets that stay silent for the idle timeout are closed.
+     *
+     * @return ServletServerContainerFactoryBean with the live transcription limits
+     */
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxBinaryMessageBufferSize(maxFrameBytes);
+        container.setMaxSessionIdleTimeout(idleTimeoutMillis);
+        return container;
+    }
+}
@@ -0,0 +1,157 @@
+package com.productdock.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.productdock.audio.LiveAudioEncoding;
+import com.productdock.exception.TooManyRequestsException;
+import com.productdock.model.LiveTranscriptSegment;
+import com.productdock.model.LiveTranscriptionSettings;
+import com.productdock.service.LiveTranscription;
+import com.productdock.service.LiveTranscriptionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Live transcription over a WebSocket.
+ * <p>
+ * The client connects to {@code /api/speech-to-text/live?encoding=pcm&sample-rate=16000&language=en-US} and sends the
+ * audio as binary frames. The transcript segments are sent back as JSON text messages as soon as Transcribe
+ * returns them, partial segments are followed by their final version. The client sends the text message
+ * {@code end} when it stops speaking, the socket is closed once the last segment was sent.
+ * <p>
+ * A client sending audio faster than it is transcribed, or reading segments too slowly, is disconnected.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LiveTranscriptionHandler extends AbstractWebSocketHandler {
+
+    static final String END_OF_AUDIO = "end";
+    private static final String TRANSCRIPTION_ATTRIBUTE = LiveTranscription.class.getName();
+    private static final Pattern LANGUAGE_CODE = Pattern.compile("[a-z]{2}-[A-Z]{2}");
+    // The sample rates Transcribe Streaming accepts
+    private static final int MIN_SAMPLE_RATE = 8000;
+    private static final int MAX_SAMPLE_RATE = 48000;
+
+    private final LiveTranscriptionService liveTranscriptionService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${stt.live.send-time-limit-ms}")
+    private int sendTimeLimitMillis;
+
+    @Value("${stt.live.send-buffer-bytes}")
+    private int sendBufferBytes;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) throws IOException {
+        Optional<LiveTranscriptionSettings> settings = parseSettings(session.getUri());
+        if (settings.isEmpty()) {
+            session.close(CloseStatus.BAD_DATA.withReason("Expected encoding (pcm, ogg-opus or flac), sample-rate (8000 to 48000) and language (like en-US)"));
+            return;
+        }
+
+        // Segments are sent from the threads of the AWS SDK, the decorator serializes them and bounds the backlog
+        WebSocketSession sender = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMillis, sendBufferBytes);
+        LiveTranscription transcription;
+        try {
+            transcription = liveTranscriptionService.start(settings.get(), segment -> sendSegment(sender, segment));
+        } catch (TooManyRequestsException e) {
+            session.close(CloseStatus.SERVICE_OVERLOAD.withReason(e.getMessage()));
+            return;
+        }
+        session.getAttributes().put(TRANSCRIPTION_ATTRIBUTE, transcription);
+        transcription.completion().whenComplete((ignored, e) ->
+                close(sender, e == null ? CloseStatus.NORMAL : CloseStatus.SERVER_ERROR.withReason("Live transcription failed")));
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws IOException {
+        LiveTranscription transcription = (LiveTranscription) session.getAttributes().get(TRANSCRIPTION_ATTRIBUTE);
+        if (transcription == null) {
+            return;
+        }
+        // The container may reuse the buffer of the message, the frame is queued beyond this call
+        ByteBuffer payload = message.getPayload();
+        ByteBuffer frame = ByteBuffer.allocate(payload.remaining()).put(payload).flip();
+        if (!transcription.sendAudio(frame)) {
+            session.close(CloseStatus.SERVICE_OVERLOAD.withReason("Audio is sent faster than it is transcribed"));
+        }
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        LiveTranscription transcription = (LiveTranscription) session.getAttributes().get(TRANSCRIPTION_ATTRIBUTE);
+        if (transcription != null && END_OF_AUDIO.equals(message.getPayload().trim())) {
+            transcription.finish();
+        } else {
+            session.close(CloseStatus.NOT_ACCEPTABLE.withReason("Only the text message '" + END_OF_AUDIO + "' is accepted"));
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        LiveTranscription transcription = (LiveTranscription) session.getAttributes().remove(TRANSCRIPTION_ATTRIBUTE);
+        if (transcription != null) {
+            // Ends the Transcribe stream, segments still arriving are dropped
+            transcription.finish();
+        }
+    }
+
+    private void sendSegment(WebSocketSession sender, LiveTranscriptSegment segment) {
+        if (!sender.isOpen()) {
+            return;
+        }
+        try {
+            sender.sendMessage(new TextMessage(objectMapper.writeValueAsString(segment)));
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize transcript segment", e);
+        } catch (IOException | RuntimeException e) {
+            // The decorator closes sessions that do not keep up with the segments
+            log.debug("Could not send transcript segment: {}", e.getMessage());
+        }
+    }
+
+    private static void close(WebSocketSession session, CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.debug("Could not close live transcription socket: {}", e.getMessage());
+        }
+    }
+
+    private static Optional<LiveTranscriptionSettings> parseSettings(URI uri) {
+        if (uri == null) {
+            return Optional.empty();
+        }
+        MultiValueMap<String, String> parameters = UriComponentsBuilder.fromUri(uri).build().getQueryParams();
+        Optional<LiveAudioEncoding> encoding = LiveAudioEncoding.fromValue(parameters.getFirst("encoding"));
+        String language = parameters.getFirst("language");
+        int sampleRate;
+        try {
+            sampleRate = Integer.parseInt(String.valueOf(parameters.getFirst("sample-rate")));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+        if (encoding.isEmpty() || sampleRate < MIN_SAMPLE_RATE || sampleRate > MAX_SAMPLE_RATE
+                || language == null || !LANGUAGE_CODE.matcher(language).matches()) {
+            return Optional.empty();
+        }
+        return Optional.of(new LiveTranscriptionSettings(encoding.get(), sampleRate, language));
+    }
+}
@@ -0,0 +1,255 @@
+package com.productdock.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads a multipart/form-data request body part by part, straight from the request stream.
+ * <p>
+ * Unlike the servlet container's multipart support, nothing is buffered to memory or temporary files:
+ * the body of a part is read through {@link #getPartStream()} as it arrives, only a small window is kept
+ * to recognize the boundary that ends the part.
+ */
+final class MultipartStreamReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 8 * 1024;
+    private static final Pattern BOUNDARY = Pattern.compile("boundary=(?:\"([^\"]+)\"|([^;\\s]+))", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FIELD_NAME = Pattern.compile("\\bname=\"([^\"]*)\"", Pattern.CASE_INSENSITIVE);
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final long maxPartBytes;
+    private final byte[] buffer;
+    private int head;
+    private int tail;
+    private boolean eof;
+    private boolean partEnded;
+    private boolean lastPart;
+    private long partBytes;
+
+    /**
+     * @param in           the request body
+     * @param boundary     the boundary from the request content type
+     * @param maxPartBytes the largest part accepted, reading more fails with a {@link PartTooLargeException}
+     */
+    MultipartStreamReader(InputStream in, String boundary, long maxPartBytes) {
+        this.in = in;
+        this.delimiter = ("\r\n--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        this.maxPartBytes = maxPartBytes;
+        this.buffer = new byte[Math.max(BUFFER_SIZE, delimiter.length * 2)];
+        // The first boundary has no line break in front, adding one lets the preamble be skipped like a part
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        tail = 2;
+    }
+
+    /**
+     * Extracts the boundary of a multipart/form-data content type.
+     *
+     * @param contentType the request content type
+     * @return the boundary, or null if the content type has none
+     */
+    static String getBoundary(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        Matcher matcher = BOUNDARY.matcher(contentType);
+        if (!matcher.find()) {
+            return null;
+        }
+        return matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+    }
+
+    /**
+     * Extracts the form field name from the Content-Disposition header of a part.
+     *
+     * @param headers the part headers as returned by {@link #nextPart()}
+     * @return the field name, or null if the part has none
+     */
+    static String getFieldName(Map<String, String> headers) {
+        String disposition = headers.get("content-disposition");
+        if (disposition == null) {
+            return null;
+        }
+        Matcher matcher = FIELD_NAME.matcher(disposition);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * Skips the rest of the current part and reads the headers of the next one.
+     *
+     * @return the headers of the next part with lower-case names, or null if there are no more parts
+     * @throws IOException if the body cannot be read or is not valid multipart
+     */
+    Map<String, String> nextPart() throws IOException {
+        byte[] skipped = new byte[BUFFER_SIZE];
+        while (readPart(skipped, 0, skipped.length) != -1) {
+            // Skipping the rest of the current part
+        }
+        if (lastPart) {
+            return null;
+        }
+
+        // A boundary is followed by "--" after the last part, by a line break otherwise
+        if (!fill(2)) {
+            throw new IOException("Unexpected end of multipart body");
+        }
+        if (buffer[head] == '-' && buffer[head + 1] == '-') {
+            lastPart = true;
+            return null;
+        }
+        readLine();
+
+        Map<String, String> headers = new HashMap<>();
+        int headerBytes = 0;
+        for (String line = readLine(); !line.isEmpty(); line = readLine()) {
+            headerBytes += line.length();
+            if (headerBytes > MAX_HEADER_BYTES) {
+                throw new IOException("Multipart headers too large");
+            }
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+        partEnded = false;
+        partBytes = 0;
+        return headers;
+    }
+
+    /**
+     * Returns the body of the current part. It ends at the boundary that ends the part.
+     *
+     * @return the body of the current part
+     */
+    InputStream getPartStream() {
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                int read = read(single, 0, 1);
+                return read == -1 ? -1 : single[0] & 0xff;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return readPart(b, off, len);
+            }
+        };
+    }
+
+    private int readPart(byte[] b, int off, int len) throws IOException {
+        if (partEnded || lastPart) {
+            return -1;
+        }
+        if (len == 0) {
+            return 0;
+        }
+        fill(delimiter.length);
+        // Only boundaries starting within the requested bytes matter, which keeps small reads cheap
+        int lastStart = tail - delimiter.length;
+        int scanEnd = Math.min(lastStart, head + len - 1);
+        int delimiterAt = indexOfDelimiter(scanEnd);
+        int available;
+        if (delimiterAt == head) {
+            head += delimiter.length;
+            partEnded = true;
+            return -1;
+        } else if (delimiterAt > head) {
+            available = delimiterAt - head;
+        } else if (scanEnd < lastStart) {
+            available = len;
+        } else if (eof) {
+            throw new IOException("Unexpected end of multipart body");
+        } else {
+            // The end of the window could be the start of the boundary
+            available = tail - head - (delimiter.length - 1);
+        }
+
+        int count = Math.min(len, available);
+        partBytes += count;
+        if (partBytes > maxPartBytes) {
+            throw new PartTooLargeException(maxPartBytes);
+        }
+        System.arraycopy(buffer, head, b, off, count);
+        head += count;
+        return count;
+    }
+
+    private int indexOfDelimiter(int lastStart) {
+        outer:
+        for (int i = head; i <= lastStart; i++) {
+            for (int j = 0; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Reads until at least the given number of bytes is in the window, or the body ended.
+     *
+     * @return whether the window holds the requested number of bytes
+     */
+    private boolean fill(int needed) throws IOException {
+        if (tail - head >= needed) {
+            return true;
+        }
+        if (head > 0) {
+            System.arraycopy(buffer, head, buffer, 0, tail - head);
+            tail -= head;
+            head = 0;
+        }
+        while (tail < needed && !eof) {
+            int read = in.read(buffer, tail, buffer.length - tail);
+            if (read == -1) {
+                eof = true;
+            } else {
+                tail += read;
+            }
+        }
+        return tail - head >= needed;
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            if (!fill(2)) {
+                throw new IOException("Unexpected end of multipart headers");
+            }
+            if (buffer[head] == '\r' && buffer[head + 1] == '\n') {
+                head += 2;
+                return line.toString();
+            }
+            if (line.length() > MAX_HEADER_BYTES) {
+                throw new IOException("Multipart headers too large");
+            }
+            line.append((char) (buffer[head++] & 0xff));
+        }
+    }
+
+    /**
+     * Thrown when a part is larger than the reader accepts.
+     */
+    static class PartTooLargeException extends IOException {
+        private final long maxPartBytes;
+
+        PartTooLargeException(long maxPartBytes) {
+            super("Multipart part exceeds " + maxPartBytes + " bytes");
+            this.maxPartBytes = maxPartBytes;
+        }
+
+        long getMaxPartBytes() {
+            return maxPartBytes;
+        }
+    }
+}
@@ -1,69 +1,259 @@
 package com.productdock.controller;
 
+import com.productdock.model.CaptionFormat;
+import com.productdock.model.TranscriptItemsPage;
 import com.productdock.model.TranscriptionJobResponse;
 import com.productdock.security.RateLimited;
 import com.productdock.service.SpeechToTextService;
+import com.productdock.service.TranscriptionStatusWatcher;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/speech-to-text")
 public class SpeechToTextController {
+    private static final String AUDIO_FILE_PART = "audioFile";
 
     private final SpeechToTextService speechToTextService;
+    private final TranscriptionStatusWatcher transcriptionStatusWatcher;
+
+    @Value("${aws.async.enabled}")
+    private boolean asyncEnabled;
+
+    @Value("${stt.stream.max-file-size-bytes}")
+    private long maxStreamedFileBytes;
+
+    @Value("${stt.transcript-index.max-page-items}")
+    private int maxPageItems;
 
     /**
      * Starts a transcription job for the provided audio file.
+     * In the async mode no worker thread is held while AWS is working.
      *
      * @param audioFile the audio file to be converted
-     * @return ResponseEntity with the converted text and HTTP status code
+     * @return CompletableFuture of the ResponseEntity with the converted text and HTTP status code
      */
     @RateLimited(requests = 10, durationMinutes = 5)
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<TranscriptionJobResponse> convertAudioToText(@RequestParam("audioFile") MultipartFile audioFile) {
+    public CompletableFuture<ResponseEntity<TranscriptionJobResponse>> convertAudioToText(@RequestParam("audioFile") MultipartFile audioFile) {
         log.info("Received request to start transcription job");
         if (audioFile.isEmpty()) {
-            return ResponseEntity.badRequest()
-                    .body(new TranscriptionJobResponse(null, "ERROR", "File is empty"));
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(new TranscriptionJobResponse(null, "ERROR", "File is empty")));
+        }
+        CompletableFuture<TranscriptionJobResponse> response = asyncEnabled
+                ? speechToTextService.startTranscriptionJobAsync(audioFile)
+                : CompletableFuture.completedFuture(speechToTextService.startTranscriptionJob(audioFile));
+        return response.thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Starts a transcription job for a large audio file, sent like {@link #convertAudioToText(MultipartFile)}.
+     * The request body is parsed as it arrives and the audio is piped to S3 without buffering the file,
+     * so recordings of hundreds of megabytes can be uploaded.
+     *
+     * @param request the multipart request with the audio in the {@code audioFile} part
+     * @return ResponseEntity with the job name and status, or 400 Bad Request if the request has no audio
+     * @throws IOException if reading the request fails
+     */
+    @RateLimited(requests = 10, durationMinutes = 5)
+    @PostMapping(path = "/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<TranscriptionJobResponse> convertLargeAudioToText(HttpServletRequest request) throws IOException {
+        log.info("Received request to start transcription job from a streamed upload");
+        String boundary = MultipartStreamReader.getBoundary(request.getContentType());
+        if (boundary == null) {
+            return ResponseEntity.badRequest().body(new TranscriptionJobResponse(null, "ERROR", "Missing multipart boundary"));
         }
-        TranscriptionJobResponse response = speechToTextService.startTranscriptionJob(audioFile);
-        return ResponseEntity.ok(response);
+
+        MultipartStreamReader reader = new MultipartStreamReader(request.getInputStream(), boundary, maxStreamedFileBytes);
+        try {
+            for (Map<String, String> headers = reader.nextPart(); headers != null; headers = reader.nextPart()) {
+                if (AUDIO_FILE_PART.equals(MultipartStreamReader.getFieldName(headers))) {
+                    // The format is probed from the audio itself, the declared content type is not trusted
+                    return ResponseEntity.ok(speechToTextService.startTranscriptionJob(reader.getPartStream()));
+                }
+            }
+        } catch (MultipartStreamReader.PartTooLargeException e) {
+            throw new MaxUploadSizeExceededException(e.getMaxPartBytes(), e);
+        }
+        return ResponseEntity.badRequest().body(new TranscriptionJobResponse(null, "ERROR", "File is missing"));
     }
 
     /**
      * Checks the status of a transcription job and returns the transcript if completed.
+     * The response carries an ETag, a poll whose If-None-Match header matches it is answered with 304 Not Modified.
+     * The ETag of a finished job is kept with its cached result, so such polls do not read the transcript.
      *
-     * @param jobName the transcription job name
-     * @return job status and optionally transcript
+     * @param jobName    the transcription job name
+     * @param request    the request, whose If-None-Match header is checked
+     * @return CompletableFuture of the job status and optionally transcript
      */
     @RateLimited(requests = 10, durationMinutes = 5)
     @GetMapping(path = "/status/{jobName}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<TranscriptionJobResponse> getJobStatus(@PathVariable String jobName) {
+    public CompletableFuture<ResponseEntity<TranscriptionJobResponse>> getJobStatus(@PathVariable String jobName,
+                                                                                    HttpServletRequest request) {
         log.info("Checking status for job: {}", jobName);
+        Optional<String> resultETag = speechToTextService.findResultETag(jobName);
+        if (resultETag.isPresent() && isNotModified(request, resultETag.get())) {
+            return CompletableFuture.completedFuture(getNotModifiedResponse(resultETag.get()));
+        }
+
+        CompletableFuture<TranscriptionJobResponse> response = asyncEnabled
+                ? speechToTextService.getTranscriptionJobStatusAsync(jobName)
+                : CompletableFuture.completedFuture(speechToTextService.getTranscriptionJobStatus(jobName));
+        return response.thenApply(jobResponse -> {
+            String etag = speechToTextService.findResultETag(jobName).orElseGet(jobResponse::computeETag);
+            if (isNotModified(request, etag)) {
+                return getNotModifiedResponse(etag);
+            }
+            return ResponseEntity.ok()
+                    .headers(getRevalidateHeaders())
+                    .eTag(etag)
+                    .body(jobResponse);
+        });
+    }
 
-        TranscriptionJobResponse response = speechToTextService.getTranscriptionJobStatus(jobName);
+    /**
+     * Streams the transcript of a completed transcription job as plain text.
+     * The transcript is copied from the Transcribe output to the response as it is read, so long transcripts
+     * are never held in memory as a whole.
+     *
+     * @param jobName the transcription job name
+     * @return ResponseEntity streaming the transcript, or 409 Conflict if the job has not completed
+     */
+    @RateLimited(requests = 10, durationMinutes = 5)
+    @GetMapping(path = "/transcript/{jobName}", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTranscript(@PathVariable String jobName) {
+        log.info("Streaming transcript for job: {}", jobName);
+        if (!speechToTextService.isTranscriptAvailable(jobName)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(out -> speechToTextService.writeTranscript(jobName, out));
+    }
+
+    /**
+     * Returns a page of the words and punctuation marks of a completed transcription job, with their timings
+     * and confidences. Only the requested page is read from the transcript index.
+     *
+     * @param jobName the transcription job name
+     * @param offset  the index of the first item
+     * @param limit   the number of items at most
+     * @return ResponseEntity with the page, 400 Bad Request if the page is out of range,
+     * or 409 Conflict if the job has not completed
+     */
+    // A client pages through the whole transcript, a long job takes some dozens of pages
+    @RateLimited(requests = 300, durationMinutes = 5)
+    @GetMapping(path = "/items/{jobName}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<TranscriptItemsPage> getTranscriptItems(@PathVariable String jobName,
+                                                                  @RequestParam(defaultValue = "0") int offset,
+                                                                  @RequestParam(defaultValue = "500") int limit) {
+        log.info("Reading transcript items {} to {} for job: {}", offset, offset + limit, jobName);
+        if (offset < 0 || limit < 1 || limit > maxPageItems) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!speechToTextService.isTranscriptAvailable(jobName)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(speechToTextService.getTranscriptItems(jobName, offset, limit));
+    }
 
+    /**
+     * Streams the captions of a completed transcription job as SubRip or WebVTT.
+     *
+     * @param jobName the transcription job name
+     * @param format  the caption format, {@code srt} or {@code vtt}
+     * @return ResponseEntity streaming the captions, 400 Bad Request if the format is unknown,
+     * or 409 Conflict if the job has not completed
+     */
+    // A player fetches the captions of every recording it shows, in each format it needs
+    @RateLimited(requests = 60, durationMinutes = 5)
+    @GetMapping(path = "/captions/{jobName}")
+    public ResponseEntity<StreamingResponseBody> streamCaptions(@PathVariable String jobName,
+                                                                @RequestParam(defaultValue = "srt") String format) {
+        log.info("Streaming {} captions for job: {}", format, jobName);
+        Optional<CaptionFormat> captionFormat = CaptionFormat.fromValue(format);
+        if (captionFormat.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!speechToTextService.isTranscriptAvailable(jobName)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
         return ResponseEntity.ok()
-                .headers(getNoCacheHeaders())
-                .body(response);
+                .contentType(new MediaType(MediaType.parseMediaType(captionFormat.get().getContentType()), StandardCharsets.UTF_8))
+                .body(out -> speechToTextService.writeCaptions(jobName, captionFormat.get(), out));
+    }
+
+    /**
+     * Subscribes to the status of a transcription job over Server-Sent Events.
+     * A {@code status} event is pushed whenever the status changes, the last one carries the transcript.
+     * Clients subscribe once per job instead of polling the status endpoint.
+     *
+     * @param jobName the transcription job name
+     * @return SseEmitter streaming the status events of the job
+     */
+    @RateLimited(requests = 10, durationMinutes = 5)
+    @GetMapping(path = "/events/{jobName}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToJobStatus(@PathVariable String jobName) {
+        log.info("Subscribing to status events for job: {}", jobName);
+        return transcriptionStatusWatcher.subscribe(jobName);
+    }
+
+    /**
+     * Checks the If-None-Match header of a request against an ETag, with the weak comparison and lists of
+     * ETags that Spring supports. Spring only matches {@code *} for unsafe methods, but a job status always
+     * has a current representation, so {@code *} matches it as well.
+     *
+     * @param request the request
+     * @param etag    the quoted ETag of the current status
+     * @return whether the client already has the current status
+     */
+    private static boolean isNotModified(HttpServletRequest request, String etag) {
+        if ("*".equals(StringUtils.trimWhitespace(request.getHeader(HttpHeaders.IF_NONE_MATCH)))) {
+            return true;
+        }
+        // Without a response the check only evaluates the headers, the ETag is set by the returned entity
+        return new ServletWebRequest(request).checkNotModified(etag);
+    }
+
+    private ResponseEntity<TranscriptionJobResponse> getNotModifiedResponse(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .headers(getRevalidateHeaders())
+                .eTag(etag)
+                .build();
     }
 
     /**
-     * Creates HTTP headers to prevent caching of the response.
+     * Creates HTTP headers that let clients keep the response, but make them revalidate it on every poll.
      *
      * @return HttpHeaders with no-cache directive
      */
-    private HttpHeaders getNoCacheHeaders() {
+    private HttpHeaders getRevalidateHeaders() {
         HttpHeaders headers = new HttpHeaders();
-        headers.setCacheControl(CacheControl.noStore().mustRevalidate());
+        headers.setCacheControl(CacheControl.noCache());
         return headers;
     }
 }
@@ -1,52 +1,178 @@
 package com.productdock.controller;
 
+import com.productdock.model.SynthesizedSpeech;
 import com.productdock.model.TextToSpeechRequest;
 import com.productdock.security.RateLimited;
 import com.productdock.service.TextToSpeechService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.*;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/text-to-speech")
 public class TextToSpeechController {
+    private static final String AUDIO_MPEG_VALUE = "audio/mpeg";
+    private static final int STREAM_BUFFER_SIZE = 8192;
+
     private final TextToSpeechService textToSpeechService;
 
+    @Value("${aws.async.enabled}")
+    private boolean asyncEnabled;
+
     /**
      * Endpoint to convert text to speech.
+     * Freshly synthesized audio is streamed to the client as it arrives from Polly,
+     * cached audio is served with its length and honors Range requests.
+     * In the async mode no worker thread is held while AWS is working.
      *
      * @param request the text-to-speech request containing the text to be converted
-     * @return ResponseEntity with the audio stream and HTTP status code
+     * @param range the optional Range header of the request
+     * @return CompletableFuture of the ResponseEntity with the audio stream and HTTP status code
      */
     @RateLimited(requests = 10, durationMinutes = 5)
-    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-    public ResponseEntity<InputStreamResource> convertTextToSpeech(@Valid @RequestBody TextToSpeechRequest request) {
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = {AUDIO_MPEG_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> convertTextToSpeech(@Valid @RequestBody TextToSpeechRequest request,
+                                                                                        @RequestHeader(value = HttpHeaders.RANGE, required = false) String range) {
         log.info("Received request to convert text to speech");
 
-        InputStreamResource resource = textToSpeechService.convertTextToSpeech(request.getText());
-        return ResponseEntity.ok()
-                .headers(getAudioHeaders())
-                .body(resource);
+        CompletableFuture<SynthesizedSpeech> speech = asyncEnabled
+                ? textToSpeechService.convertTextToSpeechAsync(request.getText())
+                : CompletableFuture.completedFuture(textToSpeechService.convertTextToSpeech(request.getText()));
+        return speech.thenApply(synthesizedSpeech -> buildAudioResponse(synthesizedSpeech, range, getAudioHeaders(synthesizedSpeech)));
+    }
+
+    /**
+     * Endpoint to fetch previously synthesized audio by its ID (as returned in the Content-Location header),
+     * so players can seek within the audio using Range requests.
+     *
+     * @param audioId the ID of the synthesized audio
+     * @param range the optional Range header of the request
+     * @return ResponseEntity with the (partial) audio and HTTP status code
+     */
+    @RateLimited(requests = 100, durationMinutes = 5)
+    @GetMapping(path = "/audio/{audioId}", produces = {AUDIO_MPEG_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<StreamingResponseBody> getSynthesizedAudio(@PathVariable String audioId,
+                                                                     @RequestHeader(value = HttpHeaders.RANGE, required = false) String range) {
+        log.info("Received request to fetch synthesized audio: {}", audioId);
+
+        SynthesizedSpeech speech = textToSpeechService.getSynthesizedSpeech(audioId);
+
+        // The audio ID is a content hash, so the audio behind it never changes
+        HttpHeaders headers = getAudioHeaders(speech);
+        headers.setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable());
+        return buildAudioResponse(speech, range, headers);
+    }
+
+    /**
+     * Builds the audio response. Streams are flushed chunk by chunk, seekable audio answers
+     * a single byte range with 206 Partial Content and unsatisfiable ranges with 416.
+     *
+     * @param speech the synthesized speech
+     * @param range the optional Range header of the request
+     * @param headers the audio headers of the response
+     * @return ResponseEntity with the audio body, headers and HTTP status code
+     */
+    private ResponseEntity<StreamingResponseBody> buildAudioResponse(SynthesizedSpeech speech, String range, HttpHeaders headers) {
+        if (!speech.isSeekable()) {
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .body(outputStream -> copyAudio(speech.getAudio(), outputStream, 0, Long.MAX_VALUE, true));
+        }
+
+        long length = speech.getContentLength();
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            ranges = List.of();
+        }
+
+        // Multiple ranges are rare for audio players, the whole audio is a valid answer for them
+        if (ranges.size() != 1) {
+            return ResponseEntity.ok()
+                    .headers(headers)
+                    .body(outputStream -> copyAudio(speech.getAudio(), outputStream, 0, length, false));
+        }
+
+        long start;
+        long end;
+        try {
+            start = ranges.get(0).getRangeStart(length);
+            end = ranges.get(0).getRangeEnd(length);
+        } catch (IllegalArgumentException e) {
+            start = length;
+            end = -1;
+        }
+        if (start >= length || start > end) {
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+        }
+
+        headers.setContentLength(end - start + 1);
+        headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        long rangeStart = start;
+        long rangeLength = end - start + 1;
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .headers(headers)
+                .body(outputStream -> copyAudio(speech.getAudio(), outputStream, rangeStart, rangeLength, false));
+    }
+
+    /**
+     * Copies a slice of the audio to the response.
+     *
+     * @param audio the audio resource
+     * @param outputStream the response output stream
+     * @param start the first byte to copy
+     * @param count the number of bytes to copy
+     * @param flushEachChunk whether to flush after every chunk, so clients can start playback early
+     * @throws IOException if reading the audio or writing the response fails
+     */
+    private void copyAudio(Resource audio, OutputStream outputStream, long start, long count, boolean flushEachChunk) throws IOException {
+        try (InputStream inputStream = audio.getInputStream()) {
+            inputStream.skipNBytes(start);
+            byte[] buffer = new byte[STREAM_BUFFER_SIZE];
+            long remaining = count;
+            int read;
+            while (remaining > 0 && (read = inputStream.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+                outputStream.write(buffer, 0, read);
+                if (flushEachChunk) {
+                    outputStream.flush();
+                }
+                remaining -= read;
+            }
+        }
     }
 
     /**
      * Creates HTTP headers for the audio response.
      *
-     * @return HttpHeaders with content type set to octet-stream
+     * @param speech the synthesized speech
+     * @return HttpHeaders with content type set to audio/mpeg, the audio location and length if known
      */
-    private HttpHeaders getAudioHeaders() {
+    private HttpHeaders getAudioHeaders(SynthesizedSpeech speech) {
         HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+        headers.setContentType(MediaType.parseMediaType(AUDIO_MPEG_VALUE));
+        headers.set(HttpHeaders.CONTENT_LOCATION, "/api/text-to-speech/audio/" + speech.getAudioId());
+        if (speech.getContentLength() != null) {
+            headers.setContentLength(speech.getContentLength());
+        }
         return headers;
     }
 }
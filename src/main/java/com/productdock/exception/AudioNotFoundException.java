@@ -0,0 +1,13 @@
+package com.productdock.exception;
+
+public class AudioNotFoundException extends RuntimeException {
+
+    /**
+     * Constructs a new AudioNotFoundException with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public AudioNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,23 @@
+package com.productdock.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public class DependencyUnavailableException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    /**
+     * Constructs a new DependencyUnavailableException with the specified detail message and
+     * the time after which the dependency is expected to accept calls again.
+     *
+     *  @param message the detail message
+     *  @param retryAfter the time after which the client may try again
+     */
+    public DependencyUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
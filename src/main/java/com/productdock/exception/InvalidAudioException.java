@@ -0,0 +1,13 @@
+package com.productdock.exception;
+
+public class InvalidAudioException extends RuntimeException {
+
+    /**
+     * Constructs a new InvalidAudioException with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public InvalidAudioException(String message) {
+        super(message);
+    }
+}
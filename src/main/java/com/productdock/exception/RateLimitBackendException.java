@@ -0,0 +1,14 @@
+package com.productdock.exception;
+
+public class RateLimitBackendException extends RuntimeException {
+
+    /**
+     * Constructs a new RateLimitBackendException with the specified detail message and cause.
+     *
+     * @param message the detail message
+     * @param cause   the cause of the exception
+     */
+    public RateLimitBackendException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
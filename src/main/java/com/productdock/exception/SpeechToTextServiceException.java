@@ -2,6 +2,15 @@ package com.productdock.exception;
 
 public class SpeechToTextServiceException extends RuntimeException {
 
+    /**
+     * Constructs a new SpeechToTextServiceException with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public SpeechToTextServiceException(String message) {
+        super(message);
+    }
+
     /**
      * Constructs a new SpeechToTextServiceException with the specified detail message and cause.
      *
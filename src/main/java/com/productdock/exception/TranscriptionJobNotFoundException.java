@@ -0,0 +1,13 @@
+package com.productdock.exception;
+
+public class TranscriptionJobNotFoundException extends RuntimeException {
+
+    /**
+     * Constructs a new TranscriptionJobNotFoundException with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public TranscriptionJobNotFoundException(String message) {
+        super(message);
+    }
+}
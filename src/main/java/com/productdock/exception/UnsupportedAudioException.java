@@ -0,0 +1,13 @@
+package com.productdock.exception;
+
+public class UnsupportedAudioException extends RuntimeException {
+
+    /**
+     * Constructs a new UnsupportedAudioException with the specified detail message.
+     *
+     * @param message the detail message
+     */
+    public UnsupportedAudioException(String message) {
+        super(message);
+    }
+}
@@ -2,6 +2,7 @@ package com.productdock.exception;
 
 import com.productdock.model.ErrorResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -10,6 +11,7 @@ import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 
 @Slf4j
@@ -52,7 +54,7 @@ public class _GlobalExceptionHandler {
     @ExceptionHandler(TextToSpeechServiceException.class)
     public ResponseEntity<ErrorResponse> handleTextToSpeechServiceException(TextToSpeechServiceException exception, WebRequest request) {
         log.error("Handling TextToSpeechServiceException: {}", exception.getMessage());
-        return buildErrorResponse(exception.getMessage(), HttpStatus.SERVICE_UNAVAILABLE, request);
+        return buildServiceUnavailableResponse(exception, request);
     }
 
     /**
@@ -65,7 +67,98 @@ public class _GlobalExceptionHandler {
     @ExceptionHandler(SpeechToTextServiceException.class)
     public ResponseEntity<ErrorResponse> handleSpeechToTextServiceException(SpeechToTextServiceException exception, WebRequest request) {
         log.error("Handling SpeechToTextServiceException: {}", exception.getMessage());
-        return buildErrorResponse(exception.getMessage(), HttpStatus.SERVICE_UNAVAILABLE, request);
+        return buildServiceUnavailableResponse(exception, request);
+    }
+
+    /**
+     * Handles DependencyUnavailableException and returns a 503 Service Unavailable response
+     * with a Retry-After header.
+     *
+     * @param exception the exception thrown
+     * @param request the request during which the exception was thrown
+     * @return ResponseEntity with error details and HTTP status code
+     */
+    @ExceptionHandler(DependencyUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleDependencyUnavailableException(DependencyUnavailableException exception, WebRequest request) {
+        log.warn("Handling DependencyUnavailableException: {}", exception.getMessage());
+        return buildServiceUnavailableResponse(exception, request);
+    }
+
+    /**
+     * Handles AudioNotFoundException and returns a 404 Not Found response.
+     *
+     * @param exception the exception thrown
+     * @param request the request during which the exception was thrown
+     * @return ResponseEntity with error details and HTTP status code
+     */
+    @ExceptionHandler(AudioNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleAudioNotFoundException(AudioNotFoundException exception, WebRequest request) {
+        log.error("Handling AudioNotFoundException: {}", exception.getMessage());
+        return buildErrorResponse(exception.getMessage(), HttpStatus.NOT_FOUND, request);
+    }
+
+    /**
+     * Handles TranscriptionJobNotFoundException and returns a 404 Not Found response.
+     *
+     * @param exception the exception thrown
+     * @param request the request during which the exception was thrown
+     * @return ResponseEntity with error details and HTTP status code
+     */
+    @ExceptionHandler(TranscriptionJobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleTranscriptionJobNotFoundException(TranscriptionJobNotFoundException exception, WebRequest request) {
+        log.warn("Handling TranscriptionJobNotFoundException: {}", exception.getMessage());
+        return buildErrorResponse(exception.getMessage(), HttpStatus.NOT_FOUND, request);
+    }
+
+    /**
+     * Handles UnsupportedAudioException and returns a 415 Unsupported Media Type response.
+     *
+     * @param exception the exception thrown
+     * @param request the request during which the exception was thrown
+     * @return ResponseEntity with error details and HTTP status code
+     */
+    @ExceptionHandler(UnsupportedAudioException.class)
+    public ResponseEntity<ErrorResponse> handleUnsupportedAudioException(UnsupportedAudioException exception, WebRequest request) {
+        log.warn("Handling UnsupportedAudioException: {}", exception.getMessage());
+        return buildErrorResponse(exception.getMessage(), HttpStatus.UNSUPPORTED_MEDIA_TYPE, request);
+    }
+
+    /**
+     * Handles InvalidAudioException and returns a 422 Unprocessable Entity response.
+     *
+     * @param exception the exception thrown
+     * @param request the request during which the exception was thrown
+     * @return ResponseEntity with error details and HTTP status code
+     */
+    @ExceptionHandler(InvalidAudioException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidAudioException(InvalidAudioException exception, WebRequest request) {
+        log.warn("Handling InvalidAudioException: {}", exception.getMessage());
+        return buildErrorResponse(exception.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY, request);
+    }
+
+    /**
+     * Builds a 503 Service Unavailable response. If the failure was caused by an AWS dependency
+     * that currently rejects calls, the Retry-After header tells the client when to try again.
+     *
+     * @param exception the exception thrown
+     * @param request the web request during which the error occurred
+     * @return ResponseEntity with error details, HTTP status code and an optional Retry-After header
+     */
+    private ResponseEntity<ErrorResponse> buildServiceUnavailableResponse(RuntimeException exception, WebRequest request) {
+        ResponseEntity<ErrorResponse> response = buildErrorResponse(exception.getMessage(), HttpStatus.SERVICE_UNAVAILABLE, request);
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DependencyUnavailableException unavailable) {
+                return ResponseEntity.status(response.getStatusCode())
+                        .header(HttpHeaders.RETRY_AFTER, String.valueOf(toRetryAfterSeconds(unavailable.getRetryAfter())))
+                        .body(response.getBody());
+            }
+        }
+        return response;
+    }
+
+    private static long toRetryAfterSeconds(Duration retryAfter) {
+        // Retry-After is given in whole seconds, rounded up so clients do not come back too early
+        return Math.max(1, (retryAfter.toMillis() + 999) / 1000);
     }
 
     /**
@@ -0,0 +1,234 @@
+package com.productdock.language;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * In-process language identifier based on character trigram profiles and Unicode script heuristics.
+ * <p>
+ * Profiles are built at startup from sample texts under {@code language-profiles/} on the classpath,
+ * one per language that has a voice in {@link com.productdock.service.SupportedVoicesService}.
+ * Each text is scored with a smoothed trigram log-likelihood per language. Letters that only occur
+ * in some of the languages (such as "ñ", "ß" or "å") add a bonus to those languages.
+ * <p>
+ * The scores only rank the supported languages against each other. A text in another Latin-script language,
+ * such as Italian or Dutch, still ranks one of them first, so a text whose trigrams are mostly unknown to the
+ * profile of the best language gets no confidence at all.
+ */
+@Slf4j
+@Component
+public class LanguageIdentifier {
+
+    /**
+     * Languages that have a voice in SupportedVoicesService.
+     */
+    static final List<String> LANGUAGES = List.of("en", "de", "fr", "es", "sv", "pt");
+
+    /**
+     * Language code returned for texts that are not written in the Latin script.
+     * None of the supported languages can be the answer then, so the default voice is used.
+     */
+    public static final String UNDETERMINED = "und";
+
+    private static final int NGRAM_LENGTH = 3;
+    private static final double SMOOTHING = 0.5;
+    private static final double DISTINCTIVE_LETTER_BONUS = Math.log(8);
+    private static final double MIN_LATIN_RATIO = 0.5;
+
+    // Texts in a supported language share at least 65% of their trigrams with its profile, other languages far fewer
+    private static final double MIN_KNOWN_NGRAM_RATIO = 0.6;
+
+    // Confidence grows with the number of trigrams, short texts are too ambiguous to decide locally
+    private static final int FULL_CONFIDENCE_NGRAMS = 40;
+
+    private static final Map<Character, List<String>> DISTINCTIVE_LETTERS = Map.ofEntries(
+            Map.entry('ñ', List.of("es")),
+            Map.entry('¿', List.of("es")),
+            Map.entry('¡', List.of("es")),
+            Map.entry('ß', List.of("de")),
+            Map.entry('ü', List.of("de")),
+            Map.entry('å', List.of("sv")),
+            Map.entry('ä', List.of("de", "sv")),
+            Map.entry('ö', List.of("de", "sv")),
+            Map.entry('ã', List.of("pt")),
+            Map.entry('õ', List.of("pt")),
+            Map.entry('ç', List.of("fr", "pt")),
+            Map.entry('è', List.of("fr")),
+            Map.entry('ù', List.of("fr")),
+            Map.entry('œ', List.of("fr")),
+            Map.entry('ë', List.of("fr")),
+            Map.entry('î', List.of("fr")),
+            Map.entry('û', List.of("fr")));
+
+    private final Map<String, Map<String, Double>> profiles = new HashMap<>();
+    private final Map<String, Double> unseenLogProbabilities = new HashMap<>();
+
+    /**
+     * Loads the trigram profiles of all supported languages.
+     */
+    @PostConstruct
+    public void init() {
+        for (String language : LANGUAGES) {
+            Map<String, Integer> counts = new HashMap<>();
+            countNgrams(normalize(loadSampleText(language)), counts);
+
+            double total = counts.values().stream().mapToInt(Integer::intValue).sum();
+            double denominator = total + SMOOTHING * (counts.size() + 1);
+            Map<String, Double> profile = new HashMap<>(counts.size() * 2);
+            counts.forEach((ngram, count) -> profile.put(ngram, Math.log((count + SMOOTHING) / denominator)));
+            profiles.put(language, profile);
+            unseenLogProbabilities.put(language, Math.log(SMOOTHING / denominator));
+        }
+        log.info("LanguageIdentifier initialized with profiles for {}", LANGUAGES);
+    }
+
+    /**
+     * Identifies the language of the given text.
+     *
+     * @param text the text to identify
+     * @return the most likely language code and the confidence in it, between 0 and 1
+     */
+    public IdentifiedLanguage identify(String text) {
+        String normalized = normalize(text);
+
+        int letters = 0;
+        int latinLetters = 0;
+        for (int i = 0; i < normalized.length(); ) {
+            int codePoint = normalized.codePointAt(i);
+            if (Character.isLetter(codePoint)) {
+                letters++;
+                if (Character.UnicodeScript.of(codePoint) == Character.UnicodeScript.LATIN) {
+                    latinLetters++;
+                }
+            }
+            i += Character.charCount(codePoint);
+        }
+        if (letters == 0) {
+            return new IdentifiedLanguage(LANGUAGES.get(0), 0.0);
+        }
+        if (latinLetters < letters * MIN_LATIN_RATIO) {
+            return new IdentifiedLanguage(UNDETERMINED, 1.0);
+        }
+
+        Map<String, Integer> ngrams = new HashMap<>();
+        int ngramCount = countNgrams(normalized, ngrams);
+
+        Map<String, Double> scores = new HashMap<>();
+        for (String language : LANGUAGES) {
+            Map<String, Double> profile = profiles.get(language);
+            double unseen = unseenLogProbabilities.get(language);
+            double score = 0;
+            for (Map.Entry<String, Integer> ngram : ngrams.entrySet()) {
+                score += ngram.getValue() * profile.getOrDefault(ngram.getKey(), unseen);
+            }
+            scores.put(language, score);
+        }
+        addDistinctiveLetterBonus(normalized, scores);
+
+        String best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        double secondScore = Double.NEGATIVE_INFINITY;
+        for (String language : LANGUAGES) {
+            double score = scores.get(language);
+            if (score > bestScore) {
+                secondScore = bestScore;
+                bestScore = score;
+                best = language;
+            } else if (score > secondScore) {
+                secondScore = score;
+            }
+        }
+
+        Map<String, Double> bestProfile = profiles.get(best);
+        int knownNgrams = 0;
+        for (Map.Entry<String, Integer> ngram : ngrams.entrySet()) {
+            if (bestProfile.containsKey(ngram.getKey())) {
+                knownNgrams += ngram.getValue();
+            }
+        }
+        if (knownNgrams < ngramCount * MIN_KNOWN_NGRAM_RATIO) {
+            return new IdentifiedLanguage(best, 0.0);
+        }
+
+        // Posterior of the best language against the runner-up, damped for short texts
+        double posterior = 1.0 / (1.0 + Math.exp(secondScore - bestScore));
+        double coverage = Math.min(1.0, (double) ngramCount / FULL_CONFIDENCE_NGRAMS);
+        return new IdentifiedLanguage(best, posterior * coverage);
+    }
+
+    private void addDistinctiveLetterBonus(String normalized, Map<String, Double> scores) {
+        for (int i = 0; i < normalized.length(); i++) {
+            List<String> languages = DISTINCTIVE_LETTERS.get(normalized.charAt(i));
+            if (languages != null) {
+                languages.forEach(language -> scores.merge(language, DISTINCTIVE_LETTER_BONUS, Double::sum));
+            }
+        }
+    }
+
+    /**
+     * Counts the trigrams of every word, padded with spaces so word starts and ends are part of the profile.
+     *
+     * @return the number of trigrams counted
+     */
+    private static int countNgrams(String normalized, Map<String, Integer> counts) {
+        int total = 0;
+        for (String word : normalized.split(" ")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            String padded = " " + word + " ";
+            for (int i = 0; i + NGRAM_LENGTH <= padded.length(); i++) {
+                counts.merge(padded.substring(i, i + NGRAM_LENGTH), 1, Integer::sum);
+                total++;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Lowercases the text and replaces everything but letters (and the Spanish opening marks) with single spaces.
+     */
+    private static String normalize(String text) {
+        String composed = Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+        StringBuilder builder = new StringBuilder(composed.length());
+        boolean lastWasSpace = true;
+        for (int i = 0; i < composed.length(); i++) {
+            char c = composed.charAt(i);
+            if (Character.isLetter(c) || c == '¿' || c == '¡') {
+                builder.append(c);
+                lastWasSpace = false;
+            } else if (!lastWasSpace) {
+                builder.append(' ');
+                lastWasSpace = true;
+            }
+        }
+        return builder.toString().strip();
+    }
+
+    private static String loadSampleText(String language) {
+        ClassPathResource resource = new ClassPathResource("language-profiles/" + language + ".txt");
+        try (InputStream inputStream = resource.getInputStream()) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Missing language profile for '" + language + "'", e);
+        }
+    }
+
+    /**
+     * Result of a local language identification.
+     *
+     * @param languageCode the ISO 639-1 language code, or {@link #UNDETERMINED}
+     * @param confidence   the confidence in the language code, between 0 and 1
+     */
+    public record IdentifiedLanguage(String languageCode, double confidence) {
+    }
+}
@@ -0,0 +1,28 @@
+package com.productdock.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Caption file formats a transcript can be written as.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum CaptionFormat {
+    SRT("srt", "application/x-subrip"),
+    VTT("vtt", "text/vtt");
+
+    private final String value;
+    private final String contentType;
+
+    /**
+     * @param value the format as given in a request, e.g. {@code srt}
+     * @return the caption format, or empty if the value names none
+     */
+    public static Optional<CaptionFormat> fromValue(String value) {
+        return Arrays.stream(values()).filter(format -> format.value.equalsIgnoreCase(value)).findFirst();
+    }
+}
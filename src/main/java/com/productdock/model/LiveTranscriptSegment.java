@@ -0,0 +1,14 @@
+package com.productdock.model;
+
+/**
+ * A segment of a live transcript. Partial segments are replaced by later segments with the same result id,
+ * until the final segment of that result id arrives.
+ *
+ * @param resultId     the id of the result the segment belongs to
+ * @param text         the transcribed text
+ * @param partial      whether Transcribe may still change the segment
+ * @param startSeconds the start of the segment in the audio stream
+ * @param endSeconds   the end of the segment in the audio stream
+ */
+public record LiveTranscriptSegment(String resultId, String text, boolean partial, double startSeconds, double endSeconds) {
+}
@@ -0,0 +1,13 @@
+package com.productdock.model;
+
+import com.productdock.audio.LiveAudioEncoding;
+
+/**
+ * The audio a client sends for live transcription.
+ *
+ * @param encoding     the encoding of the audio frames
+ * @param sampleRate   the sample rate of the audio in Hz
+ * @param languageCode the language spoken, for example "en-US"
+ */
+public record LiveTranscriptionSettings(LiveAudioEncoding encoding, int sampleRate, String languageCode) {
+}
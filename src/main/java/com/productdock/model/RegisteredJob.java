@@ -0,0 +1,37 @@
+package com.productdock.model;
+
+import java.time.Instant;
+
+/**
+ * A transcription job whose audio and transcript still have to be deleted.
+ *
+ * @param jobName   the transcription job name
+ * @param s3Key     the S3 key of the uploaded audio
+ * @param audioHash the SHA-256 hash of the audio, hex encoded
+ * @param createdAt when the job was started
+ * @param state     how far the cleanup of the job got
+ */
+public record RegisteredJob(String jobName, String s3Key, String audioHash, Instant createdAt, State state) {
+
+    /**
+     * The cleanup state of a registered job.
+     */
+    public enum State {
+        /**
+         * The job was started and may still be running.
+         */
+        STARTED,
+        /**
+         * The job finished and its resources are being deleted. A cleanup that was interrupted resumes from here.
+         */
+        CLEANING
+    }
+
+    /**
+     * @param state the new cleanup state
+     * @return a copy of this job in the given state
+     */
+    public RegisteredJob withState(State state) {
+        return new RegisteredJob(jobName, s3Key, audioHash, createdAt, state);
+    }
+}
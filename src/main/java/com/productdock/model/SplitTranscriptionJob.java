@@ -0,0 +1,21 @@
+package com.productdock.model;
+
+import java.util.List;
+
+/**
+ * A long recording that was split at pauses and is transcribed as one transcription job per segment.
+ *
+ * @param jobName  the name the whole recording is known by
+ * @param segments the segment jobs in the order of the recording
+ */
+public record SplitTranscriptionJob(String jobName, List<SegmentJob> segments) {
+
+    /**
+     * The transcription job of one segment.
+     *
+     * @param jobName       the transcription job name
+     * @param offsetSeconds the time in the recording the segment starts at
+     */
+    public record SegmentJob(String jobName, double offsetSeconds) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.productdock.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.core.io.Resource;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SynthesizedSpeech {
+    private String audioId;
+    private Resource audio;
+    private Long contentLength;
+    private boolean seekable;
+}
@@ -1,6 +1,7 @@
 package com.productdock.model;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -10,5 +11,6 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class TextToSpeechRequest {
     @NotBlank(message = "Text cannot be blank")
+    @Size(max = 100000, message = "Text cannot be longer than 100000 characters")
     private String text;
 }
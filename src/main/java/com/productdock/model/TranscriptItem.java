@@ -0,0 +1,37 @@
+package com.productdock.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A word or punctuation mark of a transcript. Punctuation has no times of its own.
+ *
+ * @param type         {@code pronunciation} for words, {@code punctuation} for punctuation marks
+ * @param content      the word or punctuation mark
+ * @param startSeconds the start of the word in the recording
+ * @param endSeconds   the end of the word in the recording
+ * @param confidence   how confident Transcribe is of the word, between 0 and 1
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TranscriptItem(String type, String content, Double startSeconds, Double endSeconds, Double confidence) {
+
+    public static final String PRONUNCIATION = "pronunciation";
+    public static final String PUNCTUATION = "punctuation";
+
+    /**
+     * @param seconds the time to add
+     * @return a copy of this item moved later by the given time, used for the segments of split recordings
+     */
+    public TranscriptItem shiftedBy(double seconds) {
+        if (startSeconds == null || seconds == 0) {
+            return this;
+        }
+        return new TranscriptItem(type, content, startSeconds + seconds, endSeconds != null ? endSeconds + seconds : null, confidence);
+    }
+
+    /**
+     * @return whether the item is a punctuation mark
+     */
+    public boolean isPunctuation() {
+        return PUNCTUATION.equals(type);
+    }
+}
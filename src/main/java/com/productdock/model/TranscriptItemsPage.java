@@ -0,0 +1,14 @@
+package com.productdock.model;
+
+import java.util.List;
+
+/**
+ * A page of the words and punctuation marks of a completed transcript.
+ *
+ * @param jobName    the transcription job name
+ * @param offset     the index of the first item of the page
+ * @param totalItems the number of items of the whole transcript
+ * @param items      the items of the page, in the order of the transcript
+ */
+public record TranscriptItemsPage(String jobName, int offset, int totalItems, List<TranscriptItem> items) {
+}
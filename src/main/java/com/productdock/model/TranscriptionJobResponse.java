@@ -1,9 +1,16 @@
 package com.productdock.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -11,4 +18,41 @@ public class TranscriptionJobResponse {
     private String jobName;
     private String jobStatus;
     private String transcript;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String failureReason;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<TranscriptionSegmentStatus> segments;
+
+    public TranscriptionJobResponse(String jobName, String jobStatus, String transcript) {
+        this(jobName, jobStatus, transcript, null);
+    }
+
+    public TranscriptionJobResponse(String jobName, String jobStatus, String transcript, String failureReason) {
+        this(jobName, jobStatus, transcript, failureReason, null);
+    }
+
+    /**
+     * Computes a strong ETag of the job status. It changes whenever the status, transcript, failure reason
+     * or the progress of a segment changes.
+     *
+     * @return the quoted ETag
+     */
+    public String computeETag() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[]{jobName, jobStatus, transcript, failureReason}) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            if (segments != null) {
+                for (TranscriptionSegmentStatus segment : segments) {
+                    digest.update(segment.jobStatus().getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) 0);
+                }
+            }
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
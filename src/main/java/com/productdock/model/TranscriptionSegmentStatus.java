@@ -0,0 +1,11 @@
+package com.productdock.model;
+
+/**
+ * The progress of one segment of a split recording.
+ *
+ * @param jobName       the transcription job name of the segment
+ * @param jobStatus     the status of the segment job
+ * @param offsetSeconds the time in the recording the segment starts at, timestamps in its transcript are relative to it
+ */
+public record TranscriptionSegmentStatus(String jobName, String jobStatus, double offsetSeconds) {
+}
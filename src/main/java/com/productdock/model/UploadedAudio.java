@@ -0,0 +1,11 @@
+package com.productdock.model;
+
+/**
+ * An audio file that was streamed to S3.
+ *
+ * @param s3Key         the S3 key of the uploaded file
+ * @param sizeBytes     the size of the uploaded file
+ * @param checksumCrc32 the base64-encoded CRC32 of the whole file, as verified by S3
+ */
+public record UploadedAudio(String s3Key, long sizeBytes, String checksumCrc32) {
+}
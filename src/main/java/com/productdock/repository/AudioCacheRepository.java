@@ -0,0 +1,361 @@
+package com.productdock.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class AudioCacheRepository {
+
+    private static final String FILE_EXTENSION = ".mp3";
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${tts.cache.memory.max-bytes}")
+    private long memoryMaxBytes;
+
+    @Value("${tts.cache.disk.max-bytes}")
+    private long diskMaxBytes;
+
+    @Value("${tts.cache.disk.directory}")
+    private String diskDirectory;
+
+    @Value("${tts.cache.memory.promote-after-disk-hits}")
+    private int promoteAfterDiskHits;
+
+    // Access-ordered maps give us LRU eviction for both tiers
+    private final LinkedHashMap<String, byte[]> memoryTier = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, DiskEntry> diskTier = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+    private long diskBytes;
+
+    private Path cacheDirectory;
+    private Counter memoryHits;
+    private Counter diskHits;
+    private Counter misses;
+    private Counter memoryEvictions;
+    private Counter diskEvictions;
+
+    /**
+     * Prepares the disk tier directory, registers cache metrics and rebuilds the disk index
+     * from files left over by a previous run (oldest files are treated as least recently used).
+     */
+    @PostConstruct
+    public void init() {
+        memoryHits = meterRegistry.counter("tts.cache.hits", "tier", "memory");
+        diskHits = meterRegistry.counter("tts.cache.hits", "tier", "disk");
+        misses = meterRegistry.counter("tts.cache.misses");
+        memoryEvictions = meterRegistry.counter("tts.cache.evictions", "tier", "memory");
+        diskEvictions = meterRegistry.counter("tts.cache.evictions", "tier", "disk");
+        meterRegistry.gauge("tts.cache.size.bytes", List.of(Tag.of("tier", "memory")), this, AudioCacheRepository::getMemoryBytes);
+        meterRegistry.gauge("tts.cache.size.bytes", List.of(Tag.of("tier", "disk")), this, AudioCacheRepository::getDiskBytes);
+
+        try {
+            cacheDirectory = Files.createDirectories(Path.of(diskDirectory));
+            try (Stream<Path> files = Files.list(cacheDirectory)) {
+                files.filter(file -> file.getFileName().toString().endsWith(FILE_EXTENSION))
+                        .sorted(Comparator.comparing(this::getLastModifiedTime))
+                        .forEach(this::indexExistingFile);
+            }
+            synchronized (diskTier) {
+                evictDiskTier();
+            }
+            log.info("AudioCacheRepository initialized with {} cached files in '{}'", diskTier.size(), cacheDirectory);
+        } catch (IOException e) {
+            log.warn("Disk tier of the audio cache is disabled, directory '{}' is not usable: {}", diskDirectory, e.getMessage());
+            cacheDirectory = null;
+        }
+    }
+
+    /**
+     * Looks up synthesized audio by its cache key.
+     * Memory tier hits are served from the heap, disk tier hits are served from a memory-mapped file without
+     * copying it. A file is copied into the memory tier only once it was hit repeatedly, so audio that is
+     * requested once in a while costs no heap. Both kinds of hits are seekable and know their length.
+     *
+     * @param key the content-addressed cache key
+     * @return a Resource over the cached audio, or empty if the key is not cached
+     */
+    public Optional<Resource> find(String key) {
+        synchronized (memoryTier) {
+            byte[] audio = memoryTier.get(key);
+            if (audio != null) {
+                memoryHits.increment();
+                return Optional.of(new ByteArrayResource(audio, "Cached audio " + key));
+            }
+        }
+
+        int hits = recordDiskHit(key);
+        Optional<MappedByteBuffer> mappedAudio = hits > 0 ? mapFromDisk(key) : Optional.empty();
+        if (mappedAudio.isPresent()) {
+            diskHits.increment();
+            MappedByteBuffer buffer = mappedAudio.get();
+            // Counted again after the copy was evicted from memory, a file still in demand is promoted again
+            if (promoteAfterDiskHits > 0 && hits % promoteAfterDiskHits == 0) {
+                byte[] audio = new byte[buffer.remaining()];
+                buffer.duplicate().get(audio);
+                putInMemoryTier(key, audio);
+            }
+            return Optional.of(new MappedAudioResource(buffer, key));
+        }
+
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Stores synthesized audio in both cache tiers.
+     * Failures on the disk tier are logged and otherwise ignored, the cache is best effort.
+     *
+     * @param key   the content-addressed cache key
+     * @param audio the synthesized audio bytes
+     */
+    public void store(String key, byte[] audio) {
+        putInMemoryTier(key, audio);
+        writeToDisk(key, audio);
+    }
+
+    public long getMemoryBytes() {
+        synchronized (memoryTier) {
+            return memoryBytes;
+        }
+    }
+
+    public long getDiskBytes() {
+        synchronized (diskTier) {
+            return diskBytes;
+        }
+    }
+
+    /**
+     * Adds an entry to the memory tier and evicts least recently used entries above the size limit.
+     * Entries larger than the whole tier are not kept in memory.
+     */
+    private void putInMemoryTier(String key, byte[] audio) {
+        if (audio.length > memoryMaxBytes) {
+            return;
+        }
+        synchronized (memoryTier) {
+            byte[] previous = memoryTier.put(key, audio);
+            memoryBytes += audio.length - (previous != null ? previous.length : 0);
+
+            Iterator<Map.Entry<String, byte[]>> iterator = memoryTier.entrySet().iterator();
+            while (memoryBytes > memoryMaxBytes && iterator.hasNext()) {
+                Map.Entry<String, byte[]> eldest = iterator.next();
+                memoryBytes -= eldest.getValue().length;
+                iterator.remove();
+                memoryEvictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Counts a hit of the disk tier entry of the given key.
+     *
+     * @return the number of hits of the entry since it was written, or 0 if it is not in the disk tier
+     */
+    private int recordDiskHit(String key) {
+        if (cacheDirectory == null) {
+            return 0;
+        }
+        synchronized (diskTier) {
+            DiskEntry entry = diskTier.get(key);
+            return entry != null ? ++entry.hits : 0;
+        }
+    }
+
+    /**
+     * Memory-maps the cached file for the given key.
+     */
+    private Optional<MappedByteBuffer> mapFromDisk(String key) {
+        try (FileChannel channel = FileChannel.open(getFilePath(key), StandardOpenOption.READ)) {
+            return Optional.of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (NoSuchFileException e) {
+            removeFromDiskIndex(key);
+            return Optional.empty();
+        } catch (IOException e) {
+            log.warn("Failed to read cached audio '{}' from disk: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes an entry to the disk tier through a temporary file, so readers never see partial files,
+     * and evicts least recently used files above the size limit.
+     */
+    private void writeToDisk(String key, byte[] audio) {
+        if (cacheDirectory == null || audio.length > diskMaxBytes) {
+            return;
+        }
+        try {
+            Path tempFile = Files.createTempFile(cacheDirectory, key, ".tmp");
+            Files.write(tempFile, audio);
+            Files.move(tempFile, getFilePath(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to write cached audio '{}' to disk: {}", key, e.getMessage());
+            return;
+        }
+        synchronized (diskTier) {
+            DiskEntry previous = diskTier.put(key, new DiskEntry(audio.length));
+            diskBytes += audio.length - (previous != null ? previous.size : 0L);
+            evictDiskTier();
+        }
+    }
+
+    /**
+     * Deletes least recently used files until the disk tier fits its size limit.
+     * Must be called while holding the disk tier lock.
+     */
+    private void evictDiskTier() {
+        Iterator<Map.Entry<String, DiskEntry>> iterator = diskTier.entrySet().iterator();
+        while (diskBytes > diskMaxBytes && iterator.hasNext()) {
+            Map.Entry<String, DiskEntry> eldest = iterator.next();
+            try {
+                Files.deleteIfExists(getFilePath(eldest.getKey()));
+            } catch (IOException e) {
+                log.warn("Failed to delete evicted audio file '{}': {}", eldest.getKey(), e.getMessage());
+            }
+            diskBytes -= eldest.getValue().size;
+            iterator.remove();
+            diskEvictions.increment();
+        }
+    }
+
+    private void removeFromDiskIndex(String key) {
+        synchronized (diskTier) {
+            DiskEntry entry = diskTier.remove(key);
+            if (entry != null) {
+                diskBytes -= entry.size;
+            }
+        }
+    }
+
+    private void indexExistingFile(Path file) {
+        String fileName = file.getFileName().toString();
+        String key = fileName.substring(0, fileName.length() - FILE_EXTENSION.length());
+        try {
+            long size = Files.size(file);
+            synchronized (diskTier) {
+                diskTier.put(key, new DiskEntry(size));
+                diskBytes += size;
+            }
+        } catch (IOException e) {
+            log.warn("Skipping unreadable cached audio file '{}': {}", file, e.getMessage());
+        }
+    }
+
+    private FileTime getLastModifiedTime(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private Path getFilePath(String key) {
+        return cacheDirectory.resolve(key + FILE_EXTENSION);
+    }
+
+    /**
+     * Size of a disk tier file and how often it was hit, guarded by the disk tier lock.
+     */
+    private static class DiskEntry {
+        private final long size;
+        private int hits;
+
+        DiskEntry(long size) {
+            this.size = size;
+        }
+    }
+
+    /**
+     * Resource backed by a memory-mapped cache file.
+     */
+    private static class MappedAudioResource extends AbstractResource {
+        private final ByteBuffer buffer;
+        private final String key;
+
+        MappedAudioResource(ByteBuffer buffer, String key) {
+            this.buffer = buffer;
+            this.key = key;
+        }
+
+        @Override
+        public String getDescription() {
+            return "Cached audio " + key;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteBufferInputStream(buffer);
+        }
+
+        @Override
+        public long contentLength() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public boolean exists() {
+            return true;
+        }
+    }
+
+    /**
+     * InputStream view over a (memory-mapped) ByteBuffer, so disk hits are read straight from the page cache.
+     */
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer.duplicate();
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long count) {
+            int skipped = (int) Math.max(0, Math.min(count, buffer.remaining()));
+            buffer.position(buffer.position() + skipped);
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
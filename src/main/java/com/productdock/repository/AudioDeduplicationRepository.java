@@ -0,0 +1,125 @@
+package com.productdock.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers which transcription job was started for which audio, keyed by the SHA-256 hash of the audio bytes.
+ * <p>
+ * Users often upload the same recording again. Its job can be reused instead of uploading the audio and
+ * starting another job. The index holds a bounded number of hashes, the least recently used are evicted,
+ * and every entry expires after the configured time to live.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class AudioDeduplicationRepository {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${transcribe.dedup.max-entries}")
+    private int maxEntries;
+
+    @Value("${transcribe.dedup.ttl-ms}")
+    private long ttlMillis;
+
+    // An access-ordered map gives us LRU eviction
+    private final LinkedHashMap<String, IndexedJob> jobs = new LinkedHashMap<>(16, 0.75f, true);
+
+    private Counter hits;
+    private Counter misses;
+
+    /**
+     * Registers the index metrics.
+     */
+    @PostConstruct
+    public void init() {
+        hits = meterRegistry.counter("transcribe.dedup.hits");
+        misses = meterRegistry.counter("transcribe.dedup.misses");
+        meterRegistry.gauge("transcribe.dedup.size", this, AudioDeduplicationRepository::size);
+        log.info("AudioDeduplicationRepository initialized with {} entries at most", maxEntries);
+    }
+
+    /**
+     * Looks up the transcription job started for the audio with the given hash.
+     *
+     * @param audioHash the SHA-256 hash of the audio, hex encoded
+     * @return the transcription job name, or empty if no job is known for the audio
+     */
+    public Optional<String> findJob(String audioHash) {
+        synchronized (jobs) {
+            IndexedJob job = jobs.get(audioHash);
+            if (job != null && System.nanoTime() - job.expiresAt() >= 0) {
+                jobs.remove(audioHash);
+                job = null;
+            }
+            if (job == null) {
+                misses.increment();
+                return Optional.empty();
+            }
+            hits.increment();
+            return Optional.of(job.jobName());
+        }
+    }
+
+    /**
+     * Remembers the transcription job started for the audio with the given hash, for the configured time to live.
+     *
+     * @param audioHash the SHA-256 hash of the audio, hex encoded
+     * @param jobName   the transcription job name
+     */
+    public void put(String audioHash, String jobName) {
+        synchronized (jobs) {
+            jobs.put(audioHash, new IndexedJob(jobName, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis)));
+            if (jobs.size() > maxEntries) {
+                jobs.remove(jobs.keySet().iterator().next());
+            }
+        }
+    }
+
+    /**
+     * Forgets the transcription job of the audio with the given hash, if the hash still refers to that job.
+     * Used once a job turns out to be failed or deleted, so the next upload starts a new one.
+     *
+     * @param audioHash the SHA-256 hash of the audio, hex encoded
+     * @param jobName   the transcription job name that is no longer reusable
+     */
+    public void remove(String audioHash, String jobName) {
+        synchronized (jobs) {
+            IndexedJob job = jobs.get(audioHash);
+            if (job != null && job.jobName().equals(jobName)) {
+                jobs.remove(audioHash);
+            }
+        }
+    }
+
+    /**
+     * Forgets every audio that refers to a job, for jobs whose audio hash is not known, e.g. split jobs.
+     * Looks at every entry, so it is meant for the occasional cleanup only.
+     *
+     * @param jobName the transcription job name that is no longer reusable
+     */
+    public void removeJob(String jobName) {
+        synchronized (jobs) {
+            jobs.values().removeIf(job -> job.jobName().equals(jobName));
+        }
+    }
+
+    private int size() {
+        synchronized (jobs) {
+            return jobs.size();
+        }
+    }
+
+    private record IndexedJob(String jobName, long expiresAt) {
+    }
+}
@@ -1,48 +1,297 @@
 package com.productdock.repository;
 
 import com.productdock.exception.ComprehendRepositoryException;
+import com.productdock.exception.DependencyUnavailableException;
+import com.productdock.language.LanguageIdentifier;
+import com.productdock.resilience.DependencyGuard;
+import com.productdock.resilience.RetryPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.comprehend.ComprehendAsyncClient;
 import software.amazon.awssdk.services.comprehend.ComprehendClient;
 import software.amazon.awssdk.services.comprehend.model.ComprehendException;
 import software.amazon.awssdk.services.comprehend.model.DetectDominantLanguageRequest;
 import software.amazon.awssdk.services.comprehend.model.DetectDominantLanguageResponse;
+import software.amazon.awssdk.services.comprehend.model.DominantLanguage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class ComprehendRepository {
     private final ComprehendClient comprehendClient;
+    private final LanguageIdentifier languageIdentifier;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<ComprehendAsyncClient> comprehendAsyncClient;
+    @Qualifier("comprehendBatchExecutor")
+    private final Executor comprehendBatchExecutor;
+    @Qualifier("comprehendRetryPolicy")
+    private final RetryPolicy comprehendRetryPolicy;
+    @Qualifier("comprehendGuard")
+    private final DependencyGuard comprehendGuard;
+
+    @Value("${comprehend.local-detection.confidence-threshold}")
+    private double confidenceThreshold;
+
+    @Value("${comprehend.max-text-chars}")
+    private int maxTextChars;
+
+    @Value("${comprehend.cache.max-entries}")
+    private int cacheMaxEntries;
+
+    @Value("${comprehend.batch.enabled}")
+    private boolean batchEnabled;
+
+    @Value("${comprehend.batch.window-ms}")
+    private long batchWindowMillis;
+
+    @Value("${comprehend.batch.max-size}")
+    private int batchMaxSize;
+
+    // Access-ordered map gives us LRU eviction of detected languages
+    private final LinkedHashMap<String, String> detectedLanguages = new LinkedHashMap<>(16, 0.75f, true);
+
+    private Counter cacheDetections;
+    private Counter localDetections;
+    private Counter comprehendDetections;
+    private LanguageDetectionBatcher languageDetectionBatcher;
 
     /**
-     * Detects the dominant language of the given text using AWS Comprehend.
-     * This method uses the default language code "en-US" if no languages are detected.
+     * Registers the metrics reporting which path decided the language of each request
+     * and starts coalescing Comprehend requests into batches if enabled.
+     */
+    @PostConstruct
+    public void init() {
+        cacheDetections = meterRegistry.counter("comprehend.language.detections", "path", "cache");
+        localDetections = meterRegistry.counter("comprehend.language.detections", "path", "local");
+        comprehendDetections = meterRegistry.counter("comprehend.language.detections", "path", "comprehend");
+
+        if (batchEnabled) {
+            // In the non-blocking mode the batches are sent with the async client, so detections never wait on a thread
+            languageDetectionBatcher = new LanguageDetectionBatcher(comprehendClient, comprehendAsyncClient.getIfAvailable(),
+                    batchWindowMillis, batchMaxSize, meterRegistry, comprehendBatchExecutor, comprehendRetryPolicy, comprehendGuard);
+            log.info("Comprehend language detections are batched within {} ms, up to {} texts", batchWindowMillis, batchMaxSize);
+        }
+    }
+
+    /**
+     * Stops the batching of Comprehend requests.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (languageDetectionBatcher != null) {
+            languageDetectionBatcher.shutdown();
+        }
+    }
+
+    /**
+     * Detects the dominant language of the given text.
+     * Recently detected texts are answered from a cache, other texts are identified locally first.
+     * AWS Comprehend is only called with a prefix of the text when the local confidence is too low.
+     * This method uses the default language code "en" if no languages are detected.
      *
      * @param text the text for which to detect the dominant language
      * @return the detected language code
      * @throws ComprehendRepositoryException if an error occurs during language detection
      */
     public String detectLanguage(String text)  throws ComprehendRepositoryException {
+        String cacheKey = getCacheKey(text);
+        synchronized (detectedLanguages) {
+            String cached = detectedLanguages.get(cacheKey);
+            if (cached != null) {
+                cacheDetections.increment();
+                return cached;
+            }
+        }
+
+        LanguageIdentifier.IdentifiedLanguage identified = languageIdentifier.identify(text);
+        String languageCode;
+        if (identified.confidence() >= confidenceThreshold) {
+            log.debug("Language '{}' identified locally with confidence {}", identified.languageCode(), identified.confidence());
+            localDetections.increment();
+            languageCode = identified.languageCode();
+        } else {
+            comprehendDetections.increment();
+            languageCode = detectLanguageWithComprehend(getTextPrefix(text));
+        }
+
+        cacheLanguage(cacheKey, languageCode);
+        return languageCode;
+    }
+
+    /**
+     * Detects the dominant language of the given text like {@link #detectLanguage(String)},
+     * without blocking the calling thread while AWS Comprehend is working.
+     *
+     * @param text the text for which to detect the dominant language
+     * @return a CompletableFuture of the detected language code,
+     * completed exceptionally with a ComprehendRepositoryException if an error occurs during language detection
+     */
+    public CompletableFuture<String> detectLanguageAsync(String text) {
+        String cacheKey = getCacheKey(text);
+        synchronized (detectedLanguages) {
+            String cached = detectedLanguages.get(cacheKey);
+            if (cached != null) {
+                cacheDetections.increment();
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+
+        LanguageIdentifier.IdentifiedLanguage identified = languageIdentifier.identify(text);
+        if (identified.confidence() >= confidenceThreshold) {
+            log.debug("Language '{}' identified locally with confidence {}", identified.languageCode(), identified.confidence());
+            localDetections.increment();
+            cacheLanguage(cacheKey, identified.languageCode());
+            return CompletableFuture.completedFuture(identified.languageCode());
+        }
+
+        comprehendDetections.increment();
+        return detectLanguageWithComprehendAsync(getTextPrefix(text))
+                .thenApply(languageCode -> {
+                    cacheLanguage(cacheKey, languageCode);
+                    return languageCode;
+                });
+    }
+
+    /**
+     * Detects the dominant language of the given text using AWS Comprehend, retrying transient failures.
+     * Calls fail fast while the Comprehend circuit breaker is open or its bulkhead is full.
+     * Concurrent detections share a BatchDetectDominantLanguage request when batching is enabled.
+     *
+     * @param text the text for which to detect the dominant language
+     * @return the detected language code, or "en" if no languages are detected
+     * @throws ComprehendRepositoryException if an error occurs during language detection
+     */
+    private String detectLanguageWithComprehend(String text) throws ComprehendRepositoryException {
         try {
+            if (languageDetectionBatcher != null) {
+                return languageDetectionBatcher.detect(text);
+            }
+
             DetectDominantLanguageRequest request = DetectDominantLanguageRequest.builder()
                     .text(text)
                     .build();
 
-            DetectDominantLanguageResponse response = comprehendClient.detectDominantLanguage(request);
-
-            if (!response.languages().isEmpty()) {
-                return response.languages().get(0).languageCode();
-            } else {
-                return "en"; // Default to English if no languages are detected
-            }
+            DetectDominantLanguageResponse response = comprehendGuard.execute(
+                    () -> comprehendRetryPolicy.execute(() -> comprehendClient.detectDominantLanguage(request)));
+            return getLanguageCode(response.languages());
 
+        } catch (DependencyUnavailableException e) {
+            log.warn("Comprehend call rejected: {}", e.getMessage());
+            throw new ComprehendRepositoryException(e.getMessage(), e);
         } catch (ComprehendException e) {
             log.error("AWS Comprehend error while detecting language", e);
             throw new ComprehendRepositoryException("AWS Comprehend error", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ComprehendRepositoryException("Interrupted while waiting for Comprehend", e);
         } catch (Exception e) {
             log.error("Unexpected error accessing Comprehend service", e);
             throw new ComprehendRepositoryException("Error accessing Comprehend service", e);
         }
     }
+
+    /**
+     * Detects the dominant language of the given text using the async AWS Comprehend client,
+     * or as part of a batch when batching is enabled, which is sent with the async client as well.
+     *
+     * @param text the text for which to detect the dominant language
+     * @return a CompletableFuture of the detected language code, or "en" if no languages are detected
+     */
+    private CompletableFuture<String> detectLanguageWithComprehendAsync(String text) {
+        CompletableFuture<String> languageCode;
+        try {
+            if (languageDetectionBatcher != null) {
+                languageCode = languageDetectionBatcher.submit(text);
+            } else {
+                DetectDominantLanguageRequest request = DetectDominantLanguageRequest.builder().text(text).build();
+                languageCode = comprehendGuard.executeAsync(() -> comprehendRetryPolicy.executeAsync(
+                                () -> comprehendAsyncClient.getObject().detectDominantLanguage(request)))
+                        .thenApply(response -> getLanguageCode(response.languages()));
+            }
+        } catch (Exception e) {
+            languageCode = CompletableFuture.failedFuture(e);
+        }
+
+        return languageCode.handle((detectedLanguage, e) -> {
+            if (e == null) {
+                return detectedLanguage;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof DependencyUnavailableException) {
+                log.warn("Comprehend call rejected: {}", cause.getMessage());
+                throw new ComprehendRepositoryException(cause.getMessage(), cause);
+            }
+            if (cause instanceof ComprehendException) {
+                log.error("AWS Comprehend error while detecting language", cause);
+                throw new ComprehendRepositoryException("AWS Comprehend error", cause);
+            }
+            log.error("Unexpected error accessing Comprehend service", cause);
+            throw new ComprehendRepositoryException("Error accessing Comprehend service", cause);
+        });
+    }
+
+    private String getLanguageCode(List<DominantLanguage> languages) {
+        return languages.isEmpty() ? "en" : languages.get(0).languageCode(); // Default to English if no languages are detected
+    }
+
+    /**
+     * Cuts the text to the maximum length sent to Comprehend, at a word boundary where possible.
+     * A prefix is enough to detect the dominant language and keeps the request small.
+     *
+     * @param text the text to cut
+     * @return the prefix of the text
+     */
+    private String getTextPrefix(String text) {
+        if (text.length() <= maxTextChars) {
+            return text;
+        }
+        int end = maxTextChars;
+        if (Character.isLowSurrogate(text.charAt(end))) {
+            end--;
+        }
+        int lastSpace = text.lastIndexOf(' ', end);
+        return text.substring(0, lastSpace > 0 ? lastSpace : end);
+    }
+
+    /**
+     * Adds a detected language to the cache and evicts the least recently used entry above the limit.
+     */
+    private void cacheLanguage(String cacheKey, String languageCode) {
+        if (cacheMaxEntries <= 0) {
+            return;
+        }
+        synchronized (detectedLanguages) {
+            detectedLanguages.put(cacheKey, languageCode);
+            if (detectedLanguages.size() > cacheMaxEntries) {
+                detectedLanguages.remove(detectedLanguages.keySet().iterator().next());
+            }
+        }
+    }
+
+    private String getCacheKey(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
 }
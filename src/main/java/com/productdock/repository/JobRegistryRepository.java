@@ -0,0 +1,451 @@
+package com.productdock.repository;
+
+import com.productdock.model.RegisteredJob;
+import com.productdock.model.SplitTranscriptionJob;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the transcription jobs whose audio and transcript still have to be deleted, so a restart does not leak them.
+ * <p>
+ * Every change is appended to a memory-mapped log file and flushed to disk before the call returns, the jobs
+ * themselves are indexed in memory. On startup the log is replayed into the index. Each record carries a CRC32,
+ * so a record torn by a crash ends the replay. Compaction rewrites the log with the live jobs only and replaces it
+ * atomically. It runs on startup, when the log is full and after every cleanup, so the log stays small however
+ * many jobs were cleaned up.
+ * <p>
+ * The registry also keeps the split jobs of long recordings with their segment jobs, so a split job is known
+ * after a restart until all of its segments were cleaned up.
+ * <p>
+ * If the log directory is not usable, the registry keeps working in memory only. A log in the temporary directory
+ * works but is warned about on startup, it does not outlive a reboot.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class JobRegistryRepository {
+
+    private static final String LOG_FILE = "jobs.log";
+    private static final int MAGIC = 0x4A524731; // "JRG1"
+    private static final int HEADER_BYTES = 4;
+    // Length and CRC32 of the payload in front of every record
+    private static final int RECORD_HEADER_BYTES = 8;
+
+    private static final byte REGISTER = 1;
+    private static final byte UPDATE_STATE = 2;
+    private static final byte REMOVE = 3;
+    private static final byte REGISTER_SPLIT = 4;
+    private static final byte REMOVE_SPLIT = 5;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${stt.job-registry.directory}")
+    private String directory;
+
+    @Value("${stt.job-registry.initial-bytes}")
+    private int initialBytes;
+
+    @Value("${stt.job-registry.max-jobs}")
+    private int maxJobs;
+
+    // Insertion-ordered, so the oldest jobs are cleaned up first
+    private final LinkedHashMap<String, RegisteredJob> jobs = new LinkedHashMap<>();
+    // Guarded by the lock of jobs as well
+    private final Map<String, SplitTranscriptionJob> splitJobs = new HashMap<>();
+    private final Map<String, String> splitJobNamesBySegment = new HashMap<>();
+    private Path logFile;
+    private MappedByteBuffer mappedLog;
+    private int records;
+
+    /**
+     * Replays the log left by a previous run into the index and registers the registry metrics.
+     */
+    @PostConstruct
+    public void init() {
+        meterRegistry.gauge("stt.job-registry.size", this, JobRegistryRepository::size);
+        meterRegistry.gauge("stt.job-registry.split-jobs", this, JobRegistryRepository::splitJobCount);
+        try {
+            logFile = Files.createDirectories(Path.of(directory)).resolve(LOG_FILE);
+            synchronized (jobs) {
+                if (Files.exists(logFile)) {
+                    replay();
+                }
+                // The log is rewritten on startup, which drops the history of jobs cleaned up before
+                compact();
+            }
+            log.info("JobRegistryRepository initialized with {} jobs from '{}'", jobs.size(), logFile);
+            if (isTemporary(logFile)) {
+                log.warn("Job registry '{}' is in the temporary directory, jobs may be forgotten and leaked when it is cleared. "
+                        + "Set STT_JOB_REGISTRY_DIR to a persistent directory", logFile);
+            }
+        } catch (IOException e) {
+            log.warn("Job registry is kept in memory only, directory '{}' is not usable: {}", directory, e.getMessage());
+            logFile = null;
+            mappedLog = null;
+        }
+    }
+
+    /**
+     * Registers a started transcription job.
+     *
+     * @param job the job in its initial state
+     */
+    public void register(RegisteredJob job) {
+        synchronized (jobs) {
+            jobs.put(job.jobName(), job);
+            append(REGISTER, job);
+        }
+    }
+
+    /**
+     * Records how far the cleanup of a job got.
+     *
+     * @param jobName the transcription job name
+     * @param state   the new cleanup state
+     */
+    public void updateState(String jobName, RegisteredJob.State state) {
+        synchronized (jobs) {
+            RegisteredJob job = jobs.get(jobName);
+            if (job != null) {
+                RegisteredJob updated = job.withState(state);
+                jobs.put(jobName, updated);
+                append(UPDATE_STATE, updated);
+            }
+        }
+    }
+
+    /**
+     * Removes a job whose resources were deleted.
+     *
+     * @param jobName the transcription job name
+     */
+    public void remove(String jobName) {
+        synchronized (jobs) {
+            RegisteredJob job = jobs.remove(jobName);
+            if (job != null) {
+                append(REMOVE, job);
+            }
+        }
+    }
+
+    /**
+     * Registers the split job of a long recording, once all of its segment jobs are registered.
+     *
+     * @param splitJob the split job and its segment jobs
+     */
+    public void registerSplit(SplitTranscriptionJob splitJob) {
+        synchronized (jobs) {
+            putSplit(splitJob);
+            append(encodeSplit(REGISTER_SPLIT, splitJob));
+        }
+    }
+
+    /**
+     * Removes a split job whose segment jobs were all cleaned up.
+     *
+     * @param jobName the name of the split job
+     */
+    public void removeSplit(String jobName) {
+        synchronized (jobs) {
+            SplitTranscriptionJob splitJob = splitJobs.get(jobName);
+            if (splitJob != null) {
+                deleteSplit(splitJob);
+                append(encodeSplit(REMOVE_SPLIT, splitJob));
+            }
+        }
+    }
+
+    /**
+     * @param jobName the name of the split job
+     * @return the split job, or empty if the name is no split job or all of its segments were cleaned up
+     */
+    public Optional<SplitTranscriptionJob> findSplit(String jobName) {
+        synchronized (jobs) {
+            return Optional.ofNullable(splitJobs.get(jobName));
+        }
+    }
+
+    /**
+     * @param segmentJobName the transcription job name of a segment
+     * @return the split job the segment belongs to, or empty if the job is no segment of a registered split job
+     */
+    public Optional<SplitTranscriptionJob> findSplitOf(String segmentJobName) {
+        synchronized (jobs) {
+            String splitJobName = splitJobNamesBySegment.get(segmentJobName);
+            return Optional.ofNullable(splitJobName != null ? splitJobs.get(splitJobName) : null);
+        }
+    }
+
+    /**
+     * @param jobName the transcription job name
+     * @return the registered job, or empty if it is not registered (anymore)
+     */
+    public Optional<RegisteredJob> find(String jobName) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(jobName));
+        }
+    }
+
+    /**
+     * @return a snapshot of the registered jobs, oldest first
+     */
+    public List<RegisteredJob> findAll() {
+        synchronized (jobs) {
+            return new ArrayList<>(jobs.values());
+        }
+    }
+
+    /**
+     * @return whether the registry holds the configured maximum of jobs, new jobs should not be started
+     */
+    public boolean isFull() {
+        return size() >= maxJobs;
+    }
+
+    /**
+     * @return the number of registered jobs
+     */
+    public int size() {
+        synchronized (jobs) {
+            return jobs.size();
+        }
+    }
+
+    /**
+     * Rewrites the log with the live jobs only, if it holds records of removed jobs or earlier states.
+     */
+    public void compactIfNeeded() {
+        synchronized (jobs) {
+            if (logFile != null && records > jobs.size() + splitJobs.size()) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Appends a record to the log and flushes it to disk. Must be called while holding the index lock.
+     */
+    private void append(byte type, RegisteredJob job) {
+        append(encode(type, job));
+    }
+
+    private void append(byte[] payload) {
+        if (logFile == null) {
+            return;
+        }
+        if (mappedLog.remaining() < RECORD_HEADER_BYTES + payload.length) {
+            // The index already holds the change, compaction writes it and makes room or grows the log
+            compact();
+            return;
+        }
+        int start = mappedLog.position();
+        mappedLog.putInt(payload.length).putInt(checksum(payload)).put(payload);
+        mappedLog.force(start, mappedLog.position() - start);
+        records++;
+    }
+
+    private void putSplit(SplitTranscriptionJob splitJob) {
+        splitJobs.put(splitJob.jobName(), splitJob);
+        splitJob.segments().forEach(segment -> splitJobNamesBySegment.put(segment.jobName(), splitJob.jobName()));
+    }
+
+    private void deleteSplit(SplitTranscriptionJob splitJob) {
+        splitJobs.remove(splitJob.jobName());
+        splitJob.segments().forEach(segment -> splitJobNamesBySegment.remove(segment.jobName()));
+    }
+
+    private int splitJobCount() {
+        synchronized (jobs) {
+            return splitJobs.size();
+        }
+    }
+
+    /**
+     * Writes the live jobs to a new log file and moves it over the current one.
+     * Must be called while holding the index lock.
+     */
+    private void compact() {
+        List<byte[]> payloads = new ArrayList<>(jobs.size() + splitJobs.size());
+        jobs.values().forEach(job -> payloads.add(encode(REGISTER, job)));
+        splitJobs.values().forEach(splitJob -> payloads.add(encodeSplit(REGISTER_SPLIT, splitJob)));
+        long liveBytes = HEADER_BYTES;
+        for (byte[] payload : payloads) {
+            liveBytes += RECORD_HEADER_BYTES + payload.length;
+        }
+        // At least half of the new log is free for appends
+        long capacity = initialBytes;
+        while (capacity < liveBytes * 2) {
+            capacity *= 2;
+        }
+
+        Path compactedFile = logFile.resolveSibling(LOG_FILE + ".compacting");
+        try (FileChannel channel = FileChannel.open(compactedFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer compacted = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            compacted.putInt(MAGIC);
+            for (byte[] payload : payloads) {
+                compacted.putInt(payload.length).putInt(checksum(payload)).put(payload);
+            }
+            compacted.force();
+            Files.move(compactedFile, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            mappedLog = compacted;
+            records = payloads.size();
+        } catch (IOException e) {
+            log.error("Failed to compact the job registry, it is kept in memory only from now on", e);
+            logFile = null;
+            mappedLog = null;
+        }
+    }
+
+    /**
+     * Applies the records of the log to the index, up to the end of the log or the first torn record.
+     */
+    private void replay() throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            log.warn("Ignoring job registry '{}', it is no job registry log", logFile);
+            return;
+        }
+
+        int replayed = 0;
+        while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int crc = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            if (checksum(payload) != crc) {
+                log.warn("Job registry '{}' ends in a torn record at offset {}", logFile, start);
+                break;
+            }
+            apply(payload);
+            replayed++;
+        }
+        log.info("Replayed {} job registry records", replayed);
+    }
+
+    private void apply(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        try {
+            byte type = buffer.get();
+            if (type == REGISTER_SPLIT || type == REMOVE_SPLIT) {
+                applySplit(type, buffer);
+                return;
+            }
+            RegisteredJob job = new RegisteredJob(getString(buffer), getString(buffer), getString(buffer),
+                    Instant.ofEpochMilli(buffer.getLong()), RegisteredJob.State.values()[buffer.get()]);
+            if (type == REMOVE) {
+                jobs.remove(job.jobName());
+            } else if (type == REGISTER || type == UPDATE_STATE && jobs.containsKey(job.jobName())) {
+                jobs.put(job.jobName(), job);
+            }
+        } catch (BufferUnderflowException | ArrayIndexOutOfBoundsException e) {
+            log.warn("Skipping malformed job registry record");
+        }
+    }
+
+    private void applySplit(byte type, ByteBuffer buffer) {
+        String jobName = getString(buffer);
+        int segmentCount = buffer.getShort() & 0xFFFF;
+        List<SplitTranscriptionJob.SegmentJob> segments = new ArrayList<>(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments.add(new SplitTranscriptionJob.SegmentJob(getString(buffer), buffer.getDouble()));
+        }
+        SplitTranscriptionJob splitJob = new SplitTranscriptionJob(jobName, segments);
+        if (type == REMOVE_SPLIT) {
+            deleteSplit(splitJob);
+        } else {
+            putSplit(splitJob);
+        }
+    }
+
+    /**
+     * @return whether the path is in {@code java.io.tmpdir}, which the system may clear on reboot or when idle
+     */
+    static boolean isTemporary(Path path) {
+        Path tempDirectory = Path.of(System.getProperty("java.io.tmpdir")).toAbsolutePath().normalize();
+        return path.toAbsolutePath().normalize().startsWith(tempDirectory);
+    }
+
+    /**
+     * Every record holds the whole job, so any record is enough to restore it.
+     */
+    private static byte[] encode(byte type, RegisteredJob job) {
+        byte[] jobName = job.jobName().getBytes(StandardCharsets.UTF_8);
+        byte[] s3Key = job.s3Key().getBytes(StandardCharsets.UTF_8);
+        byte[] audioHash = job.audioHash() != null ? job.audioHash().getBytes(StandardCharsets.UTF_8) : new byte[0];
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 3 * Short.BYTES + jobName.length + s3Key.length + audioHash.length + Long.BYTES + 1);
+        buffer.put(type);
+        putString(buffer, jobName);
+        putString(buffer, s3Key);
+        putString(buffer, audioHash);
+        buffer.putLong(job.createdAt().toEpochMilli());
+        buffer.put((byte) job.state().ordinal());
+        return buffer.array();
+    }
+
+    private static byte[] encodeSplit(byte type, SplitTranscriptionJob splitJob) {
+        byte[] jobName = splitJob.jobName().getBytes(StandardCharsets.UTF_8);
+        List<byte[]> segmentJobNames = splitJob.segments().stream()
+                .map(segment -> segment.jobName().getBytes(StandardCharsets.UTF_8))
+                .toList();
+        int length = 1 + 2 * Short.BYTES + jobName.length;
+        for (byte[] segmentJobName : segmentJobNames) {
+            length += Short.BYTES + segmentJobName.length + Double.BYTES;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.put(type);
+        putString(buffer, jobName);
+        buffer.putShort((short) segmentJobNames.size());
+        for (int i = 0; i < segmentJobNames.size(); i++) {
+            putString(buffer, segmentJobNames.get(i));
+            buffer.putDouble(splitJob.segments().get(i).offsetSeconds());
+        }
+        return buffer.array();
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        buffer.putShort((short) value.length).put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] value = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    private static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
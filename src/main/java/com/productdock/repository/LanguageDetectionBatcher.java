@@ -0,0 +1,229 @@
+package com.productdock.repository;
+
+import com.productdock.exception.DependencyUnavailableException;
+import com.productdock.resilience.DependencyGuard;
+import com.productdock.resilience.RetryPolicy;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import software.amazon.awssdk.services.comprehend.ComprehendAsyncClient;
+import software.amazon.awssdk.services.comprehend.ComprehendClient;
+import software.amazon.awssdk.services.comprehend.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent language detections into BatchDetectDominantLanguage requests.
+ * <p>
+ * The first text of a batch opens a window, texts arriving within the window join the batch.
+ * A batch is sent when the window closes or when it is full, whichever comes first, and the
+ * results are handed back to the waiting callers. A batch with a single text uses the regular
+ * DetectDominantLanguage request.
+ * <p>
+ * In the non-blocking mode the batches are sent with the async Comprehend client, no thread waits for Comprehend:
+ * the batch is sent from the thread that closes it and the callers are answered when the response arrives.
+ * Otherwise the blocking client is called on the send executor.
+ */
+@Slf4j
+class LanguageDetectionBatcher {
+
+    // BatchDetectDominantLanguage rejects requests with more texts
+    static final int MAX_COMPREHEND_BATCH_SIZE = 25;
+
+    private final ComprehendClient comprehendClient;
+    private final ComprehendAsyncClient comprehendAsyncClient;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService scheduler;
+    private final Executor sendExecutor;
+    private final RetryPolicy retryPolicy;
+    private final DependencyGuard guard;
+    private final DistributionSummary batchSize;
+    private final Timer batchWait;
+
+    private List<PendingDetection> currentBatch;
+
+    /**
+     * @param comprehendClient      the client used to send the batches
+     * @param comprehendAsyncClient the async client used to send the batches instead, null if the blocking client is used
+     * @param windowMillis     how long the first text of a batch waits for other texts
+     * @param maxBatchSize     the number of texts that sends a batch before its window closes, at most 25
+     * @param meterRegistry    the registry for batch fill and wait time metrics
+     * @param sendExecutor     the executor that sends the batches to Comprehend with the blocking client
+     * @param retryPolicy      the policy for retrying batches that failed as a whole
+     * @param guard            the circuit breaker and bulkhead of Comprehend, a batch takes a single slot
+     */
+    LanguageDetectionBatcher(ComprehendClient comprehendClient, ComprehendAsyncClient comprehendAsyncClient, long windowMillis,
+                             int maxBatchSize, MeterRegistry meterRegistry, Executor sendExecutor, RetryPolicy retryPolicy,
+                             DependencyGuard guard) {
+        this.comprehendClient = comprehendClient;
+        this.comprehendAsyncClient = comprehendAsyncClient;
+        this.windowMillis = windowMillis;
+        if (maxBatchSize > MAX_COMPREHEND_BATCH_SIZE) {
+            log.warn("Comprehend batch size {} exceeds the Comprehend limit, using {}", maxBatchSize, MAX_COMPREHEND_BATCH_SIZE);
+        }
+        this.maxBatchSize = Math.max(1, Math.min(maxBatchSize, MAX_COMPREHEND_BATCH_SIZE));
+        // Sending with the async client does not block, the thread closing the batch can send it
+        this.sendExecutor = comprehendAsyncClient != null ? Runnable::run : sendExecutor;
+        this.retryPolicy = retryPolicy;
+        this.guard = guard;
+        // The scheduler only closes windows, blocking Comprehend calls are made on the send executor
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("comprehend-batch-window-"));
+        this.batchSize = DistributionSummary.builder("comprehend.batch.size")
+                .description("Number of texts per Comprehend language detection request")
+                .register(meterRegistry);
+        this.batchWait = Timer.builder("comprehend.batch.wait")
+                .description("Time texts wait for their batch to be sent")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Detects the dominant language of the given text as part of a batch.
+     * Blocks until the batch containing the text has been answered.
+     *
+     * @param text the text for which to detect the dominant language
+     * @return the detected language code, or "en" if no languages are detected
+     * @throws ComprehendException if Comprehend rejects the batch or the text
+     * @throws DependencyUnavailableException if Comprehend currently rejects calls
+     */
+    String detect(String text) throws InterruptedException {
+        try {
+            return submit(text).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    /**
+     * Adds the given text to the current batch without waiting for it.
+     *
+     * @param text the text for which to detect the dominant language
+     * @return a CompletableFuture of the detected language code, or "en" if no languages are detected,
+     * completed exceptionally with a ComprehendException if Comprehend rejects the batch or the text,
+     * or with a DependencyUnavailableException if Comprehend currently rejects calls
+     */
+    CompletableFuture<String> submit(String text) {
+        PendingDetection detection = new PendingDetection(text, System.nanoTime(), new CompletableFuture<>());
+        List<PendingDetection> fullBatch = null;
+
+        synchronized (this) {
+            if (currentBatch == null) {
+                List<PendingDetection> batch = new ArrayList<>(maxBatchSize);
+                currentBatch = batch;
+                scheduler.schedule(() -> sendExecutor.execute(() -> flush(batch)), windowMillis, TimeUnit.MILLISECONDS);
+            }
+            currentBatch.add(detection);
+            if (currentBatch.size() >= maxBatchSize) {
+                fullBatch = currentBatch;
+                currentBatch = null;
+            }
+        }
+
+        // Full batches are sent right away instead of waiting for the window to close
+        if (fullBatch != null) {
+            List<PendingDetection> batch = fullBatch;
+            sendExecutor.execute(() -> send(batch));
+        }
+        return detection.result();
+    }
+
+    /**
+     * Stops closing windows. Batches that were not sent yet are failed.
+     */
+    void shutdown() {
+        scheduler.shutdownNow();
+        synchronized (this) {
+            if (currentBatch != null) {
+                currentBatch.forEach(detection -> detection.result()
+                        .completeExceptionally(new CancellationException("Language detection batcher shut down")));
+                currentBatch = null;
+            }
+        }
+    }
+
+    /**
+     * Sends the batch when its window closes, unless it was already sent because it was full.
+     */
+    private void flush(List<PendingDetection> batch) {
+        synchronized (this) {
+            if (currentBatch != batch) {
+                return;
+            }
+            currentBatch = null;
+        }
+        send(batch);
+    }
+
+    private void send(List<PendingDetection> batch) {
+        long sentAt = System.nanoTime();
+        batch.forEach(detection -> batchWait.record(sentAt - detection.enqueuedAt(), TimeUnit.NANOSECONDS));
+        batchSize.record(batch.size());
+
+        CompletableFuture<Void> sent;
+        try {
+            sent = batch.size() == 1 ? sendSingle(batch.get(0)) : sendBatch(batch);
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        sent.whenComplete((ignored, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                batch.forEach(detection -> detection.result().completeExceptionally(cause));
+            }
+        });
+    }
+
+    private CompletableFuture<Void> sendSingle(PendingDetection detection) {
+        DetectDominantLanguageRequest request = DetectDominantLanguageRequest.builder().text(detection.text()).build();
+        return call(() -> comprehendClient.detectDominantLanguage(request), client -> client.detectDominantLanguage(request))
+                .thenAccept(response -> detection.result().complete(getLanguageCode(response.languages())));
+    }
+
+    private CompletableFuture<Void> sendBatch(List<PendingDetection> batch) {
+        BatchDetectDominantLanguageRequest request = BatchDetectDominantLanguageRequest.builder()
+                .textList(batch.stream().map(PendingDetection::text).toList())
+                .build();
+        return call(() -> comprehendClient.batchDetectDominantLanguage(request), client -> client.batchDetectDominantLanguage(request))
+                .thenAccept(response -> {
+                    log.debug("Detected languages of {} texts in one batch", batch.size());
+                    for (BatchDetectDominantLanguageItemResult result : response.resultList()) {
+                        batch.get(result.index()).result().complete(getLanguageCode(result.languages()));
+                    }
+                    for (BatchItemError error : response.errorList()) {
+                        batch.get(error.index()).result().completeExceptionally(ComprehendException.builder()
+                                .message(error.errorCode() + ": " + error.errorMessage())
+                                .build());
+                    }
+                    // Every index is answered by the service, this only guards against waiting forever
+                    batch.forEach(detection -> detection.result().completeExceptionally(
+                            ComprehendException.builder().message("No result for text in batch").build()));
+                });
+    }
+
+    /**
+     * Calls Comprehend through the guard and the retry policy, with the async client if there is one.
+     * A blocking call has finished when this returns.
+     */
+    private <T> CompletableFuture<T> call(Supplier<T> blockingCall, Function<ComprehendAsyncClient, CompletableFuture<T>> asyncCall) {
+        if (comprehendAsyncClient != null) {
+            return guard.executeAsync(() -> retryPolicy.executeAsync(() -> asyncCall.apply(comprehendAsyncClient)));
+        }
+        return CompletableFuture.completedFuture(guard.execute(() -> retryPolicy.execute(blockingCall)));
+    }
+
+    private static String getLanguageCode(List<DominantLanguage> languages) {
+        return languages.isEmpty() ? "en" : languages.get(0).languageCode(); // Default to English if no languages are detected
+    }
+
+    private record PendingDetection(String text, long enqueuedAt, CompletableFuture<String> result) {
+    }
+}
@@ -1,24 +1,46 @@
 package com.productdock.repository;
 
+import com.productdock.exception.DependencyUnavailableException;
 import com.productdock.exception.PollyRepositoryException;
+import com.productdock.resilience.DependencyGuard;
+import com.productdock.resilience.HedgingPolicy;
+import com.productdock.resilience.RetryPolicy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.polly.PollyAsyncClient;
 import software.amazon.awssdk.services.polly.PollyClient;
 import software.amazon.awssdk.services.polly.model.*;
 
 import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class PollyRepository {
+    public static final Engine ENGINE = Engine.NEURAL;
+    public static final OutputFormat OUTPUT_FORMAT = OutputFormat.MP3;
+
     private final PollyClient pollyClient;
+    private final ObjectProvider<PollyAsyncClient> pollyAsyncClient;
+    @Qualifier("pollyRetryPolicy")
+    private final RetryPolicy pollyRetryPolicy;
+    private final HedgingPolicy pollyHedgingPolicy;
+    @Qualifier("pollyGuard")
+    private final DependencyGuard pollyGuard;
 
     /**
      * Converts the given text to speech using AWS Polly.
      * This method uses the VoiceId.RUTH to support multiple languages
      * and the neural engine for enhanced voice quality.
+     * Transient failures are retried and slow calls are hedged if enabled.
+     * Calls fail fast while the Polly circuit breaker is open or its bulkhead is full.
      *
      * @param text the text to be converted to speech
      * @param pollyVoiceId the voice ID to be used for synthesis
@@ -28,16 +50,13 @@ public class PollyRepository {
      */
     public InputStream convertTextToSpeech(String text, String pollyVoiceId, String pollyLocaleCode) throws PollyRepositoryException {
         try {
-            SynthesizeSpeechRequest request = SynthesizeSpeechRequest.builder()
-                    .text(text)
-                    .voiceId(VoiceId.fromValue(pollyVoiceId))
-                    .languageCode(LanguageCode.fromValue(pollyLocaleCode))
-                    .outputFormat(OutputFormat.MP3)
-                    .engine(Engine.NEURAL)
-                    .build();
-
-            return pollyClient.synthesizeSpeech(request);
+            SynthesizeSpeechRequest request = buildSynthesizeSpeechRequest(text, pollyVoiceId, pollyLocaleCode);
+            return pollyGuard.execute(() -> pollyRetryPolicy.execute(() -> pollyHedgingPolicy.execute(
+                    () -> pollyClient.synthesizeSpeech(request), ResponseInputStream::abort)));
 
+        } catch (DependencyUnavailableException e) {
+            log.warn("Polly call rejected: {}", e.getMessage());
+            throw new PollyRepositoryException(e.getMessage(), e);
         } catch (PollyException e) {
             log.error("AWS Polly error while converting text to speech", e);
             throw new PollyRepositoryException("AWS Polly error", e);
@@ -46,4 +65,58 @@ public class PollyRepository {
             throw new PollyRepositoryException("Error accessing Polly service", e);
         }
     }
+
+    /**
+     * Converts the given text to speech using the async Polly client.
+     * The future completes as soon as Polly starts sending audio, the returned stream
+     * then delivers the audio as it arrives. Transient failures are retried and slow calls are hedged if enabled.
+     * Calls fail fast while the Polly circuit breaker is open or its bulkhead is full.
+     *
+     * @param text the text to be converted to speech
+     * @param pollyVoiceId the voice ID to be used for synthesis
+     * @param pollyLocaleCode the detected language code
+     * @return a CompletableFuture of an InputStream containing the synthesized speech,
+     * completed exceptionally with a PollyRepositoryException if an error occurs during the conversion
+     */
+    public CompletableFuture<InputStream> convertTextToSpeechAsync(String text, String pollyVoiceId, String pollyLocaleCode) {
+        try {
+            SynthesizeSpeechRequest request = buildSynthesizeSpeechRequest(text, pollyVoiceId, pollyLocaleCode);
+            return pollyGuard.executeAsync(() -> pollyRetryPolicy.executeAsync(() -> pollyHedgingPolicy.executeAsync(
+                            () -> pollyAsyncClient.getObject().synthesizeSpeech(request,
+                                    AsyncResponseTransformer.<SynthesizeSpeechResponse>toBlockingInputStream()),
+                            ResponseInputStream::abort)))
+                    .<InputStream>handle((audioStream, e) -> {
+                        if (e != null) {
+                            throw toRepositoryException(e);
+                        }
+                        return audioStream;
+                    });
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(toRepositoryException(e));
+        }
+    }
+
+    private SynthesizeSpeechRequest buildSynthesizeSpeechRequest(String text, String pollyVoiceId, String pollyLocaleCode) {
+        return SynthesizeSpeechRequest.builder()
+                .text(text)
+                .voiceId(VoiceId.fromValue(pollyVoiceId))
+                .languageCode(LanguageCode.fromValue(pollyLocaleCode))
+                .outputFormat(OUTPUT_FORMAT)
+                .engine(ENGINE)
+                .build();
+    }
+
+    private PollyRepositoryException toRepositoryException(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof DependencyUnavailableException) {
+            log.warn("Polly call rejected: {}", cause.getMessage());
+            return new PollyRepositoryException(cause.getMessage(), cause);
+        }
+        if (cause instanceof PollyException) {
+            log.error("AWS Polly error while converting text to speech", cause);
+            return new PollyRepositoryException("AWS Polly error", cause);
+        }
+        log.error("Unexpected error accessing Polly service", cause);
+        return new PollyRepositoryException("Error accessing Polly service", cause);
+    }
 }
@@ -1,48 +1,142 @@
 package com.productdock.repository;
 
+import com.productdock.audio.AudioFormat;
+import com.productdock.exception.DependencyUnavailableException;
 import com.productdock.exception.S3RepositoryException;
+import com.productdock.model.TranscriptItem;
+import com.productdock.model.UploadedAudio;
+import com.productdock.resilience.DependencyGuard;
+import com.productdock.resilience.RetryPolicy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.ChecksumAlgorithm;
+import software.amazon.awssdk.services.s3.model.ChecksumType;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.Delete;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Error;
 import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
 
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class S3Repository {
 
+    // The most keys S3 deletes with one DeleteObjects call
+    private static final int MAX_DELETE_BATCH = 1000;
+
     private final S3Client s3Client;
+    private final ObjectProvider<S3AsyncClient> s3AsyncClient;
+    @Qualifier("s3RetryPolicy")
+    private final RetryPolicy s3RetryPolicy;
+    @Qualifier("s3Guard")
+    private final DependencyGuard s3Guard;
+    @Qualifier("s3UploadExecutor")
+    private final Executor s3UploadExecutor;
 
     @Value("${aws.s3.transcribe.input-bucket}")
     private String bucketName;
 
+    @Value("${aws.s3.transcribe.output-bucket}")
+    private String outputBucketName;
+
+    @Value("${s3.multipart.part-size-bytes}")
+    private int partSizeBytes;
+
+    @Value("${s3.multipart.max-in-flight-parts}")
+    private int maxInFlightParts;
+
     /**
-     * Uploads an audio file to S3.
+     * Uploads an audio file to S3, retrying transient failures.
+     * Calls fail fast while the S3 circuit breaker is open or its bulkhead is full.
      *
      * @param audioFile the audio file to upload
+     * @param format the probed format of the audio file
      * @return the S3 key of the uploaded file
      * @throws S3RepositoryException if an error occurs during the upload
      */
-    public String uploadAudioFile(MultipartFile audioFile) throws S3RepositoryException {
-        String key = "audio-" + UUID.randomUUID() + ".mp3";
+    public String uploadAudioFile(MultipartFile audioFile, AudioFormat format) throws S3RepositoryException {
+        // Every attempt reads the file from the start
+        return putAudio(format, putRequest -> {
+            try (InputStream inputStream = audioFile.getInputStream()) {
+                return s3Client.putObject(putRequest, RequestBody.fromInputStream(inputStream, audioFile.getSize()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
 
-        PutObjectRequest putRequest = PutObjectRequest.builder()
-                .bucket(bucketName)
-                .key(key)
-                .contentType(audioFile.getContentType())
-                .build();
+    /**
+     * Uploads audio held in memory to S3, retrying transient failures.
+     * Calls fail fast while the S3 circuit breaker is open or its bulkhead is full.
+     *
+     * @param audio  the audio bytes
+     * @param format the probed format of the audio
+     * @return the S3 key of the uploaded audio
+     * @throws S3RepositoryException if an error occurs during the upload
+     */
+    public String uploadAudio(byte[] audio, AudioFormat format) throws S3RepositoryException {
+        return putAudio(format, putRequest -> s3Client.putObject(putRequest, RequestBody.fromBytes(audio)));
+    }
+
+    private String putAudio(AudioFormat format, Function<PutObjectRequest, PutObjectResponse> put) {
+        String key = getAudioKey(format);
+        PutObjectRequest putRequest = buildPutObjectRequest(key, format);
 
-        try (InputStream inputStream = audioFile.getInputStream()) {
-            s3Client.putObject(putRequest, RequestBody.fromInputStream(inputStream, audioFile.getSize()));
+        try {
+            s3Guard.execute(() -> s3RetryPolicy.execute(() -> put.apply(putRequest)));
+        } catch (DependencyUnavailableException e) {
+            log.warn("S3 call rejected: {}", e.getMessage());
+            throw new S3RepositoryException(e.getMessage(), e);
         } catch (S3Exception e) {
             log.error("Error uploading file to S3", e);
             throw new S3RepositoryException("Error uploading file to S3", e);
@@ -53,19 +147,445 @@ public class S3Repository {
         return key;
     }
 
+    /**
+     * Uploads an audio file to S3 using the async S3 client, retrying transient failures.
+     * Multipart uploads are small and already buffered by the servlet container, so the file is sent from memory.
+     *
+     * @param audioFile the audio file to upload
+     * @param format the probed format of the audio file
+     * @return a CompletableFuture of the S3 key of the uploaded file,
+     * completed exceptionally with a S3RepositoryException if an error occurs during the upload
+     */
+    public CompletableFuture<String> uploadAudioFileAsync(MultipartFile audioFile, AudioFormat format) {
+        String key = getAudioKey(format);
+        CompletableFuture<?> upload;
+        try {
+            PutObjectRequest putRequest = buildPutObjectRequest(key, format);
+            byte[] audio = audioFile.getBytes();
+            upload = s3Guard.executeAsync(() -> s3RetryPolicy.executeAsync(
+                    () -> s3AsyncClient.getObject().putObject(putRequest, AsyncRequestBody.fromBytes(audio))));
+        } catch (Exception e) {
+            upload = CompletableFuture.failedFuture(e);
+        }
+
+        return upload.handle((response, e) -> {
+            if (e == null) {
+                return key;
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof DependencyUnavailableException) {
+                log.warn("S3 call rejected: {}", cause.getMessage());
+                throw new S3RepositoryException(cause.getMessage(), cause);
+            }
+            if (cause instanceof S3Exception) {
+                log.error("Error uploading file to S3", cause);
+                throw new S3RepositoryException("Error uploading file to S3", cause);
+            }
+            log.error("Unexpected error uploading file to S3", cause);
+            throw new S3RepositoryException("Unexpected error uploading file to S3", cause);
+        });
+    }
 
     /**
-     * Deletes an audio file from S3.
+     * Uploads an audio file of any size to S3 as it is read, using a multipart upload.
+     * <p>
+     * The stream is read part by part on the calling thread while earlier parts are uploaded in parallel.
+     * At most the configured number of part buffers exist per upload, reading waits for a buffer to be freed,
+     * so the memory used does not grow with the size of the file. The CRC32 of every part and of the whole file
+     * is computed while reading and verified by S3. A failed upload is aborted, so no parts are left behind.
+     *
+     * @param audio       the audio stream, read to its end
+     * @param format      the probed format of the audio
+     * @return the uploaded audio with its S3 key, size and checksum
+     * @throws IOException if reading the audio stream fails
+     * @throws S3RepositoryException if an error occurs during the upload
+     */
+    public UploadedAudio uploadAudioStream(InputStream audio, AudioFormat format) throws IOException, S3RepositoryException {
+        String key = getAudioKey(format);
+        String uploadId = startMultipartUpload(key, format.getContentType());
+
+        BlockingQueue<byte[]> freeBuffers = new ArrayBlockingQueue<>(maxInFlightParts);
+        int allocatedBuffers = 0;
+        List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+        CRC32 fileChecksum = new CRC32();
+        long size = 0;
+        try {
+            while (true) {
+                byte[] buffer = freeBuffers.poll();
+                if (buffer == null && allocatedBuffers < maxInFlightParts) {
+                    buffer = new byte[partSizeBytes];
+                    allocatedBuffers++;
+                } else if (buffer == null) {
+                    buffer = freeBuffers.take();
+                }
+                failOnFailedPart(parts);
+
+                int length = audio.readNBytes(buffer, 0, partSizeBytes);
+                if (length == 0 && !parts.isEmpty()) {
+                    break;
+                }
+                fileChecksum.update(buffer, 0, length);
+                size += length;
+
+                byte[] partBuffer = buffer;
+                int partNumber = parts.size() + 1;
+                parts.add(CompletableFuture
+                        .supplyAsync(() -> uploadPart(key, uploadId, partNumber, partBuffer, length), s3UploadExecutor)
+                        .whenComplete((part, e) -> freeBuffers.add(partBuffer)));
+                if (length < partSizeBytes) {
+                    break;
+                }
+            }
+
+            CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).join();
+            String checksum = toBase64(fileChecksum);
+            completeMultipartUpload(key, uploadId, parts.stream().map(CompletableFuture::join).toList(), checksum, size);
+            return new UploadedAudio(key, size, checksum);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abortMultipartUpload(key, uploadId, parts);
+            throw new S3RepositoryException("Interrupted uploading file to S3", e);
+        } catch (IOException e) {
+            abortMultipartUpload(key, uploadId, parts);
+            throw e;
+        } catch (RuntimeException e) {
+            abortMultipartUpload(key, uploadId, parts);
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof DependencyUnavailableException) {
+                log.warn("S3 call rejected: {}", cause.getMessage());
+                throw new S3RepositoryException(cause.getMessage(), cause);
+            }
+            if (cause instanceof S3Exception) {
+                log.error("Error streaming file to S3", cause);
+                throw new S3RepositoryException("Error uploading file to S3", cause);
+            }
+            log.error("Unexpected error streaming file to S3", cause);
+            throw new S3RepositoryException("Unexpected error uploading file to S3", cause);
+        }
+    }
+
+    private String startMultipartUpload(String key, String contentType) {
+        CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .checksumAlgorithm(ChecksumAlgorithm.CRC32)
+                .checksumType(ChecksumType.FULL_OBJECT)
+                .build();
+        try {
+            return s3Guard.execute(() -> s3RetryPolicy.execute(() -> s3Client.createMultipartUpload(request))).uploadId();
+        } catch (DependencyUnavailableException e) {
+            log.warn("S3 call rejected: {}", e.getMessage());
+            throw new S3RepositoryException(e.getMessage(), e);
+        } catch (S3Exception e) {
+            log.error("Error starting multipart upload to S3", e);
+            throw new S3RepositoryException("Error uploading file to S3", e);
+        }
+    }
+
+    private CompletedPart uploadPart(String key, String uploadId, int partNumber, byte[] buffer, int length) {
+        CRC32 partChecksum = new CRC32();
+        partChecksum.update(buffer, 0, length);
+        String checksum = toBase64(partChecksum);
+        UploadPartRequest request = UploadPartRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength((long) length)
+                .checksumAlgorithm(ChecksumAlgorithm.CRC32)
+                .checksumCRC32(checksum)
+                .build();
+
+        // The body is read straight from the buffer on every attempt, without copying it
+        RequestBody body = RequestBody.fromContentProvider(() -> new ByteArrayInputStream(buffer, 0, length), length, "application/octet-stream");
+        UploadPartResponse response = s3Guard.execute(() -> s3RetryPolicy.execute(() -> s3Client.uploadPart(request, body)));
+        return CompletedPart.builder()
+                .partNumber(partNumber)
+                .eTag(response.eTag())
+                .checksumCRC32(checksum)
+                .build();
+    }
+
+    private void completeMultipartUpload(String key, String uploadId, List<CompletedPart> parts, String checksum, long size) {
+        CompleteMultipartUploadRequest request = CompleteMultipartUploadRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .uploadId(uploadId)
+                .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                .checksumType(ChecksumType.FULL_OBJECT)
+                .checksumCRC32(checksum)
+                .mpuObjectSize(size)
+                .build();
+        s3Guard.execute(() -> s3RetryPolicy.execute(() -> s3Client.completeMultipartUpload(request)));
+    }
+
+    private void abortMultipartUpload(String key, String uploadId, List<CompletableFuture<CompletedPart>> parts) {
+        // Parts still uploading would otherwise be stored after the abort
+        parts.forEach(part -> part.exceptionally(e -> null).join());
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (RuntimeException e) {
+            log.warn("Could not abort multipart upload of {}: {}", key, e.getMessage());
+        }
+    }
+
+    private static void failOnFailedPart(List<CompletableFuture<CompletedPart>> parts) {
+        for (CompletableFuture<CompletedPart> part : parts) {
+            if (part.isCompletedExceptionally()) {
+                part.join();
+            }
+        }
+    }
+
+    private static String toBase64(CRC32 checksum) {
+        return Base64.getEncoder().encodeToString(ByteBuffer.allocate(Integer.BYTES).putInt((int) checksum.getValue()).array());
+    }
+
+    private PutObjectRequest buildPutObjectRequest(String key, AudioFormat format) {
+        return PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(format.getContentType())
+                .build();
+    }
+
+    private static String getAudioKey(AudioFormat format) {
+        return "audio-" + UUID.randomUUID() + "." + format.getExtension();
+    }
+
+
+    /**
+     * Fetches the transcript of a completed transcription job from the Transcribe output in S3, retrying transient failures.
+     * The output is parsed as it is downloaded, the word items are skipped.
+     *
+     * @param jobName the name of the completed transcription job
+     * @return the transcript text
+     * @throws S3RepositoryException if an error occurs during the download
+     */
+    public String fetchTranscript(String jobName) throws S3RepositoryException {
+        GetObjectRequest getRequest = buildGetTranscriptRequest(jobName);
+        try {
+            // Every attempt downloads the output from the start
+            return s3Guard.execute(() -> s3RetryPolicy.execute(() -> {
+                try (ResponseInputStream<GetObjectResponse> in = s3Client.getObject(getRequest)) {
+                    return TranscriptParser.readTranscript(in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (DependencyUnavailableException e) {
+            log.warn("S3 call rejected: {}", e.getMessage());
+            throw new S3RepositoryException(e.getMessage(), e);
+        } catch (S3Exception e) {
+            log.error("Error fetching transcript of job {} from S3", jobName, e);
+            throw new S3RepositoryException("Error fetching transcript from S3", e);
+        } catch (Exception e) {
+            log.error("Unexpected error fetching transcript of job {} from S3", jobName, e);
+            throw new S3RepositoryException("Unexpected error fetching transcript from S3", e);
+        }
+    }
+
+    /**
+     * Fetches the transcript of a completed transcription job using the async S3 client, retrying transient failures.
+     *
+     * @param jobName the name of the completed transcription job
+     * @return a CompletableFuture of the transcript text,
+     * completed exceptionally with a S3RepositoryException if an error occurs during the download
+     */
+    public CompletableFuture<String> fetchTranscriptAsync(String jobName) {
+        CompletableFuture<ResponseBytes<GetObjectResponse>> download;
+        try {
+            GetObjectRequest getRequest = buildGetTranscriptRequest(jobName);
+            download = s3Guard.executeAsync(() -> s3RetryPolicy.executeAsync(
+                    () -> s3AsyncClient.getObject().getObject(getRequest, AsyncResponseTransformer.toBytes())));
+        } catch (Exception e) {
+            download = CompletableFuture.failedFuture(e);
+        }
+
+        return download.handle((output, e) -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause == null) {
+                try {
+                    return TranscriptParser.readTranscript(output.asInputStream());
+                } catch (IOException parseError) {
+                    cause = parseError;
+                }
+            }
+            if (cause instanceof DependencyUnavailableException) {
+                log.warn("S3 call rejected: {}", cause.getMessage());
+                throw new S3RepositoryException(cause.getMessage(), cause);
+            }
+            if (cause instanceof S3Exception) {
+                log.error("Error fetching transcript of job {} from S3", jobName, cause);
+                throw new S3RepositoryException("Error fetching transcript from S3", cause);
+            }
+            log.error("Unexpected error fetching transcript of job {} from S3", jobName, cause);
+            throw new S3RepositoryException("Unexpected error fetching transcript from S3", cause);
+        });
+    }
+
+    /**
+     * Streams the transcript of a completed transcription job from the Transcribe output in S3 to the given stream
+     * as UTF-8 text, without holding the transcript in memory. Opening the output is retried, the copy is not,
+     * as part of the transcript may already have been written.
+     *
+     * @param jobName the name of the completed transcription job
+     * @param out     the stream receiving the transcript text
+     * @throws S3RepositoryException if an error occurs while opening the output
+     * @throws UncheckedIOException  if reading the output or writing the transcript fails
+     */
+    public void streamTranscript(String jobName, OutputStream out) throws S3RepositoryException {
+        GetObjectRequest getRequest = buildGetTranscriptRequest(jobName);
+        try {
+            s3Guard.execute(() -> {
+                try (ResponseInputStream<GetObjectResponse> in = s3RetryPolicy.execute(() -> s3Client.getObject(getRequest))) {
+                    TranscriptParser.copyTranscript(in, new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                    return null;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (DependencyUnavailableException e) {
+            log.warn("S3 call rejected: {}", e.getMessage());
+            throw new S3RepositoryException(e.getMessage(), e);
+        } catch (S3Exception e) {
+            log.error("Error streaming transcript of job {} from S3", jobName, e);
+            throw new S3RepositoryException("Error streaming transcript from S3", e);
+        }
+    }
+
+    /**
+     * Streams the words and punctuation marks of a completed transcription job from the Transcribe output in S3
+     * to the given consumer, in order and without holding the output in memory. Opening the output is retried,
+     * the read is not, as part of the items may already have been consumed.
+     *
+     * @param jobName  the name of the completed transcription job
+     * @param consumer receives every item of the transcript
+     * @throws S3RepositoryException if an error occurs while opening the output
+     * @throws UncheckedIOException  if reading the output fails
+     */
+    public void streamTranscriptItems(String jobName, Consumer<TranscriptItem> consumer) throws S3RepositoryException {
+        GetObjectRequest getRequest = buildGetTranscriptRequest(jobName);
+        try {
+            s3Guard.execute(() -> {
+                try (ResponseInputStream<GetObjectResponse> in = s3RetryPolicy.execute(() -> s3Client.getObject(getRequest))) {
+                    TranscriptParser.readItems(in, consumer);
+                    return null;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (DependencyUnavailableException e) {
+            log.warn("S3 call rejected: {}", e.getMessage());
+            throw new S3RepositoryException(e.getMessage(), e);
+        } catch (S3Exception e) {
+            log.error("Error streaming transcript items of job {} from S3", jobName, e);
+            throw new S3RepositoryException("Error streaming transcript items from S3", e);
+        }
+    }
+
+    private GetObjectRequest buildGetTranscriptRequest(String jobName) {
+        return GetObjectRequest.builder()
+                .bucket(outputBucketName)
+                .key(TranscribeRepository.getTranscriptKey(jobName))
+                .build();
+    }
+
+    /**
+     * Deletes an audio file from S3, retrying transient failures.
      *
      * @param s3Key the S3 key of the file to delete
      * @throws S3RepositoryException if an error occurs during the deletion
      */
     public void deleteAudioFile(String s3Key) throws S3RepositoryException {
+        deleteObject(bucketName, s3Key);
+    }
+
+    /**
+     * Deletes the Transcribe output of a transcription job from S3, retrying transient failures.
+     *
+     * @param jobName the name of the transcription job
+     * @throws S3RepositoryException if an error occurs during the deletion
+     */
+    public void deleteTranscript(String jobName) throws S3RepositoryException {
+        deleteObject(outputBucketName, TranscribeRepository.getTranscriptKey(jobName));
+    }
+
+    /**
+     * Deletes audio files from S3 with as few DeleteObjects calls as possible, retrying transient failures.
+     * Keys that do not exist count as deleted.
+     *
+     * @param s3Keys the S3 keys of the files to delete
+     * @return the keys that could not be deleted, S3 reports them one by one
+     * @throws S3RepositoryException if a batch could not be sent, its keys are not deleted
+     */
+    public Set<String> deleteAudioFiles(Collection<String> s3Keys) throws S3RepositoryException {
+        return deleteObjects(bucketName, s3Keys);
+    }
+
+    /**
+     * Deletes the Transcribe output of transcription jobs from S3 like {@link #deleteAudioFiles(Collection)}.
+     *
+     * @param jobNames the names of the transcription jobs
+     * @return the names of the jobs whose transcript could not be deleted
+     * @throws S3RepositoryException if a batch could not be sent, its transcripts are not deleted
+     */
+    public Set<String> deleteTranscripts(Collection<String> jobNames) throws S3RepositoryException {
+        List<String> keys = jobNames.stream().map(TranscribeRepository::getTranscriptKey).toList();
+        Set<String> failedKeys = deleteObjects(outputBucketName, keys);
+        Set<String> failedJobs = new HashSet<>();
+        for (String jobName : jobNames) {
+            if (failedKeys.contains(TranscribeRepository.getTranscriptKey(jobName))) {
+                failedJobs.add(jobName);
+            }
+        }
+        return failedJobs;
+    }
+
+    private Set<String> deleteObjects(String bucket, Collection<String> s3Keys) {
+        List<String> keys = List.copyOf(s3Keys);
+        Set<String> failedKeys = new HashSet<>();
+        for (int from = 0; from < keys.size(); from += MAX_DELETE_BATCH) {
+            List<ObjectIdentifier> objects = keys.subList(from, Math.min(keys.size(), from + MAX_DELETE_BATCH)).stream()
+                    .map(key -> ObjectIdentifier.builder().key(key).build())
+                    .toList();
+            DeleteObjectsRequest deleteRequest = DeleteObjectsRequest.builder()
+                    .bucket(bucket)
+                    // Quiet mode only reports the keys that failed
+                    .delete(Delete.builder().objects(objects).quiet(true).build())
+                    .build();
+            try {
+                DeleteObjectsResponse response = s3Guard.execute(() -> s3RetryPolicy.execute(() -> s3Client.deleteObjects(deleteRequest)));
+                for (S3Error error : response.errors()) {
+                    log.warn("Could not delete '{}' from S3: {}", error.key(), error.message());
+                    failedKeys.add(error.key());
+                }
+            } catch (DependencyUnavailableException e) {
+                log.warn("S3 call rejected: {}", e.getMessage());
+                throw new S3RepositoryException(e.getMessage(), e);
+            } catch (S3Exception e) {
+                log.error("Error deleting files from S3", e);
+                throw new S3RepositoryException("Error deleting files from S3", e);
+            }
+        }
+        return failedKeys;
+    }
+
+    private void deleteObject(String bucket, String s3Key) {
         try {
-            s3Client.deleteObject(DeleteObjectRequest.builder()
-                    .bucket(bucketName)
+            DeleteObjectRequest deleteRequest = DeleteObjectRequest.builder()
+                    .bucket(bucket)
                     .key(s3Key)
-                    .build());
+                    .build();
+            s3Guard.execute(() -> s3RetryPolicy.execute(() -> s3Client.deleteObject(deleteRequest)));
+        } catch (DependencyUnavailableException e) {
+            log.warn("S3 call rejected: {}", e.getMessage());
+            throw new S3RepositoryException(e.getMessage(), e);
         } catch (S3Exception e) {
             log.error("Error deleting file from S3", e);
             throw new S3RepositoryException("Error deleting file from S3", e);
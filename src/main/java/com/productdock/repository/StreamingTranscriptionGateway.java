@@ -0,0 +1,27 @@
+package com.productdock.repository;
+
+import com.productdock.model.LiveTranscriptSegment;
+import com.productdock.model.LiveTranscriptionSettings;
+import org.reactivestreams.Publisher;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A speech recognizer that transcribes audio while it is streamed.
+ * Implemented with Transcribe Streaming by {@link TranscribeStreamingRepository}, tests use a local fake.
+ */
+public interface StreamingTranscriptionGateway {
+
+    /**
+     * Transcribes an audio stream. Audio frames are only requested as fast as the recognizer takes them.
+     *
+     * @param settings the encoding, sample rate and language of the audio
+     * @param audio    the audio frames, completed when the speaker is done
+     * @param segments receives the partial and final transcript segments as they arrive
+     * @return a CompletableFuture completed once the last segment was received,
+     * or completed exceptionally with a TranscribeRepositoryException if the transcription fails
+     */
+    CompletableFuture<Void> transcribe(LiveTranscriptionSettings settings, Publisher<ByteBuffer> audio, Consumer<LiveTranscriptSegment> segments);
+}
@@ -1,54 +1,116 @@
 package com.productdock.repository;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.productdock.audio.AudioFormat;
+import com.productdock.exception.DependencyUnavailableException;
 import com.productdock.exception.TranscribeRepositoryException;
+import com.productdock.exception.TranscriptionJobNotFoundException;
+import com.productdock.resilience.DependencyGuard;
+import com.productdock.resilience.RetryPolicy;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.services.transcribe.TranscribeAsyncClient;
 import software.amazon.awssdk.services.transcribe.TranscribeClient;
 import software.amazon.awssdk.services.transcribe.model.*;
 
-import java.io.InputStream;
-import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Slf4j
 @Repository
 @RequiredArgsConstructor
 public class TranscribeRepository {
+    public static final String JOB_NAME_PREFIX = "job-";
+    private static final String TRANSCRIPT_KEY_PREFIX = "transcripts/";
+    private static final List<TranscriptionJobStatus> ACTIVE_STATUSES = List.of(TranscriptionJobStatus.QUEUED, TranscriptionJobStatus.IN_PROGRESS);
+    private static final int LIST_PAGE_SIZE = 100;
 
     private final TranscribeClient transcribeClient;
-    private final ObjectMapper objectMapper;
+    private final ObjectProvider<TranscribeAsyncClient> transcribeAsyncClient;
+    @Qualifier("transcribeRetryPolicy")
+    private final RetryPolicy transcribeRetryPolicy;
+    @Qualifier("transcribeGuard")
+    private final DependencyGuard transcribeGuard;
 
     @Value("${aws.s3.transcribe.input-bucket}")
     private String bucketName;
 
+    @Value("${aws.s3.transcribe.output-bucket}")
+    private String outputBucketName;
+
     @PostConstruct
     public void init() {
-        log.info("TranscribeRepository initialized with bucket '{}'", bucketName);
+        log.info("TranscribeRepository initialized with input bucket '{}' and output bucket '{}'", bucketName, outputBucketName);
     }
 
     /**
-     *  Starts a transcription job for the provided audio file in S3.
+     *  Starts a transcription job for the provided audio file in S3, retrying transient failures.
+     *  Calls fail fast while the Transcribe circuit breaker is open or its bulkhead is full.
      *
      * @param s3Key the S3 key of the audio file
+     * @param format the probed format of the audio file
      * @return the name of the transcription job
      * @throws TranscribeRepositoryException if an error occurs during the process
      */
-    public String startTranscriptionJob(String s3Key) throws TranscribeRepositoryException {
-        String jobName = "job-" + UUID.randomUUID();
+    public String startTranscriptionJob(String s3Key, AudioFormat format) throws TranscribeRepositoryException {
+        String jobName = JOB_NAME_PREFIX + UUID.randomUUID();
+        try {
+            StartTranscriptionJobRequest request = buildStartTranscriptionJobRequest(jobName, s3Key, format);
+            transcribeGuard.execute(() -> transcribeRetryPolicy.execute(() -> transcribeClient.startTranscriptionJob(request)));
+            return jobName;
+        } catch (TranscribeException | DependencyUnavailableException e) {
+            log.error("Failed to start transcription job", e);
+            throw new TranscribeRepositoryException("Failed to start transcription job", e);
+        }
+    }
+
+    /**
+     * Starts a transcription job for the provided audio file in S3 using the async Transcribe client,
+     * retrying transient failures.
+     *
+     * @param s3Key the S3 key of the audio file
+     * @param format the probed format of the audio file
+     * @return a CompletableFuture of the name of the transcription job,
+     * completed exceptionally with a TranscribeRepositoryException if an error occurs during the process
+     */
+    public CompletableFuture<String> startTranscriptionJobAsync(String s3Key, AudioFormat format) {
+        String jobName = JOB_NAME_PREFIX + UUID.randomUUID();
+        CompletableFuture<StartTranscriptionJobResponse> response;
+        try {
+            StartTranscriptionJobRequest request = buildStartTranscriptionJobRequest(jobName, s3Key, format);
+            response = transcribeGuard.executeAsync(() -> transcribeRetryPolicy.executeAsync(
+                    () -> transcribeAsyncClient.getObject().startTranscriptionJob(request)));
+        } catch (Exception e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        return response.handle((started, e) -> {
+            if (e != null) {
+                log.error("Failed to start transcription job", unwrap(e));
+                throw new TranscribeRepositoryException("Failed to start transcription job", unwrap(e));
+            }
+            return jobName;
+        });
+    }
 
+    private StartTranscriptionJobRequest buildStartTranscriptionJobRequest(String jobName, String s3Key, AudioFormat format) {
         Media media = Media.builder()
                 .mediaFileUri("s3://" + bucketName + "/" + s3Key)
                 .build();
 
-        StartTranscriptionJobRequest request = StartTranscriptionJobRequest.builder()
+        return StartTranscriptionJobRequest.builder()
                 .transcriptionJobName(jobName)
-                .mediaFormat(MediaFormat.MP3)
+                .mediaFormat(MediaFormat.fromValue(format.getExtension()))
                 .media(media)
+                .outputBucketName(outputBucketName)
+                .outputKey(getTranscriptKey(jobName))
                 .identifyLanguage(true)
                 .languageOptions(
                         LanguageCode.EN_US,
@@ -59,75 +121,175 @@ public class TranscribeRepository {
                         LanguageCode.PT_PT
                 )
                 .build();
-        try {
-            transcribeClient.startTranscriptionJob(request);
-            return jobName;
-        } catch (TranscribeException e) {
-            log.error("Failed to start transcription job", e);
-            throw new TranscribeRepositoryException("Failed to start transcription job", e);
-        }
     }
 
     /**
-     * Checks the status of a transcription job.
+     * Transcribe writes the output of a job to this key of the output bucket, where it is read through S3.
+     *
+     * @param jobName the name of the transcription job
+     * @return the S3 key of the Transcribe output file
+     */
+    public static String getTranscriptKey(String jobName) {
+        return TRANSCRIPT_KEY_PREFIX + jobName + ".json";
+    }
+
+    /**
+     * Checks the status of a transcription job, retrying transient failures.
      *
      * @param jobName the name of the transcription job
      * @return the status of the transcription
+     * @throws TranscriptionJobNotFoundException if Transcribe does not know the job
      * @throws TranscribeRepositoryException if an error occurs during the process
      */
     public String getJobStatus(String jobName) throws TranscribeRepositoryException {
         try {
-            GetTranscriptionJobResponse response = transcribeClient.getTranscriptionJob(
-                    GetTranscriptionJobRequest.builder()
-                            .transcriptionJobName(jobName)
-                            .build()
-            );
-            return response.transcriptionJob().transcriptionJobStatusAsString();
-        } catch (TranscribeException e) {
+            return getTranscriptionJob(jobName).transcriptionJobStatusAsString();
+        } catch (TranscribeException | DependencyUnavailableException e) {
+            if (isJobNotFound(e)) {
+                throw new TranscriptionJobNotFoundException("Transcription job not found: " + jobName);
+            }
             log.error("Failed to get job status for {}", jobName, e);
             throw new TranscribeRepositoryException("Failed to get transcription job status", e);
         }
     }
 
     /**
-     * Fetches the transcript of a completed transcription job.
+     * Checks the status of a transcription job using the async Transcribe client.
      *
      * @param jobName the name of the transcription job
-     * @return the transcript text
+     * @return a CompletableFuture of the status of the transcription,
+     * completed exceptionally with a TranscriptionJobNotFoundException if Transcribe does not know the job
+     * or a TranscribeRepositoryException if an error occurs during the process
+     */
+    public CompletableFuture<String> getJobStatusAsync(String jobName) {
+        return getTranscriptionJobAsync(jobName).handle((job, e) -> {
+            if (e != null) {
+                if (isJobNotFound(unwrap(e))) {
+                    throw new TranscriptionJobNotFoundException("Transcription job not found: " + jobName);
+                }
+                log.error("Failed to get job status for {}", jobName, unwrap(e));
+                throw new TranscribeRepositoryException("Failed to get transcription job status", unwrap(e));
+            }
+            return job.transcriptionJobStatusAsString();
+        });
+    }
+
+    /**
+     * Lists the statuses of all queued and running transcription jobs of this application.
+     * The jobs are listed page by page, every page is retried on its own.
+     *
+     * @return the status of every active job by job name
      * @throws TranscribeRepositoryException if an error occurs during the process
      */
-    public String fetchTranscript(String jobName) throws TranscribeRepositoryException {
+    public Map<String, String> listActiveJobStatuses() throws TranscribeRepositoryException {
+        Map<String, String> statuses = new HashMap<>();
         try {
-            GetTranscriptionJobResponse response = transcribeClient.getTranscriptionJob(
-                    GetTranscriptionJobRequest.builder()
-                            .transcriptionJobName(jobName)
-                            .build()
-            );
+            for (TranscriptionJobStatus status : ACTIVE_STATUSES) {
+                String nextToken = null;
+                do {
+                    ListTranscriptionJobsRequest request = ListTranscriptionJobsRequest.builder()
+                            .status(status)
+                            .jobNameContains(JOB_NAME_PREFIX)
+                            .maxResults(LIST_PAGE_SIZE)
+                            .nextToken(nextToken)
+                            .build();
+                    ListTranscriptionJobsResponse response = transcribeGuard.execute(
+                            () -> transcribeRetryPolicy.execute(() -> transcribeClient.listTranscriptionJobs(request)));
+                    response.transcriptionJobSummaries().forEach(summary ->
+                            statuses.put(summary.transcriptionJobName(), summary.transcriptionJobStatusAsString()));
+                    nextToken = response.nextToken();
+                } while (nextToken != null);
+            }
+            return statuses;
+        } catch (TranscribeException | DependencyUnavailableException e) {
+            log.error("Failed to list active transcription jobs", e);
+            throw new TranscribeRepositoryException("Failed to list transcription jobs", e);
+        }
+    }
 
-            String transcriptUrl = response.transcriptionJob().transcript().transcriptFileUri();
+    /**
+     * Fetches the reason why a transcription job failed, retrying transient failures.
+     *
+     * @param jobName the name of the failed transcription job
+     * @return the failure reason reported by Transcribe
+     * @throws TranscribeRepositoryException if an error occurs during the process
+     */
+    public String getFailureReason(String jobName) throws TranscribeRepositoryException {
+        try {
+            return getTranscriptionJob(jobName).failureReason();
+        } catch (TranscribeException | DependencyUnavailableException e) {
+            log.error("Failed to get failure reason for job {}", jobName, e);
+            throw new TranscribeRepositoryException("Failed to get transcription job failure reason", e);
+        }
+    }
 
-            try (InputStream in = new URL(transcriptUrl).openStream()) {
-                JsonNode json = objectMapper.readTree(in);
-                return json.at("/results/transcripts/0/transcript").asText();
+    /**
+     * Fetches the reason why a transcription job failed using the async Transcribe client.
+     *
+     * @param jobName the name of the failed transcription job
+     * @return a CompletableFuture of the failure reason reported by Transcribe,
+     * completed exceptionally with a TranscribeRepositoryException if an error occurs during the process
+     */
+    public CompletableFuture<String> getFailureReasonAsync(String jobName) {
+        return getTranscriptionJobAsync(jobName).handle((job, e) -> {
+            if (e != null) {
+                log.error("Failed to get failure reason for job {}", jobName, unwrap(e));
+                throw new TranscribeRepositoryException("Failed to get transcription job failure reason", unwrap(e));
             }
-        } catch (TranscribeException | java.io.IOException e) {
-            log.error("Failed to fetch transcript for job {}", jobName, e);
-            throw new TranscribeRepositoryException("Failed to fetch transcript", e);
-        }
+            return job.failureReason();
+        });
+    }
+
+    private TranscriptionJob getTranscriptionJob(String jobName) {
+        GetTranscriptionJobRequest request = GetTranscriptionJobRequest.builder()
+                .transcriptionJobName(jobName)
+                .build();
+        return transcribeGuard.execute(() -> transcribeRetryPolicy.execute(() -> transcribeClient.getTranscriptionJob(request)))
+                .transcriptionJob();
+    }
+
+    private CompletableFuture<TranscriptionJob> getTranscriptionJobAsync(String jobName) {
+        GetTranscriptionJobRequest request = GetTranscriptionJobRequest.builder()
+                .transcriptionJobName(jobName)
+                .build();
+        return transcribeGuard.executeAsync(() -> transcribeRetryPolicy.executeAsync(
+                        () -> transcribeAsyncClient.getObject().getTranscriptionJob(request)))
+                .thenApply(GetTranscriptionJobResponse::transcriptionJob);
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    /**
+     * Transcribe answers unknown job names with a BadRequestException instead of a NotFoundException.
+     */
+    private static boolean isJobNotFound(Throwable e) {
+        return e instanceof NotFoundException
+                || e instanceof BadRequestException && e.getMessage() != null && e.getMessage().contains("couldn't be found");
     }
 
     /**
-     * Deletes a transcription job.
+     * Deletes a transcription job, retrying transient failures.
+     * A job that no longer exists counts as deleted, so an interrupted cleanup can be repeated.
      *
      * @param jobName the name of the transcription job to delete
      * @throws TranscribeRepositoryException if an error occurs during the deletion
      */
     public void deleteTranscriptionJob(String jobName) throws TranscribeRepositoryException {
         try {
-            transcribeClient.deleteTranscriptionJob(DeleteTranscriptionJobRequest.builder()
+            DeleteTranscriptionJobRequest request = DeleteTranscriptionJobRequest.builder()
                     .transcriptionJobName(jobName)
-                    .build());
+                    .build();
+            transcribeGuard.execute(() -> transcribeRetryPolicy.execute(() -> transcribeClient.deleteTranscriptionJob(request)));
         } catch (TranscribeException e) {
+            if (isJobNotFound(e)) {
+                log.debug("Transcription job {} was already deleted", jobName);
+                return;
+            }
+            log.error("Failed to delete transcription job {}", jobName, e);
+            throw new TranscribeRepositoryException("Failed to delete transcription job", e);
+        } catch (DependencyUnavailableException e) {
             log.error("Failed to delete transcription job {}", jobName, e);
             throw new TranscribeRepositoryException("Failed to delete transcription job", e);
         }
@@ -0,0 +1,81 @@
+package com.productdock.repository;
+
+import com.productdock.exception.TranscribeRepositoryException;
+import com.productdock.model.LiveTranscriptSegment;
+import com.productdock.model.LiveTranscriptionSettings;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.stereotype.Repository;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.core.async.SdkPublisher;
+import software.amazon.awssdk.services.transcribestreaming.TranscribeStreamingAsyncClient;
+import software.amazon.awssdk.services.transcribestreaming.model.AudioEvent;
+import software.amazon.awssdk.services.transcribestreaming.model.AudioStream;
+import software.amazon.awssdk.services.transcribestreaming.model.MediaEncoding;
+import software.amazon.awssdk.services.transcribestreaming.model.Result;
+import software.amazon.awssdk.services.transcribestreaming.model.StartStreamTranscriptionRequest;
+import software.amazon.awssdk.services.transcribestreaming.model.StartStreamTranscriptionResponseHandler;
+import software.amazon.awssdk.services.transcribestreaming.model.TranscriptEvent;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Transcribes live audio with Transcribe Streaming.
+ * <p>
+ * The audio frames are sent as audio events over one HTTP/2 stream. The SDK requests the next frame once the
+ * previous one was written, so a slow connection to Transcribe slows down the frames taken from the client.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class TranscribeStreamingRepository implements StreamingTranscriptionGateway {
+
+    private final TranscribeStreamingAsyncClient transcribeStreamingAsyncClient;
+
+    @Override
+    public CompletableFuture<Void> transcribe(LiveTranscriptionSettings settings, Publisher<ByteBuffer> audio, Consumer<LiveTranscriptSegment> segments) {
+        StartStreamTranscriptionRequest request = StartStreamTranscriptionRequest.builder()
+                .mediaEncoding(MediaEncoding.fromValue(settings.encoding().getValue()))
+                .mediaSampleRateHertz(settings.sampleRate())
+                .languageCode(settings.languageCode())
+                .build();
+        Publisher<AudioStream> audioEvents = SdkPublisher.adapt(audio)
+                .map(frame -> AudioEvent.builder().audioChunk(SdkBytes.fromByteBuffer(frame)).build());
+        StartStreamTranscriptionResponseHandler responseHandler = StartStreamTranscriptionResponseHandler.builder()
+                .subscriber(StartStreamTranscriptionResponseHandler.Visitor.builder()
+                        .onTranscriptEvent(event -> publishSegments(event, segments))
+                        .build())
+                .build();
+
+        return transcribeStreamingAsyncClient.startStreamTranscription(request, audioEvents, responseHandler)
+                .handle((ignored, e) -> {
+                    if (e != null) {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        log.error("Live transcription failed", cause);
+                        throw new TranscribeRepositoryException("Live transcription failed", cause);
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Passes on the best alternative of every result in the event, results without text are skipped.
+     */
+    static void publishSegments(TranscriptEvent event, Consumer<LiveTranscriptSegment> segments) {
+        for (Result result : event.transcript().results()) {
+            if (!result.hasAlternatives() || result.alternatives().isEmpty()) {
+                continue;
+            }
+            String text = result.alternatives().get(0).transcript();
+            if (text == null || text.isBlank()) {
+                continue;
+            }
+            segments.accept(new LiveTranscriptSegment(result.resultId(), text, Boolean.TRUE.equals(result.isPartial()),
+                    result.startTime() != null ? result.startTime() : 0, result.endTime() != null ? result.endTime() : 0));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.productdock.repository;
+
+import com.productdock.model.TranscriptItem;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The words and punctuation marks of a transcript in a compact binary file that is read by offset.
+ * <p>
+ * A header holds the item count and the position of the record table. The UTF-8 content of all items follows in
+ * item order, then one record of {@value #RECORD_BYTES} bytes per item: start and end in milliseconds, confidence,
+ * type and the position of the content. The content is written as the items are parsed, only the records are
+ * buffered until the end. A page is read with two positional reads, its records and the content they point to,
+ * so reading a page costs the same however long the transcript is.
+ */
+final class TranscriptIndexFile {
+
+    // "TSIX"
+    private static final int MAGIC = 0x54534958;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    static final int RECORD_BYTES = 24;
+
+    private static final int NO_TIME = -1;
+    private static final int NO_CONFIDENCE = -1;
+    // Confidences are kept to four decimals
+    private static final double CONFIDENCE_SCALE = 10_000;
+    private static final int TYPE_PRONUNCIATION = 0;
+    private static final int TYPE_PUNCTUATION = 1;
+
+    private TranscriptIndexFile() {
+    }
+
+    /**
+     * Writes an index file item by item. The file is only complete once the writer is finished.
+     */
+    static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final OutputStream content;
+        private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+        private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        private long contentBytes;
+        private int items;
+
+        /**
+         * @param file the file to write, replaced if it exists
+         * @throws IOException if the file cannot be created
+         */
+        Writer(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_BYTES);
+            content = new BufferedOutputStream(Channels.newOutputStream(channel));
+        }
+
+        /**
+         * Appends an item.
+         *
+         * @param item the next item of the transcript
+         * @throws IOException if writing fails
+         */
+        void add(TranscriptItem item) throws IOException {
+            byte[] text = item.content().getBytes(StandardCharsets.UTF_8);
+            content.write(text);
+            record.clear();
+            record.putInt(toMillis(item.startSeconds()))
+                    .putInt(toMillis(item.endSeconds()))
+                    .putInt(item.confidence() != null ? (int) Math.round(item.confidence() * CONFIDENCE_SCALE) : NO_CONFIDENCE)
+                    .putInt(item.isPunctuation() ? TYPE_PUNCTUATION : TYPE_PRONUNCIATION)
+                    .putLong(contentBytes << 16 | Math.min(text.length, 0xFFFF));
+            records.write(record.array());
+            contentBytes += text.length;
+            items++;
+        }
+
+        /**
+         * Appends the record table, writes the header and forces the file to disk.
+         *
+         * @return the number of items written
+         * @throws IOException if writing fails
+         */
+        int finish() throws IOException {
+            content.flush();
+            long recordsPosition = HEADER_BYTES + contentBytes;
+            channel.write(ByteBuffer.wrap(records.toByteArray()), recordsPosition);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(MAGIC).putInt(VERSION).putInt(items).putInt(0).putLong(recordsPosition)
+                    .flip();
+            channel.write(header, 0);
+            channel.force(false);
+            return items;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+        private static int toMillis(Double seconds) {
+            return seconds != null ? (int) Math.round(seconds * 1000) : NO_TIME;
+        }
+    }
+
+    /**
+     * Reads the number of items of an index file.
+     *
+     * @param channel the open index file
+     * @return the number of items
+     * @throws IOException if the file cannot be read or is no index file
+     */
+    static int size(FileChannel channel) throws IOException {
+        return readHeader(channel).getInt(8);
+    }
+
+    /**
+     * Reads a page of items.
+     *
+     * @param channel the open index file
+     * @param offset  the index of the first item
+     * @param limit   the number of items at most
+     * @return the items of the page, empty if the offset is beyond the last item
+     * @throws IOException if the file cannot be read or is no index file
+     */
+    static List<TranscriptItem> read(FileChannel channel, int offset, int limit) throws IOException {
+        ByteBuffer header = readHeader(channel);
+        int count = Math.min(limit, header.getInt(8) - offset);
+        if (offset < 0 || count <= 0) {
+            return List.of();
+        }
+
+        ByteBuffer records = readFully(channel, header.getLong(16) + (long) offset * RECORD_BYTES, count * RECORD_BYTES);
+        long contentStart = records.getLong(16) >>> 16;
+        long lastRecord = records.getLong((count - 1) * RECORD_BYTES + 16);
+        long contentEnd = (lastRecord >>> 16) + (lastRecord & 0xFFFF);
+        ByteBuffer content = readFully(channel, HEADER_BYTES + contentStart, (int) (contentEnd - contentStart));
+
+        List<TranscriptItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int at = i * RECORD_BYTES;
+            int start = records.getInt(at);
+            int end = records.getInt(at + 4);
+            int confidence = records.getInt(at + 8);
+            int type = records.getInt(at + 12);
+            long position = records.getLong(at + 16);
+            String text = new String(content.array(), (int) ((position >>> 16) - contentStart), (int) (position & 0xFFFF),
+                    StandardCharsets.UTF_8);
+            items.add(new TranscriptItem(type == TYPE_PUNCTUATION ? TranscriptItem.PUNCTUATION : TranscriptItem.PRONUNCIATION, text,
+                    start != NO_TIME ? start / 1000.0 : null,
+                    end != NO_TIME ? end / 1000.0 : null,
+                    confidence != NO_CONFIDENCE ? confidence / CONFIDENCE_SCALE : null));
+        }
+        return items;
+    }
+
+    private static ByteBuffer readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = readFully(channel, 0, HEADER_BYTES);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a transcript index file");
+        }
+        return header;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Transcript index file is truncated");
+            }
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,284 @@
+package com.productdock.repository;
+
+import com.productdock.model.TranscriptItem;
+import com.productdock.model.TranscriptItemsPage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the words and punctuation marks of completed transcripts on disk, one {@link TranscriptIndexFile}
+ * per job, so pages and captions are read from a compact index instead of parsing the Transcribe output again.
+ * <p>
+ * The index files are bounded in total size, the least recently used are deleted. They are indexed again
+ * on startup, the oldest files are treated as least recently used.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class TranscriptIndexRepository {
+
+    private static final String FILE_EXTENSION = ".items";
+    private static final Pattern JOB_NAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]{0,199}");
+    private static final int READ_BATCH_ITEMS = 1000;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${stt.transcript-index.directory}")
+    private String directory;
+
+    @Value("${stt.transcript-index.max-bytes}")
+    private long maxBytes;
+
+    // An access-ordered map gives us LRU eviction
+    private final LinkedHashMap<String, Long> files = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private Path indexDirectory;
+    private Counter builds;
+
+    /**
+     * Items of one transcript, handed to a sink in order.
+     */
+    @FunctionalInterface
+    public interface ItemSource {
+        /**
+         * @param sink receives every item of the transcript in order
+         */
+        void emit(Consumer<TranscriptItem> sink);
+    }
+
+    /**
+     * Prepares the index directory, registers the index metrics and indexes the files left by a previous run.
+     */
+    @PostConstruct
+    public void init() {
+        builds = meterRegistry.counter("stt.transcript-index.builds");
+        meterRegistry.gauge("stt.transcript-index.size.bytes", this, TranscriptIndexRepository::getTotalBytes);
+        try {
+            indexDirectory = Files.createDirectories(Path.of(directory));
+            try (Stream<Path> existing = Files.list(indexDirectory)) {
+                existing.filter(file -> file.getFileName().toString().endsWith(FILE_EXTENSION))
+                        .sorted(Comparator.comparing(TranscriptIndexRepository::getLastModifiedTime))
+                        .forEach(this::indexExistingFile);
+            }
+            synchronized (files) {
+                evict();
+            }
+            log.info("TranscriptIndexRepository initialized with {} transcripts in '{}'", files.size(), indexDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Transcript index directory '" + directory + "' is not usable", e);
+        }
+    }
+
+    /**
+     * Checks whether the items of a transcript are indexed.
+     *
+     * @param jobName the transcription job name
+     * @return whether an index exists
+     */
+    public boolean contains(String jobName) {
+        synchronized (files) {
+            return files.containsKey(jobName);
+        }
+    }
+
+    /**
+     * Writes the index of a transcript. The items are written as the source emits them, through a temporary file,
+     * so readers never see a partial index.
+     *
+     * @param jobName the transcription job name
+     * @param source  the items of the transcript
+     * @return the number of indexed items
+     * @throws IOException if the index cannot be written
+     */
+    public int write(String jobName, ItemSource source) throws IOException {
+        Path file = getFilePath(jobName);
+        Path tempFile = Files.createTempFile(indexDirectory, jobName, ".tmp");
+        int items;
+        try {
+            try (TranscriptIndexFile.Writer writer = new TranscriptIndexFile.Writer(tempFile)) {
+                source.emit(item -> {
+                    try {
+                        writer.add(item);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                items = writer.finish();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+
+        long size = Files.size(file);
+        synchronized (files) {
+            Long previous = files.put(jobName, size);
+            totalBytes += size - (previous != null ? previous : 0L);
+            evict();
+        }
+        builds.increment();
+        log.debug("Indexed {} transcript items of job '{}' in {} bytes", items, jobName, size);
+        return items;
+    }
+
+    /**
+     * Reads a page of the items of a transcript, only the records and content of the page are read.
+     *
+     * @param jobName the transcription job name
+     * @param offset  the index of the first item
+     * @param limit   the number of items at most
+     * @return the page, or empty if the transcript is not indexed
+     * @throws IOException if the index cannot be read
+     */
+    public Optional<TranscriptItemsPage> readPage(String jobName, int offset, int limit) throws IOException {
+        if (!touch(jobName)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(getFilePath(jobName), StandardOpenOption.READ)) {
+            return Optional.of(new TranscriptItemsPage(jobName, offset, TranscriptIndexFile.size(channel),
+                    TranscriptIndexFile.read(channel, offset, limit)));
+        } catch (NoSuchFileException e) {
+            // Evicted in the meantime
+            forget(jobName);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Hands all items of a transcript to a consumer in order, reading the index in batches.
+     *
+     * @param jobName  the transcription job name
+     * @param consumer receives every item
+     * @return whether the transcript is indexed
+     * @throws IOException if the index cannot be read
+     */
+    public boolean readAll(String jobName, Consumer<TranscriptItem> consumer) throws IOException {
+        if (!touch(jobName)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(getFilePath(jobName), StandardOpenOption.READ)) {
+            int size = TranscriptIndexFile.size(channel);
+            for (int offset = 0; offset < size; offset += READ_BATCH_ITEMS) {
+                TranscriptIndexFile.read(channel, offset, READ_BATCH_ITEMS).forEach(consumer);
+            }
+            return true;
+        } catch (NoSuchFileException e) {
+            forget(jobName);
+            return false;
+        }
+    }
+
+    /**
+     * Deletes the index of a transcript, called by the cleanup once the transcript itself was deleted.
+     *
+     * @param jobName the transcription job name
+     */
+    public void remove(String jobName) {
+        if (!JOB_NAME.matcher(jobName).matches()) {
+            return;
+        }
+        forget(jobName);
+        try {
+            Files.deleteIfExists(getFilePath(jobName));
+        } catch (IOException e) {
+            log.warn("Failed to delete transcript index of job '{}': {}", jobName, e.getMessage());
+        }
+    }
+
+    public long getTotalBytes() {
+        synchronized (files) {
+            return totalBytes;
+        }
+    }
+
+    private boolean touch(String jobName) {
+        synchronized (files) {
+            return files.get(jobName) != null;
+        }
+    }
+
+    private void forget(String jobName) {
+        synchronized (files) {
+            Long size = files.remove(jobName);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+    }
+
+    /**
+     * Deletes least recently used index files until the index fits its size limit.
+     * Must be called while holding the files lock.
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> iterator = files.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            try {
+                Files.deleteIfExists(getFilePath(eldest.getKey()));
+            } catch (IOException e) {
+                log.warn("Failed to delete evicted transcript index '{}': {}", eldest.getKey(), e.getMessage());
+            }
+            totalBytes -= eldest.getValue();
+            iterator.remove();
+        }
+    }
+
+    private void indexExistingFile(Path file) {
+        String fileName = file.getFileName().toString();
+        String jobName = fileName.substring(0, fileName.length() - FILE_EXTENSION.length());
+        try {
+            long size = Files.size(file);
+            synchronized (files) {
+                files.put(jobName, size);
+                totalBytes += size;
+            }
+        } catch (IOException e) {
+            log.warn("Skipping unreadable transcript index '{}': {}", file, e.getMessage());
+        }
+    }
+
+    private static FileTime getLastModifiedTime(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * Job names come from request paths, only plain names are turned into file names.
+     */
+    private Path getFilePath(String jobName) {
+        if (!JOB_NAME.matcher(jobName).matches()) {
+            throw new IllegalArgumentException("Invalid transcription job name: " + jobName);
+        }
+        return indexDirectory.resolve(jobName + FILE_EXTENSION);
+    }
+}
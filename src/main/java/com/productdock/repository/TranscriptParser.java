@@ -0,0 +1,158 @@
+package com.productdock.repository;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.productdock.model.TranscriptItem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.function.Consumer;
+
+/**
+ * Extracts the transcript text from the Transcribe output file without reading the whole document into a tree.
+ * <p>
+ * The output of long recordings is mostly the {@code results.items} array with one entry per word. The parser
+ * walks the tokens to {@code results.transcripts[0].transcript} and skips everything else, so only the
+ * transcript itself is held in memory. The items are read the same way, one at a time.
+ */
+final class TranscriptParser {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private TranscriptParser() {
+    }
+
+    /**
+     * Reads the transcript text from a Transcribe output file.
+     *
+     * @param in the Transcribe output JSON
+     * @return the transcript text, empty if the output has none
+     * @throws IOException if the output cannot be read or is not valid JSON
+     */
+    static String readTranscript(InputStream in) throws IOException {
+        StringWriter transcript = new StringWriter();
+        copyTranscript(in, transcript);
+        return transcript.toString();
+    }
+
+    /**
+     * Writes the transcript text of a Transcribe output file to a writer, without creating a String of it.
+     *
+     * @param in  the Transcribe output JSON
+     * @param out the writer receiving the transcript text, nothing is written if the output has none
+     * @throws IOException if the output cannot be read or is not valid JSON, or the writer fails
+     */
+    static void copyTranscript(InputStream in, Writer out) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() == JsonToken.START_OBJECT
+                    && seekField(parser, "results", JsonToken.START_OBJECT)
+                    && seekField(parser, "transcripts", JsonToken.START_ARRAY)
+                    && parser.nextToken() == JsonToken.START_OBJECT
+                    && seekField(parser, "transcript", JsonToken.VALUE_STRING)) {
+                parser.getText(out);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads the words and punctuation marks of a Transcribe output file in order, handing each to the consumer
+     * as soon as it is parsed, so the items are never held in memory together.
+     *
+     * @param in       the Transcribe output JSON
+     * @param consumer receives every item, nothing if the output has none
+     * @throws IOException if the output cannot be read or is not valid JSON
+     */
+    static void readItems(InputStream in, Consumer<TranscriptItem> consumer) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() == JsonToken.START_OBJECT
+                    && seekField(parser, "results", JsonToken.START_OBJECT)
+                    && seekField(parser, "items", JsonToken.START_ARRAY)) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    TranscriptItem item = readItem(parser);
+                    if (item.content() != null) {
+                        consumer.accept(item);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads an item object, the parser is on its start and left on its end. Transcribe writes times and
+     * confidences as strings, only the first alternative is used.
+     */
+    private static TranscriptItem readItem(JsonParser parser) throws IOException {
+        String type = null;
+        String content = null;
+        Double start = null;
+        Double end = null;
+        Double confidence = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "type" -> type = parser.getValueAsString();
+                case "start_time" -> start = readNumber(parser, value);
+                case "end_time" -> end = readNumber(parser, value);
+                case "alternatives" -> {
+                    if (value == JsonToken.START_ARRAY && parser.nextToken() == JsonToken.START_OBJECT) {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String alternativeField = parser.currentName();
+                            JsonToken alternativeValue = parser.nextToken();
+                            if ("content".equals(alternativeField)) {
+                                content = parser.getValueAsString();
+                            } else if ("confidence".equals(alternativeField)) {
+                                confidence = readNumber(parser, alternativeValue);
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                        // Skip the other alternatives
+                        while (parser.nextToken() != JsonToken.END_ARRAY) {
+                            parser.skipChildren();
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return new TranscriptItem(type, content, start, end, confidence);
+    }
+
+    private static Double readNumber(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_FLOAT || value == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getDoubleValue();
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            try {
+                return Double.valueOf(parser.getText());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    /**
+     * Moves the parser to the value of a field of the current object, skipping the values of all other fields.
+     *
+     * @return whether the field was found with the expected value type
+     */
+    private static boolean seekField(JsonParser parser, String name, JsonToken valueToken) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (name.equals(field)) {
+                return value == valueToken;
+            }
+            parser.skipChildren();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,207 @@
+package com.productdock.repository;
+
+import com.productdock.model.TranscriptionJobResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the results of finished transcription jobs, so polls after completion cost no AWS calls.
+ * <p>
+ * A result never changes once the job completed or failed. Transcripts are stored gzip-compressed and the
+ * least recently used results are evicted above the size limit. The ETag of a result is computed once when it is
+ * stored, so a revalidating poll is answered without reading the transcript. Job names that Transcribe does not know are
+ * remembered for a short time as well, so repeated polls of a wrong or deleted job are answered locally.
+ */
+@Slf4j
+@Repository
+@RequiredArgsConstructor
+public class TranscriptionResultCacheRepository {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${transcribe.result-cache.max-bytes}")
+    private long maxBytes;
+
+    @Value("${transcribe.result-cache.unknown-ttl-ms}")
+    private long unknownTtlMillis;
+
+    @Value("${transcribe.result-cache.unknown-max-entries}")
+    private int unknownMaxEntries;
+
+    // Access-ordered maps give us LRU eviction
+    private final LinkedHashMap<String, CachedResult> results = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Long> unknownJobs = new LinkedHashMap<>(16, 0.75f, true);
+    private long resultBytes;
+
+    private Counter hits;
+    private Counter unknownHits;
+    private Counter misses;
+    private Counter evictions;
+
+    /**
+     * Registers the cache metrics.
+     */
+    @PostConstruct
+    public void init() {
+        hits = meterRegistry.counter("transcribe.result-cache.hits", "type", "result");
+        unknownHits = meterRegistry.counter("transcribe.result-cache.hits", "type", "unknown");
+        misses = meterRegistry.counter("transcribe.result-cache.misses");
+        evictions = meterRegistry.counter("transcribe.result-cache.evictions");
+        meterRegistry.gauge("transcribe.result-cache.size.bytes", this, TranscriptionResultCacheRepository::getResultBytes);
+        log.info("TranscriptionResultCacheRepository initialized with a limit of {} bytes", maxBytes);
+    }
+
+    /**
+     * Looks up the result of a finished transcription job.
+     *
+     * @param jobName the transcription job name
+     * @return the cached response, or empty if the job is not cached
+     */
+    public Optional<TranscriptionJobResponse> find(String jobName) {
+        CachedResult result;
+        synchronized (results) {
+            result = results.get(jobName);
+        }
+        if (result == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        String text = decompress(result.text());
+        return Optional.of("FAILED".equals(result.status())
+                ? new TranscriptionJobResponse(jobName, result.status(), null, text)
+                : new TranscriptionJobResponse(jobName, result.status(), text, null));
+    }
+
+    /**
+     * Looks up the ETag of the result of a finished transcription job, without decompressing the result.
+     *
+     * @param jobName the transcription job name
+     * @return the quoted ETag of the response that was cached, or empty if the job is not cached
+     */
+    public Optional<String> findETag(String jobName) {
+        synchronized (results) {
+            CachedResult result = results.get(jobName);
+            return result != null ? Optional.of(result.etag()) : Optional.empty();
+        }
+    }
+
+    /**
+     * Stores the result of a finished transcription job.
+     *
+     * @param response the response of a COMPLETED or FAILED job
+     */
+    public void put(TranscriptionJobResponse response) {
+        String text = response.getTranscript() != null ? response.getTranscript() : response.getFailureReason();
+        CachedResult result = new CachedResult(response.getJobStatus(), compress(text != null ? text : ""), response.computeETag());
+        synchronized (results) {
+            CachedResult previous = results.put(response.getJobName(), result);
+            if (previous != null) {
+                resultBytes -= previous.size();
+            }
+            resultBytes += result.size();
+            while (resultBytes > maxBytes && !results.isEmpty()) {
+                var eldest = results.entrySet().iterator().next();
+                resultBytes -= eldest.getValue().size();
+                results.remove(eldest.getKey());
+                evictions.increment();
+            }
+        }
+        synchronized (unknownJobs) {
+            unknownJobs.remove(response.getJobName());
+        }
+    }
+
+    /**
+     * Forgets the result of a job, once its transcript and Transcribe job were deleted.
+     *
+     * @param jobName the transcription job name
+     */
+    public void remove(String jobName) {
+        synchronized (results) {
+            CachedResult previous = results.remove(jobName);
+            if (previous != null) {
+                resultBytes -= previous.size();
+            }
+        }
+    }
+
+    /**
+     * Remembers that Transcribe does not know a job, for the configured time to live.
+     *
+     * @param jobName the transcription job name
+     */
+    public void putUnknown(String jobName) {
+        synchronized (unknownJobs) {
+            unknownJobs.put(jobName, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(unknownTtlMillis));
+            if (unknownJobs.size() > unknownMaxEntries) {
+                unknownJobs.remove(unknownJobs.keySet().iterator().next());
+            }
+        }
+    }
+
+    /**
+     * @param jobName the transcription job name
+     * @return whether Transcribe recently did not know the job
+     */
+    public boolean isUnknown(String jobName) {
+        synchronized (unknownJobs) {
+            Long expiresAt = unknownJobs.get(jobName);
+            if (expiresAt == null) {
+                return false;
+            }
+            if (System.nanoTime() - expiresAt >= 0) {
+                unknownJobs.remove(jobName);
+                return false;
+            }
+        }
+        unknownHits.increment();
+        return true;
+    }
+
+    private long getResultBytes() {
+        synchronized (results) {
+            return resultBytes;
+        }
+    }
+
+    private static byte[] compress(String text) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static String decompress(byte[] compressed) {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record CachedResult(String status, byte[] text, String etag) {
+        long size() {
+            return text.length + status.length() + etag.length();
+        }
+    }
+}
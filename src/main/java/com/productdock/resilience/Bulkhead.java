@@ -0,0 +1,59 @@
+package com.productdock.resilience;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of concurrent calls to one AWS dependency, so a slow dependency only holds
+ * its own share of threads and connections instead of starving the endpoints that use other dependencies.
+ */
+public class Bulkhead {
+
+    private final Semaphore permits;
+    private final long maxWaitNanos;
+
+    /**
+     * @param name          the name of the AWS dependency, used in metrics
+     * @param maxConcurrent the number of calls that may be in progress at the same time
+     * @param maxWait       how long a blocking caller waits for a free slot
+     * @param meterRegistry the registry for the free slots gauge
+     */
+    public Bulkhead(String name, int maxConcurrent, Duration maxWait, MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrent);
+        this.maxWaitNanos = maxWait.toNanos();
+        Gauge.builder("aws.bulkhead.available", permits, Semaphore::availablePermits)
+                .description("Free call slots of the AWS dependency")
+                .tag("dependency", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a slot, waiting up to the configured time for one to become free.
+     *
+     * @return true if a slot was taken and must be released, false if all slots stayed taken
+     * @throws InterruptedException if the caller was interrupted while waiting
+     */
+    public boolean acquire() throws InterruptedException {
+        return permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Takes a slot without waiting, for callers that must not block.
+     *
+     * @return true if a slot was taken and must be released, false if all slots are taken
+     */
+    public boolean tryAcquire() {
+        return permits.tryAcquire();
+    }
+
+    /**
+     * Releases a slot taken before.
+     */
+    public void release() {
+        permits.release();
+    }
+}
@@ -0,0 +1,176 @@
+package com.productdock.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Circuit breaker of one AWS dependency.
+ * <p>
+ * While closed, the outcomes of the last {@code windowSize} calls are kept. Once at least {@code minCalls}
+ * were made and the share of failures reaches the threshold, the breaker opens and rejects all calls for
+ * {@code openDuration}. Afterwards it is half-open and lets {@code halfOpenCalls} trial calls through:
+ * if all of them succeed it closes again, a single failure opens it for another period.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    /**
+     * State of the circuit breaker, the value is exposed as the {@code aws.circuit.state} gauge.
+     */
+    public enum State {
+        CLOSED(0), OPEN(1), HALF_OPEN(2);
+
+        private final int value;
+
+        State(int value) {
+            this.value = value;
+        }
+    }
+
+    private final String name;
+    private final int failureRatePercent;
+    private final int minCalls;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final Map<State, Counter> transitions = new EnumMap<>(State.class);
+
+    // Ring buffer of the outcomes of recent calls while closed
+    private final boolean[] failures;
+    private int nextIndex;
+    private int recordedCalls;
+    private int failedCalls;
+
+    private State state = State.CLOSED;
+    private long openUntilNanos;
+    private int trialCallsStarted;
+    private int trialCallsSucceeded;
+
+    /**
+     * @param name               the name of the AWS dependency, used in logs and metrics
+     * @param failureRatePercent the share of failed calls that opens the breaker
+     * @param windowSize         the number of recent calls the failure rate is computed from
+     * @param minCalls           the number of calls needed before the failure rate is trusted
+     * @param openDuration       how long calls are rejected once the breaker opened
+     * @param halfOpenCalls      the number of successful trial calls that close the breaker again
+     * @param meterRegistry      the registry for state metrics
+     */
+    public CircuitBreaker(String name, int failureRatePercent, int windowSize, int minCalls, Duration openDuration,
+                          int halfOpenCalls, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.failureRatePercent = failureRatePercent;
+        this.failures = new boolean[windowSize];
+        this.minCalls = Math.min(minCalls, windowSize);
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        for (State target : State.values()) {
+            transitions.put(target, meterRegistry.counter("aws.circuit.transitions", "dependency", name, "state", target.name().toLowerCase()));
+        }
+        Gauge.builder("aws.circuit.state", this, breaker -> breaker.getState().value)
+                .description("Circuit breaker state (0 closed, 1 open, 2 half-open)")
+                .tag("dependency", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Asks for permission to make a call. Every permitted call must be followed by
+     * {@link #onSuccess()} or {@link #onFailure()}.
+     *
+     * @return true if the call may be made, false while the breaker is open or all trial calls are taken
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openUntilNanos < 0) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialCallsStarted >= halfOpenCalls) {
+                return false;
+            }
+            trialCallsStarted++;
+        }
+        return true;
+    }
+
+    /**
+     * Records a call that the dependency answered.
+     */
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            trialCallsSucceeded++;
+            if (trialCallsSucceeded >= halfOpenCalls) {
+                transitionTo(State.CLOSED);
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    /**
+     * Records a call that failed because the dependency is unavailable, throttling or too slow.
+     */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (recordedCalls >= minCalls && failedCalls * 100 >= failureRatePercent * recordedCalls) {
+                transitionTo(State.OPEN);
+            }
+        }
+    }
+
+    /**
+     * @return the time until the breaker lets trial calls through, zero unless it is open
+     */
+    public synchronized Duration getRemainingOpenDuration() {
+        return state == State.OPEN ? Duration.ofNanos(Math.max(0, openUntilNanos - System.nanoTime())) : Duration.ZERO;
+    }
+
+    /**
+     * @return the current state
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (recordedCalls == failures.length) {
+            if (failures[nextIndex]) {
+                failedCalls--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        failures[nextIndex] = failure;
+        if (failure) {
+            failedCalls++;
+        }
+        nextIndex = (nextIndex + 1) % failures.length;
+    }
+
+    private void transitionTo(State target) {
+        log.warn("Circuit breaker of {} changed from {} to {}", name, state, target);
+        state = target;
+        transitions.get(target).increment();
+        switch (target) {
+            case OPEN -> openUntilNanos = System.nanoTime() + openDurationNanos;
+            case HALF_OPEN -> {
+                trialCallsStarted = 0;
+                trialCallsSucceeded = 0;
+            }
+            case CLOSED -> {
+                recordedCalls = 0;
+                failedCalls = 0;
+                nextIndex = 0;
+            }
+        }
+    }
+}
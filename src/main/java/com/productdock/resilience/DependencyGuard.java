@@ -0,0 +1,131 @@
+package com.productdock.resilience;
+
+import com.productdock.exception.DependencyUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Guards the calls to one AWS dependency with a circuit breaker and a bulkhead.
+ * <p>
+ * Calls are rejected right away with a {@link DependencyUnavailableException} while the circuit is open
+ * or all slots of the bulkhead are taken, instead of waiting for SDK timeouts. Only transient failures
+ * (see {@link RetryPolicy#isRetryable(Throwable)}) count against the circuit, rejected requests do not.
+ */
+public class DependencyGuard {
+    private static final Duration BULKHEAD_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final String name;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final Counter circuitOpenRejections;
+    private final Counter bulkheadFullRejections;
+
+    /**
+     * @param name           the display name of the AWS dependency, used in error messages and metrics
+     * @param circuitBreaker the circuit breaker of the dependency
+     * @param bulkhead       the bulkhead of the dependency
+     * @param meterRegistry  the registry for rejection metrics
+     */
+    public DependencyGuard(String name, CircuitBreaker circuitBreaker, Bulkhead bulkhead, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+        this.circuitOpenRejections = meterRegistry.counter("aws.rejections", "dependency", name, "reason", "circuit_open");
+        this.bulkheadFullRejections = meterRegistry.counter("aws.rejections", "dependency", name, "reason", "bulkhead_full");
+    }
+
+    /**
+     * Makes a blocking call through the circuit breaker and the bulkhead.
+     * The caller waits briefly for a free slot if the bulkhead is full.
+     *
+     * @param call the call to make
+     * @param <T>  the result type
+     * @return the result of the call
+     * @throws DependencyUnavailableException if the circuit is open or no slot became free
+     */
+    public <T> T execute(Supplier<T> call) {
+        try {
+            if (!bulkhead.acquire()) {
+                throw rejectBulkheadFull();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw rejectBulkheadFull();
+        }
+        try {
+            acquireCircuit();
+            try {
+                T result = call.get();
+                circuitBreaker.onSuccess();
+                return result;
+            } catch (RuntimeException e) {
+                recordFailure(e);
+                throw e;
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Makes a non-blocking call through the circuit breaker and the bulkhead.
+     * The slot is held until the call completes.
+     *
+     * @param call the call to make
+     * @param <T>  the result type
+     * @return a CompletableFuture of the result of the call,
+     * completed exceptionally with a DependencyUnavailableException if the circuit is open or the bulkhead is full
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call) {
+        if (!bulkhead.tryAcquire()) {
+            return CompletableFuture.failedFuture(rejectBulkheadFull());
+        }
+        CompletableFuture<T> response;
+        try {
+            acquireCircuit();
+            response = call.get();
+        } catch (DependencyUnavailableException e) {
+            bulkhead.release();
+            return CompletableFuture.failedFuture(e);
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+
+        return response.whenComplete((result, e) -> {
+            bulkhead.release();
+            if (e == null) {
+                circuitBreaker.onSuccess();
+            } else {
+                recordFailure(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+        });
+    }
+
+    private void acquireCircuit() {
+        if (!circuitBreaker.tryAcquire()) {
+            circuitOpenRejections.increment();
+            Duration retryAfter = circuitBreaker.getRemainingOpenDuration();
+            throw new DependencyUnavailableException(name + " is temporarily unavailable",
+                    retryAfter.isZero() ? BULKHEAD_RETRY_AFTER : retryAfter);
+        }
+    }
+
+    private void recordFailure(Throwable error) {
+        if (RetryPolicy.isRetryable(error)) {
+            circuitBreaker.onFailure();
+        } else {
+            // The dependency answered, the request itself was rejected
+            circuitBreaker.onSuccess();
+        }
+    }
+
+    private DependencyUnavailableException rejectBulkheadFull() {
+        bulkheadFullRejections.increment();
+        return new DependencyUnavailableException(name + " is overloaded", BULKHEAD_RETRY_AFTER);
+    }
+}
@@ -0,0 +1,167 @@
+package com.productdock.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Hedges slow calls of one AWS client: when a call has not answered within the p95 latency of recent calls,
+ * the same request is sent a second time and whichever answers first is used. The result of the other
+ * request is discarded. Hedged requests are taken from the shared {@link RetryBudget}, so hedging stops
+ * when AWS is slow across the board.
+ */
+@Slf4j
+public class HedgingPolicy {
+    private static final int LATENCY_WINDOW_SIZE = 512;
+    private static final int PERCENTILE_REFRESH_INTERVAL = 32;
+
+    private final String name;
+    private final boolean enabled;
+    private final long minDelayNanos;
+    private final int minSamples;
+    private final RetryBudget retryBudget;
+    private final Executor executor;
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+
+    // Ring buffer of the latencies of recent successful calls
+    private final long[] latencies = new long[LATENCY_WINDOW_SIZE];
+    private long samples;
+    private long p95Nanos;
+
+    /**
+     * @param name          the name of the AWS client, used in logs and metrics
+     * @param enabled       whether slow calls are hedged at all
+     * @param minDelay      the shortest delay before a hedged request is sent
+     * @param minSamples    the number of calls to observe before the p95 latency is trusted
+     * @param retryBudget   the budget shared by all AWS clients
+     * @param executor      the executor that makes blocking calls, so the caller can wait for both
+     * @param meterRegistry the registry for hedging metrics
+     */
+    public HedgingPolicy(String name, boolean enabled, Duration minDelay, int minSamples, RetryBudget retryBudget,
+                         Executor executor, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.enabled = enabled;
+        this.minDelayNanos = minDelay.toNanos();
+        this.minSamples = minSamples;
+        this.retryBudget = retryBudget;
+        this.executor = executor;
+        this.hedgesSent = meterRegistry.counter("aws.hedges", "client", name, "result", "sent");
+        this.hedgesWon = meterRegistry.counter("aws.hedges", "client", name, "result", "won");
+    }
+
+    /**
+     * Makes a blocking call, hedged once it is slower than the p95 latency.
+     *
+     * @param call    the call to make, invoked again for the hedged request
+     * @param discard releases the result of the request that answered second
+     * @param <T>     the result type
+     * @return the result of the first successful request
+     * @throws RuntimeException the failure of the last request if both failed
+     */
+    public <T> T execute(Supplier<T> call, Consumer<T> discard) {
+        if (!enabled || getHedgeDelayNanos().isEmpty()) {
+            long start = System.nanoTime();
+            T result = call.get();
+            recordLatency(System.nanoTime() - start);
+            return result;
+        }
+
+        CompletableFuture<T> result = executeAsync(() -> CompletableFuture.supplyAsync(call, executor), discard);
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Whatever still answers is not needed anymore
+            result.thenAccept(discard);
+            throw new CompletionException("Interrupted while waiting for " + name, e);
+        }
+    }
+
+    /**
+     * Makes a non-blocking call, hedged once it is slower than the p95 latency.
+     *
+     * @param call    the call to make, invoked again for the hedged request
+     * @param discard releases the result of the request that answered second
+     * @param <T>     the result type
+     * @return a CompletableFuture of the result of the first successful request,
+     * completed exceptionally with the failure of the last request if both failed
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call, Consumer<T> discard) {
+        Optional<Long> hedgeDelayNanos = enabled ? getHedgeDelayNanos() : Optional.empty();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        attempt(call, discard, result, pending, false);
+
+        hedgeDelayNanos.ifPresent(delay -> CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS, Runnable::run)
+                .execute(() -> {
+                    if (result.isDone() || !retryBudget.tryWithdraw()) {
+                        return;
+                    }
+                    log.debug("{} call slower than {} ms, sending hedged request", name, TimeUnit.NANOSECONDS.toMillis(delay));
+                    hedgesSent.increment();
+                    pending.incrementAndGet();
+                    attempt(call, discard, result, pending, true);
+                }));
+        return result;
+    }
+
+    private <T> void attempt(Supplier<CompletableFuture<T>> call, Consumer<T> discard, CompletableFuture<T> result,
+                             AtomicInteger pending, boolean hedged) {
+        long start = System.nanoTime();
+        CompletableFuture<T> response;
+        try {
+            response = call.get();
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+
+        response.whenComplete((value, e) -> {
+            if (e == null) {
+                recordLatency(System.nanoTime() - start);
+                if (result.complete(value)) {
+                    if (hedged) {
+                        hedgesWon.increment();
+                    }
+                } else {
+                    discard.accept(value);
+                }
+            } else if (pending.decrementAndGet() == 0) {
+                result.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            }
+        });
+    }
+
+    /**
+     * @return the delay before a hedged request is sent, or empty while too few calls were observed
+     */
+    synchronized Optional<Long> getHedgeDelayNanos() {
+        if (samples < minSamples) {
+            return Optional.empty();
+        }
+        return Optional.of(Math.max(minDelayNanos, p95Nanos));
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencies[(int) (samples % LATENCY_WINDOW_SIZE)] = nanos;
+        samples++;
+        if (samples % PERCENTILE_REFRESH_INTERVAL == 0 || samples == minSamples) {
+            long[] window = Arrays.copyOf(latencies, (int) Math.min(samples, LATENCY_WINDOW_SIZE));
+            Arrays.sort(window);
+            p95Nanos = window[(int) Math.ceil(window.length * 0.95) - 1];
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.productdock.resilience;
+
+/**
+ * Limits retries across all AWS calls to a share of the calls made, so retries cannot amplify an outage.
+ * <p>
+ * Every first attempt deposits {@code ratio} of a retry into the budget and every retry or hedged request
+ * withdraws a whole one. A small reserve of {@code minPerSecond} retries is added over time, so retries still
+ * work under low traffic. The balance is capped, so a long quiet period does not save up a retry storm.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double minPerSecond;
+    private final double maxBalance;
+
+    private double balance;
+    private long lastRefillNanos;
+
+    /**
+     * @param ratio        retries allowed per first attempt, e.g. 0.2 allows 20% extra calls
+     * @param minPerSecond retries allowed per second regardless of traffic
+     * @param maxBalance   the maximum number of retries the budget holds
+     */
+    public RetryBudget(double ratio, double minPerSecond, double maxBalance) {
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+        this.maxBalance = maxBalance;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Records a first attempt, which earns a share of a retry.
+     */
+    public synchronized void deposit() {
+        refill();
+        balance = Math.min(maxBalance, balance + ratio);
+    }
+
+    /**
+     * Takes one retry from the budget.
+     *
+     * @return true if the retry may be made, false if the budget is exhausted
+     */
+    public synchronized boolean tryWithdraw() {
+        refill();
+        if (balance < 1) {
+            return false;
+        }
+        balance--;
+        return true;
+    }
+
+    /**
+     * @return the number of retries currently available
+     */
+    public synchronized double getBalance() {
+        refill();
+        return balance;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        balance = Math.min(maxBalance, balance + minPerSecond * (now - lastRefillNanos) / 1_000_000_000d);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,181 @@
+package com.productdock.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.core.retry.RetryUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Retries the calls of one AWS client with exponential backoff and full jitter.
+ * <p>
+ * Only transient failures are retried: throttling, server errors and I/O errors. The delay before a retry
+ * is drawn uniformly between zero and an exponentially growing cap, so clients that failed together do not
+ * retry together. Every retry is taken from a {@link RetryBudget} shared by all clients.
+ */
+@Slf4j
+public class RetryPolicy {
+
+    private final String name;
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final RetryBudget retryBudget;
+    private final Counter retried;
+    private final Counter budgetExhausted;
+    private final Counter attemptsExhausted;
+
+    /**
+     * @param name          the name of the AWS client, used in logs and metrics
+     * @param maxAttempts   the number of attempts per call, including the first one
+     * @param baseDelay     the cap of the delay before the first retry, doubled for every further retry
+     * @param maxDelay      the highest cap of the delay before a retry
+     * @param retryBudget   the budget shared by all AWS clients
+     * @param meterRegistry the registry for retry metrics
+     */
+    public RetryPolicy(String name, int maxAttempts, Duration baseDelay, Duration maxDelay, RetryBudget retryBudget,
+                       MeterRegistry meterRegistry) {
+        this.name = name;
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelay.toMillis();
+        this.maxDelayMillis = maxDelay.toMillis();
+        this.retryBudget = retryBudget;
+        this.retried = meterRegistry.counter("aws.retries", "client", name, "outcome", "retried");
+        this.budgetExhausted = meterRegistry.counter("aws.retries", "client", name, "outcome", "budget_exhausted");
+        this.attemptsExhausted = meterRegistry.counter("aws.retries", "client", name, "outcome", "attempts_exhausted");
+    }
+
+    /**
+     * Makes a blocking call and retries it on transient failures.
+     * The calling thread waits out the backoff, as it would wait for the call itself.
+     *
+     * @param call the call to make
+     * @param <T>  the result type
+     * @return the result of the first successful attempt
+     * @throws RuntimeException the failure of the last attempt
+     */
+    public <T> T execute(Supplier<T> call) {
+        retryBudget.deposit();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                if (!shouldRetry(e, attempt)) {
+                    throw e;
+                }
+                long delayMillis = getBackoffMillis(attempt);
+                log.warn("{} call failed (attempt {} of {}), retrying in {} ms: {}", name, attempt, maxAttempts, delayMillis, e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(delayMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    e.addSuppressed(interrupted);
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes a non-blocking call and retries it on transient failures.
+     * Retries are scheduled after the backoff without holding any thread.
+     *
+     * @param call the call to make, invoked again for every attempt
+     * @param <T>  the result type
+     * @return a CompletableFuture of the result of the first successful attempt,
+     * completed exceptionally with the failure of the last attempt
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call) {
+        retryBudget.deposit();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attemptAsync(call, 1, result);
+        return result;
+    }
+
+    private <T> void attemptAsync(Supplier<CompletableFuture<T>> call, int attempt, CompletableFuture<T> result) {
+        CompletableFuture<T> response;
+        try {
+            response = call.get();
+        } catch (RuntimeException e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+
+        response.whenComplete((value, e) -> {
+            if (e == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = unwrap(e);
+            if (!shouldRetry(cause, attempt)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            long delayMillis = getBackoffMillis(attempt);
+            log.warn("{} call failed (attempt {} of {}), retrying in {} ms: {}", name, attempt, maxAttempts, delayMillis, cause.getMessage());
+            // The next attempt only starts a non-blocking call, so it can run on the timer thread
+            CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, Runnable::run)
+                    .execute(() -> attemptAsync(call, attempt + 1, result));
+        });
+    }
+
+    private boolean shouldRetry(Throwable error, int attempt) {
+        if (!isRetryable(error)) {
+            return false;
+        }
+        if (attempt >= maxAttempts) {
+            attemptsExhausted.increment();
+            return false;
+        }
+        if (!retryBudget.tryWithdraw()) {
+            log.warn("{} retry budget exhausted, not retrying: {}", name, error.getMessage());
+            budgetExhausted.increment();
+            return false;
+        }
+        retried.increment();
+        return true;
+    }
+
+    /**
+     * Draws the delay before the retry that follows the given attempt.
+     *
+     * @param attempt the failed attempt, starting at 1
+     * @return a delay between zero and {@code min(maxDelay, baseDelay * 2^(attempt - 1))} milliseconds
+     */
+    long getBackoffMillis(int attempt) {
+        long cap = Math.min(maxDelayMillis, baseDelayMillis << Math.min(attempt - 1, 30));
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+
+    /**
+     * Decides whether a failed AWS call is worth retrying: throttling, server errors, clock skew and I/O errors are,
+     * rejected requests are not.
+     *
+     * @param error the failure of the call
+     * @return true if the call may succeed when it is made again
+     */
+    public static boolean isRetryable(Throwable error) {
+        if (error instanceof SdkServiceException serviceException) {
+            return serviceException.isThrottlingException()
+                    || serviceException.statusCode() >= 500
+                    || RetryUtils.isClockSkewException(serviceException);
+        }
+        if (error instanceof SdkException sdkException) {
+            return RetryUtils.isRetryableException(sdkException);
+        }
+        return error instanceof IOException || error instanceof UncheckedIOException;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+}
@@ -0,0 +1,46 @@
+package com.productdock.security;
+
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * The asynchronous face of a synchronous compare-and-set, its futures are completed on the calling thread.
+ * <p>
+ * The rate limit backends have no non-blocking client and report {@code isAsyncModeSupported() == false},
+ * so bucket4j refuses {@code asAsync()} on them and the rate limiter only builds synchronous buckets.
+ * Should the asynchronous path be taken anyway it still works, it just blocks like the synchronous one.
+ */
+final class CompletedCompareAndSwapOperation implements AsyncCompareAndSwapOperation {
+
+    private final CompareAndSwapOperation operation;
+
+    CompletedCompareAndSwapOperation(CompareAndSwapOperation operation) {
+        this.operation = operation;
+    }
+
+    @Override
+    public CompletableFuture<Optional<byte[]>> getStateData() {
+        return complete(operation::getStateData);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+        return complete(() -> operation.compareAndSwap(originalData, newData, newState));
+    }
+
+    /**
+     * @return a future completed with the result of the call, or failed with what it threw
+     */
+    static <T> CompletableFuture<T> complete(Supplier<T> call) {
+        try {
+            return CompletableFuture.completedFuture(call.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
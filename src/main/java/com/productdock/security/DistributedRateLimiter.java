@@ -0,0 +1,164 @@
+package com.productdock.security;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.Refill;
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.github.bucket4j.distributed.proxy.RemoteBucketBuilder;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limiting across all instances, enabled with {@code rate-limit.distributed.mode}: the buckets are kept in
+ * a shared backend, so a client gets the limit of an endpoint once and not once per instance.
+ * <p>
+ * Each instance leases a share of the tokens of a bucket and consumes it locally, and only writes the consumed
+ * tokens back once the lease is used up or expired. So most requests take no network round trip, and the
+ * limit is exceeded by at most one lease per instance. Leases of buckets evicted from the local cache are lost.
+ * <p>
+ * While the backend fails, requests are limited by the local {@link RateLimitBucketStore} of each instance,
+ * and the backend is only tried again after the retry delay, so an outage does not slow down every request.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("'${rate-limit.distributed.mode}' != 'none'")
+@RequiredArgsConstructor
+public class DistributedRateLimiter {
+
+    static final String KEY_PREFIX = "rate-limit:";
+
+    private final ProxyManager<String> proxyManager;
+    private final RateLimitBucketStore bucketStore;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${rate-limit.distributed.max-local-buckets}")
+    private int maxLocalBuckets;
+
+    @Value("${rate-limit.distributed.lease-percent}")
+    private int leasePercent;
+
+    @Value("${rate-limit.distributed.lease-timeout-ms}")
+    private long leaseTimeoutMillis;
+
+    @Value("${rate-limit.distributed.retry-after-ms}")
+    private long retryAfterMillis;
+
+    // Proxies of the recently used remote buckets with their leases, least recently used first
+    private Map<Long, Bucket> buckets;
+    private volatile long unavailableUntilNanos = System.nanoTime();
+
+    private Counter backendFailures;
+    private Counter localFallbacks;
+
+    /**
+     * Creates the cache of bucket proxies and registers the metrics.
+     */
+    @PostConstruct
+    public void init() {
+        buckets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Bucket> eldest) {
+                return size() > maxLocalBuckets;
+            }
+        };
+
+        backendFailures = meterRegistry.counter("rate-limit.distributed.backend-failures");
+        localFallbacks = meterRegistry.counter("rate-limit.distributed.local-fallbacks");
+        meterRegistry.gauge("rate-limit.distributed.local-buckets", this, DistributedRateLimiter::getLocalBucketCount);
+        log.info("DistributedRateLimiter initialized on {} with leases of {}% of a bucket",
+                proxyManager.getClass().getSimpleName(), leasePercent);
+    }
+
+    /**
+     * Takes a token from the cluster-wide bucket of a client for an endpoint,
+     * or from the local bucket while the backend is unavailable.
+     *
+     * @param limit     the limit of the endpoint
+     * @param clientKey the client, e.g. its IP address
+     * @return whether the request is allowed
+     */
+    public boolean tryConsume(RateLimit limit, String clientKey) {
+        long now = System.nanoTime();
+        if (now - unavailableUntilNanos < 0) {
+            localFallbacks.increment();
+            return bucketStore.tryConsume(limit, clientKey);
+        }
+
+        long key = RateLimitBucketStore.hash(limit.endpointKey(), clientKey);
+        try {
+            return getBucket(key, limit).tryConsume(1);
+        } catch (RuntimeException e) {
+            // The lease of the bucket is unknown after a failed sync, the next request starts over from the backend
+            removeBucket(key);
+            unavailableUntilNanos = now + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis);
+            backendFailures.increment();
+            localFallbacks.increment();
+            log.warn("Rate limit backend failed, limiting locally for {} ms: {}", retryAfterMillis, e.getMessage());
+            return bucketStore.tryConsume(limit, clientKey);
+        }
+    }
+
+    /**
+     * @return the number of bucket proxies cached locally
+     */
+    public int getLocalBucketCount() {
+        synchronized (buckets) {
+            return buckets.size();
+        }
+    }
+
+    /**
+     * @return whether requests are currently limited locally because the backend failed
+     */
+    public boolean isFallingBack() {
+        return System.nanoTime() - unavailableUntilNanos < 0;
+    }
+
+    private Bucket getBucket(long key, RateLimit limit) {
+        synchronized (buckets) {
+            Bucket bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = createBucket(key, limit);
+                buckets.put(key, bucket);
+            }
+            return bucket;
+        }
+    }
+
+    private void removeBucket(long key) {
+        synchronized (buckets) {
+            buckets.remove(key);
+        }
+    }
+
+    /**
+     * Creates the proxy of a remote bucket. The remote key is the hash of the endpoint and client,
+     * so the backend holds no client addresses.
+     */
+    private Bucket createBucket(long key, RateLimit limit) {
+        RemoteBucketBuilder<String> builder = proxyManager.builder();
+        long leaseTokens = (long) limit.requests() * leasePercent / 100;
+        if (leaseTokens > 0) {
+            builder = builder.withOptimization(Optimizations.delaying(
+                    new DelayParameters(leaseTokens, Duration.ofMillis(leaseTimeoutMillis))));
+        }
+        Duration period = Duration.ofNanos(limit.periodNanos());
+        return builder.build(KEY_PREFIX + Long.toHexString(key), () -> BucketConfiguration.builder()
+                .addLimit(Bandwidth.classic(limit.requests(), Refill.greedy(limit.requests(), period)))
+                .build());
+    }
+}
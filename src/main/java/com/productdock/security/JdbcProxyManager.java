@@ -0,0 +1,203 @@
+package com.productdock.security;
+
+import com.productdock.exception.RateLimitBackendException;
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate-limiting buckets shared by all instances in a database table, one row per bucket.
+ * <p>
+ * A bucket is changed with a compare-and-set: its state is read, changed locally, and written back only
+ * if the row still holds the state that was read, otherwise bucket4j reads it again. So no row is locked
+ * and any database with plain SQL works, PostgreSQL in production and H2 in the tests.
+ * Every row holds the time its bucket is full again, after which it is no different from a missing row and is deleted.
+ */
+@Slf4j
+public class JdbcProxyManager extends AbstractCompareAndSwapBasedProxyManager<String> {
+
+    static final String TABLE = "rate_limit_buckets";
+
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS " + TABLE
+            + " (id VARCHAR(255) PRIMARY KEY, state BYTEA NOT NULL, expires_at BIGINT NOT NULL)";
+    private static final String SELECT = "SELECT state FROM " + TABLE + " WHERE id = ?";
+    private static final String INSERT = "INSERT INTO " + TABLE + " (id, state, expires_at) VALUES (?, ?, ?)";
+    private static final String UPDATE = "UPDATE " + TABLE + " SET state = ?, expires_at = ? WHERE id = ? AND state = ?";
+    private static final String DELETE = "DELETE FROM " + TABLE + " WHERE id = ?";
+    private static final String DELETE_EXPIRED = "DELETE FROM " + TABLE + " WHERE expires_at < ?";
+
+    // SQL state class of integrity constraint violations, here another instance inserted the bucket first
+    private static final String INTEGRITY_CONSTRAINT_VIOLATION = "23";
+
+    private final DataSource dataSource;
+    private final int queryTimeoutSeconds;
+    private final boolean createTable;
+    private volatile boolean tableCreated;
+
+    /**
+     * @param dataSource          the database of the buckets
+     * @param queryTimeoutSeconds the longest a statement may take
+     * @param createTable         whether the table is created if it does not exist
+     */
+    public JdbcProxyManager(DataSource dataSource, int queryTimeoutSeconds, boolean createTable) {
+        super(ClientSideConfig.getDefault());
+        this.dataSource = dataSource;
+        this.queryTimeoutSeconds = queryTimeoutSeconds;
+        this.createTable = createTable;
+    }
+
+    /**
+     * Creates the bucket table if configured. A database that is not reachable yet does not fail the startup,
+     * the table is then created by the next sweep.
+     */
+    public void init() {
+        if (!createTable) {
+            return;
+        }
+        try {
+            createTable();
+        } catch (RateLimitBackendException e) {
+            log.warn("Could not create the rate limit table, retrying with the next sweep: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the rows of buckets that are full again.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval-ms}")
+    public void removeExpired() {
+        try {
+            if (createTable && !tableCreated) {
+                createTable();
+            }
+            int removed = executeUpdate(DELETE_EXPIRED, statement -> statement.setLong(1, System.currentTimeMillis()));
+            log.debug("Removed {} expired rate limit buckets", removed);
+        } catch (RateLimitBackendException e) {
+            log.warn("Could not remove expired rate limit buckets: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void removeProxy(String key) {
+        executeUpdate(DELETE, statement -> statement.setString(1, key));
+    }
+
+    /**
+     * @return false, there is no non-blocking client, see {@link CompletedCompareAndSwapOperation}
+     */
+    @Override
+    public boolean isAsyncModeSupported() {
+        return false;
+    }
+
+    @Override
+    protected CompareAndSwapOperation beginCompareAndSwapOperation(String key) {
+        return new CompareAndSwapOperation() {
+            @Override
+            public Optional<byte[]> getStateData() {
+                try (Connection connection = dataSource.getConnection();
+                     PreparedStatement statement = connection.prepareStatement(SELECT)) {
+                    statement.setQueryTimeout(queryTimeoutSeconds);
+                    statement.setString(1, key);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        return resultSet.next() ? Optional.of(resultSet.getBytes(1)) : Optional.empty();
+                    }
+                } catch (SQLException e) {
+                    throw new RateLimitBackendException("Failed to read rate limit bucket: " + key, e);
+                }
+            }
+
+            @Override
+            public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                long expiresAt = expiresAt(newState);
+                if (originalData == null) {
+                    return insert(key, newData, expiresAt);
+                }
+                return executeUpdate(UPDATE, statement -> {
+                    statement.setBytes(1, newData);
+                    statement.setLong(2, expiresAt);
+                    statement.setString(3, key);
+                    statement.setBytes(4, originalData);
+                }) == 1;
+            }
+        };
+    }
+
+    @Override
+    protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(String key) {
+        return new CompletedCompareAndSwapOperation(beginCompareAndSwapOperation(key));
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(String key) {
+        return CompletedCompareAndSwapOperation.complete(() -> {
+            removeProxy(key);
+            return null;
+        });
+    }
+
+    private void createTable() {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(queryTimeoutSeconds);
+            statement.execute(CREATE_TABLE);
+            tableCreated = true;
+        } catch (SQLException e) {
+            throw new RateLimitBackendException("Failed to create rate limit table " + TABLE, e);
+        }
+    }
+
+    private boolean insert(String key, byte[] data, long expiresAt) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(INSERT)) {
+            statement.setQueryTimeout(queryTimeoutSeconds);
+            statement.setString(1, key);
+            statement.setBytes(2, data);
+            statement.setLong(3, expiresAt);
+            return statement.executeUpdate() == 1;
+        } catch (SQLException e) {
+            if (e.getSQLState() != null && e.getSQLState().startsWith(INTEGRITY_CONSTRAINT_VIOLATION)) {
+                return false;
+            }
+            throw new RateLimitBackendException("Failed to insert rate limit bucket: " + key, e);
+        }
+    }
+
+    private int executeUpdate(String sql, StatementSetter setter) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setQueryTimeout(queryTimeoutSeconds);
+            setter.set(statement);
+            return statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new RateLimitBackendException("Failed to update rate limit buckets", e);
+        }
+    }
+
+    /**
+     * @return the epoch millisecond at which the bucket is full again
+     */
+    private static long expiresAt(RemoteBucketState state) {
+        long nowMillis = System.currentTimeMillis();
+        return nowMillis + TimeUnit.NANOSECONDS.toMillis(state.calculateFullRefillingTime(TimeUnit.MILLISECONDS.toNanos(nowMillis))) + 1;
+    }
+
+    @FunctionalInterface
+    private interface StatementSetter {
+        void set(PreparedStatement statement) throws SQLException;
+    }
+}
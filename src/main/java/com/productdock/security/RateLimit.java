@@ -0,0 +1,39 @@
+package com.productdock.security;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The limit of one {@link RateLimited} method, resolved from its annotation once, so that checking a request
+ * needs no reflection and no conversions.
+ *
+ * @param endpoint              the method, for logging
+ * @param endpointKey           a hash of the method, clients have one bucket per endpoint
+ * @param requests              the tokens of a full bucket
+ * @param emissionIntervalNanos the time in which one token is refilled
+ * @param periodNanos           the time in which an empty bucket refills
+ */
+record RateLimit(String endpoint, long endpointKey, int requests, long emissionIntervalNanos, long periodNanos) {
+
+    /**
+     * @param method a method annotated with {@link RateLimited}
+     * @return the limit of the method
+     * @throws IllegalArgumentException if the method is not annotated
+     */
+    static RateLimit of(Method method) {
+        RateLimited annotation = AnnotatedElementUtils.findMergedAnnotation(method, RateLimited.class);
+        if (annotation == null) {
+            throw new IllegalArgumentException("Method is not rate limited: " + method);
+        }
+        return of(ClassUtils.getShortName(method.getDeclaringClass()) + "." + method.getName(),
+                RateLimitBucketStore.hash(0, method.toGenericString()), annotation.requests(), annotation.durationMinutes());
+    }
+
+    static RateLimit of(String endpoint, long endpointKey, int requests, int durationMinutes) {
+        long periodNanos = TimeUnit.MINUTES.toNanos(durationMinutes);
+        return new RateLimit(endpoint, endpointKey, requests, periodNanos / requests, periodNanos);
+    }
+}
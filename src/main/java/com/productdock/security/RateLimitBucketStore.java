@@ -0,0 +1,245 @@
+package com.productdock.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token buckets of the rate limited clients, one per endpoint and client, kept as two longs per client in preallocated arrays.
+ * <p>
+ * A bucket holding {@code requests} tokens that refills greedily over a period is fully described by one time,
+ * the theoretical arrival time of the next request: every request moves it one emission interval
+ * ({@code period / requests}) later, and a request is rejected if that would move it more than a period ahead of now.
+ * This state is updated with a compare-and-set, so consuming a token takes no lock and allocates nothing.
+ * <p>
+ * Clients are identified by a 64-bit hash of their key, the key itself is not kept. Each hash maps to a set of
+ * {@value #WAYS} slots. A bucket whose arrival time has passed is full again and no different from a new one,
+ * so its slot is reused for another client or freed by the sweep. When all slots of a set hold buckets still
+ * refilling, the bucket closest to full is evicted. Only claiming and freeing slots takes one of the
+ * {@value #STRIPES} stripe locks.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RateLimitBucketStore {
+
+    private static final int WAYS = 8;
+    private static final int STRIPES = 64;
+    private static final double LOAD_FACTOR = 0.75;
+
+    private static final long EMPTY = 0L;
+    // Marks a slot while it is handed to another client
+    private static final long RECLAIMING = -1L;
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${rate-limit.max-clients}")
+    private int maxClients;
+
+    private AtomicLongArray keys;
+    private AtomicLongArray states;
+    private int setMask;
+    private final Object[] locks = new Object[STRIPES];
+    private final int[] stripeSizes = new int[STRIPES];
+    // Arrival times are kept relative to the start, so that no live state is EMPTY or RECLAIMING
+    private final long origin = System.nanoTime() - 1;
+
+    private Counter evictions;
+    private Counter expirations;
+
+    /**
+     * Allocates the bucket arrays and registers the store metrics.
+     */
+    @PostConstruct
+    public void init() {
+        int sets = Integer.highestOneBit(Math.max(STRIPES, (int) Math.ceil(maxClients / LOAD_FACTOR / WAYS)) - 1) << 1;
+        keys = new AtomicLongArray(sets * WAYS);
+        states = new AtomicLongArray(sets * WAYS);
+        setMask = sets - 1;
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+
+        evictions = meterRegistry.counter("rate-limit.buckets.evictions");
+        expirations = meterRegistry.counter("rate-limit.buckets.expirations");
+        meterRegistry.gauge("rate-limit.buckets", this, RateLimitBucketStore::size);
+        meterRegistry.gauge("rate-limit.buckets.memory.bytes", this, RateLimitBucketStore::getMemoryBytes);
+        log.info("RateLimitBucketStore initialized with {} bucket slots in {} KB", keys.length(), getMemoryBytes() / 1024);
+    }
+
+    /**
+     * Takes a token from the bucket of a client for an endpoint, creating a full bucket for a new client.
+     *
+     * @param limit     the limit of the endpoint
+     * @param clientKey the client, e.g. its IP address
+     * @return whether the request is allowed
+     */
+    public boolean tryConsume(RateLimit limit, String clientKey) {
+        return tryConsume(hash(limit.endpointKey(), clientKey), limit.emissionIntervalNanos(), limit.periodNanos(),
+                System.nanoTime() - origin);
+    }
+
+    /**
+     * Frees the slots of buckets that are full again, so the entry count reflects the clients seen recently.
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.sweep-interval-ms}")
+    public void sweep() {
+        sweep(System.nanoTime() - origin);
+    }
+
+    /**
+     * @return the number of client buckets held
+     */
+    public int size() {
+        int size = 0;
+        for (int i = 0; i < STRIPES; i++) {
+            synchronized (locks[i]) {
+                size += stripeSizes[i];
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the bytes held by the bucket arrays, independent of the number of clients
+     */
+    public long getMemoryBytes() {
+        return 2L * Long.BYTES * keys.length();
+    }
+
+    /**
+     * Takes a token from the bucket of a client at the given time, in nanoseconds since the store was created.
+     */
+    boolean tryConsume(long key, long emissionIntervalNanos, long periodNanos, long now) {
+        int set = (int) key & setMask;
+        while (true) {
+            int slot = find(set, key);
+            if (slot < 0) {
+                Boolean allowed = insert(set, key, emissionIntervalNanos, now);
+                if (allowed != null) {
+                    return allowed;
+                }
+                // Another thread added the client meanwhile
+                continue;
+            }
+
+            long state = states.get(slot);
+            // The state must be read while the slot belongs to the client, the key is written before the state.
+            // A slot is marked RECLAIMING before its key is written, so a state read in between is never taken over
+            if (state == RECLAIMING || state == EMPTY || keys.get(slot) != key) {
+                continue;
+            }
+            long arrival = Math.max(state, now) + emissionIntervalNanos;
+            if (arrival - now > periodNanos) {
+                return false;
+            }
+            if (states.compareAndSet(slot, state, arrival)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Frees the slots of buckets that are full at the given time.
+     */
+    void sweep(long now) {
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            synchronized (locks[stripe]) {
+                for (int set = stripe; set <= setMask; set += STRIPES) {
+                    for (int slot = set * WAYS; slot < (set + 1) * WAYS; slot++) {
+                        long state = states.get(slot);
+                        if (keys.get(slot) != EMPTY && state <= now && states.compareAndSet(slot, state, RECLAIMING)) {
+                            keys.set(slot, EMPTY);
+                            states.set(slot, EMPTY);
+                            stripeSizes[stripe]--;
+                            expirations.increment();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Hashes a client key to 64 bits with FNV-1a and the MurmurHash3 finalizer, without allocating.
+     * The seed separates the buckets of the endpoints.
+     */
+    static long hash(long seed, CharSequence clientKey) {
+        long hash = 0xcbf29ce484222325L ^ seed;
+        for (int i = 0; i < clientKey.length(); i++) {
+            hash ^= clientKey.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb93fe53a878dL;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    private int find(int set, long key) {
+        for (int slot = set * WAYS; slot < (set + 1) * WAYS; slot++) {
+            if (keys.get(slot) == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gives a new client a slot of its set and takes its first token, which a full bucket always has.
+     * A free slot is preferred, then the slot of a bucket that is full again, then the bucket closest to full.
+     *
+     * @return true once the client was added, or null if another thread added it first
+     */
+    private Boolean insert(int set, long key, long emissionIntervalNanos, long now) {
+        int stripe = set & (STRIPES - 1);
+        synchronized (locks[stripe]) {
+            if (find(set, key) >= 0) {
+                return null;
+            }
+            while (true) {
+                int victim = -1;
+                long victimState = Long.MAX_VALUE;
+                for (int slot = set * WAYS; slot < (set + 1) * WAYS; slot++) {
+                    if (keys.get(slot) == EMPTY) {
+                        victim = slot;
+                        victimState = EMPTY;
+                        break;
+                    }
+                    long state = states.get(slot);
+                    if (state < victimState) {
+                        victim = slot;
+                        victimState = state;
+                    }
+                }
+
+                if (victimState == EMPTY) {
+                    // Concurrent requests of the client must not take a token from the free state
+                    states.set(victim, RECLAIMING);
+                    stripeSizes[stripe]++;
+                } else if (states.compareAndSet(victim, victimState, RECLAIMING)) {
+                    if (victimState <= now) {
+                        expirations.increment();
+                    } else {
+                        evictions.increment();
+                    }
+                } else {
+                    // The victim took a token meanwhile, choose again
+                    continue;
+                }
+                keys.set(victim, key);
+                states.set(victim, now + emissionIntervalNanos);
+                return true;
+            }
+        }
+    }
+}
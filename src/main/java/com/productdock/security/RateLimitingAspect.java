@@ -1,33 +1,69 @@
 package com.productdock.security;
 
 import com.productdock.exception.TooManyRequestsException;
-import io.github.bucket4j.*;
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.annotation.*;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.stereotype.Component;
 import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.util.ClassUtils;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.lang.reflect.Method;
-import java.time.Duration;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Aspect
 @Component
-public class RateLimitingAspect {
+@RequiredArgsConstructor
+public class RateLimitingAspect implements SmartInitializingSingleton {
 
-    // A thread-safe map to store rate-limiting buckets for each client IP
-    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+    // Bounded store of the rate-limiting buckets per endpoint and client IP, idle buckets expire
+    private final RateLimitBucketStore bucketStore;
+    private final ListableBeanFactory beanFactory;
+    // Buckets shared by all instances, if rate-limit.distributed.mode is set
+    private final ObjectProvider<DistributedRateLimiter> distributedRateLimiterProvider;
+    private DistributedRateLimiter distributedRateLimiter;
+
+    // The limits of the @RateLimited methods, resolved at startup so the advice does no reflection
+    private final Map<Method, RateLimit> limits = new ConcurrentHashMap<>();
+
+    /**
+     * Resolves the limits of the @RateLimited methods of all beans once the beans are created,
+     * before the server accepts requests.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        distributedRateLimiter = distributedRateLimiterProvider.getIfAvailable();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            try {
+                Class<?> beanType = beanFactory.getType(beanName, false);
+                if (beanType != null && AnnotationUtils.isCandidateClass(beanType, RateLimited.class)) {
+                    registerLimits(ClassUtils.getUserClass(beanType));
+                }
+            } catch (RuntimeException | LinkageError e) {
+                // Beans of classes that cannot be introspected are resolved on their first call, if ever
+                log.debug("Could not resolve rate limits of bean '{}': {}", beanName, e.getMessage());
+            }
+        }
+        log.info("Rate limits resolved for {} endpoints, limited {}", limits.size(),
+                distributedRateLimiter != null ? "across instances" : "per instance");
+    }
 
     /**
      * Aspect method to apply rate limiting to methods annotated with @RateLimited.
-     * It checks if the client has exceeded the allowed number of requests within the specified time window.
+     * It checks if the client has exceeded the allowed number of requests to the endpoint within the specified time window.
      *
      * @param joinPoint the join point representing the method being intercepted
      * @return the result of the intercepted method if the rate limit is not exceeded
@@ -38,15 +74,11 @@ public class RateLimitingAspect {
         HttpServletRequest request = ((ServletRequestAttributes) RequestContextHolder.getRequestAttributes()).getRequest();
         String ip = request.getRemoteAddr();
 
-        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
-        RateLimited annotation = method.getAnnotation(RateLimited.class);
-
-        int requests = annotation.requests();
-        Duration duration = Duration.ofMinutes(annotation.durationMinutes());
-
-        Bucket bucket = buckets.computeIfAbsent(ip, key -> newBucket(requests, duration));
-
-        if (!bucket.tryConsume(1)) {
+        RateLimit limit = getLimit(((MethodSignature) joinPoint.getSignature()).getMethod());
+        boolean allowed = distributedRateLimiter != null
+                ? distributedRateLimiter.tryConsume(limit, ip)
+                : bucketStore.tryConsume(limit, ip);
+        if (!allowed) {
             throw new TooManyRequestsException("Too many requests from IP: " + ip);
         }
 
@@ -54,15 +86,25 @@ public class RateLimitingAspect {
     }
 
     /**
-     * Creates a new rate-limiting bucket with the specified request limit and duration.
+     * Resolves the limits of the @RateLimited methods of a class.
+     *
+     * @param type the class to scan
+     */
+    void registerLimits(Class<?> type) {
+        MethodIntrospector.selectMethods(type, (MethodIntrospector.MetadataLookup<RateLimited>) method ->
+                        AnnotatedElementUtils.findMergedAnnotation(method, RateLimited.class))
+                .keySet()
+                .forEach(method -> limits.put(method, RateLimit.of(method)));
+    }
+
+    /**
+     * Looks up the limit of a method, methods of beans created after startup are resolved on their first call.
      *
-     * @param requests the maximum number of requests allowed
-     * @param duration the time window for the rate limit
-     * @return a new Bucket instance configured with the specified limits
+     * @param method the intercepted method
+     * @return the limit of the method
      */
-    private Bucket newBucket(int requests, Duration duration) {
-        Refill refill = Refill.greedy(requests, duration);
-        Bandwidth limit = Bandwidth.classic(requests, refill);
-        return Bucket.builder().addLimit(limit).build();
+    private RateLimit getLimit(Method method) {
+        RateLimit limit = limits.get(method);
+        return limit != null ? limit : limits.computeIfAbsent(method, RateLimit::of);
     }
 }
@@ -0,0 +1,92 @@
+package com.productdock.security;
+
+import io.github.bucket4j.distributed.proxy.ClientSideConfig;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AbstractCompareAndSwapBasedProxyManager;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.AsyncCompareAndSwapOperation;
+import io.github.bucket4j.distributed.proxy.generic.compare_and_swap.CompareAndSwapOperation;
+import io.github.bucket4j.distributed.remote.RemoteBucketState;
+import redis.clients.jedis.UnifiedJedis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate-limiting buckets shared by all instances in Redis, or any server speaking its protocol, one key per bucket.
+ * <p>
+ * A bucket is changed with a compare-and-set: its state is read, changed locally, and written back by a script
+ * only if the key still holds the state that was read, otherwise bucket4j reads it again.
+ * Every key expires once its bucket is full again, so idle clients take no memory.
+ */
+public class RedisProxyManager extends AbstractCompareAndSwapBasedProxyManager<String> {
+
+    // Sets the key if it still holds the expected state, an empty expected state means the key must not exist
+    private static final byte[] COMPARE_AND_SET = """
+            local current = redis.call('get', KEYS[1])
+            if (#ARGV[1] == 0 and not current) or current == ARGV[1] then
+                redis.call('set', KEYS[1], ARGV[2], 'px', ARGV[3])
+                return 1
+            end
+            return 0
+            """.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] NO_STATE = new byte[0];
+
+    private final UnifiedJedis jedis;
+
+    /**
+     * @param jedis the client of the Redis server
+     */
+    public RedisProxyManager(UnifiedJedis jedis) {
+        super(ClientSideConfig.getDefault());
+        this.jedis = jedis;
+    }
+
+    @Override
+    public void removeProxy(String key) {
+        jedis.del(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return false, there is no non-blocking client, see {@link CompletedCompareAndSwapOperation}
+     */
+    @Override
+    public boolean isAsyncModeSupported() {
+        return false;
+    }
+
+    @Override
+    protected CompareAndSwapOperation beginCompareAndSwapOperation(String key) {
+        byte[] redisKey = key.getBytes(StandardCharsets.UTF_8);
+        return new CompareAndSwapOperation() {
+            @Override
+            public Optional<byte[]> getStateData() {
+                return Optional.ofNullable(jedis.get(redisKey));
+            }
+
+            @Override
+            public boolean compareAndSwap(byte[] originalData, byte[] newData, RemoteBucketState newState) {
+                long ttlMillis = TimeUnit.NANOSECONDS.toMillis(newState.calculateFullRefillingTime(
+                        TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis()))) + 1;
+                Object swapped = jedis.eval(COMPARE_AND_SET, List.of(redisKey), List.of(
+                        originalData != null ? originalData : NO_STATE, newData,
+                        Long.toString(ttlMillis).getBytes(StandardCharsets.UTF_8)));
+                return Long.valueOf(1).equals(swapped);
+            }
+        };
+    }
+
+    @Override
+    protected AsyncCompareAndSwapOperation beginAsyncCompareAndSwapOperation(String key) {
+        return new CompletedCompareAndSwapOperation(beginCompareAndSwapOperation(key));
+    }
+
+    @Override
+    protected CompletableFuture<Void> removeAsync(String key) {
+        return CompletedCompareAndSwapOperation.complete(() -> {
+            removeProxy(key);
+            return null;
+        });
+    }
+}
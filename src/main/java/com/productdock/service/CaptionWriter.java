@@ -0,0 +1,150 @@
+package com.productdock.service;
+
+import com.productdock.model.CaptionFormat;
+import com.productdock.model.TranscriptItem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.function.Consumer;
+
+/**
+ * Writes SRT or WebVTT captions while the items of a transcript are read, only the current cue is held in memory.
+ * <p>
+ * Punctuation marks are attached to the word before them. A cue ends after a sentence, before it gets longer than
+ * {@value #MAX_CUE_CHARS} characters or {@value #MAX_CUE_MILLIS} ms, and at a pause longer than {@value #MAX_GAP_MILLIS} ms.
+ * Cues longer than {@value #MAX_LINE_CHARS} characters are shown in two lines.
+ */
+class CaptionWriter implements Consumer<TranscriptItem> {
+
+    private static final int MAX_CUE_CHARS = 84;
+    private static final int MAX_LINE_CHARS = 42;
+    private static final long MAX_CUE_MILLIS = 6000;
+    private static final long MAX_GAP_MILLIS = 1500;
+
+    private final Writer out;
+    private final CaptionFormat format;
+    private final StringBuilder text = new StringBuilder();
+    private long cueStartMillis;
+    private long cueEndMillis;
+    private int cues;
+
+    /**
+     * @param out    receives the captions
+     * @param format the caption format
+     */
+    CaptionWriter(Writer out, CaptionFormat format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    /**
+     * Writes the file header, if the format has one.
+     *
+     * @throws IOException if writing fails
+     */
+    void start() throws IOException {
+        if (format == CaptionFormat.VTT) {
+            out.write("WEBVTT\n\n");
+        }
+    }
+
+    /**
+     * Adds the next item of the transcript, writing the current cue once it is complete.
+     *
+     * @param item the next item
+     * @throws UncheckedIOException if writing fails
+     */
+    @Override
+    public void accept(TranscriptItem item) {
+        try {
+            if (item.isPunctuation()) {
+                // A punctuation mark without a word before it has nothing to attach to
+                if (!text.isEmpty()) {
+                    text.append(item.content());
+                    if (isSentenceEnd(item.content())) {
+                        writeCue();
+                    }
+                }
+                return;
+            }
+            if (item.startSeconds() == null || item.endSeconds() == null) {
+                return;
+            }
+
+            long start = toMillis(item.startSeconds());
+            long end = toMillis(item.endSeconds());
+            if (!text.isEmpty() && (start - cueEndMillis > MAX_GAP_MILLIS
+                    || end - cueStartMillis > MAX_CUE_MILLIS
+                    || text.length() + 1 + item.content().length() > MAX_CUE_CHARS)) {
+                writeCue();
+            }
+            if (text.isEmpty()) {
+                cueStartMillis = start;
+            } else {
+                text.append(' ');
+            }
+            text.append(item.content());
+            cueEndMillis = end;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the last cue and flushes the captions.
+     *
+     * @return the number of cues written
+     * @throws IOException if writing fails
+     */
+    int finish() throws IOException {
+        if (!text.isEmpty()) {
+            writeCue();
+        }
+        out.flush();
+        return cues;
+    }
+
+    private void writeCue() throws IOException {
+        cues++;
+        if (format == CaptionFormat.SRT) {
+            out.write(Integer.toString(cues));
+            out.write('\n');
+        }
+        out.write(formatTime(cueStartMillis));
+        out.write(" --> ");
+        out.write(formatTime(cueEndMillis));
+        out.write('\n');
+        out.write(wrap(text));
+        out.write("\n\n");
+        text.setLength(0);
+    }
+
+    /**
+     * Breaks a long cue at the space closest to its middle.
+     */
+    private static String wrap(CharSequence cue) {
+        String line = cue.toString();
+        if (line.length() <= MAX_LINE_CHARS) {
+            return line;
+        }
+        int middle = line.length() / 2;
+        int before = line.lastIndexOf(' ', middle);
+        int after = line.indexOf(' ', middle);
+        int split = before < 0 ? after : after < 0 ? before : middle - before <= after - middle ? before : after;
+        return split < 0 ? line : line.substring(0, split) + '\n' + line.substring(split + 1);
+    }
+
+    private String formatTime(long millis) {
+        return String.format("%02d:%02d:%02d%c%03d", millis / 3_600_000, millis / 60_000 % 60, millis / 1000 % 60,
+                format == CaptionFormat.SRT ? ',' : '.', millis % 1000);
+    }
+
+    private static boolean isSentenceEnd(String punctuation) {
+        return punctuation.equals(".") || punctuation.equals("?") || punctuation.equals("!");
+    }
+
+    private static long toMillis(double seconds) {
+        return Math.round(seconds * 1000);
+    }
+}
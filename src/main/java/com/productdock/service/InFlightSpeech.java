@@ -0,0 +1,213 @@
+package com.productdock.service;
+
+import com.productdock.model.SynthesizedSpeech;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.InputStreamResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * One synthesis shared by all concurrent requests for the same text.
+ * <p>
+ * Every waiter gets its own stream over a common buffer. The audio source is read on demand by
+ * whichever stream is furthest ahead, so fast clients are never held back by slow ones and no
+ * extra thread is needed. Once the source was read to the end the complete audio is handed over
+ * (to the audio cache). If every stream is closed before that, the source is closed and the
+ * synthesis is abandoned, so no partial audio is ever handed over.
+ */
+@Slf4j
+class InFlightSpeech {
+    private static final int READ_CHUNK_SIZE = 8192;
+
+    private final SynthesizedSpeech speech;
+    private final InputStream source;
+    private final Consumer<byte[]> onComplete;
+    private final Runnable onFinished;
+    // Not a monitor: a virtual thread blocked in a read while holding a monitor would pin its carrier thread
+    private final ReentrantLock sourceLock = new ReentrantLock();
+
+    private byte[] buffer;
+    private int length;
+    private boolean completed;
+    private IOException failure;
+    private int openStreams;
+    private boolean finished;
+
+    private InFlightSpeech(SynthesizedSpeech speech, InputStream source, Consumer<byte[]> onComplete, Runnable onFinished) {
+        this.speech = speech;
+        this.source = source;
+        this.onComplete = onComplete;
+        this.onFinished = onFinished;
+        this.buffer = source != null ? new byte[READ_CHUNK_SIZE] : null;
+    }
+
+    /**
+     * Shares seekable speech (served from the audio cache), which every waiter can read on its own.
+     *
+     * @param speech the seekable speech
+     * @return the shared speech
+     */
+    static InFlightSpeech ofSeekable(SynthesizedSpeech speech) {
+        return new InFlightSpeech(speech, null, null, () -> { });
+    }
+
+    /**
+     * Shares a stream of freshly synthesized audio between waiters.
+     *
+     * @param speech     the synthesized speech, whose audio is the source stream
+     * @param onComplete receives the complete audio once the source was read to the end
+     * @param onFinished called once the source was read to the end, failed or was abandoned
+     * @return the shared speech
+     * @throws IOException if the source stream cannot be opened
+     */
+    static InFlightSpeech ofStream(SynthesizedSpeech speech, Consumer<byte[]> onComplete, Runnable onFinished) throws IOException {
+        return new InFlightSpeech(speech, speech.getAudio().getInputStream(), onComplete, onFinished);
+    }
+
+    /**
+     * Opens the speech for one more waiter.
+     *
+     * @return the speech with a stream of its own, or empty if the synthesis was already abandoned
+     */
+    synchronized Optional<SynthesizedSpeech> open() {
+        if (source == null) {
+            return Optional.of(new SynthesizedSpeech(speech.getAudioId(), speech.getAudio(), speech.getContentLength(), true));
+        }
+        if (finished && !completed) {
+            return Optional.empty();
+        }
+        openStreams++;
+        return Optional.of(new SynthesizedSpeech(speech.getAudioId(), new InputStreamResource(new SharedInputStream()),
+                speech.getContentLength(), false));
+    }
+
+    /**
+     * Reads the next chunk from the source into the buffer, unless another stream already did.
+     * Only one stream reads from the source at a time, streams reading buffered audio do not wait for it.
+     */
+    private void fill(int position) {
+        sourceLock.lock();
+        try {
+            synchronized (this) {
+                if (position < length || finished) {
+                    return;
+                }
+            }
+
+            byte[] chunk = new byte[READ_CHUNK_SIZE];
+            int count;
+            try {
+                count = source.read(chunk);
+            } catch (IOException e) {
+                finish(e);
+                return;
+            }
+
+            if (count == -1) {
+                finish(null);
+                return;
+            }
+            synchronized (this) {
+                if (length + count > buffer.length) {
+                    buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + count));
+                }
+                System.arraycopy(chunk, 0, buffer, length, count);
+                length += count;
+            }
+        } finally {
+            sourceLock.unlock();
+        }
+    }
+
+    /**
+     * Ends the synthesis after the source reached its end or failed, or after all streams were closed.
+     */
+    private void finish(IOException error) {
+        byte[] audio = null;
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (error != null) {
+                failure = error;
+            } else if (openStreams > 0) {
+                completed = true;
+                audio = Arrays.copyOf(buffer, length);
+            }
+        }
+
+        try {
+            source.close();
+        } catch (IOException e) {
+            log.debug("Failed to close audio source", e);
+        }
+        onFinished.run();
+        if (audio != null) {
+            onComplete.accept(audio);
+        }
+    }
+
+    /**
+     * Stream of one waiter over the shared buffer.
+     */
+    private class SharedInputStream extends InputStream {
+        private int position;
+        private boolean closed;
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            int count = read(single, 0, 1);
+            return count == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int count) throws IOException {
+            if (count == 0) {
+                return 0;
+            }
+            while (true) {
+                synchronized (InFlightSpeech.this) {
+                    if (closed) {
+                        throw new IOException("Stream closed");
+                    }
+                    if (position < length) {
+                        int copied = Math.min(count, length - position);
+                        System.arraycopy(buffer, position, bytes, offset, copied);
+                        position += copied;
+                        return copied;
+                    }
+                    if (failure != null) {
+                        throw new IOException("Failed to read synthesized audio", failure);
+                    }
+                    if (completed) {
+                        return -1;
+                    }
+                }
+                fill(position);
+            }
+        }
+
+        @Override
+        public void close() {
+            boolean abandoned;
+            synchronized (InFlightSpeech.this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                openStreams--;
+                abandoned = openStreams == 0 && !finished;
+            }
+            if (abandoned) {
+                finish(null);
+            }
+        }
+    }
+}
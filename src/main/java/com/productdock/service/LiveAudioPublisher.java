@@ -0,0 +1,136 @@
+package com.productdock.service;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Publishes the audio frames received from a client to a single subscriber, as fast as the subscriber requests them.
+ * <p>
+ * Frames the subscriber has not requested yet are buffered up to the given number. A client sending faster
+ * than the audio is transcribed fills the buffer, {@link #offer(ByteBuffer)} then refuses the frame.
+ */
+class LiveAudioPublisher implements Publisher<ByteBuffer> {
+
+    private final int capacity;
+    private final Deque<ByteBuffer> frames = new ArrayDeque<>();
+    private Subscriber<? super ByteBuffer> subscriber;
+    private long demand;
+    private boolean finished;
+    private boolean terminated;
+    private boolean draining;
+
+    /**
+     * @param capacity the number of frames buffered at most
+     */
+    LiveAudioPublisher(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> newSubscriber) {
+        synchronized (this) {
+            if (subscriber == null) {
+                subscriber = newSubscriber;
+                newSubscriber.onSubscribe(new FrameSubscription());
+                drain();
+                return;
+            }
+        }
+        newSubscriber.onSubscribe(new NoSubscription());
+        newSubscriber.onError(new IllegalStateException("Live audio can only be subscribed once"));
+    }
+
+    /**
+     * Offers a frame to the subscriber.
+     *
+     * @param frame the audio frame
+     * @return false if the buffer is full, the frame was not taken
+     */
+    synchronized boolean offer(ByteBuffer frame) {
+        if (finished || terminated) {
+            return true;
+        }
+        if (frames.size() >= capacity) {
+            return false;
+        }
+        frames.add(frame);
+        drain();
+        return true;
+    }
+
+    /**
+     * Completes the stream once the buffered frames were delivered.
+     */
+    synchronized void finish() {
+        finished = true;
+        drain();
+    }
+
+    /**
+     * Delivers buffered frames while there is demand. Frames requested from within onNext are delivered by the
+     * running loop, so the subscriber never sees a nested call.
+     */
+    private void drain() {
+        if (draining || subscriber == null) {
+            return;
+        }
+        draining = true;
+        try {
+            while (!terminated && demand > 0 && !frames.isEmpty()) {
+                demand--;
+                subscriber.onNext(frames.poll());
+            }
+            if (finished && !terminated && frames.isEmpty()) {
+                terminated = true;
+                subscriber.onComplete();
+            }
+        } finally {
+            draining = false;
+        }
+    }
+
+    private class FrameSubscription implements Subscription {
+
+        @Override
+        public void request(long n) {
+            synchronized (LiveAudioPublisher.this) {
+                if (terminated) {
+                    return;
+                }
+                if (n <= 0) {
+                    terminated = true;
+                    frames.clear();
+                    subscriber.onError(new IllegalArgumentException("Requested " + n + " frames, the demand must be positive"));
+                    return;
+                }
+                // Demand is capped at Long.MAX_VALUE, which means unbounded
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                drain();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (LiveAudioPublisher.this) {
+                terminated = true;
+                frames.clear();
+            }
+        }
+    }
+
+    private static class NoSubscription implements Subscription {
+
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+}
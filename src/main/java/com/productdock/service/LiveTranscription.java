@@ -0,0 +1,51 @@
+package com.productdock.service;
+
+import io.micrometer.core.instrument.Counter;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A running live transcription, fed with the audio frames of one client.
+ */
+public class LiveTranscription {
+
+    private final LiveAudioPublisher audio;
+    private final CompletableFuture<Void> completion;
+    private final Counter overflows;
+
+    LiveTranscription(LiveAudioPublisher audio, CompletableFuture<Void> completion, Counter overflows) {
+        this.audio = audio;
+        this.completion = completion;
+        this.overflows = overflows;
+    }
+
+    /**
+     * Passes an audio frame on to the transcription.
+     *
+     * @param frame the audio frame, it must not be changed afterwards
+     * @return false if the client sends audio faster than it is transcribed and the frame was dropped
+     */
+    public boolean sendAudio(ByteBuffer frame) {
+        if (audio.offer(frame)) {
+            return true;
+        }
+        overflows.increment();
+        return false;
+    }
+
+    /**
+     * Ends the audio stream. The transcription completes once the last segments were received.
+     */
+    public void finish() {
+        audio.finish();
+    }
+
+    /**
+     * @return a CompletableFuture completed once the transcription has ended,
+     * or completed exceptionally with a TranscribeRepositoryException if it failed
+     */
+    public CompletableFuture<Void> completion() {
+        return completion;
+    }
+}
@@ -0,0 +1,93 @@
+package com.productdock.service;
+
+import com.productdock.exception.TooManyRequestsException;
+import com.productdock.model.LiveTranscriptSegment;
+import com.productdock.model.LiveTranscriptionSettings;
+import com.productdock.repository.StreamingTranscriptionGateway;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Transcribes audio while a client is speaking, instead of uploading a recording and waiting for a batch job.
+ * <p>
+ * The audio frames of a client are relayed to the {@link StreamingTranscriptionGateway} as fast as it takes them,
+ * a bounded number of frames is buffered in between. The number of live transcriptions is limited,
+ * Transcribe Streaming allows only a few concurrent streams per account.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LiveTranscriptionService {
+
+    private final StreamingTranscriptionGateway streamingTranscriptionGateway;
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger activeTranscriptions = new AtomicInteger();
+
+    @Value("${stt.live.max-sessions}")
+    private int maxSessions;
+
+    @Value("${stt.live.buffered-frames}")
+    private int bufferedFrames;
+
+    private Counter partialSegments;
+    private Counter finalSegments;
+    private Counter overflows;
+
+    /**
+     * Registers the live transcription metrics.
+     */
+    @PostConstruct
+    public void init() {
+        Gauge.builder("stt.live.sessions", activeTranscriptions, AtomicInteger::get)
+                .description("Running live transcriptions")
+                .register(meterRegistry);
+        partialSegments = meterRegistry.counter("stt.live.segments", "type", "partial");
+        finalSegments = meterRegistry.counter("stt.live.segments", "type", "final");
+        overflows = meterRegistry.counter("stt.live.overflows");
+    }
+
+    /**
+     * Starts a live transcription.
+     *
+     * @param settings the encoding, sample rate and language of the audio
+     * @param segments receives the partial and final transcript segments as they arrive
+     * @return the running transcription, to be fed with audio frames
+     * @throws TooManyRequestsException if the maximum of live transcriptions is running
+     */
+    public LiveTranscription start(LiveTranscriptionSettings settings, Consumer<LiveTranscriptSegment> segments) throws TooManyRequestsException {
+        if (activeTranscriptions.incrementAndGet() > maxSessions) {
+            activeTranscriptions.decrementAndGet();
+            throw new TooManyRequestsException("Too many live transcriptions, please try again later");
+        }
+
+        LiveAudioPublisher audio = new LiveAudioPublisher(bufferedFrames);
+        CompletableFuture<Void> completion;
+        try {
+            completion = streamingTranscriptionGateway.transcribe(settings, audio, segment -> {
+                (segment.partial() ? partialSegments : finalSegments).increment();
+                segments.accept(segment);
+            });
+        } catch (RuntimeException e) {
+            activeTranscriptions.decrementAndGet();
+            throw e;
+        }
+        completion.whenComplete((ignored, e) -> {
+            activeTranscriptions.decrementAndGet();
+            if (e != null) {
+                log.warn("Live transcription failed: {}", e.getMessage());
+            }
+        });
+        log.debug("Started live transcription of {} audio at {} Hz in {}", settings.encoding(), settings.sampleRate(), settings.languageCode());
+        return new LiveTranscription(audio, completion, overflows);
+    }
+}
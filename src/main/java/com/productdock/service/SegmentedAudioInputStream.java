@@ -0,0 +1,150 @@
+package com.productdock.service;
+
+import com.productdock.audio.Mp3Frames;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * InputStream that synthesizes text segments concurrently and stitches their MP3 frames in order.
+ * <p>
+ * At most {@code parallelism} segments are synthesized or buffered ahead of the reader, so memory
+ * and Polly concurrency stay bounded per request. The first segment is readable as soon as it is done,
+ * independently of the segments after it. Once the stream is closed, segments that have not started are not
+ * synthesized, a synthesis already running is finished and dropped.
+ */
+class SegmentedAudioInputStream extends InputStream {
+
+    private final List<String> segments;
+    private final Function<String, byte[]> synthesizer;
+    private final Executor executor;
+    private final int parallelism;
+    private final List<CompletableFuture<byte[]>> futures;
+
+    private int currentSegment = -1;
+    private InputStream current = InputStream.nullInputStream();
+    // Read by the synthesis tasks, which skip their segment once the reader is gone
+    private volatile boolean closed;
+
+    /**
+     * @param segments the text segments, in playback order
+     * @param synthesizer synthesizes one segment into MP3 bytes
+     * @param executor the executor running the synthesis
+     * @param parallelism the maximum number of segments synthesized ahead of the reader
+     */
+    SegmentedAudioInputStream(List<String> segments, Function<String, byte[]> synthesizer, Executor executor, int parallelism) {
+        this.segments = segments;
+        this.synthesizer = synthesizer;
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+        this.futures = new ArrayList<>(segments.size());
+        for (int i = 0; i < segments.size(); i++) {
+            futures.add(null);
+        }
+        for (int i = 0; i < Math.min(this.parallelism, segments.size()); i++) {
+            submit(i);
+        }
+    }
+
+    /**
+     * Blocks until the first segment is synthesized.
+     *
+     * @throws IOException if the first segment could not be synthesized
+     */
+    void awaitFirstSegment() throws IOException {
+        if (currentSegment == -1) {
+            advance();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] single = new byte[1];
+        int count = read(single, 0, 1);
+        return count == -1 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (length == 0) {
+            return 0;
+        }
+        int count;
+        while ((count = current.read(bytes, offset, length)) == -1) {
+            if (!advance()) {
+                return -1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Stops the synthesis of the segments that have not started yet. Cancelling the futures does not interrupt
+     * a running synthesis, it only releases a reader still waiting for one.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        futures.forEach(future -> {
+            if (future != null) {
+                future.cancel(true);
+            }
+        });
+    }
+
+    /**
+     * Moves to the next segment, waiting for its synthesis and scheduling the segment {@code parallelism} ahead.
+     *
+     * @return false if all segments were read
+     */
+    private boolean advance() throws IOException {
+        currentSegment++;
+        if (currentSegment >= segments.size()) {
+            return false;
+        }
+        if (currentSegment + parallelism - 1 < segments.size()) {
+            submit(currentSegment + parallelism - 1);
+        }
+
+        byte[] audio = await(currentSegment);
+        futures.set(currentSegment, null);
+        // Tags and VBR headers would describe a single segment only, so they are dropped when stitching
+        current = new ByteArrayInputStream(segments.size() > 1 ? Mp3Frames.stripMetadata(audio) : audio);
+        return true;
+    }
+
+    private void submit(int index) {
+        if (futures.get(index) == null && index >= currentSegment) {
+            String segment = segments.get(index);
+            futures.set(index, CompletableFuture.supplyAsync(() -> {
+                if (closed) {
+                    throw new CancellationException("Stream closed before segment " + index + " was synthesized");
+                }
+                return synthesizer.apply(segment);
+            }, executor));
+        }
+    }
+
+    private byte[] await(int index) throws IOException {
+        try {
+            return futures.get(index).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for segment " + index);
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to synthesize segment " + index, e.getCause());
+        }
+    }
+}
@@ -1,44 +1,157 @@
 package com.productdock.service;
 
+import com.productdock.audio.AudioFormat;
+import com.productdock.audio.AudioProbe;
+import com.productdock.audio.SilenceSplitter;
+import com.productdock.audio.StreamingSilenceSplitter;
+import com.productdock.exception.DependencyUnavailableException;
+import com.productdock.exception.InvalidAudioException;
 import com.productdock.exception.S3RepositoryException;
 import com.productdock.exception.SpeechToTextServiceException;
 import com.productdock.exception.TranscribeRepositoryException;
+import com.productdock.exception.TranscriptionJobNotFoundException;
+import com.productdock.exception.UnsupportedAudioException;
+import com.productdock.model.RegisteredJob;
+import com.productdock.model.CaptionFormat;
+import com.productdock.model.SplitTranscriptionJob;
+import com.productdock.model.TranscriptItemsPage;
 import com.productdock.model.TranscriptionJobResponse;
+import com.productdock.model.TranscriptionSegmentStatus;
+import com.productdock.model.UploadedAudio;
+import com.productdock.repository.AudioDeduplicationRepository;
+import com.productdock.repository.JobRegistryRepository;
 import com.productdock.repository.S3Repository;
 import com.productdock.repository.TranscribeRepository;
+import com.productdock.repository.TranscriptIndexRepository;
+import com.productdock.repository.TranscriptionResultCacheRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.StringJoiner;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class SpeechToTextService {
 
+    // The hourly cleanup frees the registry, clients are asked to come back a little later
+    private static final Duration JOB_REGISTRY_RETRY_AFTER = Duration.ofMinutes(5);
+
+    public static final String SPLIT_JOB_NAME_PREFIX = "split-";
+
     private final S3Repository s3Repository;
     private final TranscribeRepository transcribeRepository;
-    private final Map<String, String> jobsPendingCleanup = new ConcurrentHashMap<>();
+    private final TranscriptionStatusPoller transcriptionStatusPoller;
+    private final TranscriptionResultCacheRepository transcriptionResultCacheRepository;
+    private final AudioDeduplicationRepository audioDeduplicationRepository;
+    private final JobRegistryRepository jobRegistryRepository;
+    private final TranscriptionCleanupEngine transcriptionCleanupEngine;
+    private final TranscriptIndexRepository transcriptIndexRepository;
+    @Qualifier("transcriptionSegmentExecutor")
+    private final Executor transcriptionSegmentExecutor;
+
+    @Value("${stt.probe.max-duration-seconds}")
+    private long maxDurationSeconds;
+
+    @Value("${stt.long-audio.enabled}")
+    private boolean longAudioEnabled;
+
+    @Value("${stt.long-audio.split-above-seconds}")
+    private long splitAboveSeconds;
+
+    @Value("${stt.long-audio.segment-seconds}")
+    private long segmentSeconds;
+
+    @Value("${stt.long-audio.min-silence-ms}")
+    private long minSilenceMillis;
+
+    @Value("${stt.long-audio.silence-threshold-dbfs}")
+    private double silenceThresholdDbfs;
+
+    /**
+     * Remembers the audio of jobs registered before a restart, so their duplicates are still recognized.
+     */
+    @PostConstruct
+    public void init() {
+        for (RegisteredJob job : jobRegistryRepository.findAll()) {
+            if (job.state() == RegisteredJob.State.STARTED && !job.audioHash().isEmpty()) {
+                audioDeduplicationRepository.put(job.audioHash(), job.jobName());
+            }
+        }
+    }
 
     /**
      * Starts a transcription job and returns the job name and initial status.
      *
+     * The audio is probed first, unsupported, truncated or silent files are rejected before anything is uploaded.
+     * If the same audio was uploaded before, its job is returned instead of starting another one.
+     * Long recordings are split at pauses and their segments are transcribed as parallel jobs, the returned
+     * split job reports the progress of the segments and their merged transcript.
+     *
      * @param audioFile the audio file to be converted
-     * @return TranscriptionJobResponse containing job name and status
+     * @return TranscriptionJobResponse containing job name and status, and the transcript if the job of the same audio completed
+     * @throws UnsupportedAudioException if the file is no supported audio format
+     * @throws InvalidAudioException if the file is truncated, silent or too long
      * @throws SpeechToTextServiceException if an error occurs during the process
      */
     //TODO maybe rename this method to: convertSpeechToText
     public TranscriptionJobResponse startTranscriptionJob(MultipartFile audioFile) throws SpeechToTextServiceException {
+        byte[] audio = readAudioFile(audioFile);
+        AudioProbe.AudioInfo info = probeAudio(audio, true);
+        AudioFormat format = info.format();
+        String audioHash = hashAudio(audio);
+        Optional<TranscriptionJobResponse> duplicate = findDuplicateJob(audioHash);
+        if (duplicate.isPresent()) {
+            return duplicate.get();
+        }
+        checkJobRegistryCapacity();
+
+        List<SilenceSplitter.AudioSegment> segments = splitLongAudio(audio, info);
+        if (segments.size() > 1) {
+            try {
+                return startSplitTranscription(segmentJobsOf(segments, format), format, audioHash).join();
+            } catch (CompletionException e) {
+                log.error("Failed to initiate split transcription job", e.getCause());
+                throw new SpeechToTextServiceException("Failed to start transcription job", e.getCause());
+            }
+        }
+
         try {
-            String s3Key = s3Repository.uploadAudioFile(audioFile);
-            String jobName = transcribeRepository.startTranscriptionJob(s3Key);
+            String s3Key = s3Repository.uploadAudioFile(audioFile, format);
+            String jobName = startJobOfUploadedAudio(s3Key, format);
 
-            // Store into the map for scheduled cleanup
-            jobsPendingCleanup.put(jobName, s3Key);
+            // Register the job for its cleanup
+            transcriptionCleanupEngine.register(new RegisteredJob(jobName, s3Key, audioHash, Instant.now(), RegisteredJob.State.STARTED), audioFile.getSize());
+            transcriptionStatusPoller.track(jobName, audioFile.getSize());
+            audioDeduplicationRepository.put(audioHash, jobName);
 
             return new TranscriptionJobResponse(jobName, "IN_PROGRESS", null);
         } catch (S3RepositoryException | TranscribeRepositoryException e) {
@@ -47,23 +160,383 @@ public class SpeechToTextService {
         }
     }
 
+    /**
+     * Starts a transcription job for an audio stream of any size. The audio is piped to S3 as it is read,
+     * it is never held in memory or on disk as a whole. Only the start of the stream is probed,
+     * which recognizes the format but cannot tell whether the stream is truncated or silent.
+     * <p>
+     * Long WAV and MP3 streams, and those whose length the header does not tell, are split at pauses while they are
+     * read and uploaded segment by segment, like long files. The audio is hashed while it is uploaded. If the same
+     * audio was uploaded before, the new copy is deleted again and the earlier job is returned, no transcription
+     * job is started.
+     *
+     * @param audio the audio stream, read to its end
+     * @return TranscriptionJobResponse containing job name and status, and the transcript if the job of the same audio completed
+     * @throws IOException if reading the audio stream fails
+     * @throws UnsupportedAudioException if the stream is no supported audio format
+     * @throws InvalidAudioException if the stream is too short to hold audio, or too long
+     * @throws SpeechToTextServiceException if an error occurs during the process
+     */
+    public TranscriptionJobResponse startTranscriptionJob(InputStream audio) throws IOException, SpeechToTextServiceException {
+        byte[] head = audio.readNBytes(AudioProbe.HEADER_BYTES);
+        AudioProbe.AudioInfo info = probeAudio(head, head.length < AudioProbe.HEADER_BYTES);
+        AudioFormat format = info.format();
+        checkJobRegistryCapacity();
+        MessageDigest digest = newAudioDigest();
+        try {
+            // The probed start is uploaded in front of the rest of the stream
+            InputStream wholeAudio = new SequenceInputStream(new ByteArrayInputStream(head), audio);
+            List<UploadedSegment> segments = uploadAudioStream(new DigestInputStream(wholeAudio, digest), info);
+
+            String audioHash = HexFormat.of().formatHex(digest.digest());
+            Optional<TranscriptionJobResponse> duplicate = findDuplicateJob(audioHash);
+            if (duplicate.isPresent()) {
+                segments.forEach(segment -> deleteUploadedAudio(segment.audio().s3Key()));
+                return duplicate.get();
+            }
+            if (segments.size() > 1) {
+                return startSplitTranscription(segments.stream()
+                        .<Supplier<SplitTranscriptionJob.SegmentJob>>map(segment -> () -> startSegmentJob(segment.audio().s3Key(),
+                                segment.audio().sizeBytes(), segment.offset(), format))
+                        .toList(), format, audioHash).join();
+            }
+
+            UploadedAudio uploadedAudio = segments.get(0).audio();
+            String jobName = startJobOfUploadedAudio(uploadedAudio.s3Key(), format);
+
+            // Register the job for its cleanup
+            transcriptionCleanupEngine.register(new RegisteredJob(jobName, uploadedAudio.s3Key(), audioHash, Instant.now(), RegisteredJob.State.STARTED),
+                    uploadedAudio.sizeBytes());
+            transcriptionStatusPoller.track(jobName, uploadedAudio.sizeBytes());
+            audioDeduplicationRepository.put(audioHash, jobName);
+
+            return new TranscriptionJobResponse(jobName, "IN_PROGRESS", null);
+        } catch (S3RepositoryException | TranscribeRepositoryException e) {
+            log.error("Failed to initiate transcription job", e);
+            throw new SpeechToTextServiceException("Failed to start transcription job", e);
+        } catch (CompletionException e) {
+            log.error("Failed to initiate split transcription job", e.getCause());
+            throw new SpeechToTextServiceException("Failed to start transcription job", e.getCause());
+        }
+    }
+
+    /**
+     * Starts a transcription job like {@link #startTranscriptionJob(MultipartFile)},
+     * without blocking the calling thread while AWS is working.
+     *
+     * @param audioFile the audio file to be converted
+     * @return a CompletableFuture of the TranscriptionJobResponse containing job name and status,
+     * completed exceptionally with an UnsupportedAudioException or InvalidAudioException if the probe rejects the file,
+     * or with a SpeechToTextServiceException if an error occurs during the process
+     */
+    public CompletableFuture<TranscriptionJobResponse> startTranscriptionJobAsync(MultipartFile audioFile) {
+        AudioFormat format;
+        String audioHash;
+        List<SilenceSplitter.AudioSegment> segments;
+        try {
+            byte[] audio = readAudioFile(audioFile);
+            AudioProbe.AudioInfo info = probeAudio(audio, true);
+            format = info.format();
+            audioHash = hashAudio(audio);
+            segments = splitLongAudio(audio, info);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return findDuplicateJobAsync(audioHash)
+                .thenCompose(duplicate -> duplicate.map(CompletableFuture::completedFuture).orElseGet(
+                        () -> checkJobRegistryCapacityAsync().thenCompose(ignored -> segments.size() > 1
+                                ? startSplitTranscription(segmentJobsOf(segments, format), format, audioHash)
+                                : s3Repository.uploadAudioFileAsync(audioFile, format)
+                                .thenCompose(s3Key -> transcribeRepository.startTranscriptionJobAsync(s3Key, format)
+                                        .thenApply(jobName -> {
+                                            // Register the job for its cleanup
+                                            transcriptionCleanupEngine.register(new RegisteredJob(jobName, s3Key, audioHash, Instant.now(), RegisteredJob.State.STARTED),
+                                                    audioFile.getSize());
+                                            transcriptionStatusPoller.track(jobName, audioFile.getSize());
+                                            audioDeduplicationRepository.put(audioHash, jobName);
+                                            return new TranscriptionJobResponse(jobName, "IN_PROGRESS", null);
+                                        })))))
+                .handle((response, e) -> {
+                    if (e == null) {
+                        return response;
+                    }
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    log.error("Failed to initiate transcription job", cause);
+                    throw new SpeechToTextServiceException("Failed to start transcription job", cause);
+                });
+    }
+
+    /**
+     * Rejects new jobs while the job registry is full, so jobs that are never cleaned up cannot pile up unbounded.
+     *
+     * @throws DependencyUnavailableException if the registry holds the configured maximum of jobs
+     */
+    private void checkJobRegistryCapacity() {
+        if (jobRegistryRepository.isFull()) {
+            throw new DependencyUnavailableException("Too many transcription jobs are pending cleanup", JOB_REGISTRY_RETRY_AFTER);
+        }
+    }
+
+    private CompletableFuture<Void> checkJobRegistryCapacityAsync() {
+        try {
+            checkJobRegistryCapacity();
+            return CompletableFuture.completedFuture(null);
+        } catch (DependencyUnavailableException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Probes audio before it is uploaded and rejects what Transcribe would fail on.
+     *
+     * @return the probed format and duration of the audio
+     */
+    private AudioProbe.AudioInfo probeAudio(byte[] audio, boolean complete) {
+        AudioProbe.AudioInfo info = AudioProbe.probe(audio, complete);
+        if (info.format() == null) {
+            throw new UnsupportedAudioException("Unsupported audio format, supported formats are " + Arrays.toString(AudioFormat.values()));
+        }
+        if (info.truncated()) {
+            throw new InvalidAudioException("Audio file is truncated or corrupt");
+        }
+        if (info.silent()) {
+            throw new InvalidAudioException("Audio file contains only silence");
+        }
+        if (info.duration() != null && info.duration().compareTo(Duration.ofSeconds(maxDurationSeconds)) > 0) {
+            throw new InvalidAudioException("Audio file is longer than " + maxDurationSeconds + " seconds");
+        }
+        log.debug("Probed {} audio of {}", info.format(), info.duration());
+        return info;
+    }
+
+    /**
+     * Splits audio longer than the configured threshold at pauses, so its segments can be transcribed in parallel.
+     *
+     * @return the segments in order, a single segment if the audio is not split
+     */
+    private List<SilenceSplitter.AudioSegment> splitLongAudio(byte[] audio, AudioProbe.AudioInfo info) {
+        if (!longAudioEnabled || info.duration() == null || info.duration().toSeconds() <= splitAboveSeconds) {
+            return List.of(new SilenceSplitter.AudioSegment(audio, Duration.ZERO));
+        }
+        List<SilenceSplitter.AudioSegment> segments = SilenceSplitter.split(audio, info.format(), getSplitSettings());
+        log.info("Split {} audio of {} into {} segments", info.format(), info.duration(), segments.size());
+        return segments;
+    }
+
+    /**
+     * Uploads an audio stream to S3, split at pauses while it is read if it is long or its length is unknown.
+     * Only formats that can be measured are split, a stream that is split may still end up as a single segment.
+     * Segments already uploaded are deleted again if the stream fails.
+     *
+     * @param audio the whole audio stream, read to its end
+     * @return the uploaded segments in order
+     */
+    private List<UploadedSegment> uploadAudioStream(InputStream audio, AudioProbe.AudioInfo info) throws IOException {
+        AudioFormat format = info.format();
+        boolean splittable = format == AudioFormat.WAV || format == AudioFormat.MP3;
+        if (!longAudioEnabled || !splittable || (info.duration() != null && info.duration().toSeconds() <= splitAboveSeconds)) {
+            return List.of(new UploadedSegment(s3Repository.uploadAudioStream(audio, format), Duration.ZERO));
+        }
+
+        StreamingSilenceSplitter splitter = new StreamingSilenceSplitter(audio, format, getSplitSettings());
+        List<UploadedSegment> segments = new ArrayList<>();
+        try {
+            StreamingSilenceSplitter.StreamedSegment segment;
+            while ((segment = splitter.nextSegment()) != null) {
+                segments.add(new UploadedSegment(s3Repository.uploadAudioStream(segment.audio(), format), segment.offset()));
+            }
+            // Chunks after the audio data are not uploaded, but belong to the hash of the upload
+            audio.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException | RuntimeException e) {
+            segments.forEach(uploaded -> deleteUploadedAudio(uploaded.audio().s3Key()));
+            throw e;
+        }
+        log.info("Split streamed {} audio of {} into {} segments", format,
+                info.duration() != null ? info.duration() : "unknown length", segments.size());
+        return segments;
+    }
+
+    private SilenceSplitter.SplitSettings getSplitSettings() {
+        return new SilenceSplitter.SplitSettings(Duration.ofSeconds(segmentSeconds), Duration.ofMillis(minSilenceMillis), silenceThresholdDbfs);
+    }
+
+    /**
+     * A segment of a streamed recording that was uploaded to S3.
+     */
+    private record UploadedSegment(UploadedAudio audio, Duration offset) {
+    }
+
+    private List<Supplier<SplitTranscriptionJob.SegmentJob>> segmentJobsOf(List<SilenceSplitter.AudioSegment> segments, AudioFormat format) {
+        return segments.stream()
+                .<Supplier<SplitTranscriptionJob.SegmentJob>>map(segment -> () -> startSegmentJob(
+                        s3Repository.uploadAudio(segment.audio(), format), segment.audio().length, segment.offset(), format))
+                .toList();
+    }
+
+    /**
+     * Starts the transcription jobs of the segments of a split recording in parallel.
+     * Each segment job is registered for its cleanup once it started, so nothing is left behind if another
+     * segment fails to start.
+     *
+     * @param segmentJobs starts the job of each segment in order, uploading the segment first if it is not in S3 yet
+     * @return a CompletableFuture of the split job, completed exceptionally if a segment could not be started
+     */
+    private CompletableFuture<TranscriptionJobResponse> startSplitTranscription(List<Supplier<SplitTranscriptionJob.SegmentJob>> segmentJobs,
+                                                                                AudioFormat format, String audioHash) {
+        List<CompletableFuture<SplitTranscriptionJob.SegmentJob>> startedJobs = segmentJobs.stream()
+                .map(segmentJob -> CompletableFuture.supplyAsync(segmentJob, transcriptionSegmentExecutor))
+                .toList();
+        return CompletableFuture.allOf(startedJobs.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    String jobName = SPLIT_JOB_NAME_PREFIX + UUID.randomUUID();
+                    jobRegistryRepository.registerSplit(new SplitTranscriptionJob(jobName, startedJobs.stream().map(CompletableFuture::join).toList()));
+                    audioDeduplicationRepository.put(audioHash, jobName);
+                    log.info("Started split transcription job '{}' of {} {} segments", jobName, startedJobs.size(), format);
+                    return new TranscriptionJobResponse(jobName, "IN_PROGRESS", null);
+                });
+    }
+
+    private SplitTranscriptionJob.SegmentJob startSegmentJob(String s3Key, long sizeBytes, Duration offset, AudioFormat format) {
+        String jobName = startJobOfUploadedAudio(s3Key, format);
+
+        // Register the job for its cleanup, segments are deduplicated by their split job only
+        transcriptionCleanupEngine.register(new RegisteredJob(jobName, s3Key, "", Instant.now(), RegisteredJob.State.STARTED), sizeBytes);
+        transcriptionStatusPoller.track(jobName, sizeBytes);
+        return new SplitTranscriptionJob.SegmentJob(jobName, offset.toMillis() / 1000.0);
+    }
+
+    /**
+     * Starts the transcription job of audio uploaded to S3. The audio is deleted again if the job cannot be started,
+     * only jobs that started are registered for their cleanup.
+     */
+    private String startJobOfUploadedAudio(String s3Key, AudioFormat format) {
+        try {
+            return transcribeRepository.startTranscriptionJob(s3Key, format);
+        } catch (RuntimeException e) {
+            deleteUploadedAudio(s3Key);
+            throw e;
+        }
+    }
+
+    /**
+     * Looks up the job started for the same audio before. Failed and deleted jobs are not reused.
+     *
+     * @return the status of the earlier job, or empty if a new job has to be started
+     */
+    private Optional<TranscriptionJobResponse> findDuplicateJob(String audioHash) {
+        Optional<String> jobName = audioDeduplicationRepository.findJob(audioHash);
+        if (jobName.isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            TranscriptionJobResponse response = getTranscriptionJobStatus(jobName.get());
+            if (!"FAILED".equals(response.getJobStatus())) {
+                log.info("Reusing transcription job '{}' for a duplicate upload", jobName.get());
+                return Optional.of(response);
+            }
+        } catch (TranscriptionJobNotFoundException e) {
+            log.debug("Transcription job '{}' of a duplicate upload no longer exists", jobName.get());
+        } catch (SpeechToTextServiceException e) {
+            log.warn("Cannot check transcription job '{}' of a duplicate upload: {}", jobName.get(), e.getMessage());
+            return Optional.empty();
+        }
+        audioDeduplicationRepository.remove(audioHash, jobName.get());
+        return Optional.empty();
+    }
+
+    /**
+     * Looks up the job started for the same audio before like {@link #findDuplicateJob(String)},
+     * without blocking the calling thread while AWS is working. The future never fails.
+     */
+    private CompletableFuture<Optional<TranscriptionJobResponse>> findDuplicateJobAsync(String audioHash) {
+        Optional<String> jobName = audioDeduplicationRepository.findJob(audioHash);
+        if (jobName.isEmpty()) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return getTranscriptionJobStatusAsync(jobName.get()).handle((response, e) -> {
+            if (e == null && !"FAILED".equals(response.getJobStatus())) {
+                log.info("Reusing transcription job '{}' for a duplicate upload", jobName.get());
+                return Optional.of(response);
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (e == null || cause instanceof TranscriptionJobNotFoundException) {
+                audioDeduplicationRepository.remove(audioHash, jobName.get());
+            } else {
+                log.warn("Cannot check transcription job '{}' of a duplicate upload: {}", jobName.get(), cause.getMessage());
+            }
+            return Optional.empty();
+        });
+    }
+
+    /**
+     * A streamed duplicate is only recognized once it is uploaded, the copy is not needed.
+     */
+    private void deleteUploadedAudio(String s3Key) {
+        try {
+            s3Repository.deleteAudioFile(s3Key);
+        } catch (S3RepositoryException e) {
+            log.warn("Failed to delete uploaded audio file '{}': {}", s3Key, e.getMessage());
+        }
+    }
+
+    private static String hashAudio(byte[] audio) {
+        return HexFormat.of().formatHex(newAudioDigest().digest(audio));
+    }
+
+    private static MessageDigest newAudioDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] readAudioFile(MultipartFile audioFile) {
+        try {
+            return audioFile.getBytes();
+        } catch (IOException e) {
+            throw new SpeechToTextServiceException("Failed to read audio file", e);
+        }
+    }
+
     /**
      * Checks the status of the transcription job and fetches transcript if done.
+     * The status is kept in memory by the {@link TranscriptionStatusPoller}, the result of a finished job
+     * and unknown job names are cached by the {@link TranscriptionResultCacheRepository}.
      *
      * @param jobName the transcription job name
-     * @return TranscriptionJobResponse containing job status and transcript if available
+     * @return TranscriptionJobResponse containing job status and transcript or failure reason if available
+     * @throws TranscriptionJobNotFoundException if Transcribe does not know the job
      * @throws SpeechToTextServiceException if an error occurs during the process
      */
     public TranscriptionJobResponse getTranscriptionJobStatus(String jobName) throws SpeechToTextServiceException {
+        Optional<TranscriptionJobResponse> cached = findCachedResult(jobName);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        Optional<SplitTranscriptionJob> split = findSplitJob(jobName);
+        if (split.isPresent()) {
+            return mergeSegmentStatuses(split.get(), split.get().segments().stream()
+                    .map(segment -> getSegmentStatus(split.get(), segment.jobName()))
+                    .toList());
+        }
+
         try {
-            String status = transcribeRepository.getJobStatus(jobName);
-            String transcript = null;
+            String status = transcriptionStatusPoller.getStatus(jobName);
+            TranscriptionJobResponse response = new TranscriptionJobResponse(jobName, status, null);
 
             if ("COMPLETED".equals(status)) {
-                transcript = transcribeRepository.fetchTranscript(jobName);
+                response.setTranscript(s3Repository.fetchTranscript(jobName));
+                transcriptionResultCacheRepository.put(response);
+            } else if ("FAILED".equals(status)) {
+                response.setFailureReason(transcribeRepository.getFailureReason(jobName));
+                transcriptionResultCacheRepository.put(response);
             }
 
-            return new TranscriptionJobResponse(jobName, status, transcript);
+            return response;
+        } catch (TranscriptionJobNotFoundException e) {
+            transcriptionResultCacheRepository.putUnknown(jobName);
+            throw e;
         } catch (TranscribeRepositoryException | S3RepositoryException e) {
             log.error("Error checking job status or fetching result for job: {}", jobName, e);
             throw new SpeechToTextServiceException("Failed to check job status or fetch transcript", e);
@@ -71,29 +544,295 @@ public class SpeechToTextService {
     }
 
     /**
-     * Scheduled cleanup for completed or failed jobs.
-     * Runs every 1 hour.
+     * Checks the status of the transcription job like {@link #getTranscriptionJobStatus(String)},
+     * without blocking the calling thread while AWS is working.
+     *
+     * @param jobName the transcription job name
+     * @return a CompletableFuture of the TranscriptionJobResponse containing job status and transcript or failure reason
+     * if available, completed exceptionally with a TranscriptionJobNotFoundException if Transcribe does not know the job
+     * or a SpeechToTextServiceException if an error occurs during the process
      */
-    @Scheduled(fixedRate = 60 * 60 * 1000)
-    public void scheduledCleanup() {
-        log.info("Running scheduled cleanup...");
+    public CompletableFuture<TranscriptionJobResponse> getTranscriptionJobStatusAsync(String jobName) {
+        Optional<TranscriptionJobResponse> cached;
+        Optional<SplitTranscriptionJob> split;
+        try {
+            cached = findCachedResult(jobName);
+            split = cached.isPresent() ? Optional.empty() : findSplitJob(jobName);
+        } catch (TranscriptionJobNotFoundException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+        if (split.isPresent()) {
+            List<CompletableFuture<TranscriptionJobResponse>> segmentStatuses = split.get().segments().stream()
+                    .map(segment -> getSegmentStatusAsync(split.get(), segment.jobName()))
+                    .toList();
+            return CompletableFuture.allOf(segmentStatuses.toArray(CompletableFuture[]::new))
+                    .thenApply(ignored -> mergeSegmentStatuses(split.get(), segmentStatuses.stream().map(CompletableFuture::join).toList()));
+        }
 
-        for (Map.Entry<String, String> entry : jobsPendingCleanup.entrySet()) {
-            String jobName = entry.getKey();
-            String s3Key = entry.getValue();
+        return transcriptionStatusPoller.getStatusAsync(jobName)
+                .thenCompose(status -> {
+                    if ("COMPLETED".equals(status)) {
+                        return s3Repository.fetchTranscriptAsync(jobName)
+                                .thenApply(transcript -> cacheResult(new TranscriptionJobResponse(jobName, status, transcript)));
+                    }
+                    if ("FAILED".equals(status)) {
+                        return transcribeRepository.getFailureReasonAsync(jobName)
+                                .thenApply(reason -> cacheResult(new TranscriptionJobResponse(jobName, status, null, reason)));
+                    }
+                    return CompletableFuture.completedFuture(new TranscriptionJobResponse(jobName, status, null));
+                })
+                .handle((response, e) -> {
+                    if (e == null) {
+                        return response;
+                    }
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    if (cause instanceof TranscriptionJobNotFoundException notFound) {
+                        transcriptionResultCacheRepository.putUnknown(jobName);
+                        throw notFound;
+                    }
+                    log.error("Error checking job status or fetching result for job: {}", jobName, cause);
+                    throw new SpeechToTextServiceException("Failed to check job status or fetch transcript", cause);
+                });
+    }
 
-            try {
-                String status = transcribeRepository.getJobStatus(jobName);
+    /**
+     * Looks up the ETag of the status of a finished transcription job. A finished status never changes,
+     * so a poll that already has it can be answered without reading the result.
+     *
+     * @param jobName the transcription job name
+     * @return the quoted ETag, or empty if the result of the job is not cached
+     */
+    public Optional<String> findResultETag(String jobName) {
+        return transcriptionResultCacheRepository.findETag(jobName);
+    }
+
+    /**
+     * Checks whether the transcript of a transcription job can be streamed, which is the case once the job completed.
+     *
+     * @param jobName the transcription job name
+     * @return whether the job completed
+     * @throws TranscriptionJobNotFoundException if Transcribe does not know the job
+     * @throws SpeechToTextServiceException if an error occurs during the process
+     */
+    public boolean isTranscriptAvailable(String jobName) throws SpeechToTextServiceException {
+        Optional<TranscriptionJobResponse> cached = findCachedResult(jobName);
+        if (cached.isPresent()) {
+            return "COMPLETED".equals(cached.get().getJobStatus());
+        }
+        if (findSplitJob(jobName).isPresent()) {
+            return "COMPLETED".equals(getTranscriptionJobStatus(jobName).getJobStatus());
+        }
+
+        try {
+            return "COMPLETED".equals(transcriptionStatusPoller.getStatus(jobName));
+        } catch (TranscriptionJobNotFoundException e) {
+            transcriptionResultCacheRepository.putUnknown(jobName);
+            throw e;
+        } catch (TranscribeRepositoryException e) {
+            log.error("Error checking job status for job: {}", jobName, e);
+            throw new SpeechToTextServiceException("Failed to check job status", e);
+        }
+    }
 
-                if ("COMPLETED".equals(status) || "FAILED".equals(status)) {
-                    transcribeRepository.deleteTranscriptionJob(jobName);
-                    s3Repository.deleteAudioFile(s3Key);
-                    jobsPendingCleanup.remove(jobName);
-                    log.info("Cleaned up job '{}' and file '{}'", jobName, s3Key);
+    /**
+     * Writes the transcript of a completed transcription job to the given stream as UTF-8 text.
+     * A cached transcript is written from memory, otherwise it is streamed from the Transcribe output
+     * without holding the whole transcript in memory.
+     *
+     * @param jobName the completed transcription job name
+     * @param out     the stream receiving the transcript text
+     * @throws IOException if writing the transcript fails
+     * @throws SpeechToTextServiceException if the transcript cannot be read
+     */
+    public void writeTranscript(String jobName, OutputStream out) throws IOException, SpeechToTextServiceException {
+        Optional<TranscriptionJobResponse> cached = transcriptionResultCacheRepository.find(jobName);
+        if (cached.isPresent() && cached.get().getTranscript() != null) {
+            out.write(cached.get().getTranscript().getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        // The merged transcript of a split job is only held in memory
+        if (findSplitJob(jobName).isPresent()) {
+            String transcript = getTranscriptionJobStatus(jobName).getTranscript();
+            out.write((transcript != null ? transcript : "").getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+
+        try {
+            s3Repository.streamTranscript(jobName, out);
+        } catch (S3RepositoryException e) {
+            log.error("Error streaming transcript for job: {}", jobName, e);
+            throw new SpeechToTextServiceException("Failed to stream transcript", e);
+        }
+    }
+
+    /**
+     * Reads a page of the words and punctuation marks of a completed transcription job, with their timings and
+     * confidences. The items are indexed on disk on the first request, every page then reads only its own slice.
+     *
+     * @param jobName the completed transcription job name
+     * @param offset  the index of the first item
+     * @param limit   the number of items at most
+     * @return the page of items
+     * @throws SpeechToTextServiceException if the items cannot be read
+     */
+    public TranscriptItemsPage getTranscriptItems(String jobName, int offset, int limit) throws SpeechToTextServiceException {
+        try {
+            Optional<TranscriptItemsPage> page = transcriptIndexRepository.readPage(jobName, offset, limit);
+            if (page.isEmpty()) {
+                indexTranscriptItems(jobName);
+                page = transcriptIndexRepository.readPage(jobName, offset, limit);
+            }
+            return page.orElseThrow(() -> new SpeechToTextServiceException("Transcript items of job " + jobName + " are not indexed"));
+        } catch (IOException e) {
+            log.error("Error reading transcript items for job: {}", jobName, e);
+            throw new SpeechToTextServiceException("Failed to read transcript items", e);
+        }
+    }
+
+    /**
+     * Writes the captions of a completed transcription job to the given stream as UTF-8 text.
+     * The captions are written while the indexed items are read, so long transcripts are never held in memory.
+     *
+     * @param jobName the completed transcription job name
+     * @param format  the caption format
+     * @param out     the stream receiving the captions
+     * @throws IOException if writing the captions fails
+     * @throws SpeechToTextServiceException if the items cannot be read
+     */
+    public void writeCaptions(String jobName, CaptionFormat format, OutputStream out) throws IOException, SpeechToTextServiceException {
+        CaptionWriter captions = new CaptionWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)), format);
+        captions.start();
+        try {
+            if (!transcriptIndexRepository.readAll(jobName, captions)) {
+                indexTranscriptItems(jobName);
+                if (!transcriptIndexRepository.readAll(jobName, captions)) {
+                    throw new SpeechToTextServiceException("Transcript items of job " + jobName + " are not indexed");
+                }
+            }
+        } catch (IOException e) {
+            log.error("Error reading transcript items for job: {}", jobName, e);
+            throw new SpeechToTextServiceException("Failed to read transcript items", e);
+        }
+        captions.finish();
+    }
+
+    /**
+     * Indexes the items of a completed job as they are parsed from the Transcribe output. The items of a split job
+     * are read segment by segment and moved by the offset of their segment, so they are timed from the start
+     * of the recording.
+     */
+    private void indexTranscriptItems(String jobName) throws IOException {
+        Optional<SplitTranscriptionJob> split = findSplitJob(jobName);
+        try {
+            int items = transcriptIndexRepository.write(jobName, sink -> {
+                if (split.isEmpty()) {
+                    s3Repository.streamTranscriptItems(jobName, sink);
+                    return;
                 }
-            } catch (Exception e) {
-                log.warn("Skipping cleanup for job '{}': {}", jobName, e.getMessage());
+                for (SplitTranscriptionJob.SegmentJob segment : split.get().segments()) {
+                    s3Repository.streamTranscriptItems(segment.jobName(), item -> sink.accept(item.shiftedBy(segment.offsetSeconds())));
+                }
+            });
+            log.info("Indexed {} transcript items for job: {}", items, jobName);
+        } catch (S3RepositoryException e) {
+            log.error("Error reading transcript items for job: {}", jobName, e);
+            throw new SpeechToTextServiceException("Failed to read transcript items", e);
+        }
+    }
+
+    /**
+     * Answers from the result cache, so finished and unknown jobs cost no AWS calls.
+     */
+    private Optional<TranscriptionJobResponse> findCachedResult(String jobName) {
+        if (transcriptionResultCacheRepository.isUnknown(jobName)) {
+            throw new TranscriptionJobNotFoundException("Transcription job not found: " + jobName);
+        }
+        return transcriptionResultCacheRepository.find(jobName);
+    }
+
+    /**
+     * Looks up a split job in the job registry. A name of a split job that is not registered is unknown without
+     * asking Transcribe, the split job was cleaned up or never existed.
+     */
+    private Optional<SplitTranscriptionJob> findSplitJob(String jobName) {
+        Optional<SplitTranscriptionJob> split = jobRegistryRepository.findSplit(jobName);
+        if (split.isEmpty() && jobName.startsWith(SPLIT_JOB_NAME_PREFIX)) {
+            transcriptionResultCacheRepository.putUnknown(jobName);
+            throw new TranscriptionJobNotFoundException("Transcription job not found: " + jobName);
+        }
+        return split;
+    }
+
+    /**
+     * Checks the status of a segment job. A segment job Transcribe no longer knows counts as failed while it is
+     * registered as started. Otherwise its split job is being cleaned up and is reported as unknown.
+     */
+    private TranscriptionJobResponse getSegmentStatus(SplitTranscriptionJob split, String segmentJobName) {
+        try {
+            return getTranscriptionJobStatus(segmentJobName);
+        } catch (TranscriptionJobNotFoundException e) {
+            return getLostSegmentStatus(split, segmentJobName, e);
+        }
+    }
+
+    private CompletableFuture<TranscriptionJobResponse> getSegmentStatusAsync(SplitTranscriptionJob split, String segmentJobName) {
+        return getTranscriptionJobStatusAsync(segmentJobName).exceptionally(e -> {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof TranscriptionJobNotFoundException notFound) {
+                return getLostSegmentStatus(split, segmentJobName, notFound);
+            }
+            throw cause instanceof RuntimeException runtimeException ? runtimeException : new CompletionException(cause);
+        });
+    }
+
+    private TranscriptionJobResponse getLostSegmentStatus(SplitTranscriptionJob split, String segmentJobName,
+                                                          TranscriptionJobNotFoundException notFound) {
+        boolean started = jobRegistryRepository.find(segmentJobName)
+                .filter(job -> job.state() == RegisteredJob.State.STARTED)
+                .isPresent();
+        if (!started) {
+            transcriptionResultCacheRepository.putUnknown(split.jobName());
+            throw new TranscriptionJobNotFoundException("Transcription job not found: " + split.jobName());
+        }
+        return new TranscriptionJobResponse(segmentJobName, "FAILED", null, notFound.getMessage());
+    }
+
+    /**
+     * Merges the statuses of the segment jobs of a split recording. The split job failed once a segment failed
+     * and completed once all segments completed, the transcripts are joined in the order of the recording.
+     * While segments are running, the transcript holds the text of the segments completed from the start on,
+     * and the progress of every segment is reported.
+     */
+    private TranscriptionJobResponse mergeSegmentStatuses(SplitTranscriptionJob split, List<TranscriptionJobResponse> segmentResponses) {
+        List<TranscriptionSegmentStatus> segments = new ArrayList<>(segmentResponses.size());
+        StringJoiner transcript = new StringJoiner(" ");
+        boolean completedSoFar = true;
+        for (int i = 0; i < segmentResponses.size(); i++) {
+            TranscriptionJobResponse segmentResponse = segmentResponses.get(i);
+            if ("FAILED".equals(segmentResponse.getJobStatus())) {
+                return cacheResult(new TranscriptionJobResponse(split.jobName(), "FAILED", null,
+                        "Segment " + (i + 1) + " of " + segmentResponses.size() + " failed: " + segmentResponse.getFailureReason()));
+            }
+            segments.add(new TranscriptionSegmentStatus(segmentResponse.getJobName(), segmentResponse.getJobStatus(),
+                    split.segments().get(i).offsetSeconds()));
+            completedSoFar &= "COMPLETED".equals(segmentResponse.getJobStatus());
+            if (completedSoFar && segmentResponse.getTranscript() != null && !segmentResponse.getTranscript().isBlank()) {
+                transcript.add(segmentResponse.getTranscript().strip());
             }
         }
+
+        if (completedSoFar) {
+            return cacheResult(new TranscriptionJobResponse(split.jobName(), "COMPLETED", transcript.toString()));
+        }
+        String partialTranscript = transcript.length() > 0 ? transcript.toString() : null;
+        return new TranscriptionJobResponse(split.jobName(), "IN_PROGRESS", partialTranscript, null, segments);
+    }
+
+    private TranscriptionJobResponse cacheResult(TranscriptionJobResponse response) {
+        transcriptionResultCacheRepository.put(response);
+        return response;
     }
 }
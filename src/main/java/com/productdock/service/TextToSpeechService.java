@@ -1,63 +1,457 @@
 package com.productdock.service;
 
+import com.productdock.exception.AudioNotFoundException;
 import com.productdock.exception.ComprehendRepositoryException;
 import com.productdock.exception.PollyRepositoryException;
 import com.productdock.exception.TextToSpeechServiceException;
+import com.productdock.model.SynthesizedSpeech;
 import com.productdock.model.VoiceSelection;
+import com.productdock.repository.AudioCacheRepository;
 import com.productdock.repository.ComprehendRepository;
 import com.productdock.repository.PollyRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.InputStreamResource;
-import org.springframework.retry.annotation.Backoff;
-import org.springframework.retry.annotation.Recover;
-import org.springframework.retry.annotation.Retryable;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.SdkResponse;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.BreakIterator;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.Pattern;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TextToSpeechService {
+    private static final Pattern AUDIO_ID_PATTERN = Pattern.compile("[0-9a-f]{64}");
     private final ComprehendRepository comprehendRepository;
     private final PollyRepository pollyRepository;
     private final SupportedVoicesService supportedVoicesService;
+    private final AudioCacheRepository audioCacheRepository;
+    @Qualifier("speechSynthesisExecutor")
+    private final Executor speechSynthesisExecutor;
+
+    @Value("${tts.long-text.segment-max-chars}")
+    private int segmentMaxChars;
+
+    @Value("${tts.long-text.first-segment-max-chars}")
+    private int firstSegmentMaxChars;
+
+    @Value("${tts.long-text.parallelism}")
+    private int longTextParallelism;
+
+    private final ConcurrentHashMap<String, CompletableFuture<InFlightSpeech>> inFlightSyntheses = new ConcurrentHashMap<>();
 
     /**
      * Converts text to speech by detecting language, selecting a suitable voice,
      * and synthesizing speech using AWS services.
-     * Retries automatically on specific repository failures.
+     * Previously synthesized audio for the same normalized text and voice is served from the audio cache,
+     * otherwise the audio is streamed from Polly as it arrives and cached once it was read completely.
+     * Texts longer than one segment are synthesized in parallel segments and stitched in order.
+     * Concurrent requests for the same normalized text (and therefore the same voice) share one synthesis.
+     * Transient AWS failures are retried by the repositories, each with its own retry policy.
      *
      * @param text the text to be converted to speech
-     * @return a InputStreamResource containing the synthesized speech
-     * @throws TextToSpeechServiceException if the operation fails after all retry attempts
+     * @return a SynthesizedSpeech containing the synthesized speech
+     * @throws TextToSpeechServiceException if the operation fails
      */
-    @Retryable(retryFor = TextToSpeechServiceException.class, maxAttempts = 3, backoff = @Backoff(delay = 1000))
-    public InputStreamResource convertTextToSpeech(String text) throws TextToSpeechServiceException {
+    public SynthesizedSpeech convertTextToSpeech(String text) throws TextToSpeechServiceException {
+        String normalizedText = normalizeText(text);
+        while (true) {
+            CompletableFuture<InFlightSpeech> synthesis = new CompletableFuture<>();
+            CompletableFuture<InFlightSpeech> existing = inFlightSyntheses.putIfAbsent(normalizedText, synthesis);
+            if (existing == null) {
+                return leadSynthesis(text, normalizedText, synthesis);
+            }
+
+            Optional<SynthesizedSpeech> shared = joinSynthesis(existing);
+            if (shared.isPresent()) {
+                log.debug("Joined in-flight synthesis for text: {}", getTruncatedText(text));
+                return shared.get();
+            }
+            // The leader failed or its synthesis was abandoned, so the next waiter takes over
+            inFlightSyntheses.remove(normalizedText, existing);
+        }
+    }
+
+    /**
+     * Synthesizes speech for all concurrent requests with the same normalized text.
+     * The in-flight entry is removed once the audio was read to the end, failed or was abandoned.
+     *
+     * @param text the text to be converted to speech
+     * @param normalizedText the key of the in-flight synthesis
+     * @param synthesis the in-flight synthesis to complete for waiting requests
+     * @return the SynthesizedSpeech of the leading request
+     */
+    private SynthesizedSpeech leadSynthesis(String text, String normalizedText, CompletableFuture<InFlightSpeech> synthesis) {
+        try {
+            return publishSynthesis(text, normalizedText, synthesis, synthesize(text, normalizedText));
+        } catch (RuntimeException e) {
+            abandonSynthesis(normalizedText, synthesis, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Shares the synthesized speech with waiting requests and opens it for the leading request.
+     *
+     * @return the SynthesizedSpeech of the leading request
+     */
+    private SynthesizedSpeech publishSynthesis(String text, String normalizedText, CompletableFuture<InFlightSpeech> synthesis,
+                                               SynthesizedSpeech speech) {
+        InFlightSpeech inFlightSpeech;
+        if (speech.isSeekable()) {
+            inFlightSpeech = InFlightSpeech.ofSeekable(speech);
+        } else {
+            try {
+                inFlightSpeech = InFlightSpeech.ofStream(speech,
+                        audio -> audioCacheRepository.store(speech.getAudioId(), audio),
+                        () -> inFlightSyntheses.remove(normalizedText, synthesis));
+            } catch (IOException e) {
+                log.error("Failed to convert text to speech: {}", getTruncatedText(text), e);
+                throw new TextToSpeechServiceException("Error processing text-to-speech request", e);
+            }
+        }
+
+        SynthesizedSpeech leaderSpeech = inFlightSpeech.open().orElseThrow();
+        synthesis.complete(inFlightSpeech);
+        if (speech.isSeekable()) {
+            inFlightSyntheses.remove(normalizedText, synthesis);
+        }
+        return leaderSpeech;
+    }
+
+    /**
+     * Fails the in-flight synthesis, waiting requests then start a synthesis of their own.
+     */
+    private void abandonSynthesis(String normalizedText, CompletableFuture<InFlightSpeech> synthesis, Throwable e) {
+        inFlightSyntheses.remove(normalizedText, synthesis);
+        synthesis.completeExceptionally(e);
+    }
+
+    /**
+     * Waits for the synthesis of another request and opens a stream of its own on it.
+     *
+     * @param synthesis the in-flight synthesis
+     * @return the shared SynthesizedSpeech, or empty if the leader failed or its synthesis was abandoned
+     */
+    private Optional<SynthesizedSpeech> joinSynthesis(CompletableFuture<InFlightSpeech> synthesis) {
+        try {
+            return synthesis.get().open();
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TextToSpeechServiceException("Interrupted while waiting for text-to-speech request", e);
+        }
+    }
+
+    /**
+     * Synthesizes speech, or finds it in the audio cache.
+     *
+     * @param text the text to be converted to speech
+     * @param normalizedText the normalized text, used for the cache key
+     * @return a SynthesizedSpeech that is either cached and seekable, or a stream from Polly
+     */
+    private SynthesizedSpeech synthesize(String text, String normalizedText) {
         try {
             String languageCode = comprehendRepository.detectLanguage(text);
             VoiceSelection voiceSelection = supportedVoicesService.selectVoice(languageCode);
 
+            String cacheKey = getCacheKey(normalizedText, voiceSelection);
+            Optional<SynthesizedSpeech> cachedSpeech = findCachedSpeech(cacheKey);
+            if (cachedSpeech.isPresent()) {
+                return cachedSpeech.get();
+            }
+
+            if (segmentMaxChars > 0 && text.length() > segmentMaxChars) {
+                InputStream audioStream = synthesizeLongText(text, voiceSelection);
+                return new SynthesizedSpeech(cacheKey, new InputStreamResource(audioStream), null, false);
+            }
+
             InputStream audioStream = pollyRepository.convertTextToSpeech(text, voiceSelection.getPollyVoiceId(), voiceSelection.getPollyLocaleCode());
-            return new InputStreamResource(audioStream);
+            return new SynthesizedSpeech(cacheKey, new InputStreamResource(audioStream), getContentLength(audioStream), false);
 
         } catch (ComprehendRepositoryException e) {
             log.error("Failed to detect language: {}", getTruncatedText(text), e);
             throw new TextToSpeechServiceException("Error processing text-to-speech request", e);
-        } catch (PollyRepositoryException e) {
+        } catch (PollyRepositoryException | IOException e) {
             log.error("Failed to convert text to speech: {}", getTruncatedText(text), e);
             throw new TextToSpeechServiceException("Error processing text-to-speech request", e);
         }
     }
 
     /**
-     * Fallback method triggered when all retry attempts fail.
+     * Converts text to speech like {@link #convertTextToSpeech(String)}, without blocking the calling
+     * thread while AWS is working. Transient AWS failures are retried by the repositories off the calling thread.
+     *
+     * @param text the text to be converted to speech
+     * @return a CompletableFuture of the SynthesizedSpeech, completed exceptionally with a
+     * TextToSpeechServiceException if the operation fails
+     */
+    public CompletableFuture<SynthesizedSpeech> convertTextToSpeechAsync(String text) {
+        return shareSynthesisAsync(text, normalizeText(text));
+    }
+
+    /**
+     * Joins the in-flight synthesis of the same normalized text, or leads a new one, without blocking.
+     */
+    private CompletableFuture<SynthesizedSpeech> shareSynthesisAsync(String text, String normalizedText) {
+        CompletableFuture<InFlightSpeech> synthesis = new CompletableFuture<>();
+        CompletableFuture<InFlightSpeech> existing = inFlightSyntheses.putIfAbsent(normalizedText, synthesis);
+        if (existing == null) {
+            return synthesizeAsync(text, normalizedText)
+                    .thenApply(speech -> publishSynthesis(text, normalizedText, synthesis, speech))
+                    .whenComplete((speech, e) -> {
+                        if (e != null) {
+                            abandonSynthesis(normalizedText, synthesis, unwrap(e));
+                        }
+                    });
+        }
+
+        return existing
+                .handle((inFlightSpeech, e) -> e == null ? inFlightSpeech.open() : Optional.<SynthesizedSpeech>empty())
+                .thenCompose(shared -> {
+                    if (shared.isPresent()) {
+                        log.debug("Joined in-flight synthesis for text: {}", getTruncatedText(text));
+                        return CompletableFuture.completedFuture(shared.get());
+                    }
+                    // The leader failed or its synthesis was abandoned, so the next waiter takes over
+                    inFlightSyntheses.remove(normalizedText, existing);
+                    return shareSynthesisAsync(text, normalizedText);
+                });
+    }
+
+    /**
+     * Synthesizes speech with the async repositories, or finds it in the audio cache.
+     * Long texts are synthesized on the speech synthesis executor.
+     *
+     * @param text the text to be converted to speech
+     * @param normalizedText the normalized text, used for the cache key
+     * @return a CompletableFuture of a SynthesizedSpeech that is either cached and seekable, or a stream from Polly
+     */
+    private CompletableFuture<SynthesizedSpeech> synthesizeAsync(String text, String normalizedText) {
+        return comprehendRepository.detectLanguageAsync(text)
+                .thenCompose(languageCode -> {
+                    VoiceSelection voiceSelection = supportedVoicesService.selectVoice(languageCode);
+
+                    String cacheKey = getCacheKey(normalizedText, voiceSelection);
+                    Optional<SynthesizedSpeech> cachedSpeech = findCachedSpeech(cacheKey);
+                    if (cachedSpeech.isPresent()) {
+                        return CompletableFuture.completedFuture(cachedSpeech.get());
+                    }
+
+                    if (segmentMaxChars > 0 && text.length() > segmentMaxChars) {
+                        return CompletableFuture.supplyAsync(() -> {
+                            try {
+                                InputStream audioStream = synthesizeLongText(text, voiceSelection);
+                                return new SynthesizedSpeech(cacheKey, new InputStreamResource(audioStream), null, false);
+                            } catch (IOException e) {
+                                throw new CompletionException(e);
+                            }
+                        }, speechSynthesisExecutor);
+                    }
+
+                    return pollyRepository.convertTextToSpeechAsync(text, voiceSelection.getPollyVoiceId(), voiceSelection.getPollyLocaleCode())
+                            .thenApply(audioStream -> new SynthesizedSpeech(
+                                    cacheKey, new InputStreamResource(audioStream), getContentLength(audioStream), false));
+                })
+                .handle((speech, e) -> {
+                    if (e == null) {
+                        return speech;
+                    }
+                    Throwable cause = unwrap(e);
+                    if (cause instanceof ComprehendRepositoryException) {
+                        log.error("Failed to detect language: {}", getTruncatedText(text), cause);
+                        throw new TextToSpeechServiceException("Error processing text-to-speech request", cause);
+                    }
+                    if (cause instanceof PollyRepositoryException || cause instanceof IOException) {
+                        log.error("Failed to convert text to speech: {}", getTruncatedText(text), cause);
+                        throw new TextToSpeechServiceException("Error processing text-to-speech request", cause);
+                    }
+                    throw new CompletionException(cause);
+                });
+    }
+
+    /**
+     * Synthesizes a long text as sentence-aligned segments with bounded parallelism and stitches
+     * the MP3 frames in order. Waits for the first segment, so failures of the initial Polly call
+     * still surface as an error response instead of a broken stream.
+     *
+     * @param text the long text to be converted to speech
+     * @param voiceSelection the selected locale and voice
+     * @return an InputStream over the stitched audio
+     * @throws IOException if the first segment could not be synthesized
+     */
+    private InputStream synthesizeLongText(String text, VoiceSelection voiceSelection) throws IOException {
+        List<String> segments = splitIntoSegments(text, Locale.forLanguageTag(voiceSelection.getPollyLocaleCode()));
+        log.info("Synthesizing long text of {} characters in {} segments", text.length(), segments.size());
+
+        SegmentedAudioInputStream audioStream = new SegmentedAudioInputStream(
+                segments, segment -> synthesizeSegment(segment, voiceSelection), speechSynthesisExecutor, longTextParallelism);
+        try {
+            audioStream.awaitFirstSegment();
+        } catch (IOException e) {
+            audioStream.close();
+            if (e.getCause() instanceof PollyRepositoryException pollyException) {
+                throw pollyException;
+            }
+            throw e;
+        }
+        return audioStream;
+    }
+
+    /**
+     * Synthesizes a single segment of a long text.
+     */
+    private byte[] synthesizeSegment(String segment, VoiceSelection voiceSelection) {
+        try (InputStream audioStream = pollyRepository.convertTextToSpeech(segment, voiceSelection.getPollyVoiceId(), voiceSelection.getPollyLocaleCode())) {
+            return audioStream.readAllBytes();
+        } catch (IOException e) {
+            throw new PollyRepositoryException("Error reading Polly audio stream", e);
+        }
+    }
+
+    /**
+     * Splits text into segments at sentence boundaries. Sentences are packed into segments of at most
+     * {@code segmentMaxChars} characters, the first segment is kept to {@code firstSegmentMaxChars}
+     * so playback can start early.
+     * Sentences longer than a segment are split at the last whitespace that fits.
+     *
+     * @param text the text to split
+     * @param locale the locale of the text, used for sentence boundary rules
+     * @return the non-blank segments in order
      */
-    @Recover
-    public InputStreamResource handleRetriesFailure(TextToSpeechServiceException e, String text) {
-        log.error("All retry attempts failed for text: {}", getTruncatedText(text), e);
-        throw e;
+    List<String> splitIntoSegments(String text, Locale locale) {
+        BreakIterator sentences = BreakIterator.getSentenceInstance(locale);
+        sentences.setText(text);
+
+        List<String> segments = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int start = sentences.first();
+        for (int end = sentences.next(); end != BreakIterator.DONE; start = end, end = sentences.next()) {
+            String sentence = text.substring(start, end);
+            int limit = segments.isEmpty() ? Math.min(firstSegmentMaxChars, segmentMaxChars) : segmentMaxChars;
+
+            if (!current.isEmpty() && current.length() + sentence.length() > limit) {
+                addSegment(segments, current.toString());
+                current.setLength(0);
+                limit = segmentMaxChars;
+            }
+            while (sentence.length() > limit) {
+                int cut = sentence.lastIndexOf(' ', limit);
+                cut = cut > 0 ? cut : limit;
+                addSegment(segments, sentence.substring(0, cut));
+                sentence = sentence.substring(cut);
+                limit = segmentMaxChars;
+            }
+            current.append(sentence);
+        }
+        addSegment(segments, current.toString());
+        return segments;
+    }
+
+    private void addSegment(List<String> segments, String segment) {
+        if (!segment.isBlank()) {
+            segments.add(segment.strip());
+        }
+    }
+
+    /**
+     * Returns previously synthesized speech by its audio ID (the content-addressed cache key).
+     *
+     * @param audioId the audio ID returned with the synthesized speech
+     * @return a seekable SynthesizedSpeech served from the audio cache
+     * @throws AudioNotFoundException if the audio is not (or no longer) cached
+     */
+    public SynthesizedSpeech getSynthesizedSpeech(String audioId) throws AudioNotFoundException {
+        if (!AUDIO_ID_PATTERN.matcher(audioId).matches()) {
+            throw new AudioNotFoundException("Audio not found: " + audioId);
+        }
+        return findCachedSpeech(audioId)
+                .orElseThrow(() -> new AudioNotFoundException("Audio not found: " + audioId));
+    }
+
+    /**
+     * Looks up cached audio and wraps it as seekable speech with a known length.
+     */
+    private Optional<SynthesizedSpeech> findCachedSpeech(String cacheKey) {
+        return audioCacheRepository.find(cacheKey)
+                .map(audio -> new SynthesizedSpeech(cacheKey, audio, getContentLength(audio), true));
+    }
+
+    /**
+     * Reads the content length of a cached resource, which is always known for cache hits.
+     */
+    private Long getContentLength(Resource audio) {
+        try {
+            return audio.contentLength();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the content length announced by Polly, if the response was not chunked.
+     */
+    private Long getContentLength(InputStream audioStream) {
+        if (audioStream instanceof ResponseInputStream<?> responseStream
+                && responseStream.response() instanceof SdkResponse response) {
+            return response.sdkHttpResponse()
+                    .firstMatchingHeader(HttpHeaders.CONTENT_LENGTH)
+                    .map(Long::valueOf)
+                    .orElse(null);
+        }
+        return null;
+    }
+
+    /**
+     * Normalizes text so that texts differing only in Unicode composition or whitespace are synthesized once.
+     *
+     * @param text the text to be converted to speech
+     * @return the normalized text
+     */
+    private String normalizeText(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFC).strip().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Builds a content-addressed cache key from the normalized text and every parameter that affects
+     * the synthesized audio (locale, voice, engine and output format).
+     *
+     * @param normalizedText the normalized text to be converted to speech
+     * @param voiceSelection the selected locale and voice
+     * @return hex encoded SHA-256 hash identifying the synthesized audio
+     */
+    private String getCacheKey(String normalizedText, VoiceSelection voiceSelection) {
+        String keySource = String.join("\u0000",
+                normalizedText,
+                voiceSelection.getPollyLocaleCode(),
+                voiceSelection.getPollyVoiceId(),
+                PollyRepository.ENGINE.toString(),
+                PollyRepository.OUTPUT_FORMAT.toString());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(keySource.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
     }
 
     /**
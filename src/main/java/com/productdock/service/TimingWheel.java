@@ -0,0 +1,82 @@
+package com.productdock.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A hashed timing wheel: items are scheduled for a tick and taken out once the wheel has advanced to it.
+ * <p>
+ * Each item is stored in the slot of its tick modulo the number of slots, so scheduling costs the same however
+ * many items are waiting, and advancing one tick only looks at one slot. Items more than one rotation ahead stay
+ * in their slot until the wheel comes around to their tick.
+ * <p>
+ * Not thread-safe, callers synchronize.
+ *
+ * @param <T> the scheduled items
+ */
+class TimingWheel<T> {
+
+    private final List<List<Scheduled<T>>> slots;
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param slotCount the number of slots, a rotation of the wheel takes as many ticks
+     * @param startTick the tick the wheel starts at
+     */
+    TimingWheel(int slotCount, long startTick) {
+        slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ArrayList<>());
+        }
+        currentTick = startTick;
+    }
+
+    /**
+     * Schedules an item. Items scheduled for a tick the wheel already passed are due on the next advance.
+     *
+     * @param item the item
+     * @param tick the tick the item is due at
+     */
+    void schedule(T item, long tick) {
+        long dueTick = Math.max(tick, currentTick);
+        slots.get(Math.floorMod(dueTick, slots.size())).add(new Scheduled<>(item, dueTick));
+        size++;
+    }
+
+    /**
+     * Advances the wheel and takes out the items due up to the given tick.
+     *
+     * @param tick the tick to advance to
+     * @return the due items
+     */
+    List<T> advanceTo(long tick) {
+        List<T> due = new ArrayList<>();
+        // A full rotation visits every slot, there is no need to visit them more than once
+        long lastTick = Math.min(tick, currentTick + slots.size() - 1);
+        for (long t = currentTick; t <= lastTick; t++) {
+            Iterator<Scheduled<T>> slot = slots.get(Math.floorMod(t, slots.size())).iterator();
+            while (slot.hasNext()) {
+                Scheduled<T> scheduled = slot.next();
+                if (scheduled.tick() <= tick) {
+                    due.add(scheduled.item());
+                    slot.remove();
+                    size--;
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, tick + 1);
+        return due;
+    }
+
+    /**
+     * @return the number of scheduled items
+     */
+    int size() {
+        return size;
+    }
+
+    private record Scheduled<T>(T item, long tick) {
+    }
+}
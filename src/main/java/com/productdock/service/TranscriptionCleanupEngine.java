@@ -0,0 +1,297 @@
+package com.productdock.service;
+
+import com.productdock.exception.S3RepositoryException;
+import com.productdock.exception.TranscribeRepositoryException;
+import com.productdock.model.RegisteredJob;
+import com.productdock.model.SplitTranscriptionJob;
+import com.productdock.repository.AudioDeduplicationRepository;
+import com.productdock.repository.JobRegistryRepository;
+import com.productdock.repository.S3Repository;
+import com.productdock.repository.TranscribeRepository;
+import com.productdock.repository.TranscriptIndexRepository;
+import com.productdock.repository.TranscriptionResultCacheRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Deletes the Transcribe job, the audio, the transcript and the transcript index of every registered job once it has finished.
+ * The cached result and the deduplication entry of the job are dropped with them, so the job is unknown afterwards and
+ * the same audio uploaded again starts a new job.
+ * <p>
+ * Each job is put on a hashed timing wheel for the time its transcription is expected to have finished and its
+ * results were kept long enough. Only the jobs that are due are looked at: their status is checked with one
+ * listing of the running jobs, the audio files and transcripts are deleted in batches with DeleteObjects, and
+ * the Transcribe jobs, which can only be deleted one by one, are deleted in parallel on the cleanup executor.
+ * Jobs still running and jobs whose cleanup failed are put back on the wheel for the recheck delay.
+ * <p>
+ * The segment jobs of a split recording are cleaned up together, once all of them finished, because the status
+ * of the split job is merged from all of its segments. The split job is removed with its last segment.
+ * <p>
+ * The {@link JobRegistryRepository} stays the record of the jobs, the wheel is rebuilt from it on startup.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TranscriptionCleanupEngine {
+    private static final long BYTES_PER_MB = 1024 * 1024;
+
+    private final JobRegistryRepository jobRegistryRepository;
+    private final TranscribeRepository transcribeRepository;
+    private final S3Repository s3Repository;
+    private final TranscriptionStatusPoller transcriptionStatusPoller;
+    private final TranscriptIndexRepository transcriptIndexRepository;
+    private final TranscriptionResultCacheRepository transcriptionResultCacheRepository;
+    private final AudioDeduplicationRepository audioDeduplicationRepository;
+    private final MeterRegistry meterRegistry;
+    @Qualifier("transcriptionCleanupExecutor")
+    private final Executor transcriptionCleanupExecutor;
+
+    @Value("${stt.cleanup.tick-ms}")
+    private long tickMillis;
+
+    @Value("${stt.cleanup.wheel-slots}")
+    private int wheelSlots;
+
+    @Value("${stt.cleanup.expected-duration-ms}")
+    private long expectedDurationMillis;
+
+    @Value("${stt.cleanup.expected-duration-per-mb-ms}")
+    private long expectedDurationPerMbMillis;
+
+    @Value("${stt.cleanup.retention-ms}")
+    private long retentionMillis;
+
+    @Value("${stt.cleanup.recheck-delay-ms}")
+    private long recheckDelayMillis;
+
+    private TimingWheel<String> wheel;
+    private Counter cleanedJobs;
+    private Counter deferredJobs;
+    private Counter failedJobs;
+    private Timer runs;
+
+    /**
+     * Puts the jobs registered before a restart on the wheel and registers the cleanup metrics.
+     * Jobs whose cleanup was interrupted are due right away.
+     */
+    @PostConstruct
+    public void init() {
+        wheel = new TimingWheel<>(wheelSlots, currentTick());
+        Gauge.builder("stt.cleanup.backlog", this, TranscriptionCleanupEngine::backlog)
+                .description("Transcription jobs waiting for their cleanup")
+                .register(meterRegistry);
+        cleanedJobs = meterRegistry.counter("stt.cleanup.jobs", "outcome", "cleaned");
+        deferredJobs = meterRegistry.counter("stt.cleanup.jobs", "outcome", "deferred");
+        failedJobs = meterRegistry.counter("stt.cleanup.jobs", "outcome", "failed");
+        runs = meterRegistry.timer("stt.cleanup.runs");
+
+        List<RegisteredJob> jobs = jobRegistryRepository.findAll();
+        for (RegisteredJob job : jobs) {
+            if (job.state() == RegisteredJob.State.CLEANING) {
+                schedule(job.jobName(), System.currentTimeMillis());
+            } else {
+                schedule(job.jobName(), getDueMillis(job.createdAt(), 0));
+            }
+        }
+        log.info("TranscriptionCleanupEngine initialized with {} jobs", jobs.size());
+    }
+
+    /**
+     * Registers a started transcription job and schedules its cleanup.
+     *
+     * @param job        the started job
+     * @param audioBytes the size of the transcribed audio, longer audio takes longer to transcribe
+     */
+    public void register(RegisteredJob job, long audioBytes) {
+        jobRegistryRepository.register(job);
+        schedule(job.jobName(), getDueMillis(job.createdAt(), audioBytes));
+    }
+
+    /**
+     * Cleans up the jobs that are due. A run with a large backlog can take a while, the scheduler has a thread for
+     * each scheduled task ({@code spring.task.scheduling.pool.size}), so the status poller and the other tasks keep
+     * running meanwhile. Runs never overlap, the next one starts the tick after the last one ended.
+     */
+    @Scheduled(fixedDelayString = "${stt.cleanup.tick-ms}")
+    public void runDueCleanups() {
+        List<String> dueJobNames;
+        synchronized (wheel) {
+            dueJobNames = wheel.advanceTo(currentTick());
+        }
+        // Jobs removed from the registry in the meantime are dropped
+        List<RegisteredJob> dueJobs = withSplitSiblings(dueJobNames.stream()
+                .map(jobRegistryRepository::find)
+                .flatMap(Optional::stream)
+                .toList());
+        if (dueJobs.isEmpty()) {
+            return;
+        }
+        runs.record(() -> cleanUp(dueJobs));
+    }
+
+    private void cleanUp(List<RegisteredJob> dueJobs) {
+        List<RegisteredJob> finishedJobs = findFinishedJobs(dueJobs);
+        if (finishedJobs.isEmpty()) {
+            return;
+        }
+
+        List<CompletableFuture<Void>> transcribeDeletions = finishedJobs.stream()
+                .map(job -> CompletableFuture.runAsync(() -> transcribeRepository.deleteTranscriptionJob(job.jobName()), transcriptionCleanupExecutor))
+                .toList();
+
+        Set<String> failedJobNames = new HashSet<>();
+        Map<String, String> jobNamesByS3Key = new HashMap<>();
+        finishedJobs.forEach(job -> jobNamesByS3Key.put(job.s3Key(), job.jobName()));
+        try {
+            s3Repository.deleteAudioFiles(jobNamesByS3Key.keySet()).forEach(s3Key -> failedJobNames.add(jobNamesByS3Key.get(s3Key)));
+        } catch (S3RepositoryException e) {
+            log.warn("Could not delete the audio of {} jobs: {}", finishedJobs.size(), e.getMessage());
+            failedJobNames.addAll(jobNamesByS3Key.values());
+        }
+        try {
+            failedJobNames.addAll(s3Repository.deleteTranscripts(jobNamesByS3Key.values()));
+        } catch (S3RepositoryException e) {
+            log.warn("Could not delete the transcripts of {} jobs: {}", finishedJobs.size(), e.getMessage());
+            failedJobNames.addAll(jobNamesByS3Key.values());
+        }
+        for (int i = 0; i < finishedJobs.size(); i++) {
+            try {
+                transcribeDeletions.get(i).join();
+            } catch (CompletionException e) {
+                log.warn("Could not delete transcription job '{}': {}", finishedJobs.get(i).jobName(), e.getCause().getMessage());
+                failedJobNames.add(finishedJobs.get(i).jobName());
+            }
+        }
+
+        for (RegisteredJob job : finishedJobs) {
+            if (failedJobNames.contains(job.jobName())) {
+                failedJobs.increment();
+                schedule(job.jobName(), System.currentTimeMillis() + recheckDelayMillis);
+            } else {
+                Optional<SplitTranscriptionJob> splitJob = jobRegistryRepository.findSplitOf(job.jobName());
+                jobRegistryRepository.remove(job.jobName());
+                transcriptionStatusPoller.untrack(job.jobName());
+                transcriptIndexRepository.remove(job.jobName());
+                transcriptionResultCacheRepository.remove(job.jobName());
+                audioDeduplicationRepository.remove(job.audioHash(), job.jobName());
+                cleanedJobs.increment();
+                splitJob.ifPresent(this::removeSplitIfCleanedUp);
+            }
+        }
+        jobRegistryRepository.compactIfNeeded();
+        log.info("Cleaned up {} of {} finished jobs", finishedJobs.size() - failedJobNames.size(), finishedJobs.size());
+    }
+
+    /**
+     * Adds the registered sibling segments of the due segment jobs, so a split recording is cleaned up as a whole.
+     * Siblings that are cleaned up early are dropped from the wheel once they are due.
+     */
+    private List<RegisteredJob> withSplitSiblings(List<RegisteredJob> dueJobs) {
+        Map<String, RegisteredJob> jobs = new LinkedHashMap<>();
+        for (RegisteredJob job : dueJobs) {
+            jobs.put(job.jobName(), job);
+            jobRegistryRepository.findSplitOf(job.jobName()).ifPresent(splitJob -> splitJob.segments().stream()
+                    .filter(segment -> !jobs.containsKey(segment.jobName()))
+                    .map(segment -> jobRegistryRepository.find(segment.jobName()))
+                    .flatMap(Optional::stream)
+                    .forEach(sibling -> jobs.put(sibling.jobName(), sibling)));
+        }
+        return new ArrayList<>(jobs.values());
+    }
+
+    private void removeSplitIfCleanedUp(SplitTranscriptionJob splitJob) {
+        boolean cleanedUp = splitJob.segments().stream()
+                .noneMatch(segment -> jobRegistryRepository.find(segment.jobName()).isPresent());
+        if (cleanedUp) {
+            jobRegistryRepository.removeSplit(splitJob.jobName());
+            transcriptIndexRepository.remove(splitJob.jobName());
+            transcriptionResultCacheRepository.remove(splitJob.jobName());
+            // Segments carry no audio hash, the split job is deduplicated by its name
+            audioDeduplicationRepository.removeJob(splitJob.jobName());
+        }
+    }
+
+    /**
+     * Checks all due jobs with one listing of the queued and running jobs, a job not listed has completed,
+     * failed or was deleted. The finished jobs are marked as cleaning, so a restart does not check them again.
+     * The segments of a split recording are deferred together while any of them is still running.
+     *
+     * @return the due jobs whose resources can be deleted
+     */
+    private List<RegisteredJob> findFinishedJobs(List<RegisteredJob> dueJobs) {
+        Map<String, String> activeStatuses = Map.of();
+        if (dueJobs.stream().anyMatch(job -> job.state() == RegisteredJob.State.STARTED)) {
+            try {
+                activeStatuses = transcribeRepository.listActiveJobStatuses();
+            } catch (TranscribeRepositoryException e) {
+                log.warn("Could not check the status of due transcription jobs: {}", e.getMessage());
+                activeStatuses = null;
+            }
+        }
+
+        Set<String> runningJobNames = new HashSet<>();
+        for (RegisteredJob job : dueJobs) {
+            if (job.state() == RegisteredJob.State.STARTED && (activeStatuses == null || activeStatuses.containsKey(job.jobName()))) {
+                runningJobNames.add(job.jobName());
+                jobRegistryRepository.findSplitOf(job.jobName())
+                        .ifPresent(splitJob -> splitJob.segments().forEach(segment -> runningJobNames.add(segment.jobName())));
+            }
+        }
+
+        List<RegisteredJob> finishedJobs = new ArrayList<>(dueJobs.size());
+        for (RegisteredJob job : dueJobs) {
+            if (job.state() == RegisteredJob.State.CLEANING) {
+                finishedJobs.add(job);
+            } else if (runningJobNames.contains(job.jobName())) {
+                deferredJobs.increment();
+                schedule(job.jobName(), System.currentTimeMillis() + recheckDelayMillis);
+            } else {
+                jobRegistryRepository.updateState(job.jobName(), RegisteredJob.State.CLEANING);
+                finishedJobs.add(job.withState(RegisteredJob.State.CLEANING));
+            }
+        }
+        return finishedJobs;
+    }
+
+    private long getDueMillis(Instant createdAt, long audioBytes) {
+        return createdAt.toEpochMilli() + expectedDurationMillis + audioBytes * expectedDurationPerMbMillis / BYTES_PER_MB + retentionMillis;
+    }
+
+    private void schedule(String jobName, long dueMillis) {
+        synchronized (wheel) {
+            wheel.schedule(jobName, Math.floorDiv(dueMillis, tickMillis));
+        }
+    }
+
+    private long currentTick() {
+        return Math.floorDiv(System.currentTimeMillis(), tickMillis);
+    }
+
+    private int backlog() {
+        synchronized (wheel) {
+            return wheel.size();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.productdock.service;
+
+import com.productdock.exception.TranscribeRepositoryException;
+import com.productdock.exception.TranscriptionJobNotFoundException;
+import com.productdock.repository.TranscribeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the status of the transcription jobs in memory, so status requests are answered locally.
+ * <p>
+ * Instead of one GetTranscriptionJob call per status request, a background task refreshes all tracked jobs
+ * at once by listing the queued and running jobs. A job that is no longer listed has finished and is looked up
+ * once for its final status. How often the jobs are refreshed adapts to them: young jobs and short audio are
+ * refreshed often, jobs that have been running for a while and long audio less often.
+ * <p>
+ * Jobs that are not tracked (for example after a restart) are looked up on the first request,
+ * concurrent requests for the same job share that lookup.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TranscriptionStatusPoller {
+    private static final Set<String> TERMINAL_STATUSES = Set.of("COMPLETED", "FAILED");
+    private static final long BYTES_PER_MB = 1024 * 1024;
+
+    private final TranscribeRepository transcribeRepository;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TrackedJob> trackedJobs = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<String>> inFlightLookups = new ConcurrentHashMap<>();
+
+    @Value("${transcribe.poller.min-interval-ms}")
+    private long minIntervalMillis;
+
+    @Value("${transcribe.poller.max-interval-ms}")
+    private long maxIntervalMillis;
+
+    @Value("${transcribe.poller.interval-per-mb-ms}")
+    private long intervalPerMbMillis;
+
+    @Value("${transcribe.poller.retention-ms}")
+    private long retentionMillis;
+
+    private Counter bulkRefreshes;
+    private Counter singleLookups;
+
+    /**
+     * Registers the metrics of the tracked jobs and the Transcribe calls made for them.
+     */
+    @PostConstruct
+    public void init() {
+        Gauge.builder("transcribe.poller.jobs", trackedJobs, Map::size)
+                .description("Transcription jobs whose status is kept in memory")
+                .register(meterRegistry);
+        bulkRefreshes = meterRegistry.counter("transcribe.poller.calls", "type", "list");
+        singleLookups = meterRegistry.counter("transcribe.poller.calls", "type", "get");
+    }
+
+    /**
+     * Starts tracking a transcription job that was just started.
+     *
+     * @param jobName    the transcription job name
+     * @param audioBytes the size of the transcribed audio, longer audio takes longer to transcribe
+     */
+    public void track(String jobName, long audioBytes) {
+        TrackedJob job = new TrackedJob(audioBytes, System.nanoTime());
+        job.update("IN_PROGRESS", job.startedAt, getIntervalNanos(job, job.startedAt));
+        trackedJobs.put(jobName, job);
+    }
+
+    /**
+     * Stops tracking a transcription job, once it was deleted.
+     *
+     * @param jobName the transcription job name
+     */
+    public void untrack(String jobName) {
+        trackedJobs.remove(jobName);
+    }
+
+    /**
+     * Returns the status of a transcription job from memory, or looks it up if the job is not tracked.
+     *
+     * @param jobName the transcription job name
+     * @return the status of the transcription job
+     * @throws TranscribeRepositoryException if the job is not tracked and the lookup fails
+     */
+    public String getStatus(String jobName) throws TranscribeRepositoryException {
+        TrackedJob job = trackedJobs.get(jobName);
+        if (job != null) {
+            return job.status;
+        }
+
+        CompletableFuture<String> lookup = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlightLookups.putIfAbsent(jobName, lookup);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw e;
+            }
+        }
+
+        try {
+            singleLookups.increment();
+            String status = transcribeRepository.getJobStatus(jobName);
+            trackLookedUp(jobName, status);
+            lookup.complete(status);
+            return status;
+        } catch (RuntimeException e) {
+            lookup.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLookups.remove(jobName, lookup);
+        }
+    }
+
+    /**
+     * Returns the status of a transcription job like {@link #getStatus(String)},
+     * looking up jobs that are not tracked without blocking the calling thread.
+     *
+     * @param jobName the transcription job name
+     * @return a CompletableFuture of the status of the transcription job,
+     * completed exceptionally with a TranscribeRepositoryException if the job is not tracked and the lookup fails
+     */
+    public CompletableFuture<String> getStatusAsync(String jobName) {
+        TrackedJob job = trackedJobs.get(jobName);
+        if (job != null) {
+            return CompletableFuture.completedFuture(job.status);
+        }
+
+        CompletableFuture<String> lookup = new CompletableFuture<>();
+        CompletableFuture<String> existing = inFlightLookups.putIfAbsent(jobName, lookup);
+        if (existing != null) {
+            return existing;
+        }
+
+        singleLookups.increment();
+        transcribeRepository.getJobStatusAsync(jobName).whenComplete((status, e) -> {
+            inFlightLookups.remove(jobName, lookup);
+            if (e != null) {
+                lookup.completeExceptionally(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+            } else {
+                trackLookedUp(jobName, status);
+                lookup.complete(status);
+            }
+        });
+        return lookup;
+    }
+
+    /**
+     * Refreshes the tracked jobs once the first of them is due.
+     * All running jobs are refreshed with the same listing, whether they were due or not.
+     */
+    @Scheduled(fixedDelayString = "${transcribe.poller.tick-ms}")
+    public void refreshTrackedJobs() {
+        long now = System.nanoTime();
+        trackedJobs.values().removeIf(job -> job.isTerminal() && now - job.updatedAt > TimeUnit.MILLISECONDS.toNanos(retentionMillis));
+        if (trackedJobs.values().stream().noneMatch(job -> !job.isTerminal() && now - job.nextRefreshAt >= 0)) {
+            return;
+        }
+
+        Map<String, String> activeStatuses;
+        try {
+            bulkRefreshes.increment();
+            activeStatuses = transcribeRepository.listActiveJobStatuses();
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh transcription job statuses: {}", e.getMessage());
+            return;
+        }
+
+        trackedJobs.forEach((jobName, job) -> {
+            if (job.isTerminal()) {
+                return;
+            }
+            String status = activeStatuses.get(jobName);
+            if (status == null) {
+                // No longer queued or running, a single lookup tells whether it completed or failed
+                try {
+                    singleLookups.increment();
+                    status = transcribeRepository.getJobStatus(jobName);
+                } catch (TranscriptionJobNotFoundException e) {
+                    log.warn("Job {} no longer exists, it is not tracked anymore", jobName);
+                    trackedJobs.remove(jobName);
+                    return;
+                } catch (RuntimeException e) {
+                    log.warn("Could not refresh status of job {}: {}", jobName, e.getMessage());
+                    return;
+                }
+            }
+            if (!status.equals(job.status)) {
+                log.debug("Job {} changed from {} to {}", jobName, job.status, status);
+            }
+            job.update(status, now, getIntervalNanos(job, now));
+        });
+    }
+
+    /**
+     * The refresh interval grows with the age of the job and the size of its audio,
+     * between the configured minimum and maximum.
+     */
+    private long getIntervalNanos(TrackedJob job, long now) {
+        long ageMillis = TimeUnit.NANOSECONDS.toMillis(now - job.startedAt);
+        long intervalMillis = Math.max(minIntervalMillis, ageMillis / 4) + job.audioBytes * intervalPerMbMillis / BYTES_PER_MB;
+        return TimeUnit.MILLISECONDS.toNanos(Math.min(maxIntervalMillis, intervalMillis));
+    }
+
+    private void trackLookedUp(String jobName, String status) {
+        long now = System.nanoTime();
+        TrackedJob job = new TrackedJob(0, now);
+        job.update(status, now, getIntervalNanos(job, now));
+        trackedJobs.putIfAbsent(jobName, job);
+    }
+
+    /**
+     * The last known status of one job and when it is refreshed next.
+     */
+    private static class TrackedJob {
+        private final long audioBytes;
+        private final long startedAt;
+        private volatile String status;
+        private volatile long updatedAt;
+        private volatile long nextRefreshAt;
+
+        TrackedJob(long audioBytes, long startedAt) {
+            this.audioBytes = audioBytes;
+            this.startedAt = startedAt;
+        }
+
+        void update(String status, long now, long intervalNanos) {
+            this.status = status;
+            this.updatedAt = now;
+            this.nextRefreshAt = now + intervalNanos;
+        }
+
+        boolean isTerminal() {
+            return TERMINAL_STATUSES.contains(status);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.productdock.service;
+
+import com.productdock.exception.DependencyUnavailableException;
+import com.productdock.model.TranscriptionJobResponse;
+import com.productdock.resilience.RetryPolicy;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Pushes the status of transcription jobs to subscribed clients over Server-Sent Events.
+ * <p>
+ * A single scheduled task checks every watched job once per interval, however many clients subscribed to it,
+ * and sends a {@code status} event whenever the status changes. Once a job completed, the final event carries
+ * the transcript and the subscriptions are closed. Jobs without subscribers are not checked.
+ * <p>
+ * The checks run concurrently and the scheduler thread only starts them: in the async mode they wait for AWS
+ * without a thread, otherwise they run on the watch executor. A job is not checked again while its last check
+ * is still running.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TranscriptionStatusWatcher {
+    static final String STATUS_EVENT = "status";
+    private static final Set<String> TERMINAL_STATUSES = Set.of("COMPLETED", "FAILED", "ERROR");
+
+    private final SpeechToTextService speechToTextService;
+    private final MeterRegistry meterRegistry;
+    @Qualifier("transcriptionWatchExecutor")
+    private final Executor transcriptionWatchExecutor;
+    private final Map<String, WatchedJob> watchedJobs = new ConcurrentHashMap<>();
+
+    @Value("${transcribe.watch.subscription-timeout-ms}")
+    private long subscriptionTimeoutMillis;
+
+    @Value("${aws.async.enabled}")
+    private boolean asyncEnabled;
+
+    /**
+     * Registers the metrics of the watched jobs and subscriptions.
+     */
+    @PostConstruct
+    public void init() {
+        Gauge.builder("transcribe.watch.jobs", watchedJobs, Map::size)
+                .description("Transcription jobs watched for subscribed clients")
+                .register(meterRegistry);
+        Gauge.builder("transcribe.watch.subscriptions", watchedJobs,
+                        jobs -> jobs.values().stream().mapToInt(WatchedJob::getSubscriberCount).sum())
+                .description("Clients subscribed to transcription status events")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Subscribes to the status events of a transcription job.
+     * The last known status is sent right away, changes follow as the watcher notices them.
+     *
+     * @param jobName the transcription job name
+     * @return SseEmitter delivering the status events, completed after the final status
+     */
+    public SseEmitter subscribe(String jobName) {
+        SseEmitter emitter = new SseEmitter(subscriptionTimeoutMillis);
+        WatchedJob job;
+        // A job that just finished or lost its last subscriber is closed, a new one is watched instead
+        do {
+            job = watchedJobs.computeIfAbsent(jobName, WatchedJob::new);
+        } while (!job.addSubscriber(emitter));
+
+        WatchedJob subscribedJob = job;
+        emitter.onCompletion(() -> subscribedJob.removeSubscriber(emitter));
+        emitter.onTimeout(() -> subscribedJob.removeSubscriber(emitter));
+        emitter.onError(e -> subscribedJob.removeSubscriber(emitter));
+        log.debug("Client subscribed to status of job {}", jobName);
+        return emitter;
+    }
+
+    /**
+     * Starts a check of the status of every watched job, the subscribers are notified of changes once it completes.
+     * Jobs whose subscribers all left are no longer watched.
+     */
+    @Scheduled(fixedDelayString = "${transcribe.watch.interval-ms}")
+    public void checkWatchedJobs() {
+        for (String jobName : watchedJobs.keySet()) {
+            WatchedJob job = watchedJobs.computeIfPresent(jobName, (name, watched) -> watched.closeIfUnsubscribed() ? null : watched);
+            if (job == null || !job.startCheck()) {
+                continue;
+            }
+            checkStatus(jobName).whenComplete((response, e) -> {
+                job.endCheck();
+                publish(job, response, e);
+            });
+        }
+    }
+
+    private CompletableFuture<TranscriptionJobResponse> checkStatus(String jobName) {
+        try {
+            return asyncEnabled
+                    ? speechToTextService.getTranscriptionJobStatusAsync(jobName)
+                    : CompletableFuture.supplyAsync(() -> speechToTextService.getTranscriptionJobStatus(jobName), transcriptionWatchExecutor);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void publish(WatchedJob job, TranscriptionJobResponse response, Throwable error) {
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (isTransient(cause)) {
+                log.warn("Could not check status of watched job {}: {}", job.jobName, cause.getMessage());
+                return;
+            }
+            response = new TranscriptionJobResponse(job.jobName, "ERROR", null);
+        }
+
+        if (job.publish(response, TERMINAL_STATUSES.contains(response.getJobStatus()))) {
+            watchedJobs.remove(job.jobName, job);
+            log.debug("Sent final status {} of job {}", response.getJobStatus(), job.jobName);
+        }
+    }
+
+    /**
+     * @return whether the failure may go away on the next check, so the subscribers keep waiting
+     */
+    private static boolean isTransient(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DependencyUnavailableException || RetryPolicy.isRetryable(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The subscribers of one job and the last status sent to them.
+     */
+    private static class WatchedJob {
+        private final String jobName;
+        private final List<SseEmitter> subscribers = new CopyOnWriteArrayList<>();
+        private TranscriptionJobResponse lastResponse;
+        private boolean closed;
+        private boolean checking;
+
+        WatchedJob(String jobName) {
+            this.jobName = jobName;
+        }
+
+        synchronized boolean addSubscriber(SseEmitter emitter) {
+            if (closed) {
+                return false;
+            }
+            subscribers.add(emitter);
+            if (lastResponse != null) {
+                send(emitter, lastResponse);
+            }
+            return true;
+        }
+
+        void removeSubscriber(SseEmitter emitter) {
+            subscribers.remove(emitter);
+        }
+
+        int getSubscriberCount() {
+            return subscribers.size();
+        }
+
+        /**
+         * @return false if the last check is still running
+         */
+        synchronized boolean startCheck() {
+            if (checking) {
+                return false;
+            }
+            checking = true;
+            return true;
+        }
+
+        synchronized void endCheck() {
+            checking = false;
+        }
+
+        synchronized boolean closeIfUnsubscribed() {
+            closed = subscribers.isEmpty();
+            return closed;
+        }
+
+        /**
+         * Sends the status to all subscribers if it changed, and completes the subscriptions after the final status.
+         *
+         * @return true if the status was final and the job is closed
+         */
+        synchronized boolean publish(TranscriptionJobResponse response, boolean terminal) {
+            if (lastResponse == null || !lastResponse.equals(response)) {
+                lastResponse = response;
+                subscribers.forEach(emitter -> send(emitter, response));
+            }
+            if (terminal) {
+                closed = true;
+                subscribers.forEach(SseEmitter::complete);
+                subscribers.clear();
+            }
+            return terminal;
+        }
+
+        private void send(SseEmitter emitter, TranscriptionJobResponse response) {
+            try {
+                emitter.send(SseEmitter.event()
+                        .name(STATUS_EVENT)
+                        .data(response, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                // The client went away, the emitter reports the completion itself
+                log.debug("Could not send status of job {} to subscriber: {}", jobName, e.getMessage());
+                subscribers.remove(emitter);
+            }
+        }
+    }
+}
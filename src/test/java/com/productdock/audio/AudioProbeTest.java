@@ -0,0 +1,286 @@
+package com.productdock.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioProbeTest {
+
+    private static final int MP3_FRAME_LENGTH = 417;
+
+    @Test
+    void shouldProbeMp3FromFrameHeaders() {
+        // Given
+        byte[] audio = concat(id3v2(), mp3(100, false));
+
+        // When
+        AudioProbe.AudioInfo info = AudioProbe.probe(audio, true);
+
+        // Then
+        assertEquals(AudioFormat.MP3, info.format());
+        assertEquals(Duration.ofMillis(100 * 1152 * 1000 / 44100), info.duration());
+        assertFalse(info.truncated());
+        assertFalse(info.silent());
+    }
+
+    @Test
+    void shouldRecognizeSilentMp3() {
+        // When
+        AudioProbe.AudioInfo info = AudioProbe.probe(mp3(100, true), true);
+
+        // Then
+        assertEquals(AudioFormat.MP3, info.format());
+        assertTrue(info.silent());
+    }
+
+    @Test
+    void shouldRecognizeTruncatedMp3() {
+        // Given
+        byte[] cutInFrame = Arrays.copyOf(mp3(100, false), 99 * MP3_FRAME_LENGTH + 100);
+        byte[] infoFrame = mp3(1, false);
+        System.arraycopy("Xing".getBytes(StandardCharsets.US_ASCII), 0, infoFrame, 4 + 32, 4);
+        ByteBuffer.wrap(infoFrame, 4 + 32 + 4, 8).putInt(0x01).putInt(500);
+        byte[] fewerFramesThanAnnounced = concat(infoFrame, mp3(100, false));
+
+        // When/Then
+        assertTrue(AudioProbe.probe(cutInFrame, true).truncated());
+        assertTrue(AudioProbe.probe(fewerFramesThanAnnounced, true).truncated());
+    }
+
+    @Test
+    void shouldNotJudgeTruncationOrSilenceFromStartOfStream() {
+        // Given
+        byte[] head = Arrays.copyOf(mp3(100, true), 50 * MP3_FRAME_LENGTH + 100);
+
+        // When
+        AudioProbe.AudioInfo info = AudioProbe.probe(head, false);
+
+        // Then
+        assertEquals(AudioFormat.MP3, info.format());
+        assertNull(info.duration());
+        assertFalse(info.truncated());
+        assertFalse(info.silent());
+    }
+
+    @Test
+    void shouldProbeWavFromHeader() {
+        // Given
+        short[] samples = new short[16000];
+        Arrays.fill(samples, (short) 1000);
+
+        // When
+        AudioProbe.AudioInfo info = AudioProbe.probe(wav(samples, samples.length * 2), true);
+
+        // Then
+        assertEquals(AudioFormat.WAV, info.format());
+        assertEquals(Duration.ofSeconds(1), info.duration());
+        assertFalse(info.truncated());
+        assertFalse(info.silent());
+    }
+
+    @Test
+    void shouldRecognizeSilentAndTruncatedWav() {
+        // Given
+        short[] samples = new short[16000];
+        Arrays.fill(samples, (short) 3);
+
+        // When/Then
+        assertTrue(AudioProbe.probe(wav(samples, samples.length * 2), true).silent());
+        assertTrue(AudioProbe.probe(wav(samples, samples.length * 4), true).truncated());
+    }
+
+    @Test
+    void shouldProbeFlacFromStreamInfo() {
+        // Given
+        byte[] audio = flac(44100, 88200, true);
+
+        // When
+        AudioProbe.AudioInfo info = AudioProbe.probe(audio, true);
+
+        // Then
+        assertEquals(AudioFormat.FLAC, info.format());
+        assertEquals(Duration.ofSeconds(2), info.duration());
+        assertFalse(info.truncated());
+        assertTrue(AudioProbe.probe(flac(44100, 88200, false), true).truncated());
+    }
+
+    @Test
+    void shouldProbeOggOpusFromLastGranule() {
+        // Given
+        byte[] opusHead = ByteBuffer.allocate(19).order(ByteOrder.LITTLE_ENDIAN)
+                .put("OpusHead".getBytes(StandardCharsets.US_ASCII)).put((byte) 1).put((byte) 1).putShort((short) 312).array();
+        byte[] complete = concat(oggPage(0, 0x02, opusHead), oggPage(48312, 0x04, new byte[100]));
+        byte[] withoutEnd = concat(oggPage(0, 0x02, opusHead), oggPage(48312, 0, new byte[100]));
+
+        // When
+        AudioProbe.AudioInfo info = AudioProbe.probe(complete, true);
+
+        // Then
+        assertEquals(AudioFormat.OGG, info.format());
+        assertEquals(Duration.ofSeconds(1), info.duration());
+        assertFalse(info.truncated());
+        assertTrue(AudioProbe.probe(withoutEnd, true).truncated());
+    }
+
+    @Test
+    void shouldProbeWebmFromSegmentInfo() {
+        // Given
+        byte[] info = concat(ebml(0x2AD7B1, ByteBuffer.allocate(3).put((byte) 0x0F).putShort((short) 0x4240).array()),
+                ebml(0x4489, ByteBuffer.allocate(4).putFloat(2500).array()));
+        byte[] segment = ebml(0x18538067, concat(ebml(0x1549A966, info), ebml(0x1F43B675, new byte[50])));
+        byte[] audio = concat(ebmlHeader("webm"), segment);
+
+        // When
+        AudioProbe.AudioInfo probed = AudioProbe.probe(audio, true);
+
+        // Then
+        assertEquals(AudioFormat.WEBM, probed.format());
+        assertEquals(Duration.ofMillis(2500), probed.duration());
+        assertFalse(probed.truncated());
+        assertTrue(AudioProbe.probe(Arrays.copyOf(audio, audio.length - 10), true).truncated());
+        assertNull(AudioProbe.probe(concat(ebmlHeader("matroska"), segment), true).format());
+    }
+
+    @Test
+    void shouldProbeM4aFromMovieHeader() {
+        // Given
+        byte[] ftyp = mp4Box("ftyp", concat("M4A ".getBytes(StandardCharsets.US_ASCII), new byte[4]));
+        byte[] mvhd = mp4Box("mvhd", ByteBuffer.allocate(100).putInt(0).putInt(0).putInt(0).putInt(1000).putInt(3000).array());
+        byte[] moov = mp4Box("moov", mvhd);
+        byte[] mdat = mp4Box("mdat", new byte[200]);
+
+        // When
+        AudioProbe.AudioInfo info = AudioProbe.probe(concat(ftyp, moov, mdat), true);
+
+        // Then
+        assertEquals(AudioFormat.M4A, info.format());
+        assertEquals(Duration.ofSeconds(3), info.duration());
+        assertFalse(info.truncated());
+        assertTrue(AudioProbe.probe(concat(ftyp, mdat), true).truncated());
+        assertTrue(AudioProbe.probe(Arrays.copyOf(concat(ftyp, moov, mdat), 300), true).truncated());
+    }
+
+    @Test
+    void shouldProbeAmrFromFrameTypes() {
+        // Given
+        byte[] speech = amr(50, 0x3C, 31);
+        byte[] noData = amr(50, 0x7C, 0);
+
+        // When
+        AudioProbe.AudioInfo info = AudioProbe.probe(speech, true);
+
+        // Then
+        assertEquals(AudioFormat.AMR, info.format());
+        assertEquals(Duration.ofSeconds(1), info.duration());
+        assertFalse(info.silent());
+        assertTrue(AudioProbe.probe(noData, true).silent());
+        assertTrue(AudioProbe.probe(Arrays.copyOf(speech, speech.length - 5), true).truncated());
+    }
+
+    @Test
+    void shouldNotRecognizeOtherFiles() {
+        assertNull(AudioProbe.probe("This is no audio file".getBytes(StandardCharsets.UTF_8), true).format());
+        assertNull(AudioProbe.probe(new byte[0], true).format());
+        assertNull(AudioProbe.probe(new byte[]{'R', 'I', 'F', 'F', 0, 0, 0, 0, 'A', 'V', 'I', ' '}, true).format());
+    }
+
+    /**
+     * MPEG-1 Layer III frames at 128 kbit/s, 44100 Hz, stereo. Silent frames spend no bits on any granule.
+     */
+    private static byte[] mp3(int frames, boolean silent) {
+        byte[] audio = new byte[frames * MP3_FRAME_LENGTH];
+        for (int offset = 0; offset < audio.length; offset += MP3_FRAME_LENGTH) {
+            audio[offset] = (byte) 0xFF;
+            audio[offset + 1] = (byte) 0xFB;
+            audio[offset + 2] = (byte) 0x90;
+            if (!silent) {
+                audio[offset + 6] = 0x0F;
+                audio[offset + 7] = (byte) 0xFF;
+            }
+        }
+        return audio;
+    }
+
+    private static byte[] id3v2() {
+        return new byte[]{'I', 'D', '3', 3, 0, 0, 0, 0, 0, 2, 'x', 'y'};
+    }
+
+    /**
+     * 16 bit mono PCM at 16000 Hz, the data chunk announces the given size.
+     */
+    private static byte[] wav(short[] samples, int dataSize) {
+        ByteBuffer wav = ByteBuffer.allocate(44 + samples.length * 2).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(36 + dataSize).put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        wav.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16)
+                .putShort((short) 1).putShort((short) 1).putInt(16000).putInt(32000).putShort((short) 2).putShort((short) 16);
+        wav.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(dataSize);
+        for (short sample : samples) {
+            wav.putShort(sample);
+        }
+        return wav.array();
+    }
+
+    private static byte[] flac(int sampleRate, long totalSamples, boolean withFrame) {
+        ByteBuffer streamInfo = ByteBuffer.allocate(34);
+        streamInfo.putShort((short) 4096).putShort((short) 4096).put(new byte[6]);
+        // 20 bit sample rate, 3 bit channels - 1, 5 bit bits per sample - 1, 36 bit total samples
+        long packed = (long) sampleRate << 44 | 1L << 41 | 15L << 36 | totalSamples;
+        streamInfo.putLong(packed);
+        byte[] header = {'f', 'L', 'a', 'C', (byte) 0x80, 0, 0, 34};
+        byte[] frame = withFrame ? new byte[]{(byte) 0xFF, (byte) 0xF8, 0x69, 0x08, 0, 0} : new byte[0];
+        return concat(header, streamInfo.array(), frame);
+    }
+
+    private static byte[] oggPage(long granule, int flags, byte[] body) {
+        ByteBuffer page = ByteBuffer.allocate(28 + body.length).order(ByteOrder.LITTLE_ENDIAN);
+        page.put("OggS".getBytes(StandardCharsets.US_ASCII)).put((byte) 0).put((byte) flags).putLong(granule)
+                .putInt(1).putInt(0).putInt(0).put((byte) 1).put((byte) body.length).put(body);
+        return page.array();
+    }
+
+    private static byte[] ebmlHeader(String docType) {
+        return ebml(0x1A45DFA3, ebml(0x4282, docType.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * An EBML element with an 8 byte size.
+     */
+    private static byte[] ebml(int id, byte[] body) {
+        ByteArrayOutputStream element = new ByteArrayOutputStream();
+        byte[] idBytes = ByteBuffer.allocate(4).putInt(id).array();
+        int idLength = id > 0xFFFFFF ? 4 : id > 0xFFFF ? 3 : 2;
+        element.write(idBytes, 4 - idLength, idLength);
+        element.writeBytes(ByteBuffer.allocate(8).putLong(0x0100000000000000L | body.length).array());
+        element.writeBytes(body);
+        return element.toByteArray();
+    }
+
+    private static byte[] mp4Box(String type, byte[] body) {
+        return concat(ByteBuffer.allocate(4).putInt(8 + body.length).array(), type.getBytes(StandardCharsets.US_ASCII), body);
+    }
+
+    private static byte[] amr(int frames, int frameHeader, int frameBytes) {
+        ByteArrayOutputStream amr = new ByteArrayOutputStream();
+        amr.writeBytes("#!AMR\n".getBytes(StandardCharsets.US_ASCII));
+        for (int i = 0; i < frames; i++) {
+            amr.write(frameHeader);
+            amr.writeBytes(new byte[frameBytes]);
+        }
+        return amr.toByteArray();
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            result.writeBytes(part);
+        }
+        return result.toByteArray();
+    }
+}
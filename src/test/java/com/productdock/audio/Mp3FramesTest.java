@@ -0,0 +1,110 @@
+package com.productdock.audio;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Mp3FramesTest {
+
+    // MPEG-2 Layer III, 48 kbit/s, 24000 Hz, mono (Polly neural output)
+    private static final byte[] FRAME_HEADER = {(byte) 0xFF, (byte) 0xF3, (byte) 0x64, (byte) 0xC4};
+
+    @Test
+    void shouldParseFrameHeader() {
+        // When
+        Mp3Frames.FrameHeader header = Mp3Frames.parseHeader(frame(), 0);
+
+        // Then
+        assertNotNull(header);
+        assertEquals(2, header.mpegVersion());
+        assertEquals(3, header.layer());
+        assertEquals(48, header.bitrateKbps());
+        assertEquals(24000, header.sampleRate());
+        assertTrue(header.mono());
+        assertEquals(144, header.frameLength());
+        assertEquals(576, header.samplesPerFrame());
+    }
+
+    @Test
+    void shouldRejectInvalidFrameHeader() {
+        assertNull(Mp3Frames.parseHeader(new byte[]{0x49, 0x44, 0x33, 0x03}, 0));
+        assertNull(Mp3Frames.parseHeader(new byte[]{(byte) 0xFF, (byte) 0xF3}, 0));
+    }
+
+    @Test
+    void shouldStripId3TagsAndInfoFrame() {
+        // Given
+        byte[] id3v2 = {'I', 'D', '3', 3, 0, 0, 0, 0, 0, 2, 'x', 'y'};
+        byte[] infoFrame = frame();
+        System.arraycopy("Info".getBytes(), 0, infoFrame, 4 + 9, 4);
+        byte[] audioFrame = frame();
+        byte[] id3v1 = new byte[128];
+        id3v1[0] = 'T';
+        id3v1[1] = 'A';
+        id3v1[2] = 'G';
+
+        byte[] audio = concat(id3v2, infoFrame, audioFrame, id3v1);
+
+        // When
+        byte[] stripped = Mp3Frames.stripMetadata(audio);
+
+        // Then
+        assertArrayEquals(audioFrame, stripped);
+    }
+
+    @Test
+    void shouldKeepBareAudioFramesUnchanged() {
+        // Given
+        byte[] audio = concat(frame(), frame());
+
+        // When/Then
+        assertSame(audio, Mp3Frames.stripMetadata(audio));
+    }
+
+    @Test
+    void shouldRecognizeSilentFrames() {
+        // Given
+        byte[] silentFrame = frame();
+        byte[] audioFrame = frame();
+        // part2_3_length of the granule starts after 8 bits main_data_begin and 1 private bit
+        audioFrame[5] = 0x40;
+
+        // When/Then
+        assertTrue(Mp3Frames.isSilentFrame(silentFrame, 0, Mp3Frames.parseHeader(silentFrame, 0)));
+        assertFalse(Mp3Frames.isSilentFrame(audioFrame, 0, Mp3Frames.parseHeader(audioFrame, 0)));
+    }
+
+    @Test
+    void shouldReadFrameCountOfInfoFrame() {
+        // Given
+        byte[] infoFrame = frame();
+        System.arraycopy("Xing".getBytes(), 0, infoFrame, 4 + 9, 4);
+        infoFrame[4 + 9 + 7] = 0x01;
+        infoFrame[4 + 9 + 10] = 0x01;
+        infoFrame[4 + 9 + 11] = 0x2C;
+
+        // When/Then
+        assertEquals(300, Mp3Frames.infoFrameCount(infoFrame, 0, Mp3Frames.parseHeader(infoFrame, 0)));
+        assertEquals(-1, Mp3Frames.infoFrameCount(frame(), 0, Mp3Frames.parseHeader(frame(), 0)));
+    }
+
+    private byte[] frame() {
+        byte[] frame = new byte[144];
+        System.arraycopy(FRAME_HEADER, 0, frame, 0, FRAME_HEADER.length);
+        return frame;
+    }
+
+    private byte[] concat(byte[]... parts) {
+        int length = 0;
+        for (byte[] part : parts) {
+            length += part.length;
+        }
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, result, offset, part.length);
+            offset += part.length;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,138 @@
+package com.productdock.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SilenceSplitterTest {
+
+    private static final int SAMPLE_RATE = 8000;
+    private static final int MP3_FRAME_LENGTH = 417;
+    private static final SilenceSplitter.SplitSettings SETTINGS =
+            new SilenceSplitter.SplitSettings(Duration.ofSeconds(10), Duration.ofMillis(300), -45);
+
+    @Test
+    void shouldSplitWavInPausesNearTheSegmentLength() {
+        // Given
+        // Pauses at 4 s, too early, at 10.3 s, too short, at 10.8 s and at 20.5 s
+        byte[] audio = wav(new double[]{4, 1}, new double[]{5.3, 0.2}, new double[]{0.3, 1}, new double[]{8.7, 1}, new double[]{9, 0});
+
+        // When
+        List<SilenceSplitter.AudioSegment> segments = SilenceSplitter.split(audio, AudioFormat.WAV, SETTINGS);
+
+        // Then
+        assertEquals(3, segments.size());
+        assertEquals(Duration.ZERO, segments.get(0).offset());
+        assertEquals(Duration.ofMillis(11300), segments.get(1).offset());
+        assertEquals(Duration.ofMillis(21000), segments.get(2).offset());
+        long totalMillis = 0;
+        for (SilenceSplitter.AudioSegment segment : segments) {
+            AudioProbe.AudioInfo info = AudioProbe.probe(segment.audio(), true);
+            assertEquals(AudioFormat.WAV, info.format());
+            assertFalse(info.truncated());
+            totalMillis += info.duration().toMillis();
+        }
+        assertEquals(30500, totalMillis);
+    }
+
+    @Test
+    void shouldKeepWavWithoutPausesWhole() {
+        // Given
+        byte[] audio = wav(new double[]{30, 0});
+
+        // When
+        List<SilenceSplitter.AudioSegment> segments = SilenceSplitter.split(audio, AudioFormat.WAV, SETTINGS);
+
+        // Then
+        assertEquals(1, segments.size());
+        assertSame(audio, segments.get(0).audio());
+    }
+
+    @Test
+    void shouldSplitMp3AtFramesThatSpendFewBits() {
+        // Given
+        byte[] audio = concat(mp3(380, false), mp3(20, true), mp3(380, false), mp3(20, true), mp3(350, false));
+
+        // When
+        List<SilenceSplitter.AudioSegment> segments = SilenceSplitter.split(audio, AudioFormat.MP3, SETTINGS);
+
+        // Then
+        assertEquals(3, segments.size());
+        assertEquals(390 * MP3_FRAME_LENGTH, segments.get(0).audio().length);
+        assertEquals(400 * MP3_FRAME_LENGTH, segments.get(1).audio().length);
+        assertEquals(Duration.ofMillis(390L * 1152 * 1000 / 44100), segments.get(1).offset());
+        assertEquals(audio.length, segments.stream().mapToInt(segment -> segment.audio().length).sum());
+    }
+
+    @Test
+    void shouldNotSplitFormatsItCannotMeasure() {
+        // Given
+        byte[] audio = "fLaC".getBytes(StandardCharsets.US_ASCII);
+
+        // When
+        List<SilenceSplitter.AudioSegment> segments = SilenceSplitter.split(audio, AudioFormat.FLAC, SETTINGS);
+
+        // Then
+        assertEquals(List.of(audio), segments.stream().map(SilenceSplitter.AudioSegment::audio).toList());
+    }
+
+    /**
+     * 16 bit mono PCM at 8000 Hz, each part is {seconds of tone, seconds of silence}.
+     */
+    private static byte[] wav(double[]... parts) {
+        int samples = 0;
+        for (double[] part : parts) {
+            samples += (int) Math.round((part[0] + part[1]) * SAMPLE_RATE);
+        }
+        ByteBuffer wav = ByteBuffer.allocate(44 + samples * 2).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(36 + samples * 2).put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        wav.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16).putShort((short) 1).putShort((short) 1)
+                .putInt(SAMPLE_RATE).putInt(SAMPLE_RATE * 2).putShort((short) 2).putShort((short) 16);
+        wav.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(samples * 2);
+        for (double[] part : parts) {
+            int tone = (int) Math.round(part[0] * SAMPLE_RATE);
+            for (int i = 0; i < tone; i++) {
+                wav.putShort((short) (8000 * Math.sin(2 * Math.PI * 440 * i / SAMPLE_RATE)));
+            }
+            int silence = (int) Math.round(part[1] * SAMPLE_RATE);
+            for (int i = 0; i < silence; i++) {
+                // Background noise well below the threshold
+                wav.putShort((short) (i % 2 == 0 ? 3 : -3));
+            }
+        }
+        return wav.array();
+    }
+
+    /**
+     * MPEG-1 Layer III frames at 128 kbit/s, 44100 Hz, stereo. Silent frames spend no bits on any granule.
+     */
+    private static byte[] mp3(int frames, boolean silent) {
+        byte[] audio = new byte[frames * MP3_FRAME_LENGTH];
+        for (int offset = 0; offset < audio.length; offset += MP3_FRAME_LENGTH) {
+            audio[offset] = (byte) 0xFF;
+            audio[offset + 1] = (byte) 0xFB;
+            audio[offset + 2] = (byte) 0x90;
+            if (!silent) {
+                // part2_3_length of the first granule
+                audio[offset + 6] = 0x0F;
+                audio[offset + 7] = (byte) 0xFF;
+            }
+        }
+        return audio;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteBuffer buffer = ByteBuffer.allocate(Arrays.stream(parts).mapToInt(part -> part.length).sum());
+        for (byte[] part : parts) {
+            buffer.put(part);
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,155 @@
+package com.productdock.audio;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingSilenceSplitterTest {
+
+    private static final int SAMPLE_RATE = 8000;
+    private static final int MP3_FRAME_LENGTH = 417;
+    private static final SilenceSplitter.SplitSettings SETTINGS =
+            new SilenceSplitter.SplitSettings(Duration.ofSeconds(10), Duration.ofMillis(300), -45);
+
+    @Test
+    void shouldSplitWavInFirstPauseAfterTheSegmentLength() throws IOException {
+        // Given
+        // Pauses at 4 s, too early, at 10.3 s, too short, at 10.8 s and at 20.5 s
+        byte[] audio = wav(new double[]{4, 1}, new double[]{5.3, 0.2}, new double[]{0.3, 1}, new double[]{8.7, 1}, new double[]{9, 0});
+
+        // When
+        List<StreamingSilenceSplitter.StreamedSegment> streamed = new ArrayList<>();
+        List<byte[]> segments = split(audio, AudioFormat.WAV, streamed);
+
+        // Then
+        assertEquals(List.of(Duration.ZERO, Duration.ofMillis(10940), Duration.ofMillis(21080)),
+                streamed.stream().map(StreamingSilenceSplitter.StreamedSegment::offset).toList());
+        int dataBytes = 0;
+        for (byte[] segment : segments) {
+            assertEquals(AudioFormat.WAV, AudioProbe.probe(segment, false).format());
+            // The sizes are not known while the segment is streamed
+            assertEquals(-1, SilenceSplitter.readIntLe(segment, 4));
+            assertEquals(-1, SilenceSplitter.readIntLe(segment, 40));
+            dataBytes += segment.length - 44;
+        }
+        assertEquals(audio.length - 44, dataBytes);
+        assertArrayEquals(Arrays.copyOfRange(audio, 44, 44 + segments.get(0).length - 44),
+                Arrays.copyOfRange(segments.get(0), 44, segments.get(0).length));
+    }
+
+    @Test
+    void shouldSplitMp3WithoutItsTags() throws IOException {
+        // Given
+        byte[] tag = {'I', 'D', '3', 3, 0, 0, 0, 0, 0, 4, 1, 2, 3, 4};
+        byte[] audio = concat(tag, mp3(380, false), mp3(20, true), mp3(380, false), mp3(20, true), mp3(350, false));
+
+        // When
+        List<StreamingSilenceSplitter.StreamedSegment> streamed = new ArrayList<>();
+        List<byte[]> segments = split(audio, AudioFormat.MP3, streamed);
+
+        // Then
+        assertEquals(List.of(389 * MP3_FRAME_LENGTH, 397 * MP3_FRAME_LENGTH, 364 * MP3_FRAME_LENGTH),
+                segments.stream().map(segment -> segment.length).toList());
+        assertEquals(Duration.ofMillis(389L * 1152 * 1000 / 44100), streamed.get(1).offset());
+        assertArrayEquals(Arrays.copyOfRange(audio, tag.length, tag.length + segments.get(0).length), segments.get(0));
+    }
+
+    @Test
+    void shouldPassFormatsItCannotMeasureThroughWhole() throws IOException {
+        // Given
+        byte[] audio = concat("fLaC".getBytes(StandardCharsets.US_ASCII), new byte[200_000]);
+
+        // When
+        List<byte[]> segments = split(audio, AudioFormat.FLAC, new ArrayList<>());
+
+        // Then
+        assertEquals(1, segments.size());
+        assertArrayEquals(audio, segments.get(0));
+    }
+
+    @Test
+    void shouldRefuseNextSegmentBeforeTheLastIsRead() throws IOException {
+        // Given
+        StreamingSilenceSplitter splitter = new StreamingSilenceSplitter(new ByteArrayInputStream(wav(new double[]{30, 0})),
+                AudioFormat.WAV, SETTINGS);
+        splitter.nextSegment().audio().readNBytes(100);
+
+        // When/Then
+        assertThrows(IllegalStateException.class, splitter::nextSegment);
+    }
+
+    private static List<byte[]> split(byte[] audio, AudioFormat format, List<StreamingSilenceSplitter.StreamedSegment> streamed)
+            throws IOException {
+        StreamingSilenceSplitter splitter = new StreamingSilenceSplitter(new ByteArrayInputStream(audio), format, SETTINGS);
+        List<byte[]> segments = new ArrayList<>();
+        StreamingSilenceSplitter.StreamedSegment segment;
+        while ((segment = splitter.nextSegment()) != null) {
+            streamed.add(segment);
+            segments.add(segment.audio().readAllBytes());
+        }
+        return segments;
+    }
+
+    /**
+     * 16 bit mono PCM at 8000 Hz, each part is {seconds of tone, seconds of silence}.
+     */
+    private static byte[] wav(double[]... parts) {
+        int samples = 0;
+        for (double[] part : parts) {
+            samples += (int) Math.round((part[0] + part[1]) * SAMPLE_RATE);
+        }
+        ByteBuffer wav = ByteBuffer.allocate(44 + samples * 2).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(36 + samples * 2).put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        wav.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16).putShort((short) 1).putShort((short) 1)
+                .putInt(SAMPLE_RATE).putInt(SAMPLE_RATE * 2).putShort((short) 2).putShort((short) 16);
+        wav.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(samples * 2);
+        for (double[] part : parts) {
+            int tone = (int) Math.round(part[0] * SAMPLE_RATE);
+            for (int i = 0; i < tone; i++) {
+                wav.putShort((short) (8000 * Math.sin(2 * Math.PI * 440 * i / SAMPLE_RATE)));
+            }
+            int silence = (int) Math.round(part[1] * SAMPLE_RATE);
+            for (int i = 0; i < silence; i++) {
+                // Background noise well below the threshold
+                wav.putShort((short) (i % 2 == 0 ? 3 : -3));
+            }
+        }
+        return wav.array();
+    }
+
+    /**
+     * MPEG-1 Layer III frames at 128 kbit/s, 44100 Hz, stereo. Silent frames spend no bits on any granule.
+     */
+    private static byte[] mp3(int frames, boolean silent) {
+        byte[] audio = new byte[frames * MP3_FRAME_LENGTH];
+        for (int offset = 0; offset < audio.length; offset += MP3_FRAME_LENGTH) {
+            audio[offset] = (byte) 0xFF;
+            audio[offset + 1] = (byte) 0xFB;
+            audio[offset + 2] = (byte) 0x90;
+            if (!silent) {
+                // part2_3_length of the first granule
+                audio[offset + 6] = 0x0F;
+                audio[offset + 7] = (byte) 0xFF;
+            }
+        }
+        return audio;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteBuffer buffer = ByteBuffer.allocate(Arrays.stream(parts).mapToInt(part -> part.length).sum());
+        for (byte[] part : parts) {
+            buffer.put(part);
+        }
+        return buffer.array();
+    }
+}
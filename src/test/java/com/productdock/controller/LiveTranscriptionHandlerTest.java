@@ -0,0 +1,113 @@
+package com.productdock.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.productdock.audio.LiveAudioEncoding;
+import com.productdock.exception.TooManyRequestsException;
+import com.productdock.model.LiveTranscriptionSettings;
+import com.productdock.service.LiveTranscription;
+import com.productdock.service.LiveTranscriptionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LiveTranscriptionHandlerTest {
+
+    @Mock
+    private LiveTranscriptionService liveTranscriptionService;
+
+    @Mock
+    private WebSocketSession session;
+
+    @Mock
+    private LiveTranscription liveTranscription;
+
+    private final Map<String, Object> attributes = new HashMap<>();
+    private LiveTranscriptionHandler liveTranscriptionHandler;
+
+    @BeforeEach
+    void setUp() {
+        liveTranscriptionHandler = new LiveTranscriptionHandler(liveTranscriptionService, new ObjectMapper());
+        ReflectionTestUtils.setField(liveTranscriptionHandler, "sendTimeLimitMillis", 1000);
+        ReflectionTestUtils.setField(liveTranscriptionHandler, "sendBufferBytes", 1024);
+        lenient().when(session.getAttributes()).thenReturn(attributes);
+    }
+
+    @Test
+    void shouldRejectUnsupportedAudioSettings() throws Exception {
+        // Given
+        when(session.getUri()).thenReturn(URI.create("ws://localhost/api/speech-to-text/live?encoding=mp3&sample-rate=16000&language=en-US"));
+
+        // When
+        liveTranscriptionHandler.afterConnectionEstablished(session);
+
+        // Then
+        verify(session).close(argThat(status -> status.getCode() == CloseStatus.BAD_DATA.getCode()));
+        verifyNoInteractions(liveTranscriptionService);
+    }
+
+    @Test
+    void shouldForwardAudioFramesAndEndOfAudio() throws Exception {
+        // Given
+        when(session.getUri()).thenReturn(URI.create("ws://localhost/api/speech-to-text/live?encoding=pcm&sample-rate=16000&language=en-US"));
+        when(liveTranscriptionService.start(eq(new LiveTranscriptionSettings(LiveAudioEncoding.PCM, 16000, "en-US")), any()))
+                .thenReturn(liveTranscription);
+        when(liveTranscription.completion()).thenReturn(new CompletableFuture<>());
+        when(liveTranscription.sendAudio(any())).thenReturn(true);
+        liveTranscriptionHandler.afterConnectionEstablished(session);
+
+        // When
+        liveTranscriptionHandler.handleMessage(session, new BinaryMessage(new byte[]{1, 2, 3}));
+        liveTranscriptionHandler.handleMessage(session, new TextMessage("end"));
+
+        // Then
+        verify(liveTranscription).sendAudio(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        verify(liveTranscription).finish();
+        verify(session, never()).close(any());
+    }
+
+    @Test
+    void shouldDisconnectClientSendingFasterThanTranscribed() throws Exception {
+        // Given
+        when(session.getUri()).thenReturn(URI.create("ws://localhost/api/speech-to-text/live?encoding=flac&sample-rate=44100&language=en-GB"));
+        when(liveTranscriptionService.start(any(), any())).thenReturn(liveTranscription);
+        when(liveTranscription.completion()).thenReturn(new CompletableFuture<>());
+        when(liveTranscription.sendAudio(any())).thenReturn(false);
+        liveTranscriptionHandler.afterConnectionEstablished(session);
+
+        // When
+        liveTranscriptionHandler.handleMessage(session, new BinaryMessage(new byte[]{1}));
+
+        // Then
+        verify(session).close(argThat(status -> status.getCode() == CloseStatus.SERVICE_OVERLOAD.getCode()));
+    }
+
+    @Test
+    void shouldDisconnectWhenTooManyTranscriptionsRun() throws Exception {
+        // Given
+        when(session.getUri()).thenReturn(URI.create("ws://localhost/api/speech-to-text/live?encoding=pcm&sample-rate=8000&language=en-US"));
+        when(liveTranscriptionService.start(any(), any())).thenThrow(new TooManyRequestsException("Too many live transcriptions"));
+
+        // When
+        liveTranscriptionHandler.afterConnectionEstablished(session);
+
+        // Then
+        verify(session).close(argThat(status -> status.getCode() == CloseStatus.SERVICE_OVERLOAD.getCode()));
+    }
+}
@@ -0,0 +1,123 @@
+package com.productdock.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultipartStreamReaderTest {
+
+    private static final String BOUNDARY = "----WebKitFormBoundary7MA4YWxkTrZu0gW";
+
+    @Test
+    void shouldReadPartsOneByOne() throws IOException {
+        // Given
+        byte[] body = ("preamble\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"language\"\r\n\r\n"
+                + "en-US\r\n"
+                + "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"audioFile\"; filename=\"test.mp3\"\r\n"
+                + "Content-Type: audio/mpeg\r\n\r\n"
+                + "audio-content\r\n"
+                + "--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        MultipartStreamReader reader = new MultipartStreamReader(new ByteArrayInputStream(body), BOUNDARY, Long.MAX_VALUE);
+
+        // When
+        Map<String, String> first = reader.nextPart();
+        Map<String, String> second = reader.nextPart();
+        byte[] audio = reader.getPartStream().readAllBytes();
+        Map<String, String> end = reader.nextPart();
+
+        // Then
+        assertEquals("language", MultipartStreamReader.getFieldName(first));
+        assertEquals("audioFile", MultipartStreamReader.getFieldName(second));
+        assertEquals("audio/mpeg", second.get("content-type"));
+        assertEquals("audio-content", new String(audio, StandardCharsets.ISO_8859_1));
+        assertNull(end);
+    }
+
+    @Test
+    void shouldReadBinaryPartDeliveredInSmallChunks() throws IOException {
+        // Given
+        byte[] audio = new byte[300_000];
+        new Random(42).nextBytes(audio);
+        // Bytes that look like the start of the boundary must stay part of the audio
+        byte[] lookalike = ("\r\n--" + BOUNDARY.substring(0, 10)).getBytes(StandardCharsets.ISO_8859_1);
+        System.arraycopy(lookalike, 0, audio, 65_530, lookalike.length);
+        InputStream body = trickle(multipartBody(audio), 7_919);
+        MultipartStreamReader reader = new MultipartStreamReader(body, BOUNDARY, Long.MAX_VALUE);
+
+        // When
+        reader.nextPart();
+        byte[] read = reader.getPartStream().readAllBytes();
+
+        // Then
+        assertArrayEquals(audio, read);
+        assertNull(reader.nextPart());
+    }
+
+    @Test
+    void shouldRejectPartLargerThanLimit() throws IOException {
+        // Given
+        MultipartStreamReader reader = new MultipartStreamReader(
+                new ByteArrayInputStream(multipartBody(new byte[1024])), BOUNDARY, 1000);
+        reader.nextPart();
+
+        // When/Then
+        MultipartStreamReader.PartTooLargeException exception = assertThrows(MultipartStreamReader.PartTooLargeException.class,
+                () -> reader.getPartStream().readAllBytes());
+        assertEquals(1000, exception.getMaxPartBytes());
+    }
+
+    @Test
+    void shouldFailOnTruncatedBody() throws IOException {
+        // Given
+        byte[] body = ("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"audioFile\"\r\n\r\n"
+                + "audio-cont").getBytes(StandardCharsets.ISO_8859_1);
+        MultipartStreamReader reader = new MultipartStreamReader(new ByteArrayInputStream(body), BOUNDARY, Long.MAX_VALUE);
+        reader.nextPart();
+
+        // When/Then
+        assertThrows(IOException.class, () -> reader.getPartStream().readAllBytes());
+    }
+
+    @Test
+    void shouldExtractBoundaryFromContentType() {
+        // When/Then
+        assertEquals(BOUNDARY, MultipartStreamReader.getBoundary("multipart/form-data; boundary=" + BOUNDARY));
+        assertEquals("quoted boundary", MultipartStreamReader.getBoundary("multipart/form-data; boundary=\"quoted boundary\"; charset=UTF-8"));
+        assertNull(MultipartStreamReader.getBoundary("multipart/form-data"));
+    }
+
+    private static byte[] multipartBody(byte[] audio) {
+        byte[] head = ("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"audioFile\"; filename=\"test.mp3\"\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        byte[] end = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        byte[] body = new byte[head.length + audio.length + end.length];
+        System.arraycopy(head, 0, body, 0, head.length);
+        System.arraycopy(audio, 0, body, head.length, audio.length);
+        System.arraycopy(end, 0, body, head.length + audio.length, end.length);
+        return body;
+    }
+
+    /**
+     * Delivers the body in chunks of the given size, like a slow network connection.
+     */
+    private static InputStream trickle(byte[] body, int chunkSize) {
+        return new FilterInputStream(new ByteArrayInputStream(body)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, chunkSize));
+            }
+        };
+    }
+}
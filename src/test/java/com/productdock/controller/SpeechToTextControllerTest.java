@@ -1,8 +1,14 @@
 package com.productdock.controller;
 
+import com.productdock.exception.TranscriptionJobNotFoundException;
+import com.productdock.exception.UnsupportedAudioException;
 import com.productdock.exception._GlobalExceptionHandler;
+import com.productdock.model.CaptionFormat;
+import com.productdock.model.TranscriptItem;
+import com.productdock.model.TranscriptItemsPage;
 import com.productdock.model.TranscriptionJobResponse;
 import com.productdock.service.SpeechToTextService;
+import com.productdock.service.TranscriptionStatusWatcher;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -11,12 +17,27 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +48,9 @@ class SpeechToTextControllerTest {
     @Mock
     private SpeechToTextService speechToTextService;
 
+    @Mock
+    private TranscriptionStatusWatcher transcriptionStatusWatcher;
+
     @InjectMocks
     private SpeechToTextController speechToTextController;
 
@@ -44,16 +68,20 @@ class SpeechToTextControllerTest {
         MockMultipartFile mockFile = new MockMultipartFile("audioFile", "test.mp3", "audio/mpeg", "audio-content".getBytes());
         TranscriptionJobResponse response = new TranscriptionJobResponse("job-123", "IN_PROGRESS", null);
 
-        when(speechToTextService.startTranscriptionJob(any())).thenReturn(response);
+        when(speechToTextService.startTranscriptionJob(any(MultipartFile.class))).thenReturn(response);
 
         // When
-        mockMvc.perform(multipart("/api/speech-to-text")
+        MvcResult result = mockMvc.perform(multipart("/api/speech-to-text")
                         .file(mockFile))
+                        .andExpect(request().asyncStarted())
+                        .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                         .andExpect(status().isOk())
                         .andExpect(content().contentType(MediaType.APPLICATION_JSON));
 
         // Then
-        verify(speechToTextService, times(1)).startTranscriptionJob(any());
+        verify(speechToTextService, times(1)).startTranscriptionJob(any(MultipartFile.class));
     }
 
     @Test
@@ -62,13 +90,67 @@ class SpeechToTextControllerTest {
         MockMultipartFile emptyFile = new MockMultipartFile("audioFile", "", "audio/mpeg", new byte[0]);
 
         // When
-        mockMvc.perform(multipart("/api/speech-to-text")
+        MvcResult result = mockMvc.perform(multipart("/api/speech-to-text")
                         .file(emptyFile))
+                        .andExpect(request().asyncStarted())
+                        .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                         .andExpect(status().isBadRequest())
                         .andExpect(content().contentType(MediaType.APPLICATION_JSON));
 
         // Then
-        verify(speechToTextService, never()).startTranscriptionJob(any());
+        verify(speechToTextService, never()).startTranscriptionJob(any(MultipartFile.class));
+    }
+
+    @Test
+    void shouldRejectUnsupportedAudioWithUnsupportedMediaType() throws Exception {
+        // Given
+        MockMultipartFile mockFile = new MockMultipartFile("audioFile", "notes.txt", "audio/mpeg", "not audio".getBytes());
+        when(speechToTextService.startTranscriptionJob(any(MultipartFile.class)))
+                .thenThrow(new UnsupportedAudioException("Unsupported audio format"));
+
+        // When/Then
+        mockMvc.perform(multipart("/api/speech-to-text").file(mockFile))
+                .andExpect(status().isUnsupportedMediaType())
+                .andExpect(jsonPath("$.error").value("Unsupported audio format"));
+    }
+
+    @Test
+    void shouldStartTranscriptionJobFromStreamedUpload() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(speechToTextController, "maxStreamedFileBytes", 1024L);
+        String boundary = "test-boundary";
+        String body = "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"audioFile\"; filename=\"test.mp3\"\r\n"
+                + "Content-Type: audio/mpeg\r\n\r\n"
+                + "audio-content\r\n"
+                + "--" + boundary + "--\r\n";
+        when(speechToTextService.startTranscriptionJob(any(InputStream.class))).thenAnswer(invocation -> {
+            assertEquals("audio-content", new String(invocation.<InputStream>getArgument(0).readAllBytes(), StandardCharsets.UTF_8));
+            return new TranscriptionJobResponse("job-123", "IN_PROGRESS", null);
+        });
+
+        // When/Then
+        mockMvc.perform(post("/api/speech-to-text/stream")
+                        .contentType("multipart/form-data; boundary=" + boundary)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.jobName").value("job-123"));
+    }
+
+    @Test
+    void shouldRejectStreamedUploadWithoutAudio() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(speechToTextController, "maxStreamedFileBytes", 1024L);
+        String body = "--test-boundary\r\nContent-Disposition: form-data; name=\"language\"\r\n\r\nen-US\r\n--test-boundary--\r\n";
+
+        // When/Then
+        mockMvc.perform(post("/api/speech-to-text/stream")
+                        .contentType("multipart/form-data; boundary=test-boundary")
+                        .content(body))
+                .andExpect(status().isBadRequest());
+        verify(speechToTextService, never()).startTranscriptionJob(any(InputStream.class));
     }
 
     @Test
@@ -80,9 +162,14 @@ class SpeechToTextControllerTest {
         // When
         when(speechToTextService.getTranscriptionJobStatus(jobName)).thenReturn(response);
 
-        mockMvc.perform(get("/api/speech-to-text/status/{jobName}", jobName))
+        MvcResult result = mockMvc.perform(get("/api/speech-to-text/status/{jobName}", jobName))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
-                .andExpect(header().string("Cache-Control", "no-store, must-revalidate"))
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andExpect(header().exists("ETag"))
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.jobName").value(jobName))
                 .andExpect(jsonPath("$.jobStatus").value("COMPLETED"))
@@ -91,4 +178,248 @@ class SpeechToTextControllerTest {
         // Then
         verify(speechToTextService, times(1)).getTranscriptionJobStatus(jobName);
     }
+
+    @Test
+    void shouldReturnNotModifiedWhenStatusIsUnchanged() throws Exception {
+        // Given
+        String jobName = "job-123";
+        when(speechToTextService.getTranscriptionJobStatus(jobName))
+                .thenReturn(new TranscriptionJobResponse(jobName, "COMPLETED", "This is my test voice recording."));
+        MvcResult first = mockMvc.perform(get("/api/speech-to-text/status/{jobName}", jobName)).andReturn();
+        String etag = mockMvc.perform(asyncDispatch(first)).andReturn().getResponse().getHeader("ETag");
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/speech-to-text/status/{jobName}", jobName)
+                        .header("If-None-Match", etag))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void shouldReturnNotModifiedWhenETagIsInListOrWeak() throws Exception {
+        // Given
+        String jobName = "job-123";
+        when(speechToTextService.getTranscriptionJobStatus(jobName))
+                .thenReturn(new TranscriptionJobResponse(jobName, "IN_PROGRESS", null));
+        MvcResult first = mockMvc.perform(get("/api/speech-to-text/status/{jobName}", jobName)).andReturn();
+        String etag = mockMvc.perform(asyncDispatch(first)).andReturn().getResponse().getHeader("ETag");
+
+        for (String ifNoneMatch : new String[]{"\"other\", " + etag, "W/" + etag, "*"}) {
+            // When
+            MvcResult result = mockMvc.perform(get("/api/speech-to-text/status/{jobName}", jobName)
+                            .header("If-None-Match", ifNoneMatch))
+                    .andReturn();
+
+            // Then
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string("ETag", etag))
+                    .andExpect(content().string(""));
+        }
+    }
+
+    @Test
+    void shouldAnswerRevalidationOfFinishedJobFromCachedETag() throws Exception {
+        // Given
+        String jobName = "job-123";
+        String etag = "\"0123456789abcdef\"";
+        when(speechToTextService.findResultETag(jobName)).thenReturn(Optional.of(etag));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/speech-to-text/status/{jobName}", jobName)
+                        .header("If-None-Match", etag))
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues("ETag", etag))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+        verify(speechToTextService, never()).getTranscriptionJobStatus(jobName);
+    }
+
+    @Test
+    void shouldReturnCachedETagWithChangedStatus() throws Exception {
+        // Given
+        String jobName = "job-123";
+        String etag = "\"0123456789abcdef\"";
+        when(speechToTextService.findResultETag(jobName)).thenReturn(Optional.of(etag));
+        when(speechToTextService.getTranscriptionJobStatus(jobName))
+                .thenReturn(new TranscriptionJobResponse(jobName, "COMPLETED", "This is my test voice recording."));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/speech-to-text/status/{jobName}", jobName)
+                        .header("If-None-Match", "\"stale\""))
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues("ETag", etag))
+                .andExpect(jsonPath("$.jobStatus").value("COMPLETED"));
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownJob() throws Exception {
+        // Given
+        when(speechToTextService.getTranscriptionJobStatus("job-unknown"))
+                .thenThrow(new TranscriptionJobNotFoundException("Transcription job not found: job-unknown"));
+
+        // When/Then
+        mockMvc.perform(get("/api/speech-to-text/status/{jobName}", "job-unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void shouldStreamTranscriptOfCompletedJob() throws Exception {
+        // Given
+        when(speechToTextService.isTranscriptAvailable("job-123")).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write("This is my test voice recording.".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(speechToTextService).writeTranscript(eq("job-123"), any());
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/speech-to-text/transcript/{jobName}", "job-123"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_PLAIN))
+                .andExpect(content().string("This is my test voice recording."));
+    }
+
+    @Test
+    void shouldNotStreamTranscriptOfRunningJob() throws Exception {
+        // Given
+        when(speechToTextService.isTranscriptAvailable("job-123")).thenReturn(false);
+
+        // When/Then
+        mockMvc.perform(get("/api/speech-to-text/transcript/{jobName}", "job-123"))
+                .andExpect(status().isConflict());
+        verify(speechToTextService, never()).writeTranscript(any(), any());
+    }
+
+    @Test
+    void shouldReturnPageOfTranscriptItems() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(speechToTextController, "maxPageItems", 1000);
+        when(speechToTextService.isTranscriptAvailable("job-123")).thenReturn(true);
+        when(speechToTextService.getTranscriptItems("job-123", 100, 2)).thenReturn(new TranscriptItemsPage("job-123", 100, 250,
+                List.of(new TranscriptItem(TranscriptItem.PRONUNCIATION, "Hello", 40.5, 40.9, 0.99))));
+
+        // When/Then
+        mockMvc.perform(get("/api/speech-to-text/items/{jobName}", "job-123").param("offset", "100").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalItems").value(250))
+                .andExpect(jsonPath("$.items[0].content").value("Hello"))
+                .andExpect(jsonPath("$.items[0].startSeconds").value(40.5));
+    }
+
+    @Test
+    void shouldReturnFirstPageOfTranscriptItemsByDefault() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(speechToTextController, "maxPageItems", 1000);
+        when(speechToTextService.isTranscriptAvailable("job-123")).thenReturn(true);
+        when(speechToTextService.getTranscriptItems("job-123", 0, 500)).thenReturn(new TranscriptItemsPage("job-123", 0, 250, List.of()));
+
+        // When/Then
+        mockMvc.perform(get("/api/speech-to-text/items/{jobName}", "job-123"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalItems").value(250));
+    }
+
+    @Test
+    void shouldRejectTooLargePageOfTranscriptItems() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(speechToTextController, "maxPageItems", 1000);
+
+        // When/Then
+        mockMvc.perform(get("/api/speech-to-text/items/{jobName}", "job-123").param("limit", "1001"))
+                .andExpect(status().isBadRequest());
+        verify(speechToTextService, never()).getTranscriptItems(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void shouldStreamCaptionsOfCompletedJob() throws Exception {
+        // Given
+        when(speechToTextService.isTranscriptAvailable("job-123")).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(2).write("WEBVTT\n\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(speechToTextService).writeCaptions(eq("job-123"), eq(CaptionFormat.VTT), any());
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/speech-to-text/captions/{jobName}", "job-123").param("format", "vtt"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/vtt"))
+                .andExpect(content().string("WEBVTT\n\n"));
+    }
+
+    @Test
+    void shouldRejectUnknownCaptionFormat() throws Exception {
+        // When/Then
+        mockMvc.perform(get("/api/speech-to-text/captions/{jobName}", "job-123").param("format", "ttml"))
+                .andExpect(status().isBadRequest());
+        verify(speechToTextService, never()).isTranscriptAvailable(any());
+    }
+
+    @Test
+    void shouldStartTranscriptionJobWithAsyncServiceWhenAsyncModeIsEnabled() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(speechToTextController, "asyncEnabled", true);
+        MockMultipartFile mockFile = new MockMultipartFile("audioFile", "test.mp3", "audio/mpeg", "audio-content".getBytes());
+        CompletableFuture<TranscriptionJobResponse> response = new CompletableFuture<>();
+
+        when(speechToTextService.startTranscriptionJobAsync(any())).thenReturn(response);
+
+        // When
+        MvcResult result = mockMvc.perform(multipart("/api/speech-to-text")
+                        .file(mockFile))
+                        .andExpect(request().asyncStarted())
+                        .andReturn();
+        response.complete(new TranscriptionJobResponse("job-123", "IN_PROGRESS", null));
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.jobName").value("job-123"));
+        verify(speechToTextService, never()).startTranscriptionJob(any(MultipartFile.class));
+    }
+
+    @Test
+    void shouldStreamJobStatusEvents() throws Exception {
+        // Given
+        SseEmitter emitter = new SseEmitter();
+        when(transcriptionStatusWatcher.subscribe("job-123")).thenReturn(emitter);
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/speech-to-text/events/{jobName}", "job-123"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        emitter.send(SseEmitter.event().name("status")
+                .data(new TranscriptionJobResponse("job-123", "COMPLETED", "Hello"), MediaType.APPLICATION_JSON));
+        emitter.complete();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(content().string(containsString("event:status")))
+                .andExpect(content().string(containsString("\"transcript\":\"Hello\"")));
+        verify(speechToTextService, never()).getTranscriptionJobStatus(any());
+    }
 }
@@ -0,0 +1,222 @@
+package com.productdock.controller;
+
+import com.productdock.audio.AudioFormat;
+import com.productdock.model.UploadedAudio;
+import com.productdock.repository.S3Repository;
+import com.productdock.resilience.Bulkhead;
+import com.productdock.resilience.CircuitBreaker;
+import com.productdock.resilience.DependencyGuard;
+import com.productdock.resilience.RetryBudget;
+import com.productdock.resilience.RetryPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures the live heap of the streaming upload against the size of the uploaded file.
+ * S3 is replaced by a stub that reads and discards the parts, so only the ingest path is measured.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}, which runs it on a 256 MB heap.
+ */
+@Tag("benchmark")
+class StreamingUploadBenchmarkTest {
+    private static final long MB = 1024 * 1024;
+    private static final int PART_SIZE_BYTES = (int) (8 * MB);
+    private static final int MAX_IN_FLIGHT_PARTS = 4;
+    private static final String BOUNDARY = "benchmark-boundary";
+
+    private ExecutorService uploadExecutor;
+    private S3Repository s3Repository;
+
+    @BeforeEach
+    void setUp() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        uploadExecutor = Executors.newFixedThreadPool(16);
+        s3Repository = new S3Repository(new DiscardingS3Client(), null,
+                new RetryPolicy("s3", 1, Duration.ZERO, Duration.ZERO, new RetryBudget(1, 0, 10), meterRegistry),
+                new DependencyGuard("S3", new CircuitBreaker("s3", 50, 10, 10, Duration.ofSeconds(30), 1, meterRegistry),
+                        new Bulkhead("s3", 20, Duration.ofSeconds(1), meterRegistry), meterRegistry),
+                uploadExecutor);
+        ReflectionTestUtils.setField(s3Repository, "bucketName", "benchmark-bucket");
+        ReflectionTestUtils.setField(s3Repository, "partSizeBytes", PART_SIZE_BYTES);
+        ReflectionTestUtils.setField(s3Repository, "maxInFlightParts", MAX_IN_FLIGHT_PARTS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploadExecutor.shutdownNow();
+    }
+
+    @Test
+    void heapUseShouldNotGrowWithFileSize() throws Exception {
+        long[] sizes = {64 * MB, 256 * MB, 1024 * MB};
+        long[] heapGrowth = new long[sizes.length];
+
+        System.out.printf("%12s %12s %14s %18s%n", "file size", "time", "throughput", "peak live heap");
+        for (int i = 0; i < sizes.length; i++) {
+            long started = System.nanoTime();
+            heapGrowth[i] = measurePeakHeapGrowth(sizes[i]);
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            System.out.printf("%9d MB %9d ms %9d MB/s %15d MB%n",
+                    sizes[i] / MB, millis, sizes[i] / MB * 1000 / Math.max(millis, 1), heapGrowth[i] / MB);
+        }
+
+        // The part buffers bound the heap, whatever the size of the file
+        long bound = (MAX_IN_FLIGHT_PARTS + 1) * PART_SIZE_BYTES + 16 * MB;
+        for (long growth : heapGrowth) {
+            assertTrue(growth < bound, "Peak heap growth " + growth / MB + " MB exceeds " + bound / MB + " MB");
+        }
+        assertTrue(heapGrowth[2] < heapGrowth[0] + 16 * MB, "Heap grew with the file size");
+    }
+
+    /**
+     * Streams a generated multipart request of the given size to the stub S3 and samples the live heap meanwhile.
+     */
+    private long measurePeakHeapGrowth(long size) throws Exception {
+        long baseline = liveHeap();
+        AtomicLong peak = new AtomicLong(baseline);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread sampler = new Thread(() -> {
+            while (running.get()) {
+                peak.accumulateAndGet(liveHeap(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.start();
+        try {
+            MultipartStreamReader reader = new MultipartStreamReader(new GeneratedMultipartBody(size), BOUNDARY, Long.MAX_VALUE);
+            reader.nextPart();
+            UploadedAudio uploadedAudio = s3Repository.uploadAudioStream(reader.getPartStream(), AudioFormat.MP3);
+            assertEquals(size, uploadedAudio.sizeBytes());
+        } finally {
+            running.set(false);
+            sampler.join();
+        }
+        return peak.get() - baseline;
+    }
+
+    private static long liveHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * A multipart request with one audio part of the given size, generated as it is read.
+     */
+    private static class GeneratedMultipartBody extends InputStream {
+        private static final byte[] PATTERN = new byte[64 * 1024 + 7];
+
+        static {
+            new Random(42).nextBytes(PATTERN);
+        }
+
+        private final byte[] head = ("--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"audioFile\"; filename=\"long.mp3\"\r\n"
+                + "Content-Type: audio/mpeg\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        private final byte[] end = ("\r\n--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.ISO_8859_1);
+        private final long total;
+        private long position;
+
+        GeneratedMultipartBody(long audioBytes) {
+            this.total = head.length + audioBytes + end.length;
+        }
+
+        @Override
+        public int read() {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position >= total) {
+                return -1;
+            }
+            int count = (int) Math.min(len, total - position);
+            for (int i = 0; i < count; i++) {
+                b[off + i] = byteAt(position + i);
+            }
+            position += count;
+            return count;
+        }
+
+        private byte byteAt(long at) {
+            if (at < head.length) {
+                return head[(int) at];
+            }
+            long endStart = total - end.length;
+            if (at >= endStart) {
+                return end[(int) (at - endStart)];
+            }
+            return PATTERN[(int) ((at - head.length) % PATTERN.length)];
+        }
+    }
+
+    /**
+     * Accepts multipart uploads and reads the parts like the SDK would send them, without keeping them.
+     */
+    private static class DiscardingS3Client implements S3Client {
+
+        @Override
+        public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+            return CreateMultipartUploadResponse.builder().uploadId("benchmark-upload").build();
+        }
+
+        @Override
+        public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+            try (InputStream in = body.contentStreamProvider().newStream()) {
+                in.transferTo(OutputStream.nullOutputStream());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return UploadPartResponse.builder().eTag("etag-" + request.partNumber()).build();
+        }
+
+        @Override
+        public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+            return CompleteMultipartUploadResponse.builder().build();
+        }
+
+        @Override
+        public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+            return AbortMultipartUploadResponse.builder().build();
+        }
+
+        @Override
+        public String serviceName() {
+            return "s3";
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.productdock.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.productdock.exception._GlobalExceptionHandler;
+import com.productdock.exception.AudioNotFoundException;
+import com.productdock.model.SynthesizedSpeech;
 import com.productdock.model.TextToSpeechRequest;
 import com.productdock.service.TextToSpeechService;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,17 +13,18 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.io.ByteArrayInputStream;
 
 import static org.mockito.Mockito.*;
-import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(MockitoExtension.class)
 class TextToSpeechControllerTest {
@@ -29,6 +32,9 @@ class TextToSpeechControllerTest {
     private MockMvc mockMvc;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    private static final String AUDIO_ID = "a".repeat(64);
+    private static final MediaType AUDIO_MPEG = MediaType.parseMediaType("audio/mpeg");
+
     @Mock
     private TextToSpeechService textToSpeechService;
 
@@ -51,20 +57,91 @@ class TextToSpeechControllerTest {
         TextToSpeechRequest request = new TextToSpeechRequest(text);
         String jsonRequest = objectMapper.writeValueAsString(request);
         InputStreamResource audio = new InputStreamResource(new ByteArrayInputStream("audio data".getBytes()));
+        SynthesizedSpeech speech = new SynthesizedSpeech(AUDIO_ID, audio, null, false);
 
         // When
-        when(textToSpeechService.convertTextToSpeech(text)).thenReturn(audio);
+        when(textToSpeechService.convertTextToSpeech(text)).thenReturn(speech);
 
-        mockMvc.perform(post("/api/text-to-speech")
+        MvcResult result = mockMvc.perform(post("/api/text-to-speech")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(jsonRequest))
+                        .andExpect(request().asyncStarted())
+                        .andReturn();
+        MvcResult streamingResult = mockMvc.perform(asyncDispatch(result))
+                        .andExpect(request().asyncStarted())
+                        .andReturn();
+
+        mockMvc.perform(asyncDispatch(streamingResult))
                         .andExpect(status().isOk())
-                        .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM));
+                        .andExpect(content().contentType(AUDIO_MPEG))
+                        .andExpect(header().string("Content-Location", "/api/text-to-speech/audio/" + AUDIO_ID))
+                        .andExpect(content().bytes("audio data".getBytes()));
 
         // Then
         verify(textToSpeechService, times(1)).convertTextToSpeech(text);
     }
 
+    @Test
+    void shouldServeCachedAudioWithLengthAndAcceptRanges() throws Exception {
+        // Given
+        TextToSpeechRequest request = new TextToSpeechRequest("Hello, World!");
+        when(textToSpeechService.convertTextToSpeech("Hello, World!")).thenReturn(cachedSpeech());
+
+        // When
+        MvcResult result = mockMvc.perform(post("/api/text-to-speech")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                        .andReturn();
+        MvcResult streamingResult = mockMvc.perform(asyncDispatch(result)).andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(streamingResult))
+                        .andExpect(status().isOk())
+                        .andExpect(header().string("Accept-Ranges", "bytes"))
+                        .andExpect(header().longValue("Content-Length", 10))
+                        .andExpect(content().bytes("0123456789".getBytes()));
+    }
+
+    @Test
+    void shouldAnswerRangeRequestWithPartialContent() throws Exception {
+        // Given
+        when(textToSpeechService.getSynthesizedSpeech(AUDIO_ID)).thenReturn(cachedSpeech());
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/text-to-speech/audio/{audioId}", AUDIO_ID)
+                        .header("Range", "bytes=2-5"))
+                        .andReturn();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                        .andExpect(status().isPartialContent())
+                        .andExpect(header().string("Content-Range", "bytes 2-5/10"))
+                        .andExpect(header().longValue("Content-Length", 4))
+                        .andExpect(content().bytes("2345".getBytes()));
+    }
+
+    @Test
+    void shouldRejectUnsatisfiableRange() throws Exception {
+        // Given
+        when(textToSpeechService.getSynthesizedSpeech(AUDIO_ID)).thenReturn(cachedSpeech());
+
+        // When/Then
+        mockMvc.perform(get("/api/text-to-speech/audio/{audioId}", AUDIO_ID)
+                        .header("Range", "bytes=20-30"))
+                        .andExpect(status().isRequestedRangeNotSatisfiable())
+                        .andExpect(header().string("Content-Range", "bytes */10"));
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownAudio() throws Exception {
+        // Given
+        when(textToSpeechService.getSynthesizedSpeech(AUDIO_ID)).thenThrow(new AudioNotFoundException("Audio not found"));
+
+        // When/Then
+        mockMvc.perform(get("/api/text-to-speech/audio/{audioId}", AUDIO_ID))
+                        .andExpect(status().isNotFound());
+    }
+
     @Test
     void shouldReturnBadRequestWhenTextIsBlank() throws Exception {
         // Given
@@ -80,4 +157,8 @@ class TextToSpeechControllerTest {
         // Then
         verify(textToSpeechService, never()).convertTextToSpeech(anyString());
     }
+
+    private SynthesizedSpeech cachedSpeech() {
+        return new SynthesizedSpeech(AUDIO_ID, new ByteArrayResource("0123456789".getBytes()), 10L, true);
+    }
 }
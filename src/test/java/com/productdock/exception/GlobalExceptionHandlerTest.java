@@ -7,12 +7,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -77,6 +81,41 @@ class GlobalExceptionHandlerTest {
         Assertions.assertNotNull(response.getBody()); // Ensure response body is not null
         assertEquals("Failed to convert text to speech", response.getBody().getError());
         assertEquals("/api/text-to-speech", response.getBody().getPath());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void shouldAddRetryAfterWhenDependencyIsUnavailable() {
+        // Given
+        DependencyUnavailableException unavailable = new DependencyUnavailableException("Polly is temporarily unavailable", Duration.ofMillis(12_300));
+        TextToSpeechServiceException exception = new TextToSpeechServiceException("Failed to convert text to speech",
+                new PollyRepositoryException("Polly is temporarily unavailable", unavailable));
+
+        // When
+        ServletWebRequest request = mockWebRequestWithUri("/api/text-to-speech");
+        ResponseEntity<ErrorResponse> response = exceptionHandler.handleTextToSpeechServiceException(exception, request);
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("13", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        Assertions.assertNotNull(response.getBody()); // Ensure response body is not null
+        assertEquals("Failed to convert text to speech", response.getBody().getError());
+    }
+
+    @Test
+    void shouldHandleDependencyUnavailableException() {
+        // Given
+        DependencyUnavailableException exception = new DependencyUnavailableException("S3 is overloaded", Duration.ZERO);
+
+        // When
+        ServletWebRequest request = mockWebRequestWithUri("/api/speech-to-text");
+        ResponseEntity<ErrorResponse> response = exceptionHandler.handleDependencyUnavailableException(exception, request);
+
+        // Then
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        Assertions.assertNotNull(response.getBody()); // Ensure response body is not null
+        assertEquals("S3 is overloaded", response.getBody().getError());
     }
 
     @Test
@@ -94,4 +133,19 @@ class GlobalExceptionHandlerTest {
         assertEquals("Failed to convert speech to text", response.getBody().getError());
         assertEquals("/api/speech-to-text", response.getBody().getPath());
     }
+
+    @Test
+    void shouldHandleAudioNotFoundException() {
+        // Given
+        AudioNotFoundException exception = new AudioNotFoundException("Audio not found: abc");
+
+        // When
+        ServletWebRequest request = mockWebRequestWithUri("/api/text-to-speech/audio/abc");
+        ResponseEntity<ErrorResponse> response = exceptionHandler.handleAudioNotFoundException(exception, request);
+
+        // Then
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        Assertions.assertNotNull(response.getBody()); // Ensure response body is not null
+        assertEquals("Audio not found: abc", response.getBody().getError());
+    }
 }
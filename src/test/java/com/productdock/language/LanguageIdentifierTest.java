@@ -0,0 +1,70 @@
+package com.productdock.language;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LanguageIdentifierTest {
+
+    private LanguageIdentifier languageIdentifier;
+
+    @BeforeEach
+    void setUp() {
+        languageIdentifier = new LanguageIdentifier();
+        languageIdentifier.init();
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "en|Could you please send me the latest version of the presentation before our call this afternoon?",
+            "de|Könnten Sie mir bitte die neueste Version der Präsentation vor unserem Gespräch heute Nachmittag schicken?",
+            "fr|Pourriez-vous m'envoyer la dernière version de la présentation avant notre appel cet après-midi ?",
+            "es|¿Podría enviarme la última versión de la presentación antes de nuestra llamada de esta tarde?",
+            "sv|Kan du skicka den senaste versionen av presentationen till mig före vårt samtal i eftermiddag?",
+            "pt|Poderia enviar-me a versão mais recente da apresentação antes da nossa chamada desta tarde?"
+    })
+    void shouldIdentifySupportedLanguagesConfidently(String expectedLanguage, String text) {
+        // When
+        LanguageIdentifier.IdentifiedLanguage result = languageIdentifier.identify(text);
+
+        // Then
+        assertEquals(expectedLanguage, result.languageCode());
+        assertTrue(result.confidence() >= 0.8, "confidence was " + result.confidence());
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "Potresti inviarmi l'ultima versione della presentazione prima della nostra chiamata di questo pomeriggio?",
+            "Kun je me de nieuwste versie van de presentatie sturen voor ons gesprek vanmiddag?",
+            "Czy możesz wysłać mi najnowszą wersję prezentacji przed naszą rozmową dzisiaj po południu?"
+    })
+    void shouldHaveNoConfidenceForUnsupportedLatinLanguage(String text) {
+        // When
+        LanguageIdentifier.IdentifiedLanguage result = languageIdentifier.identify(text);
+
+        // Then
+        assertEquals(0.0, result.confidence());
+    }
+
+    @Test
+    void shouldHaveLowConfidenceForShortText() {
+        // When
+        LanguageIdentifier.IdentifiedLanguage result = languageIdentifier.identify("Hallo");
+
+        // Then
+        assertTrue(result.confidence() < 0.8);
+    }
+
+    @Test
+    void shouldReturnUndeterminedForNonLatinScript() {
+        // When
+        LanguageIdentifier.IdentifiedLanguage result = languageIdentifier.identify("Добрый день, как ваши дела?");
+
+        // Then
+        assertEquals(LanguageIdentifier.UNDETERMINED, result.languageCode());
+        assertEquals(1.0, result.confidence());
+    }
+}
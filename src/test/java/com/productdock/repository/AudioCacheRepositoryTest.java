@@ -0,0 +1,108 @@
+package com.productdock.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioCacheRepositoryTest {
+
+    @TempDir
+    private Path cacheDirectory;
+
+    private MeterRegistry meterRegistry;
+    private AudioCacheRepository audioCacheRepository;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        audioCacheRepository = createRepository(16, 32);
+    }
+
+    @Test
+    void shouldServeStoredAudioFromMemoryTier() throws Exception {
+        // Given
+        audioCacheRepository.store("key-1", "audio-1".getBytes());
+
+        // When
+        Optional<Resource> result = audioCacheRepository.find("key-1");
+
+        // Then
+        assertTrue(result.isPresent());
+        assertArrayEquals("audio-1".getBytes(), result.get().getInputStream().readAllBytes());
+        assertEquals(1.0, meterRegistry.counter("tts.cache.hits", "tier", "memory").count());
+    }
+
+    @Test
+    void shouldServeAudioFromDiskTierAfterRestart() throws Exception {
+        // Given
+        audioCacheRepository.store("key-1", "audio-1".getBytes());
+        AudioCacheRepository restartedRepository = createRepository(16, 32);
+
+        // When
+        Optional<Resource> result = restartedRepository.find("key-1");
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(7, result.get().contentLength());
+        assertArrayEquals("audio-1".getBytes(), result.get().getInputStream().readAllBytes());
+        assertEquals(1.0, meterRegistry.counter("tts.cache.hits", "tier", "disk").count());
+    }
+
+    @Test
+    void shouldPromoteDiskTierEntryToMemoryOnlyOnRepeatedHits() throws Exception {
+        // Given
+        audioCacheRepository.store("key-1", "audio-1".getBytes());
+        AudioCacheRepository restartedRepository = createRepository(16, 32);
+
+        // When
+        restartedRepository.find("key-1");
+        long memoryBytesAfterFirstHit = restartedRepository.getMemoryBytes();
+        restartedRepository.find("key-1");
+        Optional<Resource> result = restartedRepository.find("key-1");
+
+        // Then
+        assertEquals(0, memoryBytesAfterFirstHit);
+        assertEquals(7, restartedRepository.getMemoryBytes());
+        assertArrayEquals("audio-1".getBytes(), result.orElseThrow().getInputStream().readAllBytes());
+        assertEquals(2.0, meterRegistry.counter("tts.cache.hits", "tier", "disk").count());
+        assertEquals(1.0, meterRegistry.counter("tts.cache.hits", "tier", "memory").count());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntriesAboveSizeLimit() {
+        // Given
+        audioCacheRepository.store("key-1", "0123456789".getBytes());
+        audioCacheRepository.store("key-2", "0123456789".getBytes());
+        audioCacheRepository.store("key-3", "0123456789".getBytes());
+        audioCacheRepository.store("key-4", "0123456789".getBytes());
+
+        // Then
+        assertEquals(10, audioCacheRepository.getMemoryBytes());
+        assertEquals(30, audioCacheRepository.getDiskBytes());
+        assertFalse(Files.exists(cacheDirectory.resolve("key-1.mp3")));
+        assertTrue(audioCacheRepository.find("key-1").isEmpty());
+        assertEquals(3.0, meterRegistry.counter("tts.cache.evictions", "tier", "memory").count());
+        assertEquals(1.0, meterRegistry.counter("tts.cache.evictions", "tier", "disk").count());
+        assertEquals(1.0, meterRegistry.counter("tts.cache.misses").count());
+    }
+
+    private AudioCacheRepository createRepository(long memoryMaxBytes, long diskMaxBytes) {
+        AudioCacheRepository repository = new AudioCacheRepository(meterRegistry);
+        ReflectionTestUtils.setField(repository, "memoryMaxBytes", memoryMaxBytes);
+        ReflectionTestUtils.setField(repository, "diskMaxBytes", diskMaxBytes);
+        ReflectionTestUtils.setField(repository, "diskDirectory", cacheDirectory.toString());
+        ReflectionTestUtils.setField(repository, "promoteAfterDiskHits", 2);
+        repository.init();
+        return repository;
+    }
+}
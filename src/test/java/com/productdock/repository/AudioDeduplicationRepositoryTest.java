@@ -0,0 +1,81 @@
+package com.productdock.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioDeduplicationRepositoryTest {
+
+    private MeterRegistry meterRegistry;
+    private AudioDeduplicationRepository audioDeduplicationRepository;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        audioDeduplicationRepository = new AudioDeduplicationRepository(meterRegistry);
+        ReflectionTestUtils.setField(audioDeduplicationRepository, "maxEntries", 2);
+        ReflectionTestUtils.setField(audioDeduplicationRepository, "ttlMillis", 60_000L);
+        audioDeduplicationRepository.init();
+    }
+
+    @Test
+    void shouldFindJobOfKnownAudio() {
+        // Given
+        audioDeduplicationRepository.put("hash-1", "job-1");
+
+        // When
+        Optional<String> jobName = audioDeduplicationRepository.findJob("hash-1");
+
+        // Then
+        assertEquals(Optional.of("job-1"), jobName);
+        assertEquals(Optional.empty(), audioDeduplicationRepository.findJob("hash-2"));
+        assertEquals(1, meterRegistry.get("transcribe.dedup.hits").counter().count());
+        assertEquals(1, meterRegistry.get("transcribe.dedup.misses").counter().count());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedAudio() {
+        // Given
+        audioDeduplicationRepository.put("hash-1", "job-1");
+        audioDeduplicationRepository.put("hash-2", "job-2");
+        audioDeduplicationRepository.findJob("hash-1");
+
+        // When
+        audioDeduplicationRepository.put("hash-3", "job-3");
+
+        // Then
+        assertTrue(audioDeduplicationRepository.findJob("hash-1").isPresent());
+        assertTrue(audioDeduplicationRepository.findJob("hash-2").isEmpty());
+        assertEquals(2, meterRegistry.get("transcribe.dedup.size").gauge().value());
+    }
+
+    @Test
+    void shouldExpireEntries() {
+        // Given
+        ReflectionTestUtils.setField(audioDeduplicationRepository, "ttlMillis", 0L);
+        audioDeduplicationRepository.put("hash-1", "job-1");
+
+        // When/Then
+        assertTrue(audioDeduplicationRepository.findJob("hash-1").isEmpty());
+    }
+
+    @Test
+    void shouldOnlyRemoveTheGivenJob() {
+        // Given
+        audioDeduplicationRepository.put("hash-1", "job-2");
+
+        // When
+        audioDeduplicationRepository.remove("hash-1", "job-1");
+
+        // Then
+        assertEquals(Optional.of("job-2"), audioDeduplicationRepository.findJob("hash-1"));
+        audioDeduplicationRepository.remove("hash-1", "job-2");
+        assertTrue(audioDeduplicationRepository.findJob("hash-1").isEmpty());
+    }
+}
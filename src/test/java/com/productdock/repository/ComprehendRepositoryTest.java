@@ -1,23 +1,36 @@
 package com.productdock.repository;
 
 import com.productdock.exception.ComprehendRepositoryException;
+import com.productdock.language.LanguageIdentifier;
+import com.productdock.resilience.Bulkhead;
+import com.productdock.resilience.CircuitBreaker;
+import com.productdock.resilience.DependencyGuard;
+import com.productdock.resilience.RetryBudget;
+import com.productdock.resilience.RetryPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import software.amazon.awssdk.services.comprehend.ComprehendAsyncClient;
 import software.amazon.awssdk.services.comprehend.ComprehendClient;
 import software.amazon.awssdk.services.comprehend.model.ComprehendException;
 import software.amazon.awssdk.services.comprehend.model.DetectDominantLanguageRequest;
 import software.amazon.awssdk.services.comprehend.model.DetectDominantLanguageResponse;
 import software.amazon.awssdk.services.comprehend.model.DominantLanguage;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
@@ -27,12 +40,30 @@ public class ComprehendRepositoryTest {
     @Mock
     private ComprehendClient comprehendClient;
 
-    @InjectMocks
+    @Mock
+    private ComprehendAsyncClient comprehendAsyncClient;
+
+    @Mock
+    private ObjectProvider<ComprehendAsyncClient> comprehendAsyncClientProvider;
+
+    private MeterRegistry meterRegistry;
     private ComprehendRepository comprehendRepository;
 
     @BeforeEach
     void setUp() {
         Mockito.reset(comprehendClient);
+
+        LanguageIdentifier languageIdentifier = new LanguageIdentifier();
+        languageIdentifier.init();
+        meterRegistry = new SimpleMeterRegistry();
+        comprehendRepository = new ComprehendRepository(comprehendClient, languageIdentifier, meterRegistry, comprehendAsyncClientProvider,
+                Runnable::run, new RetryPolicy("comprehend", 1, Duration.ZERO, Duration.ZERO, new RetryBudget(1, 0, 10), meterRegistry),
+                new DependencyGuard("Comprehend", new CircuitBreaker("comprehend", 50, 10, 10, Duration.ofSeconds(30), 1, meterRegistry),
+                        new Bulkhead("comprehend", 10, Duration.ZERO, meterRegistry), meterRegistry));
+        // A threshold above 1 sends every text to Comprehend, tests of the local path lower it
+        ReflectionTestUtils.setField(comprehendRepository, "confidenceThreshold", 1.1);
+        ReflectionTestUtils.setField(comprehendRepository, "maxTextChars", 1000);
+        comprehendRepository.init();
     }
 
     @Test
@@ -84,4 +115,93 @@ public class ComprehendRepositoryTest {
         // Then
         assertEquals("AWS Comprehend error", exception.getMessage());
     }
+
+    @Test
+    void shouldDetectLanguageLocallyWhenConfident() {
+        // Given
+        ReflectionTestUtils.setField(comprehendRepository, "confidenceThreshold", 0.8);
+
+        // When
+        String languageCode = comprehendRepository.detectLanguage(
+                "Nous devrions aller au marché demain matin, parce qu'il y aura du pain frais et des légumes.");
+
+        // Then
+        assertEquals("fr", languageCode);
+        verifyNoInteractions(comprehendClient);
+        assertEquals(1.0, meterRegistry.counter("comprehend.language.detections", "path", "local").count());
+    }
+
+    @Test
+    void shouldSendTruncatedPrefixToComprehend() {
+        // Given
+        ReflectionTestUtils.setField(comprehendRepository, "maxTextChars", 20);
+        DetectDominantLanguageResponse response = DetectDominantLanguageResponse.builder()
+                .languages(DominantLanguage.builder().languageCode("en").score(0.99f).build())
+                .build();
+        when(comprehendClient.detectDominantLanguage(any(DetectDominantLanguageRequest.class)))
+                .thenReturn(response);
+
+        // When
+        comprehendRepository.detectLanguage("The quick brown fox jumps over the lazy dog");
+
+        // Then
+        ArgumentCaptor<DetectDominantLanguageRequest> captor = ArgumentCaptor.forClass(DetectDominantLanguageRequest.class);
+        verify(comprehendClient).detectDominantLanguage(captor.capture());
+        assertEquals("The quick brown fox", captor.getValue().text());
+        assertEquals(1.0, meterRegistry.counter("comprehend.language.detections", "path", "comprehend").count());
+    }
+
+    @Test
+    void shouldAnswerRepeatedTextFromCache() {
+        // Given
+        ReflectionTestUtils.setField(comprehendRepository, "cacheMaxEntries", 10);
+        DetectDominantLanguageResponse response = DetectDominantLanguageResponse.builder()
+                .languages(DominantLanguage.builder().languageCode("de").score(0.99f).build())
+                .build();
+        when(comprehendClient.detectDominantLanguage(any(DetectDominantLanguageRequest.class)))
+                .thenReturn(response);
+
+        // When
+        comprehendRepository.detectLanguage("Guten Morgen");
+        String languageCode = comprehendRepository.detectLanguage("Guten Morgen");
+
+        // Then
+        assertEquals("de", languageCode);
+        verify(comprehendClient, times(1)).detectDominantLanguage(any(DetectDominantLanguageRequest.class));
+        assertEquals(1.0, meterRegistry.counter("comprehend.language.detections", "path", "cache").count());
+    }
+
+    @Test
+    void shouldDetectLanguageWithAsyncClient() throws Exception {
+        // Given
+        DetectDominantLanguageResponse response = DetectDominantLanguageResponse.builder()
+                .languages(DominantLanguage.builder().languageCode("pt").score(0.97f).build())
+                .build();
+        when(comprehendAsyncClientProvider.getObject()).thenReturn(comprehendAsyncClient);
+        when(comprehendAsyncClient.detectDominantLanguage(any(DetectDominantLanguageRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        // When
+        String languageCode = comprehendRepository.detectLanguageAsync("Olá, tudo bem?").get();
+
+        // Then
+        assertEquals("pt", languageCode);
+        verifyNoInteractions(comprehendClient);
+    }
+
+    @Test
+    void shouldCompleteExceptionallyWhenAsyncComprehendFails() {
+        // Given
+        when(comprehendAsyncClientProvider.getObject()).thenReturn(comprehendAsyncClient);
+        when(comprehendAsyncClient.detectDominantLanguage(any(DetectDominantLanguageRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(ComprehendException.builder().message("error").build()));
+
+        // When
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> comprehendRepository.detectLanguageAsync("Some text").get());
+
+        // Then
+        assertInstanceOf(ComprehendRepositoryException.class, exception.getCause());
+        assertEquals("AWS Comprehend error", exception.getCause().getMessage());
+    }
 }
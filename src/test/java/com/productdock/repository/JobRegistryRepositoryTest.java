@@ -0,0 +1,159 @@
+package com.productdock.repository;
+
+import com.productdock.model.RegisteredJob;
+import com.productdock.model.SplitTranscriptionJob;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobRegistryRepositoryTest {
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void shouldRestoreJobsAfterRestart() {
+        // Given
+        Instant createdAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        JobRegistryRepository jobRegistryRepository = newJobRegistryRepository(directory, 4096);
+        jobRegistryRepository.register(new RegisteredJob("job-1", "audio-1.mp3", "hash-1", createdAt, RegisteredJob.State.STARTED));
+        jobRegistryRepository.register(new RegisteredJob("job-2", "audio-2.mp3", "hash-2", createdAt, RegisteredJob.State.STARTED));
+        jobRegistryRepository.register(new RegisteredJob("job-3", "audio-3.mp3", "", createdAt, RegisteredJob.State.STARTED));
+        jobRegistryRepository.updateState("job-2", RegisteredJob.State.CLEANING);
+        jobRegistryRepository.remove("job-1");
+
+        // When
+        JobRegistryRepository restarted = newJobRegistryRepository(directory, 4096);
+
+        // Then
+        assertEquals(List.of(
+                new RegisteredJob("job-2", "audio-2.mp3", "hash-2", createdAt, RegisteredJob.State.CLEANING),
+                new RegisteredJob("job-3", "audio-3.mp3", "", createdAt, RegisteredJob.State.STARTED)
+        ), restarted.findAll());
+    }
+
+    @Test
+    void shouldRestoreSplitJobsAfterRestartAndCompaction() {
+        // Given
+        SplitTranscriptionJob first = new SplitTranscriptionJob("split-1", List.of(
+                new SplitTranscriptionJob.SegmentJob("job-1", 0), new SplitTranscriptionJob.SegmentJob("job-2", 600.5)));
+        SplitTranscriptionJob second = new SplitTranscriptionJob("split-2", List.of(new SplitTranscriptionJob.SegmentJob("job-3", 0)));
+        JobRegistryRepository jobRegistryRepository = newJobRegistryRepository(directory, 4096);
+        jobRegistryRepository.registerSplit(first);
+        jobRegistryRepository.registerSplit(second);
+        jobRegistryRepository.removeSplit("split-2");
+
+        // When
+        JobRegistryRepository restarted = newJobRegistryRepository(directory, 4096);
+        JobRegistryRepository restartedAgain = newJobRegistryRepository(directory, 4096);
+
+        // Then
+        assertEquals(Optional.of(first), restarted.findSplit("split-1"));
+        assertEquals(Optional.of(first), restartedAgain.findSplitOf("job-2"));
+        assertTrue(restartedAgain.findSplit("split-2").isEmpty());
+        assertTrue(restartedAgain.findSplitOf("job-3").isEmpty());
+    }
+
+    @Test
+    void shouldIgnoreTornRecordAtTheEndOfTheLog() throws IOException {
+        // Given
+        JobRegistryRepository jobRegistryRepository = newJobRegistryRepository(directory, 4096);
+        jobRegistryRepository.register(new RegisteredJob("job-1", "audio-1.mp3", "hash-1", Instant.now(), RegisteredJob.State.STARTED));
+        jobRegistryRepository.register(new RegisteredJob("job-2", "audio-2.mp3", "hash-2", Instant.now(), RegisteredJob.State.STARTED));
+        Path logFile = directory.resolve("jobs.log");
+        byte[] content = Files.readAllBytes(logFile);
+        int tornAt = new String(content, StandardCharsets.ISO_8859_1).lastIndexOf("audio-2.mp3");
+        content[tornAt] ^= 0x7F;
+        Files.write(logFile, content);
+
+        // When
+        JobRegistryRepository restarted = newJobRegistryRepository(directory, 4096);
+
+        // Then
+        List<RegisteredJob> jobs = restarted.findAll();
+        assertEquals(1, jobs.size());
+        assertEquals("job-1", jobs.get(0).jobName());
+    }
+
+    @Test
+    void shouldGrowAndCompactTheLog() throws IOException {
+        // Given
+        JobRegistryRepository jobRegistryRepository = newJobRegistryRepository(directory, 64);
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            jobRegistryRepository.register(new RegisteredJob("job-" + i, "audio-" + i + ".mp3", "hash-" + i, Instant.now(), RegisteredJob.State.STARTED));
+        }
+        for (int i = 0; i < 15; i++) {
+            jobRegistryRepository.remove("job-" + i);
+        }
+        jobRegistryRepository.compactIfNeeded();
+
+        // Then
+        assertEquals(5, newJobRegistryRepository(directory, 64).size());
+        assertFalse(Files.exists(directory.resolve("jobs.log.compacting")));
+    }
+
+    @Test
+    void shouldReportFullRegistry() {
+        // Given
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        JobRegistryRepository jobRegistryRepository = new JobRegistryRepository(meterRegistry);
+        ReflectionTestUtils.setField(jobRegistryRepository, "directory", directory.toString());
+        ReflectionTestUtils.setField(jobRegistryRepository, "initialBytes", 4096);
+        ReflectionTestUtils.setField(jobRegistryRepository, "maxJobs", 2);
+        jobRegistryRepository.init();
+
+        // When
+        jobRegistryRepository.register(new RegisteredJob("job-1", "audio-1.mp3", "hash-1", Instant.now(), RegisteredJob.State.STARTED));
+        jobRegistryRepository.register(new RegisteredJob("job-2", "audio-2.mp3", "hash-2", Instant.now(), RegisteredJob.State.STARTED));
+
+        // Then
+        assertTrue(jobRegistryRepository.isFull());
+        assertEquals(2, meterRegistry.get("stt.job-registry.size").gauge().value());
+    }
+
+    @Test
+    void shouldKeepJobsInMemoryWhenDirectoryIsNotUsable() throws IOException {
+        // Given
+        Path file = Files.createFile(directory.resolve("not-a-directory"));
+        JobRegistryRepository jobRegistryRepository = newJobRegistryRepository(file.resolve("registry"), 4096);
+
+        // When
+        jobRegistryRepository.register(new RegisteredJob("job-1", "audio-1.mp3", "hash-1", Instant.now(), RegisteredJob.State.STARTED));
+        jobRegistryRepository.compactIfNeeded();
+
+        // Then
+        assertEquals(1, jobRegistryRepository.size());
+    }
+
+    @Test
+    void shouldTellRegistryInTemporaryDirectory() {
+        // When/Then
+        assertTrue(JobRegistryRepository.isTemporary(directory.resolve("job-registry")));
+        assertTrue(JobRegistryRepository.isTemporary(Path.of(System.getProperty("java.io.tmpdir"), "talkscribe", "..", "job-registry")));
+        assertFalse(JobRegistryRepository.isTemporary(Path.of("/var/lib/talkscribe/job-registry")));
+    }
+
+    private static JobRegistryRepository newJobRegistryRepository(Path directory, int initialBytes) {
+        JobRegistryRepository jobRegistryRepository = new JobRegistryRepository(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jobRegistryRepository, "directory", directory.toString());
+        ReflectionTestUtils.setField(jobRegistryRepository, "initialBytes", initialBytes);
+        ReflectionTestUtils.setField(jobRegistryRepository, "maxJobs", 100);
+        jobRegistryRepository.init();
+        return jobRegistryRepository;
+    }
+}
@@ -0,0 +1,199 @@
+package com.productdock.repository;
+
+import com.productdock.resilience.Bulkhead;
+import com.productdock.resilience.CircuitBreaker;
+import com.productdock.resilience.DependencyGuard;
+import com.productdock.resilience.RetryBudget;
+import com.productdock.resilience.RetryPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.comprehend.ComprehendAsyncClient;
+import software.amazon.awssdk.services.comprehend.ComprehendClient;
+import software.amazon.awssdk.services.comprehend.model.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LanguageDetectionBatcherTest {
+
+    @Mock
+    private ComprehendClient comprehendClient;
+
+    @Mock
+    private ComprehendAsyncClient comprehendAsyncClient;
+
+    private MeterRegistry meterRegistry;
+    private LanguageDetectionBatcher languageDetectionBatcher;
+    private ExecutorService callers;
+    private ExecutorService senders;
+    private RetryPolicy retryPolicy;
+    private DependencyGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        callers = Executors.newFixedThreadPool(3);
+        senders = Executors.newFixedThreadPool(2);
+        retryPolicy = new RetryPolicy("comprehend", 3, Duration.ZERO, Duration.ZERO, new RetryBudget(1, 0, 10), meterRegistry);
+        guard = new DependencyGuard("Comprehend", new CircuitBreaker("comprehend", 50, 10, 10, Duration.ofSeconds(30), 1, meterRegistry),
+                new Bulkhead("comprehend", 10, Duration.ZERO, meterRegistry), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        languageDetectionBatcher.shutdown();
+        callers.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    @Test
+    void shouldSendFullBatchAndFanOutResults() throws Exception {
+        // Given
+        languageDetectionBatcher = new LanguageDetectionBatcher(comprehendClient, null, 60_000, 3, meterRegistry, senders, retryPolicy, guard);
+        when(comprehendClient.batchDetectDominantLanguage(any(BatchDetectDominantLanguageRequest.class)))
+                .thenAnswer(invocation -> {
+                    BatchDetectDominantLanguageRequest request = invocation.getArgument(0);
+                    List<BatchDetectDominantLanguageItemResult> results = new ArrayList<>();
+                    for (int i = 0; i < request.textList().size(); i++) {
+                        results.add(BatchDetectDominantLanguageItemResult.builder()
+                                .index(i)
+                                .languages(DominantLanguage.builder().languageCode(request.textList().get(i)).build())
+                                .build());
+                    }
+                    return BatchDetectDominantLanguageResponse.builder().resultList(results).errorList(List.of()).build();
+                });
+
+        // When
+        Future<String> english = callers.submit(() -> languageDetectionBatcher.detect("en"));
+        Future<String> german = callers.submit(() -> languageDetectionBatcher.detect("de"));
+        Future<String> french = callers.submit(() -> languageDetectionBatcher.detect("fr"));
+
+        // Then
+        assertEquals("en", english.get(5, TimeUnit.SECONDS));
+        assertEquals("de", german.get(5, TimeUnit.SECONDS));
+        assertEquals("fr", french.get(5, TimeUnit.SECONDS));
+        verify(comprehendClient, times(1)).batchDetectDominantLanguage(any(BatchDetectDominantLanguageRequest.class));
+        verify(comprehendClient, never()).detectDominantLanguage(any(DetectDominantLanguageRequest.class));
+        assertEquals(3.0, meterRegistry.summary("comprehend.batch.size").max());
+        assertEquals(3, meterRegistry.timer("comprehend.batch.wait").count());
+    }
+
+    @Test
+    void shouldCapBatchesAtComprehendLimit() throws Exception {
+        // Given
+        languageDetectionBatcher = new LanguageDetectionBatcher(comprehendClient, null, 60_000, 100, meterRegistry, senders, retryPolicy, guard);
+        when(comprehendClient.batchDetectDominantLanguage(any(BatchDetectDominantLanguageRequest.class)))
+                .thenAnswer(invocation -> {
+                    BatchDetectDominantLanguageRequest request = invocation.getArgument(0);
+                    List<BatchDetectDominantLanguageItemResult> results = new ArrayList<>();
+                    for (int i = 0; i < request.textList().size(); i++) {
+                        results.add(BatchDetectDominantLanguageItemResult.builder()
+                                .index(i)
+                                .languages(DominantLanguage.builder().languageCode("en").build())
+                                .build());
+                    }
+                    return BatchDetectDominantLanguageResponse.builder().resultList(results).errorList(List.of()).build();
+                });
+
+        // When
+        List<CompletableFuture<String>> detections = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            detections.add(languageDetectionBatcher.submit("text " + i));
+        }
+
+        // Then
+        for (CompletableFuture<String> detection : detections) {
+            assertEquals("en", detection.get(5, TimeUnit.SECONDS));
+        }
+        ArgumentCaptor<BatchDetectDominantLanguageRequest> captor = ArgumentCaptor.forClass(BatchDetectDominantLanguageRequest.class);
+        verify(comprehendClient).batchDetectDominantLanguage(captor.capture());
+        assertEquals(25, captor.getValue().textList().size());
+    }
+
+    @Test
+    void shouldSendBatchWithAsyncClientInsteadOfBlockingASender() throws Exception {
+        // Given
+        Executor blockingSenders = mock(Executor.class);
+        languageDetectionBatcher = new LanguageDetectionBatcher(comprehendClient, comprehendAsyncClient, 60_000, 2, meterRegistry,
+                blockingSenders, retryPolicy, guard);
+        when(comprehendAsyncClient.batchDetectDominantLanguage(any(BatchDetectDominantLanguageRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(BatchDetectDominantLanguageResponse.builder()
+                        .resultList(BatchDetectDominantLanguageItemResult.builder()
+                                        .index(0)
+                                        .languages(DominantLanguage.builder().languageCode("de").build())
+                                        .build(),
+                                BatchDetectDominantLanguageItemResult.builder()
+                                        .index(1)
+                                        .languages(DominantLanguage.builder().languageCode("fr").build())
+                                        .build())
+                        .errorList(List.of())
+                        .build()));
+
+        // When
+        CompletableFuture<String> german = languageDetectionBatcher.submit("Guten Morgen");
+        CompletableFuture<String> french = languageDetectionBatcher.submit("Bonjour");
+
+        // Then
+        assertEquals("de", german.get(5, TimeUnit.SECONDS));
+        assertEquals("fr", french.get(5, TimeUnit.SECONDS));
+        verifyNoInteractions(comprehendClient, blockingSenders);
+    }
+
+    @Test
+    void shouldSendSingleTextWhenWindowCloses() throws Exception {
+        // Given
+        languageDetectionBatcher = new LanguageDetectionBatcher(comprehendClient, null, 10, 25, meterRegistry, senders, retryPolicy, guard);
+        when(comprehendClient.detectDominantLanguage(any(DetectDominantLanguageRequest.class)))
+                .thenReturn(DetectDominantLanguageResponse.builder()
+                        .languages(DominantLanguage.builder().languageCode("sv").build())
+                        .build());
+
+        // When
+        String languageCode = languageDetectionBatcher.detect("Hej");
+
+        // Then
+        assertEquals("sv", languageCode);
+        ArgumentCaptor<DetectDominantLanguageRequest> captor = ArgumentCaptor.forClass(DetectDominantLanguageRequest.class);
+        verify(comprehendClient).detectDominantLanguage(captor.capture());
+        assertEquals("Hej", captor.getValue().text());
+        verify(comprehendClient, never()).batchDetectDominantLanguage(any(BatchDetectDominantLanguageRequest.class));
+    }
+
+    @Test
+    void shouldFailOnlyTheTextRejectedInBatch() throws Exception {
+        // Given
+        languageDetectionBatcher = new LanguageDetectionBatcher(comprehendClient, null, 60_000, 2, meterRegistry, senders, retryPolicy, guard);
+        when(comprehendClient.batchDetectDominantLanguage(any(BatchDetectDominantLanguageRequest.class)))
+                .thenReturn(BatchDetectDominantLanguageResponse.builder()
+                        .resultList(BatchDetectDominantLanguageItemResult.builder()
+                                .index(0)
+                                .languages(DominantLanguage.builder().languageCode("es").build())
+                                .build())
+                        .errorList(BatchItemError.builder().index(1).errorCode("TextSizeLimitExceeded").errorMessage("too long").build())
+                        .build());
+
+        // When
+        Future<String> accepted = callers.submit(() -> languageDetectionBatcher.detect("Hola"));
+        Thread.sleep(100);
+        Future<String> rejected = callers.submit(() -> languageDetectionBatcher.detect("Too long"));
+
+        // Then
+        assertEquals("es", accepted.get(5, TimeUnit.SECONDS));
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ComprehendException.class, exception.getCause());
+    }
+}
@@ -1,14 +1,25 @@
 package com.productdock.repository;
 
+import com.productdock.exception.DependencyUnavailableException;
 import com.productdock.exception.PollyRepositoryException;
+import com.productdock.resilience.Bulkhead;
+import com.productdock.resilience.CircuitBreaker;
+import com.productdock.resilience.DependencyGuard;
+import com.productdock.resilience.HedgingPolicy;
+import com.productdock.resilience.RetryBudget;
+import com.productdock.resilience.RetryPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
 import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.polly.PollyAsyncClient;
 import software.amazon.awssdk.services.polly.PollyClient;
 import software.amazon.awssdk.services.polly.model.PollyException;
 import software.amazon.awssdk.services.polly.model.SynthesizeSpeechRequest;
@@ -16,8 +27,12 @@ import software.amazon.awssdk.services.polly.model.SynthesizeSpeechResponse;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 /**
@@ -29,7 +44,12 @@ class PollyRepositoryTest {
     @Mock
     private PollyClient pollyClient;
 
-    @InjectMocks
+    @Mock
+    private PollyAsyncClient pollyAsyncClient;
+
+    @Mock
+    private ObjectProvider<PollyAsyncClient> pollyAsyncClientProvider;
+
     private PollyRepository pollyRepository;
 
     private static final String SAMPLE_TEXT = "Hello, this is a test";
@@ -37,6 +57,15 @@ class PollyRepositoryTest {
     @BeforeEach
     void setUp() {
         Mockito.reset(pollyClient);
+
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RetryBudget retryBudget = new RetryBudget(1, 0, 10);
+        pollyRepository = new PollyRepository(pollyClient, pollyAsyncClientProvider,
+                new RetryPolicy("polly", 3, Duration.ZERO, Duration.ZERO, retryBudget, meterRegistry),
+                new HedgingPolicy("polly", false, Duration.ZERO, 1, retryBudget, Runnable::run, meterRegistry),
+                // A single failed call opens the circuit
+                new DependencyGuard("Polly", new CircuitBreaker("polly", 50, 1, 1, Duration.ofSeconds(30), 1, meterRegistry),
+                        new Bulkhead("polly", 10, Duration.ZERO, meterRegistry), meterRegistry));
     }
 
     @Test
@@ -70,4 +99,90 @@ class PollyRepositoryTest {
         assertEquals("AWS Polly error", exception.getMessage());
         verify(pollyClient, times(1)).synthesizeSpeech(any(SynthesizeSpeechRequest.class));
     }
+
+    @Test
+    void shouldRetryWhenPollyIsUnavailable() throws Exception {
+        // Given
+        ResponseInputStream<SynthesizeSpeechResponse> mockResponse = new ResponseInputStream<>(
+                SynthesizeSpeechResponse.builder().build(), new ByteArrayInputStream("audio data".getBytes()));
+        when(pollyClient.synthesizeSpeech(any(SynthesizeSpeechRequest.class)))
+                .thenThrow(PollyException.builder().message("unavailable").statusCode(503).build())
+                .thenReturn(mockResponse);
+
+        // When
+        InputStream result = pollyRepository.convertTextToSpeech(SAMPLE_TEXT, "Joanna", "en-US");
+
+        // Then
+        assertArrayEquals("audio data".getBytes(), result.readAllBytes());
+        verify(pollyClient, times(2)).synthesizeSpeech(any(SynthesizeSpeechRequest.class));
+    }
+
+    @Test
+    void shouldFailFastWhileCircuitIsOpen() {
+        // Given
+        when(pollyClient.synthesizeSpeech(any(SynthesizeSpeechRequest.class)))
+                .thenThrow(PollyException.builder().message("unavailable").statusCode(503).build());
+        assertThrows(PollyRepositoryException.class, () -> pollyRepository.convertTextToSpeech(SAMPLE_TEXT, "Joanna", "en-US"));
+        clearInvocations(pollyClient);
+
+        // When
+        PollyRepositoryException exception = assertThrows(PollyRepositoryException.class,
+                () -> pollyRepository.convertTextToSpeech(SAMPLE_TEXT, "Joanna", "en-US"));
+
+        // Then
+        DependencyUnavailableException cause = assertInstanceOf(DependencyUnavailableException.class, exception.getCause());
+        assertTrue(cause.getRetryAfter().compareTo(Duration.ZERO) > 0);
+        verifyNoInteractions(pollyClient);
+    }
+
+    @Test
+    void shouldRetryAsyncCallWhenPollyIsThrottled() throws Exception {
+        // Given
+        ResponseInputStream<SynthesizeSpeechResponse> mockResponse = new ResponseInputStream<>(
+                SynthesizeSpeechResponse.builder().build(), new ByteArrayInputStream("audio data".getBytes()));
+        when(pollyAsyncClientProvider.getObject()).thenReturn(pollyAsyncClient);
+        when(pollyAsyncClient.synthesizeSpeech(any(SynthesizeSpeechRequest.class), any(AsyncResponseTransformer.class)))
+                .thenReturn(CompletableFuture.failedFuture(PollyException.builder().message("throttled").statusCode(429).build()))
+                .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+        // When
+        InputStream result = pollyRepository.convertTextToSpeechAsync(SAMPLE_TEXT, "Joanna", "en-US").get();
+
+        // Then
+        assertArrayEquals("audio data".getBytes(), result.readAllBytes());
+        verify(pollyAsyncClient, times(2)).synthesizeSpeech(any(SynthesizeSpeechRequest.class), any(AsyncResponseTransformer.class));
+    }
+
+    @Test
+    void shouldConvertTextToSpeechWithAsyncClient() throws Exception {
+        // Given
+        ResponseInputStream<SynthesizeSpeechResponse> mockResponse = new ResponseInputStream<>(
+                SynthesizeSpeechResponse.builder().build(), new ByteArrayInputStream("audio data".getBytes()));
+        when(pollyAsyncClientProvider.getObject()).thenReturn(pollyAsyncClient);
+        when(pollyAsyncClient.synthesizeSpeech(any(SynthesizeSpeechRequest.class), any(AsyncResponseTransformer.class)))
+                .thenReturn(CompletableFuture.completedFuture(mockResponse));
+
+        // When
+        InputStream result = pollyRepository.convertTextToSpeechAsync(SAMPLE_TEXT, "Joanna", "en-US").get();
+
+        // Then
+        assertArrayEquals("audio data".getBytes(), result.readAllBytes());
+        verifyNoInteractions(pollyClient);
+    }
+
+    @Test
+    void shouldCompleteExceptionallyWhenAsyncPollyFails() {
+        // Given
+        when(pollyAsyncClientProvider.getObject()).thenReturn(pollyAsyncClient);
+        when(pollyAsyncClient.synthesizeSpeech(any(SynthesizeSpeechRequest.class), any(AsyncResponseTransformer.class)))
+                .thenReturn(CompletableFuture.failedFuture(PollyException.builder().message("Polly error").build()));
+
+        // When
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> pollyRepository.convertTextToSpeechAsync(SAMPLE_TEXT, "Joanna", "en-US").get());
+
+        // Then
+        assertInstanceOf(PollyRepositoryException.class, exception.getCause());
+        assertEquals("AWS Polly error", exception.getCause().getMessage());
+    }
 }
@@ -1,17 +1,56 @@
 package com.productdock.repository;
 
+import com.productdock.audio.AudioFormat;
 import com.productdock.exception.S3RepositoryException;
+import com.productdock.model.UploadedAudio;
+import com.productdock.resilience.Bulkhead;
+import com.productdock.resilience.CircuitBreaker;
+import com.productdock.resilience.DependencyGuard;
+import com.productdock.resilience.RetryBudget;
+import com.productdock.resilience.RetryPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.mock.web.MockMultipartFile;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Error;
 import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -22,16 +61,31 @@ public class S3RepositoryTest {
     @Mock
     private S3Client s3Client;
 
-    @InjectMocks
+    @Mock
+    private ObjectProvider<S3AsyncClient> s3AsyncClientProvider;
+
     private S3Repository s3Repository;
 
     private static final String BUCKET_NAME = "my-test-bucket";
+    private static final String OUTPUT_BUCKET_NAME = "my-output-bucket";
+    private static final String TRANSCRIBE_OUTPUT = """
+            {"jobName":"job-123","results":{"transcripts":[{"transcript":"This is my test voice recording."}],
+            "items":[{"type":"pronunciation","alternatives":[{"content":"This"}]}]},"status":"COMPLETED"}""";
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        s3Repository = new S3Repository(s3Client, s3AsyncClientProvider, new RetryPolicy("s3", 3, Duration.ZERO, Duration.ZERO,
+                new RetryBudget(1, 0, 10), meterRegistry),
+                new DependencyGuard("S3", new CircuitBreaker("s3", 50, 10, 10, Duration.ofSeconds(30), 1, meterRegistry),
+                        new Bulkhead("s3", 10, Duration.ZERO, meterRegistry), meterRegistry),
+                Executors.newFixedThreadPool(2));
         // Inject bucket name via reflection since it's a @Value field
         org.springframework.test.util.ReflectionTestUtils.setField(s3Repository, "bucketName", BUCKET_NAME);
+        org.springframework.test.util.ReflectionTestUtils.setField(s3Repository, "outputBucketName", OUTPUT_BUCKET_NAME);
+        org.springframework.test.util.ReflectionTestUtils.setField(s3Repository, "partSizeBytes", 1024);
+        org.springframework.test.util.ReflectionTestUtils.setField(s3Repository, "maxInFlightParts", 2);
     }
 
     @Test
@@ -42,7 +96,7 @@ public class S3RepositoryTest {
 
         // When
         assertDoesNotThrow(() -> {
-            String s3Key = s3Repository.uploadAudioFile(file);
+            String s3Key = s3Repository.uploadAudioFile(file, AudioFormat.MP3);
             assertNotNull(s3Key);
             assertTrue(s3Key.endsWith(".mp3"));
         });
@@ -51,6 +105,21 @@ public class S3RepositoryTest {
         verify(s3Client, times(1)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
     }
 
+    @Test
+    void shouldStoreAudioFileUnderProbedFormat() {
+        // Given
+        MockMultipartFile file = new MockMultipartFile("audioFile", "test.mp3", "audio/mpeg", "test-audio".getBytes());
+
+        // When
+        String s3Key = s3Repository.uploadAudioFile(file, AudioFormat.WAV);
+
+        // Then
+        assertTrue(s3Key.endsWith(".wav"));
+        ArgumentCaptor<PutObjectRequest> request = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3Client).putObject(request.capture(), any(RequestBody.class));
+        assertEquals("audio/wav", request.getValue().contentType());
+    }
+
     @Test
     void shouldThrowExceptionWhenS3FailsOnUpload() {
         // Given
@@ -63,13 +132,121 @@ public class S3RepositoryTest {
 
         // When
         S3RepositoryException exception = assertThrows(S3RepositoryException.class, () -> {
-            s3Repository.uploadAudioFile(file);
+            s3Repository.uploadAudioFile(file, AudioFormat.MP3);
         });
 
         // Then
         assertEquals("Error uploading file to S3", exception.getMessage());
     }
 
+    @Test
+    void shouldRetryUploadWhenS3IsUnavailable() {
+        // Given
+        MockMultipartFile file = new MockMultipartFile("audioFile", "test.mp3", "audio/mpeg", "test-audio".getBytes());
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenThrow(S3Exception.builder().message("unavailable").statusCode(503).build())
+                .thenReturn(null);
+
+        // When
+        String s3Key = s3Repository.uploadAudioFile(file, AudioFormat.MP3);
+
+        // Then
+        assertTrue(s3Key.startsWith("audio-"));
+        verify(s3Client, times(2)).putObject(any(PutObjectRequest.class), any(RequestBody.class));
+    }
+
+    @Test
+    void shouldStreamAudioInPartsWithChecksums() throws IOException {
+        // Given
+        byte[] audio = new byte[2500];
+        new Random(42).nextBytes(audio);
+        CRC32 checksum = new CRC32();
+        checksum.update(audio);
+        String expectedChecksum = Base64.getEncoder().encodeToString(ByteBuffer.allocate(4).putInt((int) checksum.getValue()).array());
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenAnswer(invocation -> UploadPartResponse.builder()
+                        .eTag("etag-" + invocation.<UploadPartRequest>getArgument(0).partNumber())
+                        .build());
+
+        // When
+        UploadedAudio uploadedAudio = s3Repository.uploadAudioStream(new ByteArrayInputStream(audio), AudioFormat.MP3);
+
+        // Then
+        assertEquals(2500, uploadedAudio.sizeBytes());
+        assertEquals(expectedChecksum, uploadedAudio.checksumCrc32());
+        verify(s3Client, times(3)).uploadPart(any(UploadPartRequest.class), any(RequestBody.class));
+        ArgumentCaptor<CompleteMultipartUploadRequest> complete = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+        verify(s3Client).completeMultipartUpload(complete.capture());
+        assertEquals(expectedChecksum, complete.getValue().checksumCRC32());
+        assertEquals(List.of(1, 2, 3), complete.getValue().multipartUpload().parts().stream().map(CompletedPart::partNumber).toList());
+        assertEquals("etag-3", complete.getValue().multipartUpload().parts().get(2).eTag());
+    }
+
+    @Test
+    void shouldAbortStreamedUploadWhenPartFails() {
+        // Given
+        when(s3Client.createMultipartUpload(any(CreateMultipartUploadRequest.class)))
+                .thenReturn(CreateMultipartUploadResponse.builder().uploadId("upload-1").build());
+        when(s3Client.uploadPart(any(UploadPartRequest.class), any(RequestBody.class)))
+                .thenThrow(S3Exception.builder().message("bad digest").statusCode(400).build());
+
+        // When
+        S3RepositoryException exception = assertThrows(S3RepositoryException.class,
+                () -> s3Repository.uploadAudioStream(new ByteArrayInputStream(new byte[5000]), AudioFormat.MP3));
+
+        // Then
+        assertEquals("Error uploading file to S3", exception.getMessage());
+        verify(s3Client).abortMultipartUpload(any(AbortMultipartUploadRequest.class));
+        verify(s3Client, never()).completeMultipartUpload(any(CompleteMultipartUploadRequest.class));
+    }
+
+    @Test
+    void shouldFetchTranscriptFromOutputBucket() {
+        // Given
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(transcribeOutput());
+
+        // When
+        String transcript = s3Repository.fetchTranscript("job-123");
+
+        // Then
+        assertEquals("This is my test voice recording.", transcript);
+        verify(s3Client).getObject(GetObjectRequest.builder().bucket(OUTPUT_BUCKET_NAME).key("transcripts/job-123.json").build());
+    }
+
+    @Test
+    void shouldStreamTranscriptFromOutputBucket() {
+        // Given
+        when(s3Client.getObject(any(GetObjectRequest.class))).thenReturn(transcribeOutput());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        s3Repository.streamTranscript("job-123", out);
+
+        // Then
+        assertEquals("This is my test voice recording.", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldThrowExceptionWhenTranscriptIsMissing() {
+        // Given
+        when(s3Client.getObject(any(GetObjectRequest.class)))
+                .thenThrow(NoSuchKeyException.builder().message("missing").statusCode(404).build());
+
+        // When
+        S3RepositoryException exception = assertThrows(S3RepositoryException.class,
+                () -> s3Repository.fetchTranscript("job-123"));
+
+        // Then
+        assertEquals("Error fetching transcript from S3", exception.getMessage());
+    }
+
+    private static ResponseInputStream<GetObjectResponse> transcribeOutput() {
+        return new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                new ByteArrayInputStream(TRANSCRIBE_OUTPUT.getBytes(StandardCharsets.UTF_8)));
+    }
+
     @Test
     void shouldDeleteAudioFileSuccessfully() {
         // Given
@@ -100,4 +277,42 @@ public class S3RepositoryTest {
         // Then
         assertEquals("Error deleting file from S3", exception.getMessage());
     }
+
+    @Test
+    void shouldDeleteAudioFilesInBatches() {
+        // Given
+        List<String> keys = IntStream.range(0, 2500).mapToObj(i -> "audio-" + i + ".mp3").toList();
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenAnswer(invocation -> {
+            DeleteObjectsRequest request = invocation.getArgument(0);
+            boolean failing = request.delete().objects().stream().anyMatch(object -> object.key().equals("audio-1500.mp3"));
+            return DeleteObjectsResponse.builder()
+                    .errors(failing ? List.of(S3Error.builder().key("audio-1500.mp3").message("Access Denied").build()) : List.of())
+                    .build();
+        });
+
+        // When
+        Set<String> failedKeys = s3Repository.deleteAudioFiles(keys);
+
+        // Then
+        assertEquals(Set.of("audio-1500.mp3"), failedKeys);
+        ArgumentCaptor<DeleteObjectsRequest> captor = ArgumentCaptor.forClass(DeleteObjectsRequest.class);
+        verify(s3Client, times(3)).deleteObjects(captor.capture());
+        assertEquals(List.of(1000, 1000, 500), captor.getAllValues().stream().map(request -> request.delete().objects().size()).toList());
+        assertEquals(BUCKET_NAME, captor.getValue().bucket());
+    }
+
+    @Test
+    void shouldReportJobsWhoseTranscriptWasNotDeleted() {
+        // Given
+        when(s3Client.deleteObjects(any(DeleteObjectsRequest.class))).thenReturn(DeleteObjectsResponse.builder()
+                .errors(S3Error.builder().key(TranscribeRepository.getTranscriptKey("job-2")).message("Access Denied").build())
+                .build());
+
+        // When
+        Set<String> failedJobs = s3Repository.deleteTranscripts(List.of("job-1", "job-2"));
+
+        // Then
+        assertEquals(Set.of("job-2"), failedJobs);
+        verify(s3Client).deleteObjects(argThat((DeleteObjectsRequest request) -> request.bucket().equals(OUTPUT_BUCKET_NAME)));
+    }
 }
@@ -1,15 +1,27 @@
 package com.productdock.repository;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.productdock.audio.AudioFormat;
 import com.productdock.exception.TranscribeRepositoryException;
+import com.productdock.resilience.Bulkhead;
+import com.productdock.resilience.CircuitBreaker;
+import com.productdock.resilience.DependencyGuard;
+import com.productdock.resilience.RetryBudget;
+import com.productdock.resilience.RetryPolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
+import software.amazon.awssdk.services.transcribe.TranscribeAsyncClient;
 import software.amazon.awssdk.services.transcribe.TranscribeClient;
 import software.amazon.awssdk.services.transcribe.model.*;
 
+import java.time.Duration;
+import java.util.Map;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -19,31 +31,39 @@ public class TranscribeRepositoryTest {
     private TranscribeClient transcribeClient;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private ObjectProvider<TranscribeAsyncClient> transcribeAsyncClientProvider;
 
-    @InjectMocks
     private TranscribeRepository transcribeRepository;
 
     private static final String BUCKET_NAME = "my-test-bucket";
+    private static final String OUTPUT_BUCKET_NAME = "my-output-bucket";
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        transcribeRepository = new TranscribeRepository(transcribeClient, transcribeAsyncClientProvider,
+                new RetryPolicy("transcribe", 3, Duration.ZERO, Duration.ZERO, new RetryBudget(1, 0, 10), meterRegistry),
+                new DependencyGuard("Transcribe", new CircuitBreaker("transcribe", 50, 10, 10, Duration.ofSeconds(30), 1, meterRegistry),
+                        new Bulkhead("transcribe", 10, Duration.ZERO, meterRegistry), meterRegistry));
         org.springframework.test.util.ReflectionTestUtils.setField(transcribeRepository, "bucketName", BUCKET_NAME);
+        org.springframework.test.util.ReflectionTestUtils.setField(transcribeRepository, "outputBucketName", OUTPUT_BUCKET_NAME);
     }
 
     @Test
     void shouldStartTranscriptionJobSuccessfully() throws TranscribeRepositoryException {
 
         // When
-        assertDoesNotThrow(() -> {
-            String jobName = transcribeRepository.startTranscriptionJob("audio-123.mp3");
-            assertNotNull(jobName);
-            assertTrue(jobName.startsWith("job-"));
-        });
+        String jobName = assertDoesNotThrow(() -> transcribeRepository.startTranscriptionJob("audio-123.wav", AudioFormat.WAV));
 
         // Then
-        verify(transcribeClient, times(1)).startTranscriptionJob(any(StartTranscriptionJobRequest.class));
+        assertTrue(jobName.startsWith("job-"));
+        ArgumentCaptor<StartTranscriptionJobRequest> request = ArgumentCaptor.forClass(StartTranscriptionJobRequest.class);
+        verify(transcribeClient, times(1)).startTranscriptionJob(request.capture());
+        assertEquals(MediaFormat.WAV, request.getValue().mediaFormat());
+        assertEquals("s3://" + BUCKET_NAME + "/audio-123.wav", request.getValue().media().mediaFileUri());
+        assertEquals(OUTPUT_BUCKET_NAME, request.getValue().outputBucketName());
+        assertEquals("transcripts/" + jobName + ".json", request.getValue().outputKey());
     }
 
     @Test
@@ -55,7 +75,7 @@ public class TranscribeRepositoryTest {
         // When
         TranscribeRepositoryException exception = assertThrows(
                 TranscribeRepositoryException.class,
-                () -> transcribeRepository.startTranscriptionJob("audio-123.mp3")
+                () -> transcribeRepository.startTranscriptionJob("audio-123.mp3", AudioFormat.MP3)
         );
 
         // Then
@@ -80,6 +100,59 @@ public class TranscribeRepositoryTest {
         assertEquals("COMPLETED", status);
     }
 
+    @Test
+    void shouldRetryJobStatusWhenTranscribeIsThrottled() {
+        // Given
+        GetTranscriptionJobResponse mockResponse = GetTranscriptionJobResponse.builder()
+                .transcriptionJob(TranscriptionJob.builder()
+                        .transcriptionJobStatus(TranscriptionJobStatus.IN_PROGRESS)
+                        .build())
+                .build();
+        when(transcribeClient.getTranscriptionJob(any(GetTranscriptionJobRequest.class)))
+                .thenThrow(TranscribeException.builder().message("throttled").statusCode(429).build())
+                .thenReturn(mockResponse);
+
+        // When
+        String status = transcribeRepository.getJobStatus("job-123");
+
+        // Then
+        assertEquals("IN_PROGRESS", status);
+        verify(transcribeClient, times(2)).getTranscriptionJob(any(GetTranscriptionJobRequest.class));
+    }
+
+    @Test
+    void shouldListActiveJobStatusesAcrossPages() {
+        // Given
+        when(transcribeClient.listTranscriptionJobs(any(ListTranscriptionJobsRequest.class))).thenAnswer(invocation -> {
+            ListTranscriptionJobsRequest request = invocation.getArgument(0);
+            if (request.status() == TranscriptionJobStatus.QUEUED) {
+                return ListTranscriptionJobsResponse.builder()
+                        .transcriptionJobSummaries(summary("job-1", TranscriptionJobStatus.QUEUED))
+                        .build();
+            }
+            if (request.nextToken() == null) {
+                return ListTranscriptionJobsResponse.builder()
+                        .transcriptionJobSummaries(summary("job-2", TranscriptionJobStatus.IN_PROGRESS))
+                        .nextToken("page-2")
+                        .build();
+            }
+            return ListTranscriptionJobsResponse.builder()
+                    .transcriptionJobSummaries(summary("job-3", TranscriptionJobStatus.IN_PROGRESS))
+                    .build();
+        });
+
+        // When
+        Map<String, String> statuses = transcribeRepository.listActiveJobStatuses();
+
+        // Then
+        assertEquals(Map.of("job-1", "QUEUED", "job-2", "IN_PROGRESS", "job-3", "IN_PROGRESS"), statuses);
+        verify(transcribeClient, times(3)).listTranscriptionJobs(any(ListTranscriptionJobsRequest.class));
+    }
+
+    private static TranscriptionJobSummary summary(String jobName, TranscriptionJobStatus status) {
+        return TranscriptionJobSummary.builder().transcriptionJobName(jobName).transcriptionJobStatus(status).build();
+    }
+
     @Test
     void shouldDeleteTranscriptionJobSuccessfully() {
         // Given
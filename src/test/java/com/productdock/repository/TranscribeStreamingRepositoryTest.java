@@ -0,0 +1,105 @@
+package com.productdock.repository;
+
+import com.productdock.audio.LiveAudioEncoding;
+import com.productdock.exception.TranscribeRepositoryException;
+import com.productdock.model.LiveTranscriptSegment;
+import com.productdock.model.LiveTranscriptionSettings;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Publisher;
+import software.amazon.awssdk.services.transcribestreaming.TranscribeStreamingAsyncClient;
+import software.amazon.awssdk.services.transcribestreaming.model.Alternative;
+import software.amazon.awssdk.services.transcribestreaming.model.BadRequestException;
+import software.amazon.awssdk.services.transcribestreaming.model.MediaEncoding;
+import software.amazon.awssdk.services.transcribestreaming.model.Result;
+import software.amazon.awssdk.services.transcribestreaming.model.StartStreamTranscriptionRequest;
+import software.amazon.awssdk.services.transcribestreaming.model.StartStreamTranscriptionResponseHandler;
+import software.amazon.awssdk.services.transcribestreaming.model.Transcript;
+import software.amazon.awssdk.services.transcribestreaming.model.TranscriptEvent;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TranscribeStreamingRepositoryTest {
+
+    private static final LiveTranscriptionSettings SETTINGS = new LiveTranscriptionSettings(LiveAudioEncoding.OGG_OPUS, 48000, "de-DE");
+
+    @Mock
+    private TranscribeStreamingAsyncClient transcribeStreamingAsyncClient;
+
+    @Mock
+    private Publisher<ByteBuffer> audio;
+
+    @Test
+    void shouldStartStreamWithClientSettings() {
+        // Given
+        TranscribeStreamingRepository transcribeStreamingRepository = new TranscribeStreamingRepository(transcribeStreamingAsyncClient);
+        when(transcribeStreamingAsyncClient.startStreamTranscription(any(StartStreamTranscriptionRequest.class), any(), any(StartStreamTranscriptionResponseHandler.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        // When
+        CompletableFuture<Void> completion = transcribeStreamingRepository.transcribe(SETTINGS, audio, segment -> {
+        });
+
+        // Then
+        assertTrue(completion.isDone());
+        ArgumentCaptor<StartStreamTranscriptionRequest> captor = ArgumentCaptor.forClass(StartStreamTranscriptionRequest.class);
+        verify(transcribeStreamingAsyncClient).startStreamTranscription(captor.capture(), any(), any(StartStreamTranscriptionResponseHandler.class));
+        assertEquals(MediaEncoding.OGG_OPUS, captor.getValue().mediaEncoding());
+        assertEquals(48000, captor.getValue().mediaSampleRateHertz());
+        assertEquals("de-DE", captor.getValue().languageCodeAsString());
+    }
+
+    @Test
+    void shouldWrapStreamFailures() {
+        // Given
+        TranscribeStreamingRepository transcribeStreamingRepository = new TranscribeStreamingRepository(transcribeStreamingAsyncClient);
+        when(transcribeStreamingAsyncClient.startStreamTranscription(any(StartStreamTranscriptionRequest.class), any(), any(StartStreamTranscriptionResponseHandler.class)))
+                .thenReturn(CompletableFuture.failedFuture(BadRequestException.builder().message("Unsupported language").build()));
+
+        // When
+        CompletableFuture<Void> completion = transcribeStreamingRepository.transcribe(SETTINGS, audio, segment -> {
+        });
+
+        // Then
+        CompletionException exception = assertThrows(CompletionException.class, completion::join);
+        assertInstanceOf(TranscribeRepositoryException.class, exception.getCause());
+    }
+
+    @Test
+    void shouldPublishBestAlternativeOfEveryResult() {
+        // Given
+        TranscriptEvent event = TranscriptEvent.builder()
+                .transcript(Transcript.builder().results(
+                        Result.builder().resultId("r1").isPartial(true).startTime(0.5).endTime(1.2)
+                                .alternatives(Alternative.builder().transcript("hello").build(), Alternative.builder().transcript("hallo").build())
+                                .build(),
+                        Result.builder().resultId("r2").isPartial(false).alternatives(List.of()).build(),
+                        Result.builder().resultId("r3").isPartial(false).startTime(1.2).endTime(2.0)
+                                .alternatives(Alternative.builder().transcript("world").build())
+                                .build()
+                ).build())
+                .build();
+        List<LiveTranscriptSegment> segments = new ArrayList<>();
+
+        // When
+        TranscribeStreamingRepository.publishSegments(event, segments::add);
+
+        // Then
+        assertEquals(List.of(
+                new LiveTranscriptSegment("r1", "hello", true, 0.5, 1.2),
+                new LiveTranscriptSegment("r3", "world", false, 1.2, 2.0)
+        ), segments);
+    }
+}
@@ -0,0 +1,112 @@
+package com.productdock.repository;
+
+import com.productdock.model.TranscriptItem;
+import com.productdock.model.TranscriptItemsPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptIndexRepositoryTest {
+
+    @TempDir
+    private Path indexDirectory;
+
+    @Test
+    void shouldReadPagesOfIndexedItems() throws IOException {
+        // Given
+        TranscriptIndexRepository repository = createRepository(1024 * 1024);
+        List<TranscriptItem> items = items(2500);
+        repository.write("job-123", sink -> items.forEach(sink));
+
+        // When
+        Optional<TranscriptItemsPage> page = repository.readPage("job-123", 1998, 4);
+        Optional<TranscriptItemsPage> lastPage = repository.readPage("job-123", 2499, 100);
+        Optional<TranscriptItemsPage> beyond = repository.readPage("job-123", 2500, 100);
+
+        // Then
+        assertTrue(page.isPresent());
+        assertEquals(2500, page.get().totalItems());
+        assertEquals(items.subList(1998, 2002), page.get().items());
+        assertEquals(items.subList(2499, 2500), lastPage.orElseThrow().items());
+        assertEquals(List.of(), beyond.orElseThrow().items());
+        assertTrue(repository.readPage("job-unknown", 0, 10).isEmpty());
+    }
+
+    @Test
+    void shouldReadAllItemsInOrder() throws IOException {
+        // Given
+        TranscriptIndexRepository repository = createRepository(1024 * 1024);
+        List<TranscriptItem> items = items(2500);
+        repository.write("job-123", sink -> items.forEach(sink));
+        List<TranscriptItem> read = new ArrayList<>();
+
+        // When
+        boolean indexed = repository.readAll("job-123", read::add);
+
+        // Then
+        assertTrue(indexed);
+        assertEquals(items, read);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedIndexAndKeepIndexAcrossRestarts() throws IOException {
+        // Given
+        TranscriptIndexRepository repository = createRepository(2500);
+        repository.write("job-1", sink -> items(40).forEach(sink));
+        repository.write("job-2", sink -> items(40).forEach(sink));
+        repository.readPage("job-1", 0, 1);
+
+        // When
+        repository.write("job-3", sink -> items(40).forEach(sink));
+        TranscriptIndexRepository restarted = createRepository(2500);
+
+        // Then
+        assertTrue(repository.contains("job-1"));
+        assertFalse(repository.contains("job-2"));
+        assertTrue(repository.contains("job-3"));
+        assertEquals(items(40), restarted.readPage("job-3", 0, 40).orElseThrow().items());
+        assertFalse(restarted.contains("job-2"));
+    }
+
+    @Test
+    void shouldRejectJobNamesThatAreNoFileNames() {
+        // Given
+        TranscriptIndexRepository repository = createRepository(1024 * 1024);
+
+        // When/Then
+        assertThrows(IllegalArgumentException.class, () -> repository.write("../job-123", sink -> {
+        }));
+    }
+
+    private TranscriptIndexRepository createRepository(long maxBytes) {
+        TranscriptIndexRepository repository = new TranscriptIndexRepository(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(repository, "directory", indexDirectory.toString());
+        ReflectionTestUtils.setField(repository, "maxBytes", maxBytes);
+        repository.init();
+        return repository;
+    }
+
+    /**
+     * Words every 0.4 seconds, a full stop after every tenth word.
+     */
+    private static List<TranscriptItem> items(int count) {
+        List<TranscriptItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (i % 10 == 9) {
+                items.add(new TranscriptItem(TranscriptItem.PUNCTUATION, ".", null, null, 0.0));
+            } else {
+                items.add(new TranscriptItem(TranscriptItem.PRONUNCIATION, "wörd" + i, i * 400 / 1000.0, (i * 400 + 300) / 1000.0, 0.9876));
+            }
+        }
+        return items;
+    }
+}
@@ -0,0 +1,86 @@
+package com.productdock.repository;
+
+import com.productdock.model.TranscriptItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptParserTest {
+
+    @Test
+    void shouldReadTranscriptBeforeItems() throws IOException {
+        // Given
+        String output = """
+                {"jobName":"job-123","accountId":"123","results":{"language_code":"en-US",
+                "transcripts":[{"transcript":"Hello \\"world\\""}],
+                "items":[{"start_time":"0.0","alternatives":[{"confidence":"0.99","content":"Hello"}],"type":"pronunciation"}]},
+                "status":"COMPLETED"}""";
+
+        // When
+        String transcript = TranscriptParser.readTranscript(json(output));
+
+        // Then
+        assertEquals("Hello \"world\"", transcript);
+    }
+
+    @Test
+    void shouldSkipItemsBeforeTranscript() throws IOException {
+        // Given
+        String output = """
+                {"results":{"items":[{"alternatives":[{"content":"transcript"}],"type":"pronunciation"}],
+                "transcripts":[{"transcript":"Hello world"}]}}""";
+
+        // When
+        String transcript = TranscriptParser.readTranscript(json(output));
+
+        // Then
+        assertEquals("Hello world", transcript);
+    }
+
+    @Test
+    void shouldReturnEmptyTranscriptWhenOutputHasNone() throws IOException {
+        // When
+        String transcript = TranscriptParser.readTranscript(json("{\"results\":{\"transcripts\":[]}}"));
+
+        // Then
+        assertEquals("", transcript);
+    }
+
+    @Test
+    void shouldReadItemsWithTimingsAndConfidences() throws IOException {
+        // Given
+        String output = """
+                {"results":{"transcripts":[{"transcript":"Hello, world"}],"items":[
+                {"start_time":"0.5","end_time":"0.9","alternatives":[{"confidence":"0.99","content":"Hello"}],"type":"pronunciation"},
+                {"alternatives":[{"confidence":"0.0","content":","}],"type":"punctuation"},
+                {"start_time":1.0,"end_time":1.4,"alternatives":[{"confidence":0.95,"content":"world"},{"content":"word"}],"type":"pronunciation"},
+                {"alternatives":[],"type":"pronunciation"}]}}""";
+        List<TranscriptItem> items = new ArrayList<>();
+
+        // When
+        TranscriptParser.readItems(json(output), items::add);
+
+        // Then
+        assertEquals(List.of(
+                new TranscriptItem(TranscriptItem.PRONUNCIATION, "Hello", 0.5, 0.9, 0.99),
+                new TranscriptItem(TranscriptItem.PUNCTUATION, ",", null, null, 0.0),
+                new TranscriptItem(TranscriptItem.PRONUNCIATION, "world", 1.0, 1.4, 0.95)), items);
+    }
+
+    @Test
+    void shouldFailOnInvalidOutput() {
+        // When/Then
+        assertThrows(IOException.class, () -> TranscriptParser.readTranscript(json("{\"results\":")));
+    }
+
+    private static InputStream json(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
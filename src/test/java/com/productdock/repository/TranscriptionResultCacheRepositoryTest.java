@@ -0,0 +1,131 @@
+package com.productdock.repository;
+
+import com.productdock.model.TranscriptionJobResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TranscriptionResultCacheRepositoryTest {
+
+    private MeterRegistry meterRegistry;
+    private TranscriptionResultCacheRepository transcriptionResultCacheRepository;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        transcriptionResultCacheRepository = new TranscriptionResultCacheRepository(meterRegistry);
+        ReflectionTestUtils.setField(transcriptionResultCacheRepository, "maxBytes", 1024L);
+        ReflectionTestUtils.setField(transcriptionResultCacheRepository, "unknownTtlMillis", 60_000L);
+        ReflectionTestUtils.setField(transcriptionResultCacheRepository, "unknownMaxEntries", 2);
+        transcriptionResultCacheRepository.init();
+    }
+
+    @Test
+    void shouldReturnCachedTranscript() {
+        // Given
+        String transcript = "This is my test voice recording. ".repeat(100);
+        transcriptionResultCacheRepository.put(new TranscriptionJobResponse("job-123", "COMPLETED", transcript));
+
+        // When
+        Optional<TranscriptionJobResponse> response = transcriptionResultCacheRepository.find("job-123");
+
+        // Then
+        assertTrue(response.isPresent());
+        assertEquals("COMPLETED", response.get().getJobStatus());
+        assertEquals(transcript, response.get().getTranscript());
+        assertNull(response.get().getFailureReason());
+        // Repetitive text compresses well below the raw size
+        assertTrue(meterRegistry.get("transcribe.result-cache.size.bytes").gauge().value() < transcript.length());
+    }
+
+    @Test
+    void shouldReturnCachedFailureReason() {
+        // Given
+        transcriptionResultCacheRepository.put(new TranscriptionJobResponse("job-123", "FAILED", null, "Unsupported media format"));
+
+        // When
+        Optional<TranscriptionJobResponse> response = transcriptionResultCacheRepository.find("job-123");
+
+        // Then
+        assertTrue(response.isPresent());
+        assertEquals("Unsupported media format", response.get().getFailureReason());
+        assertNull(response.get().getTranscript());
+    }
+
+    @Test
+    void shouldKeepETagOfCachedResponse() {
+        // Given
+        TranscriptionJobResponse response = new TranscriptionJobResponse("job-123", "COMPLETED", "This is my test voice recording.");
+        transcriptionResultCacheRepository.put(response);
+
+        // When
+        Optional<String> etag = transcriptionResultCacheRepository.findETag("job-123");
+
+        // Then
+        assertEquals(Optional.of(response.computeETag()), etag);
+        assertTrue(transcriptionResultCacheRepository.findETag("job-unknown").isEmpty());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedResultsAboveSizeLimit() {
+        // Given
+        ReflectionTestUtils.setField(transcriptionResultCacheRepository, "maxBytes", 1500L);
+        transcriptionResultCacheRepository.put(new TranscriptionJobResponse("job-1", "COMPLETED", randomText(1000)));
+        transcriptionResultCacheRepository.put(new TranscriptionJobResponse("job-2", "COMPLETED", randomText(1000)));
+        transcriptionResultCacheRepository.find("job-1");
+
+        // When
+        transcriptionResultCacheRepository.put(new TranscriptionJobResponse("job-3", "COMPLETED", randomText(1000)));
+
+        // Then
+        assertTrue(transcriptionResultCacheRepository.find("job-1").isPresent());
+        assertTrue(transcriptionResultCacheRepository.find("job-2").isEmpty());
+        assertTrue(transcriptionResultCacheRepository.find("job-3").isPresent());
+        assertEquals(1.0, meterRegistry.get("transcribe.result-cache.evictions").counter().count());
+    }
+
+    @Test
+    void shouldRememberUnknownJobsUntilTheyExpire() {
+        // Given
+        transcriptionResultCacheRepository.putUnknown("job-unknown");
+        ReflectionTestUtils.setField(transcriptionResultCacheRepository, "unknownTtlMillis", 0L);
+        transcriptionResultCacheRepository.putUnknown("job-expired");
+
+        // When/Then
+        assertTrue(transcriptionResultCacheRepository.isUnknown("job-unknown"));
+        assertFalse(transcriptionResultCacheRepository.isUnknown("job-expired"));
+        assertFalse(transcriptionResultCacheRepository.isUnknown("job-123"));
+    }
+
+    @Test
+    void shouldLimitNumberOfUnknownJobs() {
+        // Given
+        transcriptionResultCacheRepository.putUnknown("job-1");
+        transcriptionResultCacheRepository.putUnknown("job-2");
+
+        // When
+        transcriptionResultCacheRepository.putUnknown("job-3");
+
+        // Then
+        assertFalse(transcriptionResultCacheRepository.isUnknown("job-1"));
+        assertTrue(transcriptionResultCacheRepository.isUnknown("job-2"));
+        assertTrue(transcriptionResultCacheRepository.isUnknown("job-3"));
+    }
+
+    private static String randomText(int length) {
+        // Random text does not compress, so the stored size is predictable
+        Random random = new Random(length);
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append((char) ('a' + random.nextInt(26)));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,104 @@
+package com.productdock.resilience;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void shouldStayClosedBelowMinimumCalls() {
+        // Given
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", 50, 10, 4, Duration.ofSeconds(30), 1, meterRegistry);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            assertTrue(circuitBreaker.tryAcquire());
+            circuitBreaker.onFailure();
+        }
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void shouldOpenWhenFailureRateIsReached() {
+        // Given
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", 50, 4, 4, Duration.ofSeconds(30), 1, meterRegistry);
+
+        // When
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+        circuitBreaker.onFailure();
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+        assertTrue(circuitBreaker.getRemainingOpenDuration().compareTo(Duration.ZERO) > 0);
+        assertEquals(1.0, meterRegistry.get("aws.circuit.transitions").tag("state", "open").counter().count());
+        assertEquals(1.0, meterRegistry.get("aws.circuit.state").gauge().value());
+    }
+
+    @Test
+    void shouldForgetOutcomesThatLeftTheWindow() {
+        // Given
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", 50, 4, 4, Duration.ofSeconds(30), 1, meterRegistry);
+        circuitBreaker.onFailure();
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onSuccess();
+        }
+        circuitBreaker.onFailure();
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void shouldCloseAfterSuccessfulTrialCalls() {
+        // Given
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", 50, 1, 1, Duration.ZERO, 2, meterRegistry);
+        circuitBreaker.onFailure();
+
+        // When
+        assertTrue(circuitBreaker.tryAcquire());
+        assertTrue(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.tryAcquire());
+        circuitBreaker.onSuccess();
+        circuitBreaker.onSuccess();
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void shouldReopenWhenTrialCallFails() {
+        // Given
+        CircuitBreaker circuitBreaker = new CircuitBreaker("test", 50, 1, 1, Duration.ZERO, 2, meterRegistry);
+        circuitBreaker.onFailure();
+        assertTrue(circuitBreaker.tryAcquire());
+
+        // When
+        circuitBreaker.onFailure();
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(2.0, meterRegistry.get("aws.circuit.transitions").tag("state", "open").counter().count());
+    }
+}
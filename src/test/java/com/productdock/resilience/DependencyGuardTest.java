@@ -0,0 +1,109 @@
+package com.productdock.resilience;
+
+import com.productdock.exception.DependencyUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyGuardTest {
+
+    private MeterRegistry meterRegistry;
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        circuitBreaker = new CircuitBreaker("test", 50, 2, 2, Duration.ofSeconds(30), 1, meterRegistry);
+    }
+
+    @Test
+    void shouldRejectCallsWhileCircuitIsOpen() {
+        // Given
+        DependencyGuard guard = createGuard(10);
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 2; i++) {
+            assertThrows(SdkServiceException.class, () -> guard.execute(() -> {
+                calls.incrementAndGet();
+                throw serviceException(503);
+            }));
+        }
+
+        // When
+        DependencyUnavailableException exception = assertThrows(DependencyUnavailableException.class,
+                () -> guard.execute(calls::incrementAndGet));
+
+        // Then
+        assertEquals(2, calls.get());
+        assertTrue(exception.getRetryAfter().compareTo(Duration.ofSeconds(25)) > 0);
+        assertEquals(1.0, meterRegistry.get("aws.rejections").tag("reason", "circuit_open").counter().count());
+    }
+
+    @Test
+    void shouldNotCountClientErrorsAgainstCircuit() {
+        // Given
+        DependencyGuard guard = createGuard(10);
+
+        // When
+        for (int i = 0; i < 4; i++) {
+            assertThrows(SdkServiceException.class, () -> guard.execute(() -> {
+                throw serviceException(400);
+            }));
+        }
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void shouldRejectCallsWhenBulkheadIsFull() throws Exception {
+        // Given
+        DependencyGuard guard = createGuard(1);
+        CompletableFuture<String> pending = new CompletableFuture<>();
+        CompletableFuture<String> first = guard.executeAsync(() -> pending);
+
+        // When
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> guard.executeAsync(() -> CompletableFuture.completedFuture("second")).get());
+
+        // Then
+        assertInstanceOf(DependencyUnavailableException.class, exception.getCause());
+        assertThrows(DependencyUnavailableException.class, () -> guard.execute(() -> "third"));
+        assertEquals(2.0, meterRegistry.get("aws.rejections").tag("reason", "bulkhead_full").counter().count());
+
+        pending.complete("first");
+        assertEquals("first", first.get());
+        assertEquals("fourth", guard.execute(() -> "fourth"));
+    }
+
+    @Test
+    void shouldRecordAsyncFailures() {
+        // Given
+        DependencyGuard guard = createGuard(10);
+
+        // When
+        for (int i = 0; i < 2; i++) {
+            guard.executeAsync(() -> CompletableFuture.failedFuture(serviceException(429)));
+        }
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals(10.0, meterRegistry.get("aws.bulkhead.available").gauge().value());
+    }
+
+    private DependencyGuard createGuard(int maxConcurrent) {
+        return new DependencyGuard("Test", circuitBreaker, new Bulkhead("test", maxConcurrent, Duration.ZERO, meterRegistry), meterRegistry);
+    }
+
+    private static SdkServiceException serviceException(int statusCode) {
+        return SdkServiceException.builder().message("status " + statusCode).statusCode(statusCode).build();
+    }
+}
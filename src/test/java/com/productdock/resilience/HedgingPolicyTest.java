@@ -0,0 +1,156 @@
+package com.productdock.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgingPolicyTest {
+
+    private MeterRegistry meterRegistry;
+    private List<String> discarded;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        discarded = new CopyOnWriteArrayList<>();
+    }
+
+    @Test
+    void shouldUseHedgedRequestWhenCallIsSlow() throws Exception {
+        // Given
+        HedgingPolicy hedgingPolicy = createHedgingPolicy(true, fundedRetryBudget());
+        hedgingPolicy.executeAsync(() -> CompletableFuture.completedFuture("warm-up"), discarded::add).get();
+        CompletableFuture<String> slowResponse = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        String result = hedgingPolicy.executeAsync(() -> calls.incrementAndGet() == 1
+                ? slowResponse
+                : CompletableFuture.completedFuture("hedged"), discarded::add).get(5, TimeUnit.SECONDS);
+        slowResponse.complete("slow");
+
+        // Then
+        assertEquals("hedged", result);
+        assertEquals(2, calls.get());
+        assertEquals(List.of("slow"), discarded);
+        // The win is counted right after the result completes, on the thread of the hedged request
+        Counter hedgesWon = meterRegistry.counter("aws.hedges", "client", "test", "result", "won");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (hedgesWon.count() < 1 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(1, hedgesWon.count());
+    }
+
+    @Test
+    void shouldWaitForHedgedRequestWhenFirstCallFails() throws Exception {
+        // Given
+        HedgingPolicy hedgingPolicy = createHedgingPolicy(true, fundedRetryBudget());
+        hedgingPolicy.executeAsync(() -> CompletableFuture.completedFuture("warm-up"), discarded::add).get();
+        CompletableFuture<String> slowResponse = new CompletableFuture<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        CompletableFuture<String> result = hedgingPolicy.executeAsync(() -> calls.incrementAndGet() == 1
+                ? slowResponse
+                : CompletableFuture.supplyAsync(() -> "hedged", CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS)), discarded::add);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (calls.get() < 2 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        slowResponse.completeExceptionally(new IllegalStateException("failed"));
+
+        // Then
+        assertEquals("hedged", result.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldNotHedgeWhenDisabled() throws Exception {
+        // Given
+        HedgingPolicy hedgingPolicy = createHedgingPolicy(false, new RetryBudget(1, 0, 10));
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        String result = hedgingPolicy.executeAsync(() -> {
+            calls.incrementAndGet();
+            return CompletableFuture.supplyAsync(() -> "slow", CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+        }, discarded::add).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals("slow", result);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shouldNotHedgeWhenBudgetIsExhausted() throws Exception {
+        // Given
+        HedgingPolicy hedgingPolicy = createHedgingPolicy(true, new RetryBudget(0, 0, 10));
+        hedgingPolicy.executeAsync(() -> CompletableFuture.completedFuture("warm-up"), discarded::add).get();
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        String result = hedgingPolicy.executeAsync(() -> {
+            calls.incrementAndGet();
+            return CompletableFuture.supplyAsync(() -> "slow", CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+        }, discarded::add).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals("slow", result);
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shouldHedgeBlockingCalls() {
+        // Given
+        HedgingPolicy hedgingPolicy = createHedgingPolicy(true, fundedRetryBudget());
+        hedgingPolicy.execute(() -> "warm-up", discarded::add);
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        String result = hedgingPolicy.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                sleep(500);
+                return "slow";
+            }
+            return "hedged";
+        }, discarded::add);
+
+        // Then
+        assertEquals("hedged", result);
+    }
+
+    /**
+     * Hedging only withdraws from the budget, the retry policy wrapping it makes the deposits.
+     */
+    private RetryBudget fundedRetryBudget() {
+        RetryBudget retryBudget = new RetryBudget(1, 0, 10);
+        for (int i = 0; i < 5; i++) {
+            retryBudget.deposit();
+        }
+        return retryBudget;
+    }
+
+    private HedgingPolicy createHedgingPolicy(boolean enabled, RetryBudget retryBudget) {
+        return new HedgingPolicy("test", enabled, Duration.ofMillis(10), 1, retryBudget,
+                runnable -> new Thread(runnable).start(), meterRegistry);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
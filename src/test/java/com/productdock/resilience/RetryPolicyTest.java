@@ -0,0 +1,154 @@
+package com.productdock.resilience;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.exception.SdkServiceException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryPolicyTest {
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void shouldRetryTransientFailures() {
+        // Given
+        RetryPolicy retryPolicy = createRetryPolicy(3, new RetryBudget(10, 0, 10));
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        String result = retryPolicy.execute(() -> {
+            if (calls.incrementAndGet() < 3) {
+                throw serviceException(503);
+            }
+            return "ok";
+        });
+
+        // Then
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+        assertEquals(2, meterRegistry.counter("aws.retries", "client", "test", "outcome", "retried").count());
+    }
+
+    @Test
+    void shouldNotRetryRejectedRequests() {
+        // Given
+        RetryPolicy retryPolicy = createRetryPolicy(3, new RetryBudget(10, 0, 10));
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        assertThrows(SdkServiceException.class, () -> retryPolicy.execute(() -> {
+            calls.incrementAndGet();
+            throw serviceException(400);
+        }));
+
+        // Then
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shouldGiveUpAfterMaxAttempts() {
+        // Given
+        RetryPolicy retryPolicy = createRetryPolicy(3, new RetryBudget(10, 0, 10));
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        assertThrows(SdkServiceException.class, () -> retryPolicy.execute(() -> {
+            calls.incrementAndGet();
+            throw serviceException(500);
+        }));
+
+        // Then
+        assertEquals(3, calls.get());
+        assertEquals(1, meterRegistry.counter("aws.retries", "client", "test", "outcome", "attempts_exhausted").count());
+    }
+
+    @Test
+    void shouldNotRetryWhenBudgetIsExhausted() {
+        // Given
+        RetryPolicy retryPolicy = createRetryPolicy(3, new RetryBudget(0, 0, 10));
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        assertThrows(SdkServiceException.class, () -> retryPolicy.execute(() -> {
+            calls.incrementAndGet();
+            throw serviceException(503);
+        }));
+
+        // Then
+        assertEquals(1, calls.get());
+        assertEquals(1, meterRegistry.counter("aws.retries", "client", "test", "outcome", "budget_exhausted").count());
+    }
+
+    @Test
+    void shouldRetryAsyncCallsWithoutBlocking() throws Exception {
+        // Given
+        RetryPolicy retryPolicy = createRetryPolicy(3, new RetryBudget(10, 0, 10));
+        AtomicInteger calls = new AtomicInteger();
+
+        // When
+        CompletableFuture<String> result = retryPolicy.executeAsync(() -> calls.incrementAndGet() < 2
+                ? CompletableFuture.failedFuture(serviceException(429))
+                : CompletableFuture.completedFuture("ok"));
+
+        // Then
+        assertEquals("ok", result.get());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void shouldCompleteAsyncCallWithLastFailure() {
+        // Given
+        RetryPolicy retryPolicy = createRetryPolicy(2, new RetryBudget(10, 0, 10));
+
+        // When
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> retryPolicy.<String>executeAsync(() -> CompletableFuture.failedFuture(serviceException(503))).get());
+
+        // Then
+        assertInstanceOf(SdkServiceException.class, exception.getCause());
+    }
+
+    @Test
+    void shouldDrawBackoffBelowExponentialCap() {
+        // Given
+        RetryPolicy retryPolicy = new RetryPolicy("test", 10, Duration.ofMillis(100), Duration.ofMillis(1000),
+                new RetryBudget(10, 0, 10), meterRegistry);
+
+        // When / Then
+        for (int i = 0; i < 100; i++) {
+            assertTrue(retryPolicy.getBackoffMillis(1) <= 100);
+            assertTrue(retryPolicy.getBackoffMillis(3) <= 400);
+            assertTrue(retryPolicy.getBackoffMillis(10) <= 1000);
+        }
+    }
+
+    @Test
+    void shouldTreatThrottlingServerAndIoErrorsAsRetryable() {
+        assertTrue(RetryPolicy.isRetryable(serviceException(429)));
+        assertTrue(RetryPolicy.isRetryable(serviceException(503)));
+        assertTrue(RetryPolicy.isRetryable(new java.io.UncheckedIOException(new java.io.IOException("reset"))));
+        assertFalse(RetryPolicy.isRetryable(serviceException(403)));
+        assertFalse(RetryPolicy.isRetryable(new IllegalArgumentException()));
+    }
+
+    private RetryPolicy createRetryPolicy(int maxAttempts, RetryBudget retryBudget) {
+        return new RetryPolicy("test", maxAttempts, Duration.ZERO, Duration.ZERO, retryBudget, meterRegistry);
+    }
+
+    private static SdkServiceException serviceException(int statusCode) {
+        return SdkServiceException.builder().message("status " + statusCode).statusCode(statusCode).build();
+    }
+}
@@ -0,0 +1,117 @@
+package com.productdock.security;
+
+import io.github.bucket4j.distributed.proxy.ProxyManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import redis.clients.jedis.DefaultJedisClientConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisPooled;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.sql.SQLException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DistributedRateLimiterTest {
+
+    private static final RateLimit LIMIT = RateLimit.of("upload", 1, 100, 5);
+
+    private MeterRegistry meterRegistry;
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource = spy(h2);
+    }
+
+    @Test
+    void shouldLimitClientAcrossInstances() {
+        // Given
+        DistributedRateLimiter first = createRateLimiter(createJdbcProxyManager(), 0);
+        DistributedRateLimiter second = createRateLimiter(createJdbcProxyManager(), 0);
+        int allowed = 0;
+
+        // When
+        for (int i = 0; i < 60; i++) {
+            allowed += first.tryConsume(LIMIT, "10.0.0.1") ? 1 : 0;
+            allowed += second.tryConsume(LIMIT, "10.0.0.1") ? 1 : 0;
+        }
+
+        // Then
+        assertEquals(100, allowed);
+        assertTrue(first.tryConsume(LIMIT, "10.0.0.2"));
+    }
+
+    @Test
+    void shouldConsumeLeasedTokensWithoutBackendCalls() throws SQLException {
+        // Given
+        DistributedRateLimiter rateLimiter = createRateLimiter(createJdbcProxyManager(), 10);
+        clearInvocations(dataSource);
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            assertTrue(rateLimiter.tryConsume(LIMIT, "10.0.0.1"));
+        }
+
+        // Then
+        // A read and a write for the first request and after every 10 tokens
+        verify(dataSource, atMost(2 * 6)).getConnection();
+    }
+
+    @Test
+    void shouldLimitLocallyWhileBackendIsUnreachable() throws IOException {
+        // Given
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        JedisPooled jedis = new JedisPooled(new HostAndPort("localhost", closedPort),
+                DefaultJedisClientConfig.builder().connectionTimeoutMillis(200).build());
+        DistributedRateLimiter rateLimiter = createRateLimiter(new RedisProxyManager(jedis), 10);
+        RateLimit limit = RateLimit.of("upload", 1, 2, 5);
+
+        // When
+        boolean firstAllowed = rateLimiter.tryConsume(limit, "10.0.0.1");
+        boolean secondAllowed = rateLimiter.tryConsume(limit, "10.0.0.1");
+        boolean thirdAllowed = rateLimiter.tryConsume(limit, "10.0.0.1");
+
+        // Then
+        assertTrue(firstAllowed);
+        assertTrue(secondAllowed);
+        assertFalse(thirdAllowed);
+        assertTrue(rateLimiter.isFallingBack());
+        assertEquals(1, meterRegistry.counter("rate-limit.distributed.backend-failures").count());
+        assertEquals(3, meterRegistry.counter("rate-limit.distributed.local-fallbacks").count());
+        jedis.close();
+    }
+
+    private JdbcProxyManager createJdbcProxyManager() {
+        JdbcProxyManager proxyManager = new JdbcProxyManager(dataSource, 1, true);
+        proxyManager.init();
+        return proxyManager;
+    }
+
+    private DistributedRateLimiter createRateLimiter(ProxyManager<String> proxyManager, int leasePercent) {
+        RateLimitBucketStore bucketStore = new RateLimitBucketStore(meterRegistry);
+        ReflectionTestUtils.setField(bucketStore, "maxClients", 1000);
+        bucketStore.init();
+        DistributedRateLimiter rateLimiter = new DistributedRateLimiter(proxyManager, bucketStore, meterRegistry);
+        ReflectionTestUtils.setField(rateLimiter, "maxLocalBuckets", 100);
+        ReflectionTestUtils.setField(rateLimiter, "leasePercent", leasePercent);
+        ReflectionTestUtils.setField(rateLimiter, "leaseTimeoutMillis", 60000L);
+        ReflectionTestUtils.setField(rateLimiter, "retryAfterMillis", 60000L);
+        rateLimiter.init();
+        return rateLimiter;
+    }
+}
@@ -0,0 +1,125 @@
+package com.productdock.security;
+
+import com.productdock.exception.RateLimitBackendException;
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.Refill;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JdbcProxyManagerTest {
+
+    private JdbcDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+    }
+
+    @Test
+    void shouldShareBucketBetweenInstances() {
+        // Given
+        JdbcProxyManager first = createProxyManager();
+        JdbcProxyManager second = createProxyManager();
+        Bucket firstBucket = first.builder().build("rate-limit:1", configuration(5, Duration.ofMinutes(5)));
+        Bucket secondBucket = second.builder().build("rate-limit:1", configuration(5, Duration.ofMinutes(5)));
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            assertTrue(firstBucket.tryConsume(1));
+        }
+        for (int i = 0; i < 2; i++) {
+            assertTrue(secondBucket.tryConsume(1));
+        }
+
+        // Then
+        assertFalse(firstBucket.tryConsume(1));
+        assertFalse(secondBucket.tryConsume(1));
+        assertTrue(second.builder().build("rate-limit:2", configuration(5, Duration.ofMinutes(5))).tryConsume(1));
+    }
+
+    @Test
+    void shouldRemoveBucketsThatAreFullAgain() throws Exception {
+        // Given
+        JdbcProxyManager proxyManager = createProxyManager();
+        proxyManager.builder().build("rate-limit:1", configuration(5, Duration.ofMillis(20))).tryConsume(1);
+        proxyManager.builder().build("rate-limit:2", configuration(5, Duration.ofMinutes(5))).tryConsume(1);
+        assertEquals(2, countRows());
+        Thread.sleep(50);
+
+        // When
+        proxyManager.removeExpired();
+
+        // Then
+        assertEquals(1, countRows());
+        assertTrue(proxyManager.getProxyConfiguration("rate-limit:2").isPresent());
+    }
+
+    @Test
+    void shouldCompleteAsyncOperationsWithTheSynchronousOnes() throws SQLException {
+        // Given
+        JdbcProxyManager proxyManager = createProxyManager();
+        proxyManager.builder().build("rate-limit:1", configuration(5, Duration.ofMinutes(5))).tryConsume(1);
+        byte[] state = proxyManager.beginCompareAndSwapOperation("rate-limit:1").getStateData().orElseThrow();
+
+        // When
+        CompletableFuture<Optional<byte[]>> stateData = proxyManager.beginAsyncCompareAndSwapOperation("rate-limit:1").getStateData();
+        CompletableFuture<Void> removed = proxyManager.removeAsync("rate-limit:1");
+
+        // Then
+        assertArrayEquals(state, stateData.join().orElseThrow());
+        assertTrue(removed.isDone());
+        assertEquals(0, countRows());
+    }
+
+    @Test
+    void shouldFailAsyncOperationInsteadOfThrowing() {
+        // Given
+        JdbcDataSource missingDatabase = new JdbcDataSource();
+        missingDatabase.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";IFEXISTS=TRUE");
+        JdbcProxyManager proxyManager = new JdbcProxyManager(missingDatabase, 1, false);
+
+        // When
+        CompletableFuture<Void> removed = proxyManager.removeAsync("rate-limit:1");
+
+        // Then
+        CompletionException exception = assertThrows(CompletionException.class, removed::join);
+        assertInstanceOf(RateLimitBackendException.class, exception.getCause());
+    }
+
+    private JdbcProxyManager createProxyManager() {
+        JdbcProxyManager proxyManager = new JdbcProxyManager(dataSource, 1, true);
+        proxyManager.init();
+        return proxyManager;
+    }
+
+    private int countRows() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + JdbcProxyManager.TABLE)) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+
+    static BucketConfiguration configuration(int requests, Duration period) {
+        return BucketConfiguration.builder()
+                .addLimit(Bandwidth.classic(requests, Refill.greedy(requests, period)))
+                .build();
+    }
+}
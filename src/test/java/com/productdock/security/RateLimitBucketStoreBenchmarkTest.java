@@ -0,0 +1,91 @@
+package com.productdock.security;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.Refill;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares the bucket store with the map of bucket4j buckets it replaced, at one million distinct clients:
+ * the live heap held for the clients and the time of a request from a new and from a known client.
+ * The map does not fit one million clients into the benchmark heap, it is measured at a quarter million
+ * and its heap is extrapolated.
+ * <p>
+ * Run with {@code mvn test -Pbenchmark}, which runs it on a 256 MB heap.
+ */
+@Tag("benchmark")
+class RateLimitBucketStoreBenchmarkTest {
+    private static final int CLIENTS = 1_000_000;
+    private static final int MAP_CLIENTS = 250_000;
+    private static final int REQUESTS = 10;
+    private static final Duration PERIOD = Duration.ofMinutes(5);
+    private static final RateLimit LIMIT = RateLimit.of("benchmark", 1, REQUESTS, (int) PERIOD.toMinutes());
+
+    @Test
+    void storeShouldHoldMillionClientsInFractionOfMapHeap() {
+        System.out.printf("%-28s %14s %16s %16s%n", "1M clients", "live heap", "new client", "known client");
+
+        long baseline = liveHeap();
+        Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+        long mapNewNanos = run(MAP_CLIENTS, ip -> buckets.computeIfAbsent(ip, key -> newBucket()).tryConsume(1));
+        long mapHeap = (liveHeap() - baseline) * (CLIENTS / MAP_CLIENTS);
+        long mapKnownNanos = run(MAP_CLIENTS, ip -> buckets.computeIfAbsent(ip, key -> newBucket()).tryConsume(1));
+        print("ConcurrentHashMap<Bucket> *", mapHeap, mapNewNanos, mapKnownNanos);
+        buckets.clear();
+
+        baseline = liveHeap();
+        RateLimitBucketStore bucketStore = new RateLimitBucketStore(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(bucketStore, "maxClients", CLIENTS);
+        bucketStore.init();
+        long storeNewNanos = run(CLIENTS, ip -> bucketStore.tryConsume(LIMIT, ip));
+        long storeHeap = liveHeap() - baseline;
+        long storeKnownNanos = run(CLIENTS, ip -> bucketStore.tryConsume(LIMIT, ip));
+        print("RateLimitBucketStore", storeHeap, storeNewNanos, storeKnownNanos);
+
+        assertTrue(storeHeap * 4 < mapHeap, "The store should hold less than a quarter of the heap of the map");
+    }
+
+    /**
+     * Sends one request from each client and returns the mean time per request.
+     */
+    private static long run(int clients, Request request) {
+        long started = System.nanoTime();
+        for (int client = 0; client < clients; client++) {
+            request.send(ipOf(client));
+        }
+        return (System.nanoTime() - started) / clients;
+    }
+
+    private static String ipOf(int client) {
+        return "10." + (client >>> 16) + "." + (client >>> 8 & 0xFF) + "." + (client & 0xFF);
+    }
+
+    private static Bucket newBucket() {
+        return Bucket.builder().addLimit(Bandwidth.classic(REQUESTS, Refill.greedy(REQUESTS, PERIOD))).build();
+    }
+
+    private static void print(String name, long heap, long newNanos, long knownNanos) {
+        System.out.printf("%-28s %11d MB %13d ns %13d ns%n", name, heap / (1024 * 1024), newNanos, knownNanos);
+    }
+
+    private static long liveHeap() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        boolean send(String ip);
+    }
+}
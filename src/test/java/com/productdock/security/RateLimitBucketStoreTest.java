@@ -0,0 +1,167 @@
+package com.productdock.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitBucketStoreTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    // 10 requests per 10 seconds
+    private static final long INTERVAL = SECOND;
+    private static final long PERIOD = 10 * SECOND;
+
+    private MeterRegistry meterRegistry;
+    private RateLimitBucketStore bucketStore;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        bucketStore = new RateLimitBucketStore(meterRegistry);
+        ReflectionTestUtils.setField(bucketStore, "maxClients", 1000);
+        bucketStore.init();
+    }
+
+    @Test
+    void shouldAllowBurstOfCapacityAndRefillGreedily() {
+        // Given
+        long client = RateLimitBucketStore.hash(0, "10.0.0.1");
+        for (int i = 0; i < 10; i++) {
+            assertTrue(bucketStore.tryConsume(client, INTERVAL, PERIOD, SECOND));
+        }
+
+        // When/Then
+        assertFalse(bucketStore.tryConsume(client, INTERVAL, PERIOD, SECOND));
+        assertFalse(bucketStore.tryConsume(client, INTERVAL, PERIOD, SECOND + INTERVAL / 2));
+        assertTrue(bucketStore.tryConsume(client, INTERVAL, PERIOD, SECOND + INTERVAL));
+        assertFalse(bucketStore.tryConsume(client, INTERVAL, PERIOD, SECOND + INTERVAL));
+        assertTrue(bucketStore.tryConsume(RateLimitBucketStore.hash(0, "10.0.0.2"), INTERVAL, PERIOD, SECOND));
+    }
+
+    @Test
+    void shouldKeepBucketPerEndpointAndClient() {
+        // Given
+        RateLimit status = RateLimit.of("status", 1, 3, 5);
+        RateLimit upload = RateLimit.of("upload", 2, 3, 5);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(bucketStore.tryConsume(status, "10.0.0.1"));
+        }
+
+        // When/Then
+        assertFalse(bucketStore.tryConsume(status, "10.0.0.1"));
+        assertTrue(bucketStore.tryConsume(upload, "10.0.0.1"));
+        assertTrue(bucketStore.tryConsume(status, "10.0.0.2"));
+        assertEquals(3, bucketStore.size());
+    }
+
+    @Test
+    void shouldFreeBucketsOfIdleClients() {
+        // Given
+        bucketStore.tryConsume(RateLimitBucketStore.hash(0, "10.0.0.1"), INTERVAL, PERIOD, SECOND);
+        for (int i = 0; i < 5; i++) {
+            bucketStore.tryConsume(RateLimitBucketStore.hash(0, "10.0.0.2"), INTERVAL, PERIOD, SECOND);
+        }
+
+        // When
+        bucketStore.sweep(3 * SECOND);
+
+        // Then
+        assertEquals(1, bucketStore.size());
+        assertEquals(1, meterRegistry.counter("rate-limit.buckets.expirations").count());
+        assertEquals(1, meterRegistry.get("rate-limit.buckets").gauge().value());
+    }
+
+    @Test
+    void shouldEvictBucketClosestToFullWhenSetIsFull() {
+        // Given
+        // Keys with the same low bits share a set of eight slots
+        for (long i = 1; i <= 8; i++) {
+            for (int token = 0; token < (i == 3 ? 1 : 4); token++) {
+                bucketStore.tryConsume(i << 32 | 7, INTERVAL, PERIOD, SECOND);
+            }
+        }
+
+        // When
+        assertTrue(bucketStore.tryConsume(9L << 32 | 7, INTERVAL, PERIOD, SECOND));
+
+        // Then
+        assertEquals(8, bucketStore.size());
+        assertEquals(1, meterRegistry.counter("rate-limit.buckets.evictions").count());
+        // The evicted client starts with a full bucket, the others kept their state
+        for (int token = 0; token < 10; token++) {
+            assertTrue(bucketStore.tryConsume(3L << 32 | 7, INTERVAL, PERIOD, SECOND));
+        }
+        for (int token = 0; token < 6; token++) {
+            assertTrue(bucketStore.tryConsume(1L << 32 | 7, INTERVAL, PERIOD, SECOND));
+        }
+        assertFalse(bucketStore.tryConsume(1L << 32 | 7, INTERVAL, PERIOD, SECOND));
+    }
+
+    @Test
+    void shouldNotAllowMoreThanCapacityUnderContention() throws InterruptedException {
+        // Given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger allowed = new AtomicInteger();
+        long client = RateLimitBucketStore.hash(0, "10.0.0.1");
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            executor.execute(() -> {
+                if (bucketStore.tryConsume(client, INTERVAL, PERIOD, SECOND)) {
+                    allowed.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(10, allowed.get());
+    }
+
+    @Test
+    void shouldNotLoseTokensOfConcurrentFirstRequests() throws Exception {
+        // Given
+        int threads = 4;
+        int clients = 2000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        AtomicInteger allowed = new AtomicInteger();
+
+        // When
+        // All threads send the first requests of a new client at once, each taking three of its ten tokens
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    for (int c = 0; c < clients; c++) {
+                        long client = RateLimitBucketStore.hash(0, "10.0." + c);
+                        barrier.await();
+                        for (int i = 0; i < 3; i++) {
+                            if (bucketStore.tryConsume(client, INTERVAL, PERIOD, SECOND)) {
+                                allowed.incrementAndGet();
+                            }
+                        }
+                    }
+                } catch (InterruptedException | BrokenBarrierException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(10 * clients, allowed.get());
+    }
+}
@@ -0,0 +1,108 @@
+package com.productdock.security;
+
+import com.productdock.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitingAspectTest {
+
+    private RateLimitingAspect rateLimitingAspect;
+    private Endpoints endpoints;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitBucketStore bucketStore = new RateLimitBucketStore(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(bucketStore, "maxClients", 1000);
+        bucketStore.init();
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("endpoints", new RootBeanDefinition(Endpoints.class));
+        rateLimitingAspect = new RateLimitingAspect(bucketStore, beanFactory,
+                beanFactory.getBeanProvider(DistributedRateLimiter.class));
+
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new Endpoints());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAspect(rateLimitingAspect);
+        endpoints = proxyFactory.getProxy();
+        useClient("10.0.0.1");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void shouldResolveLimitsOfBeansAtStartup() {
+        // When
+        rateLimitingAspect.afterSingletonsInstantiated();
+
+        // Then
+        Map<?, ?> limits = (Map<?, ?>) ReflectionTestUtils.getField(rateLimitingAspect, "limits");
+        assertEquals(2, limits.size());
+    }
+
+    @Test
+    void shouldLimitEachEndpointSeparately() {
+        // Given
+        rateLimitingAspect.afterSingletonsInstantiated();
+        endpoints.upload();
+        endpoints.upload();
+
+        // When/Then
+        TooManyRequestsException exception = assertThrows(TooManyRequestsException.class, endpoints::upload);
+        assertEquals("Too many requests from IP: 10.0.0.1", exception.getMessage());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("IN_PROGRESS", endpoints.status());
+        }
+        assertThrows(TooManyRequestsException.class, endpoints::status);
+    }
+
+    @Test
+    void shouldLimitEachClientSeparately() {
+        // Given
+        endpoints.upload();
+        endpoints.upload();
+
+        // When
+        useClient("10.0.0.2");
+
+        // Then
+        assertEquals("job-123", endpoints.upload());
+    }
+
+    private static void useClient(String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(ip);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    static class Endpoints {
+
+        @RateLimited(requests = 2, durationMinutes = 5)
+        public String upload() {
+            return "job-123";
+        }
+
+        @RateLimited(requests = 5, durationMinutes = 5)
+        public String status() {
+            return "IN_PROGRESS";
+        }
+
+        public String unlimited() {
+            return "";
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.productdock.security;
+
+import com.github.fppt.jedismock.RedisServer;
+import io.github.bucket4j.Bucket;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.JedisPooled;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static com.productdock.security.JdbcProxyManagerTest.configuration;
+import static org.junit.jupiter.api.Assertions.*;
+
+class RedisProxyManagerTest {
+
+    private RedisServer redisServer;
+    private JedisPooled jedis;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        redisServer = RedisServer.newRedisServer().start();
+        jedis = new JedisPooled(redisServer.getHost(), redisServer.getBindPort());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        jedis.close();
+        redisServer.stop();
+    }
+
+    @Test
+    void shouldShareBucketBetweenInstances() {
+        // Given
+        Bucket firstBucket = new RedisProxyManager(jedis).builder().build("rate-limit:1", configuration(5, Duration.ofMinutes(5)));
+        Bucket secondBucket = new RedisProxyManager(jedis).builder().build("rate-limit:1", configuration(5, Duration.ofMinutes(5)));
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            assertTrue(firstBucket.tryConsume(1));
+        }
+        for (int i = 0; i < 2; i++) {
+            assertTrue(secondBucket.tryConsume(1));
+        }
+
+        // Then
+        assertFalse(firstBucket.tryConsume(1));
+        assertFalse(secondBucket.tryConsume(1));
+    }
+
+    @Test
+    void shouldExpireBucketOnceFullAgain() {
+        // Given
+        RedisProxyManager proxyManager = new RedisProxyManager(jedis);
+
+        // When
+        proxyManager.builder().build("rate-limit:1", configuration(5, Duration.ofMinutes(5))).tryConsume(2);
+
+        // Then
+        long ttlMillis = jedis.pttl("rate-limit:1");
+        assertTrue(ttlMillis > 0 && ttlMillis <= Duration.ofMinutes(2).toMillis() + 1, "TTL " + ttlMillis);
+    }
+}
@@ -0,0 +1,80 @@
+package com.productdock.service;
+
+import com.productdock.model.CaptionFormat;
+import com.productdock.model.TranscriptItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CaptionWriterTest {
+
+    @Test
+    void shouldBreakCuesAtSentencesAndPauses() throws IOException {
+        // Given
+        StringWriter out = new StringWriter();
+        CaptionWriter captions = new CaptionWriter(out, CaptionFormat.SRT);
+        captions.start();
+
+        // When
+        captions.accept(word("Hello", 0.5, 0.9));
+        captions.accept(punctuation(","));
+        captions.accept(word("world", 1.0, 1.4));
+        captions.accept(punctuation("."));
+        captions.accept(word("Again", 3661.25, 3661.5));
+        captions.accept(word("later", 3664.0, 3664.4));
+        int cues = captions.finish();
+
+        // Then
+        assertEquals(3, cues);
+        assertEquals("""
+                1
+                00:00:00,500 --> 00:00:01,400
+                Hello, world.
+
+                2
+                01:01:01,250 --> 01:01:01,500
+                Again
+
+                3
+                01:01:04,000 --> 01:01:04,400
+                later
+
+                """, out.toString());
+    }
+
+    @Test
+    void shouldSplitLongCuesIntoTwoLines() throws IOException {
+        // Given
+        StringWriter out = new StringWriter();
+        CaptionWriter captions = new CaptionWriter(out, CaptionFormat.VTT);
+        captions.start();
+        String[] words = "the quick brown fox jumps over the lazy dog and runs away".split(" ");
+
+        // When
+        for (int i = 0; i < words.length; i++) {
+            captions.accept(word(words[i], i * 0.3, i * 0.3 + 0.2));
+        }
+        captions.finish();
+
+        // Then
+        assertEquals("""
+                WEBVTT
+
+                00:00:00.000 --> 00:00:03.500
+                the quick brown fox jumps over
+                the lazy dog and runs away
+
+                """, out.toString());
+    }
+
+    private static TranscriptItem word(String content, double start, double end) {
+        return new TranscriptItem(TranscriptItem.PRONUNCIATION, content, start, end, 0.9);
+    }
+
+    private static TranscriptItem punctuation(String content) {
+        return new TranscriptItem(TranscriptItem.PUNCTUATION, content, null, null, 0.0);
+    }
+}
@@ -0,0 +1,70 @@
+package com.productdock.service;
+
+import com.productdock.model.LiveTranscriptSegment;
+import com.productdock.model.LiveTranscriptionSettings;
+import com.productdock.repository.StreamingTranscriptionGateway;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A local fake of Transcribe Streaming. Every audio frame is "transcribed" to its text content: each frame
+ * yields a partial segment of the words so far, the end of the audio yields the final segment.
+ * <p>
+ * Frames are only requested when the test calls {@link #request(long)}, like a recognizer that is slower than the client.
+ */
+class FakeStreamingTranscriptionGateway implements StreamingTranscriptionGateway {
+
+    private final List<LiveTranscriptionSettings> transcriptions = new ArrayList<>();
+    private Subscription subscription;
+
+    @Override
+    public CompletableFuture<Void> transcribe(LiveTranscriptionSettings settings, Publisher<ByteBuffer> audio, Consumer<LiveTranscriptSegment> segments) {
+        transcriptions.add(settings);
+        CompletableFuture<Void> completion = new CompletableFuture<>();
+        audio.subscribe(new Subscriber<>() {
+            private final StringBuilder words = new StringBuilder();
+
+            @Override
+            public void onSubscribe(Subscription newSubscription) {
+                subscription = newSubscription;
+            }
+
+            @Override
+            public void onNext(ByteBuffer frame) {
+                words.append(words.isEmpty() ? "" : " ").append(StandardCharsets.UTF_8.decode(frame));
+                segments.accept(new LiveTranscriptSegment("result-1", words.toString(), true, 0, 1));
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                completion.completeExceptionally(e);
+            }
+
+            @Override
+            public void onComplete() {
+                segments.accept(new LiveTranscriptSegment("result-1", words.toString(), false, 0, 1));
+                completion.complete(null);
+            }
+        });
+        return completion;
+    }
+
+    /**
+     * Requests audio frames of the last started transcription.
+     */
+    void request(long frames) {
+        subscription.request(frames);
+    }
+
+    List<LiveTranscriptionSettings> getTranscriptions() {
+        return transcriptions;
+    }
+}
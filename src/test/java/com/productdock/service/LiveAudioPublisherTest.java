@@ -0,0 +1,90 @@
+package com.productdock.service;
+
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveAudioPublisherTest {
+
+    @Test
+    void shouldDeliverFramesOnlyOnDemand() {
+        // Given
+        LiveAudioPublisher publisher = new LiveAudioPublisher(4);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        publisher.offer(ByteBuffer.wrap(new byte[]{1}));
+        publisher.offer(ByteBuffer.wrap(new byte[]{2}));
+
+        // When
+        subscriber.subscription.request(1);
+
+        // Then
+        assertEquals(1, subscriber.frames.size());
+        publisher.finish();
+        assertFalse(subscriber.completed);
+        subscriber.subscription.request(1);
+        assertEquals(2, subscriber.frames.size());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    void shouldRejectSecondSubscriber() {
+        // Given
+        LiveAudioPublisher publisher = new LiveAudioPublisher(4);
+        publisher.subscribe(new RecordingSubscriber());
+        RecordingSubscriber second = new RecordingSubscriber();
+
+        // When
+        publisher.subscribe(second);
+
+        // Then
+        assertInstanceOf(IllegalStateException.class, second.error);
+    }
+
+    @Test
+    void shouldSignalErrorOnNonPositiveDemand() {
+        // Given
+        LiveAudioPublisher publisher = new LiveAudioPublisher(4);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+
+        // When
+        subscriber.subscription.request(0);
+
+        // Then
+        assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+    }
+
+    private static class RecordingSubscriber implements Subscriber<ByteBuffer> {
+        private final List<ByteBuffer> frames = new ArrayList<>();
+        private Subscription subscription;
+        private Throwable error;
+        private boolean completed;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(ByteBuffer frame) {
+            frames.add(frame);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            error = e;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.productdock.service;
+
+import com.productdock.audio.LiveAudioEncoding;
+import com.productdock.exception.TooManyRequestsException;
+import com.productdock.model.LiveTranscriptSegment;
+import com.productdock.model.LiveTranscriptionSettings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveTranscriptionServiceTest {
+
+    private static final LiveTranscriptionSettings SETTINGS = new LiveTranscriptionSettings(LiveAudioEncoding.PCM, 16000, "en-US");
+
+    private MeterRegistry meterRegistry;
+    private FakeStreamingTranscriptionGateway streamingTranscriptionGateway;
+    private LiveTranscriptionService liveTranscriptionService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        streamingTranscriptionGateway = new FakeStreamingTranscriptionGateway();
+        liveTranscriptionService = new LiveTranscriptionService(streamingTranscriptionGateway, meterRegistry);
+        ReflectionTestUtils.setField(liveTranscriptionService, "maxSessions", 1);
+        ReflectionTestUtils.setField(liveTranscriptionService, "bufferedFrames", 2);
+        liveTranscriptionService.init();
+    }
+
+    @Test
+    void shouldRelayAudioAndSegments() {
+        // Given
+        List<LiveTranscriptSegment> segments = new ArrayList<>();
+        LiveTranscription transcription = liveTranscriptionService.start(SETTINGS, segments::add);
+
+        // When
+        transcription.sendAudio(frame("hello"));
+        transcription.sendAudio(frame("world"));
+        streamingTranscriptionGateway.request(10);
+        transcription.finish();
+
+        // Then
+        assertEquals(List.of(
+                new LiveTranscriptSegment("result-1", "hello", true, 0, 1),
+                new LiveTranscriptSegment("result-1", "hello world", true, 0, 1),
+                new LiveTranscriptSegment("result-1", "hello world", false, 0, 1)
+        ), segments);
+        assertTrue(transcription.completion().isDone());
+        assertEquals(List.of(SETTINGS), streamingTranscriptionGateway.getTranscriptions());
+        assertEquals(1, meterRegistry.get("stt.live.segments").tag("type", "final").counter().count());
+        assertEquals(0, meterRegistry.get("stt.live.sessions").gauge().value());
+    }
+
+    @Test
+    void shouldRefuseAudioBeyondTheBufferUntilItIsRequested() {
+        // Given
+        LiveTranscription transcription = liveTranscriptionService.start(SETTINGS, segment -> {
+        });
+        assertTrue(transcription.sendAudio(frame("one")));
+        assertTrue(transcription.sendAudio(frame("two")));
+
+        // When
+        boolean overflowing = transcription.sendAudio(frame("three"));
+        streamingTranscriptionGateway.request(1);
+
+        // Then
+        assertFalse(overflowing);
+        assertTrue(transcription.sendAudio(frame("three")));
+        assertEquals(1, meterRegistry.get("stt.live.overflows").counter().count());
+    }
+
+    @Test
+    void shouldLimitConcurrentTranscriptions() {
+        // Given
+        LiveTranscription transcription = liveTranscriptionService.start(SETTINGS, segment -> {
+        });
+
+        // When/Then
+        assertThrows(TooManyRequestsException.class, () -> liveTranscriptionService.start(SETTINGS, segment -> {
+        }));
+        transcription.finish();
+        assertDoesNotThrow(() -> liveTranscriptionService.start(SETTINGS, segment -> {
+        }));
+    }
+
+    private static ByteBuffer frame(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
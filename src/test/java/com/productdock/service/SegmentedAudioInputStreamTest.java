@@ -0,0 +1,47 @@
+package com.productdock.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentedAudioInputStreamTest {
+
+    @Test
+    void shouldStitchSegmentsInOrder() throws IOException {
+        // Given
+        SegmentedAudioInputStream audio = new SegmentedAudioInputStream(List.of("One.", "Two."),
+                segment -> ("[" + segment + "]").getBytes(), Runnable::run, 2);
+
+        // When
+        byte[] stitched = audio.readAllBytes();
+
+        // Then
+        assertEquals("[One.][Two.]", new String(stitched));
+    }
+
+    @Test
+    void shouldNotSynthesizeSegmentsAfterClose() {
+        // Given
+        List<Runnable> queued = new ArrayList<>();
+        AtomicInteger synthesized = new AtomicInteger();
+        SegmentedAudioInputStream audio = new SegmentedAudioInputStream(List.of("One.", "Two.", "Three."),
+                segment -> {
+                    synthesized.incrementAndGet();
+                    return segment.getBytes();
+                }, queued::add, 3);
+
+        // When
+        audio.close();
+        queued.forEach(Runnable::run);
+
+        // Then
+        assertEquals(3, queued.size());
+        assertEquals(0, synthesized.get());
+        assertThrows(IOException.class, audio::read);
+    }
+}
@@ -1,19 +1,58 @@
 package com.productdock.service;
 
+import com.productdock.audio.AudioFormat;
+import com.productdock.exception.DependencyUnavailableException;
+import com.productdock.exception.InvalidAudioException;
 import com.productdock.exception.S3RepositoryException;
 import com.productdock.exception.SpeechToTextServiceException;
 import com.productdock.exception.TranscribeRepositoryException;
+import com.productdock.exception.TranscriptionJobNotFoundException;
+import com.productdock.exception.UnsupportedAudioException;
+import com.productdock.model.CaptionFormat;
+import com.productdock.model.RegisteredJob;
+import com.productdock.model.SplitTranscriptionJob;
+import com.productdock.model.TranscriptItem;
+import com.productdock.model.TranscriptItemsPage;
 import com.productdock.model.TranscriptionJobResponse;
+import com.productdock.model.TranscriptionSegmentStatus;
+import com.productdock.model.UploadedAudio;
+import com.productdock.repository.AudioDeduplicationRepository;
+import com.productdock.repository.JobRegistryRepository;
 import com.productdock.repository.S3Repository;
 import com.productdock.repository.TranscribeRepository;
+import com.productdock.repository.TranscriptIndexRepository;
+import com.productdock.repository.TranscriptionResultCacheRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -32,16 +71,65 @@ class SpeechToTextServiceTest {
     @InjectMocks
     private SpeechToTextService speechToTextService;
 
+    private TranscriptionResultCacheRepository transcriptionResultCacheRepository;
+
+    private JobRegistryRepository jobRegistryRepository;
+
+    private TranscriptionStatusPoller transcriptionStatusPoller;
+
+    private TranscriptionCleanupEngine transcriptionCleanupEngine;
+
+    @TempDir
+    private Path registryDirectory;
+
+    @TempDir
+    private Path indexDirectory;
+
     @BeforeEach
     void setUp() {
-        speechToTextService = new SpeechToTextService(s3Repository, transcribeRepository);
+        transcriptionStatusPoller = new TranscriptionStatusPoller(transcribeRepository, new SimpleMeterRegistry());
+        transcriptionStatusPoller.init();
+        transcriptionResultCacheRepository = new TranscriptionResultCacheRepository(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(transcriptionResultCacheRepository, "maxBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(transcriptionResultCacheRepository, "unknownTtlMillis", 60_000L);
+        ReflectionTestUtils.setField(transcriptionResultCacheRepository, "unknownMaxEntries", 100);
+        transcriptionResultCacheRepository.init();
+        AudioDeduplicationRepository audioDeduplicationRepository = new AudioDeduplicationRepository(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(audioDeduplicationRepository, "maxEntries", 100);
+        ReflectionTestUtils.setField(audioDeduplicationRepository, "ttlMillis", 60_000L);
+        audioDeduplicationRepository.init();
+        jobRegistryRepository = new JobRegistryRepository(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jobRegistryRepository, "directory", registryDirectory.toString());
+        ReflectionTestUtils.setField(jobRegistryRepository, "initialBytes", 4096);
+        ReflectionTestUtils.setField(jobRegistryRepository, "maxJobs", 10);
+        jobRegistryRepository.init();
+        TranscriptIndexRepository transcriptIndexRepository = new TranscriptIndexRepository(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(transcriptIndexRepository, "directory", indexDirectory.toString());
+        ReflectionTestUtils.setField(transcriptIndexRepository, "maxBytes", 1024L * 1024);
+        transcriptIndexRepository.init();
+        transcriptionCleanupEngine = new TranscriptionCleanupEngine(jobRegistryRepository, transcribeRepository,
+                s3Repository, transcriptionStatusPoller, transcriptIndexRepository, transcriptionResultCacheRepository, audioDeduplicationRepository,
+                new SimpleMeterRegistry(), Runnable::run);
+        ReflectionTestUtils.setField(transcriptionCleanupEngine, "tickMillis", 1000L);
+        ReflectionTestUtils.setField(transcriptionCleanupEngine, "wheelSlots", 16);
+        transcriptionCleanupEngine.init();
+        speechToTextService = new SpeechToTextService(s3Repository, transcribeRepository, transcriptionStatusPoller,
+                transcriptionResultCacheRepository, audioDeduplicationRepository, jobRegistryRepository, transcriptionCleanupEngine,
+                transcriptIndexRepository, Runnable::run);
+        ReflectionTestUtils.setField(speechToTextService, "maxDurationSeconds", 14400L);
+        ReflectionTestUtils.setField(speechToTextService, "longAudioEnabled", true);
+        ReflectionTestUtils.setField(speechToTextService, "splitAboveSeconds", 20L);
+        ReflectionTestUtils.setField(speechToTextService, "segmentSeconds", 10L);
+        ReflectionTestUtils.setField(speechToTextService, "minSilenceMillis", 300L);
+        ReflectionTestUtils.setField(speechToTextService, "silenceThresholdDbfs", -45.0);
     }
 
     @Test
-    void shouldStartTranscriptionJobSuccessfully() {
+    void shouldStartTranscriptionJobSuccessfully() throws IOException {
         // Given
-        when(s3Repository.uploadAudioFile(audioFile)).thenReturn("audio-key.mp3");
-        when(transcribeRepository.startTranscriptionJob("audio-key.mp3")).thenReturn("job-123");
+        when(audioFile.getBytes()).thenReturn(mp3(10, false));
+        when(s3Repository.uploadAudioFile(audioFile, AudioFormat.MP3)).thenReturn("audio-key.mp3");
+        when(transcribeRepository.startTranscriptionJob("audio-key.mp3", AudioFormat.MP3)).thenReturn("job-123");
 
         // When
         TranscriptionJobResponse response = speechToTextService.startTranscriptionJob(audioFile);
@@ -53,16 +141,303 @@ class SpeechToTextServiceTest {
     }
 
     @Test
-    void shouldThrowExceptionWhenStartFails() {
+    void shouldThrowExceptionWhenStartFails() throws IOException {
         // Given
-        when(s3Repository.uploadAudioFile(audioFile)).thenThrow(new S3RepositoryException("Failed", new RuntimeException()));
+        when(audioFile.getBytes()).thenReturn(mp3(10, false));
+        when(s3Repository.uploadAudioFile(audioFile, AudioFormat.MP3)).thenThrow(new S3RepositoryException("Failed", new RuntimeException()));
 
         // When
         assertThrows(SpeechToTextServiceException.class,
                 () -> speechToTextService.startTranscriptionJob(audioFile));
 
         // Then
-        verify(transcribeRepository, never()).startTranscriptionJob(any());
+        verify(transcribeRepository, never()).startTranscriptionJob(any(), any());
+    }
+
+    @Test
+    void shouldRejectUnsupportedAudioBeforeUpload() throws IOException {
+        // Given
+        when(audioFile.getBytes()).thenReturn("This is no audio file".getBytes(StandardCharsets.UTF_8));
+
+        // When
+        assertThrows(UnsupportedAudioException.class,
+                () -> speechToTextService.startTranscriptionJob(audioFile));
+
+        // Then
+        verifyNoInteractions(s3Repository, transcribeRepository);
+    }
+
+    @Test
+    void shouldRejectSilentAudioWithoutStartingJob() throws IOException {
+        // Given
+        when(audioFile.getBytes()).thenReturn(mp3(10, true));
+
+        // When
+        CompletableFuture<TranscriptionJobResponse> response = speechToTextService.startTranscriptionJobAsync(audioFile);
+
+        // Then
+        CompletionException exception = assertThrows(CompletionException.class, response::join);
+        assertInstanceOf(InvalidAudioException.class, exception.getCause());
+        verifyNoInteractions(s3Repository, transcribeRepository);
+    }
+
+    @Test
+    void shouldUploadProbedStreamFromItsStart() throws IOException {
+        // Given
+        byte[] audio = mp3(10, false);
+        when(s3Repository.uploadAudioStream(any(InputStream.class), eq(AudioFormat.MP3))).thenAnswer(invocation -> {
+            assertArrayEquals(audio, invocation.<InputStream>getArgument(0).readAllBytes());
+            return new UploadedAudio("audio-key.mp3", audio.length, "checksum");
+        });
+        when(transcribeRepository.startTranscriptionJob("audio-key.mp3", AudioFormat.MP3)).thenReturn("job-123");
+
+        // When
+        TranscriptionJobResponse response = speechToTextService.startTranscriptionJob(new ByteArrayInputStream(audio));
+
+        // Then
+        assertEquals("job-123", response.getJobName());
+    }
+
+    @Test
+    void shouldDeleteStreamedAudioWhenJobCannotBeStarted() throws IOException {
+        // Given
+        byte[] audio = mp3(10, false);
+        when(s3Repository.uploadAudioStream(any(InputStream.class), eq(AudioFormat.MP3))).thenAnswer(invocation -> {
+            invocation.<InputStream>getArgument(0).transferTo(OutputStream.nullOutputStream());
+            return new UploadedAudio("audio-key.mp3", audio.length, "checksum");
+        });
+        when(transcribeRepository.startTranscriptionJob("audio-key.mp3", AudioFormat.MP3))
+                .thenThrow(new TranscribeRepositoryException("Failed", new RuntimeException()));
+
+        // When/Then
+        assertThrows(SpeechToTextServiceException.class, () -> speechToTextService.startTranscriptionJob(new ByteArrayInputStream(audio)));
+        verify(s3Repository).deleteAudioFile("audio-key.mp3");
+        assertEquals(0, jobRegistryRepository.size());
+    }
+
+    @Test
+    void shouldReuseJobOfDuplicateUpload() throws IOException {
+        // Given
+        when(audioFile.getBytes()).thenReturn(mp3(10, false));
+        when(s3Repository.uploadAudioFile(audioFile, AudioFormat.MP3)).thenReturn("audio-key.mp3");
+        when(transcribeRepository.startTranscriptionJob("audio-key.mp3", AudioFormat.MP3)).thenReturn("job-123");
+        speechToTextService.startTranscriptionJob(audioFile);
+
+        // When
+        TranscriptionJobResponse response = speechToTextService.startTranscriptionJob(audioFile);
+
+        // Then
+        assertEquals("job-123", response.getJobName());
+        assertEquals("IN_PROGRESS", response.getJobStatus());
+        verify(s3Repository, times(1)).uploadAudioFile(any(), any());
+        verify(transcribeRepository, times(1)).startTranscriptionJob(any(), any());
+    }
+
+    @Test
+    void shouldReturnTranscriptOfCompletedDuplicateWithoutAws() throws IOException {
+        // Given
+        when(audioFile.getBytes()).thenReturn(mp3(10, false));
+        when(s3Repository.uploadAudioFile(audioFile, AudioFormat.MP3)).thenReturn("audio-key.mp3");
+        when(transcribeRepository.startTranscriptionJob("audio-key.mp3", AudioFormat.MP3)).thenReturn("job-123");
+        speechToTextService.startTranscriptionJob(audioFile);
+        transcriptionResultCacheRepository.put(new TranscriptionJobResponse("job-123", "COMPLETED", "This is my test voice recording."));
+
+        // When
+        TranscriptionJobResponse response = speechToTextService.startTranscriptionJobAsync(audioFile).join();
+
+        // Then
+        assertEquals("job-123", response.getJobName());
+        assertEquals("This is my test voice recording.", response.getTranscript());
+        verify(s3Repository, never()).uploadAudioFileAsync(any(), any());
+        verify(transcribeRepository, never()).startTranscriptionJobAsync(any(), any());
+    }
+
+    @Test
+    void shouldStartNewJobWhenDuplicateFailed() throws IOException {
+        // Given
+        when(audioFile.getBytes()).thenReturn(mp3(10, false));
+        when(s3Repository.uploadAudioFile(audioFile, AudioFormat.MP3)).thenReturn("audio-key.mp3");
+        when(transcribeRepository.startTranscriptionJob("audio-key.mp3", AudioFormat.MP3)).thenReturn("job-123", "job-456");
+        speechToTextService.startTranscriptionJob(audioFile);
+        transcriptionResultCacheRepository.put(new TranscriptionJobResponse("job-123", "FAILED", null, "Internal failure"));
+
+        // When
+        TranscriptionJobResponse response = speechToTextService.startTranscriptionJob(audioFile);
+
+        // Then
+        assertEquals("job-456", response.getJobName());
+        verify(s3Repository, times(2)).uploadAudioFile(any(), any());
+    }
+
+    @Test
+    void shouldDeleteStreamedDuplicateAfterHashing() throws IOException {
+        // Given
+        byte[] audio = mp3(10, false);
+        when(s3Repository.uploadAudioStream(any(InputStream.class), eq(AudioFormat.MP3))).thenAnswer(invocation -> {
+            invocation.<InputStream>getArgument(0).transferTo(OutputStream.nullOutputStream());
+            return new UploadedAudio("audio-key-" + audio.length + ".mp3", audio.length, "checksum");
+        });
+        when(transcribeRepository.startTranscriptionJob("audio-key-" + audio.length + ".mp3", AudioFormat.MP3)).thenReturn("job-123");
+        speechToTextService.startTranscriptionJob(new ByteArrayInputStream(audio));
+
+        // When
+        TranscriptionJobResponse response = speechToTextService.startTranscriptionJob(new ByteArrayInputStream(audio));
+
+        // Then
+        assertEquals("job-123", response.getJobName());
+        verify(transcribeRepository, times(1)).startTranscriptionJob(any(), any());
+        verify(s3Repository).deleteAudioFile("audio-key-" + audio.length + ".mp3");
+    }
+
+    @Test
+    void shouldRejectNewJobWhileJobRegistryIsFull() throws IOException {
+        // Given
+        ReflectionTestUtils.setField(jobRegistryRepository, "maxJobs", 0);
+        when(audioFile.getBytes()).thenReturn(mp3(10, false));
+
+        // When/Then
+        assertThrows(DependencyUnavailableException.class, () -> speechToTextService.startTranscriptionJob(audioFile));
+        verifyNoInteractions(s3Repository, transcribeRepository);
+    }
+
+    @Test
+    void shouldRegisterStartedJobForCleanup() throws IOException {
+        // Given
+        when(audioFile.getBytes()).thenReturn(mp3(10, false));
+        when(s3Repository.uploadAudioFile(audioFile, AudioFormat.MP3)).thenReturn("audio-key.mp3");
+        when(transcribeRepository.startTranscriptionJob("audio-key.mp3", AudioFormat.MP3)).thenReturn("job-123");
+
+        // When
+        speechToTextService.startTranscriptionJob(audioFile);
+
+        // Then
+        List<RegisteredJob> jobs = jobRegistryRepository.findAll();
+        assertEquals(1, jobs.size());
+        assertEquals("job-123", jobs.get(0).jobName());
+        assertEquals("audio-key.mp3", jobs.get(0).s3Key());
+        assertEquals(RegisteredJob.State.STARTED, jobs.get(0).state());
+    }
+
+    @Test
+    void shouldForgetJobOnceItIsCleanedUp() throws IOException {
+        // Given
+        byte[] audio = mp3(10, false);
+        when(audioFile.getBytes()).thenReturn(audio);
+        when(s3Repository.uploadAudioFile(audioFile, AudioFormat.MP3)).thenReturn("audio-key.mp3");
+        when(transcribeRepository.startTranscriptionJob("audio-key.mp3", AudioFormat.MP3)).thenReturn("job-123", "job-456");
+        speechToTextService.startTranscriptionJob(audioFile);
+        transcriptionResultCacheRepository.put(new TranscriptionJobResponse("job-123", "COMPLETED", "Hello"));
+        transcriptionStatusPoller.untrack("job-123");
+        when(transcribeRepository.listActiveJobStatuses()).thenReturn(Map.of());
+        when(transcribeRepository.getJobStatus("job-123"))
+                .thenThrow(new TranscriptionJobNotFoundException("Transcription job not found: job-123"));
+
+        // When
+        transcriptionCleanupEngine.runDueCleanups();
+        TranscriptionJobResponse duplicate = speechToTextService.startTranscriptionJob(audioFile);
+
+        // Then
+        assertEquals("job-456", duplicate.getJobName());
+        assertThrows(TranscriptionJobNotFoundException.class, () -> speechToTextService.isTranscriptAvailable("job-123"));
+        verify(s3Repository, never()).streamTranscriptItems(eq("job-123"), any());
+    }
+
+    @Test
+    void shouldTranscribeLongRecordingInParallelSegments() throws IOException {
+        // Given
+        when(audioFile.getBytes()).thenReturn(wavWithPauses());
+        when(s3Repository.uploadAudio(any(byte[].class), eq(AudioFormat.WAV))).thenReturn("audio-1.wav", "audio-2.wav", "audio-3.wav");
+        when(transcribeRepository.startTranscriptionJob(anyString(), eq(AudioFormat.WAV))).thenReturn("job-1", "job-2", "job-3");
+
+        // When
+        TranscriptionJobResponse response = speechToTextService.startTranscriptionJob(audioFile);
+
+        // Then
+        assertTrue(response.getJobName().startsWith(SpeechToTextService.SPLIT_JOB_NAME_PREFIX));
+        assertEquals("IN_PROGRESS", response.getJobStatus());
+        verify(s3Repository, times(3)).uploadAudio(any(byte[].class), eq(AudioFormat.WAV));
+        verify(s3Repository, never()).uploadAudioFile(any(), any());
+        assertEquals(3, jobRegistryRepository.size());
+    }
+
+    @Test
+    void shouldSplitHourLongStreamWhileUploadingIt() throws IOException {
+        // Given
+        ReflectionTestUtils.setField(speechToTextService, "splitAboveSeconds", 1200L);
+        ReflectionTestUtils.setField(speechToTextService, "segmentSeconds", 600L);
+        AtomicLong uploadedBytes = new AtomicLong();
+        AtomicInteger uploads = new AtomicInteger();
+        when(s3Repository.uploadAudioStream(any(InputStream.class), eq(AudioFormat.WAV))).thenAnswer(invocation -> {
+            InputStream segment = invocation.getArgument(0);
+            assertArrayEquals("RIFF".getBytes(StandardCharsets.US_ASCII), segment.readNBytes(4));
+            long size = 4 + segment.transferTo(OutputStream.nullOutputStream());
+            uploadedBytes.addAndGet(size);
+            return new UploadedAudio("audio-" + uploads.incrementAndGet() + ".wav", size, "checksum");
+        });
+        when(transcribeRepository.startTranscriptionJob(anyString(), eq(AudioFormat.WAV)))
+                .thenAnswer(invocation -> invocation.<String>getArgument(0).replace("audio-", "job-").replace(".wav", ""));
+
+        // When
+        TranscriptionJobResponse response = speechToTextService.startTranscriptionJob(hourOfStreamedWavWithPauses());
+
+        // Then
+        assertTrue(response.getJobName().startsWith(SpeechToTextService.SPLIT_JOB_NAME_PREFIX));
+        SplitTranscriptionJob split = jobRegistryRepository.findSplit(response.getJobName()).orElseThrow();
+        // Cut in the first pause after every ten minutes, the pauses are five minutes apart
+        assertEquals(List.of(0.0, 899.14, 1499.28, 2099.42, 2699.56, 3299.7),
+                split.segments().stream().map(SplitTranscriptionJob.SegmentJob::offsetSeconds).toList());
+        assertEquals(6, uploads.get());
+        assertEquals(3600L * 16000 + 6 * 44, uploadedBytes.get());
+        assertEquals(6, jobRegistryRepository.size());
+    }
+
+    @Test
+    void shouldDeleteSegmentsOfStreamWhoseJobsCannotBeStarted() throws IOException {
+        // Given
+        AtomicInteger uploads = new AtomicInteger();
+        when(s3Repository.uploadAudioStream(any(InputStream.class), eq(AudioFormat.WAV))).thenAnswer(invocation -> {
+            long size = invocation.<InputStream>getArgument(0).transferTo(OutputStream.nullOutputStream());
+            return new UploadedAudio("audio-" + uploads.incrementAndGet() + ".wav", size, "checksum");
+        });
+        when(transcribeRepository.startTranscriptionJob(anyString(), eq(AudioFormat.WAV))).thenReturn("job-1")
+                .thenThrow(new TranscribeRepositoryException("Failed", new RuntimeException()))
+                .thenReturn("job-3");
+
+        // When/Then
+        assertThrows(SpeechToTextServiceException.class,
+                () -> speechToTextService.startTranscriptionJob(new ByteArrayInputStream(wavWithPauses())));
+        verify(s3Repository).deleteAudioFile("audio-2.wav");
+        verify(s3Repository, never()).deleteAudioFile("audio-1.wav");
+        // The segments that started are cleaned up like any other job
+        assertEquals(List.of("job-1", "job-3"), jobRegistryRepository.findAll().stream().map(RegisteredJob::jobName).sorted().toList());
+    }
+
+    @Test
+    void shouldReportSegmentProgressAndMergeTranscriptsInOrder() throws IOException {
+        // Given
+        when(audioFile.getBytes()).thenReturn(wavWithPauses());
+        when(s3Repository.uploadAudio(any(byte[].class), eq(AudioFormat.WAV))).thenReturn("audio-1.wav", "audio-2.wav", "audio-3.wav");
+        when(transcribeRepository.startTranscriptionJob(anyString(), eq(AudioFormat.WAV))).thenReturn("job-1", "job-2", "job-3");
+        String jobName = speechToTextService.startTranscriptionJob(audioFile).getJobName();
+        transcriptionResultCacheRepository.put(new TranscriptionJobResponse("job-1", "COMPLETED", "Good morning"));
+        transcriptionResultCacheRepository.put(new TranscriptionJobResponse("job-3", "COMPLETED", "see you"));
+
+        // When
+        TranscriptionJobResponse inProgress = speechToTextService.getTranscriptionJobStatus(jobName);
+        transcriptionResultCacheRepository.put(new TranscriptionJobResponse("job-2", "COMPLETED", "everyone,"));
+        TranscriptionJobResponse completed = speechToTextService.getTranscriptionJobStatusAsync(jobName).join();
+
+        // Then
+        assertEquals("IN_PROGRESS", inProgress.getJobStatus());
+        assertEquals("Good morning", inProgress.getTranscript());
+        assertEquals(List.of(
+                new TranscriptionSegmentStatus("job-1", "COMPLETED", 0),
+                new TranscriptionSegmentStatus("job-2", "IN_PROGRESS", 11.3),
+                new TranscriptionSegmentStatus("job-3", "COMPLETED", 21)
+        ), inProgress.getSegments());
+        assertEquals("COMPLETED", completed.getJobStatus());
+        assertEquals("Good morning everyone, see you", completed.getTranscript());
+        assertTrue(speechToTextService.isTranscriptAvailable(jobName));
     }
 
     @Test
@@ -82,7 +457,7 @@ class SpeechToTextServiceTest {
     void shouldReturnJobStatusWithTranscriptSuccessfully() {
         // Given
         when(transcribeRepository.getJobStatus("job-123")).thenReturn("COMPLETED");
-        when(transcribeRepository.fetchTranscript("job-123")).thenReturn("This is my test voice recording.");
+        when(s3Repository.fetchTranscript("job-123")).thenReturn("This is my test voice recording.");
 
         // When
         TranscriptionJobResponse response = speechToTextService.getTranscriptionJobStatus("job-123");
@@ -101,4 +476,252 @@ class SpeechToTextServiceTest {
         assertThrows(SpeechToTextServiceException.class,
                 () -> speechToTextService.getTranscriptionJobStatus("job-123"));
     }
+
+    @Test
+    void shouldServeFinishedJobFromResultCache() {
+        // Given
+        when(transcribeRepository.getJobStatus("job-123")).thenReturn("COMPLETED");
+        when(s3Repository.fetchTranscript("job-123")).thenReturn("This is my test voice recording.");
+        speechToTextService.getTranscriptionJobStatus("job-123");
+
+        // When
+        TranscriptionJobResponse response = speechToTextService.getTranscriptionJobStatus("job-123");
+
+        // Then
+        assertEquals("This is my test voice recording.", response.getTranscript());
+        verify(s3Repository, times(1)).fetchTranscript("job-123");
+    }
+
+    @Test
+    void shouldReturnFailureReasonOfFailedJob() {
+        // Given
+        when(transcribeRepository.getJobStatus("job-123")).thenReturn("FAILED");
+        when(transcribeRepository.getFailureReason("job-123")).thenReturn("Unsupported media format");
+
+        // When
+        TranscriptionJobResponse response = speechToTextService.getTranscriptionJobStatus("job-123");
+
+        // Then
+        assertEquals("FAILED", response.getJobStatus());
+        assertEquals("Unsupported media format", response.getFailureReason());
+        assertNull(response.getTranscript());
+    }
+
+    @Test
+    void shouldRememberUnknownJobs() {
+        // Given
+        when(transcribeRepository.getJobStatus("job-unknown"))
+                .thenThrow(new TranscriptionJobNotFoundException("Transcription job not found: job-unknown"));
+        assertThrows(TranscriptionJobNotFoundException.class,
+                () -> speechToTextService.getTranscriptionJobStatus("job-unknown"));
+
+        // When
+        CompletableFuture<TranscriptionJobResponse> response = speechToTextService.getTranscriptionJobStatusAsync("job-unknown");
+
+        // Then
+        CompletionException exception = assertThrows(CompletionException.class, response::join);
+        assertInstanceOf(TranscriptionJobNotFoundException.class, exception.getCause());
+        verify(transcribeRepository, times(1)).getJobStatus("job-unknown");
+    }
+
+    @Test
+    void shouldWriteCachedTranscriptWithoutS3() throws Exception {
+        // Given
+        when(transcribeRepository.getJobStatus("job-123")).thenReturn("COMPLETED");
+        when(s3Repository.fetchTranscript("job-123")).thenReturn("This is my test voice recording.");
+        speechToTextService.getTranscriptionJobStatus("job-123");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        speechToTextService.writeTranscript("job-123", out);
+
+        // Then
+        assertEquals("This is my test voice recording.", out.toString(StandardCharsets.UTF_8));
+        verify(s3Repository, never()).streamTranscript(any(), any());
+    }
+
+    @Test
+    void shouldIndexTranscriptItemsOnceAndServePages() {
+        // Given
+        doAnswer(invocation -> {
+            Consumer<TranscriptItem> consumer = invocation.getArgument(1);
+            consumer.accept(new TranscriptItem(TranscriptItem.PRONUNCIATION, "Hello", 0.5, 0.9, 0.99));
+            consumer.accept(new TranscriptItem(TranscriptItem.PRONUNCIATION, "world", 1.0, 1.4, 0.95));
+            consumer.accept(new TranscriptItem(TranscriptItem.PUNCTUATION, ".", null, null, 0.0));
+            return null;
+        }).when(s3Repository).streamTranscriptItems(eq("job-123"), any());
+
+        // When
+        TranscriptItemsPage first = speechToTextService.getTranscriptItems("job-123", 0, 2);
+        TranscriptItemsPage second = speechToTextService.getTranscriptItems("job-123", 2, 2);
+
+        // Then
+        assertEquals(3, first.totalItems());
+        assertEquals(List.of("Hello", "world"), first.items().stream().map(TranscriptItem::content).toList());
+        assertEquals(1.0, first.items().get(1).startSeconds());
+        assertEquals(List.of(new TranscriptItem(TranscriptItem.PUNCTUATION, ".", null, null, 0.0)), second.items());
+        verify(s3Repository, times(1)).streamTranscriptItems(eq("job-123"), any());
+    }
+
+    @Test
+    void shouldKnowSplitJobAfterRestart() throws IOException {
+        // Given
+        when(audioFile.getBytes()).thenReturn(wavWithPauses());
+        when(s3Repository.uploadAudio(any(byte[].class), eq(AudioFormat.WAV))).thenReturn("audio-1.wav", "audio-2.wav", "audio-3.wav");
+        when(transcribeRepository.startTranscriptionJob(anyString(), eq(AudioFormat.WAV))).thenReturn("job-1", "job-2", "job-3");
+        String jobName = speechToTextService.startTranscriptionJob(audioFile).getJobName();
+
+        // When
+        JobRegistryRepository restartedRegistry = new JobRegistryRepository(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(restartedRegistry, "directory", registryDirectory.toString());
+        ReflectionTestUtils.setField(restartedRegistry, "initialBytes", 4096);
+        ReflectionTestUtils.setField(restartedRegistry, "maxJobs", 10);
+        restartedRegistry.init();
+        ReflectionTestUtils.setField(speechToTextService, "jobRegistryRepository", restartedRegistry);
+        TranscriptionJobResponse response = speechToTextService.getTranscriptionJobStatus(jobName);
+
+        // Then
+        assertEquals("IN_PROGRESS", response.getJobStatus());
+        assertEquals(3, response.getSegments().size());
+    }
+
+    @Test
+    void shouldReportSplitJobAsUnknownOnceItsSegmentsAreCleanedUp() throws IOException {
+        // Given
+        when(audioFile.getBytes()).thenReturn(wavWithPauses());
+        when(s3Repository.uploadAudio(any(byte[].class), eq(AudioFormat.WAV))).thenReturn("audio-1.wav", "audio-2.wav", "audio-3.wav");
+        when(transcribeRepository.startTranscriptionJob(anyString(), eq(AudioFormat.WAV))).thenReturn("job-1", "job-2", "job-3");
+        String jobName = speechToTextService.startTranscriptionJob(audioFile).getJobName();
+        transcriptionResultCacheRepository.put(new TranscriptionJobResponse("job-2", "COMPLETED", "everyone,"));
+        transcriptionResultCacheRepository.put(new TranscriptionJobResponse("job-3", "COMPLETED", "see you"));
+        jobRegistryRepository.updateState("job-1", RegisteredJob.State.CLEANING);
+        transcriptionStatusPoller.untrack("job-1");
+        when(transcribeRepository.getJobStatus("job-1"))
+                .thenThrow(new TranscriptionJobNotFoundException("Transcription job not found: job-1"));
+
+        // When
+        assertThrows(TranscriptionJobNotFoundException.class, () -> speechToTextService.getTranscriptionJobStatus(jobName));
+        jobRegistryRepository.removeSplit(jobName);
+
+        // Then
+        assertTrue(speechToTextService.findResultETag(jobName).isEmpty());
+        assertThrows(TranscriptionJobNotFoundException.class, () -> speechToTextService.getTranscriptionJobStatus(jobName));
+        verify(transcribeRepository, never()).getJobStatus(jobName);
+    }
+
+    @Test
+    void shouldFailSplitJobWhenStartedSegmentIsLost() throws IOException {
+        // Given
+        when(audioFile.getBytes()).thenReturn(wavWithPauses());
+        when(s3Repository.uploadAudio(any(byte[].class), eq(AudioFormat.WAV))).thenReturn("audio-1.wav", "audio-2.wav", "audio-3.wav");
+        when(transcribeRepository.startTranscriptionJob(anyString(), eq(AudioFormat.WAV))).thenReturn("job-1", "job-2", "job-3");
+        String jobName = speechToTextService.startTranscriptionJob(audioFile).getJobName();
+        transcriptionStatusPoller.untrack("job-2");
+        when(transcribeRepository.getJobStatusAsync("job-2"))
+                .thenReturn(CompletableFuture.failedFuture(new TranscriptionJobNotFoundException("Transcription job not found: job-2")));
+
+        // When
+        TranscriptionJobResponse response = speechToTextService.getTranscriptionJobStatusAsync(jobName).join();
+
+        // Then
+        assertEquals("FAILED", response.getJobStatus());
+        assertEquals("Segment 2 of 3 failed: Transcription job not found: job-2", response.getFailureReason());
+    }
+
+    @Test
+    void shouldWriteCaptionsOfSplitJobTimedFromStartOfRecording() throws Exception {
+        // Given
+        jobRegistryRepository.registerSplit(new SplitTranscriptionJob("split-1", List.of(
+                new SplitTranscriptionJob.SegmentJob("split-1-1", 0), new SplitTranscriptionJob.SegmentJob("split-1-2", 600.5))));
+        doAnswer(invocation -> {
+            Consumer<TranscriptItem> consumer = invocation.getArgument(1);
+            consumer.accept(new TranscriptItem(TranscriptItem.PRONUNCIATION, "First", 1.0, 1.5, 0.9));
+            consumer.accept(new TranscriptItem(TranscriptItem.PUNCTUATION, ".", null, null, 0.0));
+            return null;
+        }).when(s3Repository).streamTranscriptItems(eq("split-1-1"), any());
+        doAnswer(invocation -> {
+            Consumer<TranscriptItem> consumer = invocation.getArgument(1);
+            consumer.accept(new TranscriptItem(TranscriptItem.PRONUNCIATION, "Second", 2.0, 2.75, 0.9));
+            return null;
+        }).when(s3Repository).streamTranscriptItems(eq("split-1-2"), any());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        speechToTextService.writeCaptions("split-1", CaptionFormat.VTT, out);
+
+        // Then
+        assertEquals("""
+                WEBVTT
+
+                00:00:01.000 --> 00:00:01.500
+                First.
+
+                00:10:02.500 --> 00:10:03.250
+                Second
+
+                """, out.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 30.5 seconds of 16 bit mono PCM at 8000 Hz with pauses of a second at 10.8 and 20.5 seconds.
+     */
+    private static byte[] wavWithPauses() {
+        double[][] parts = {{10.8, 1}, {8.7, 1}, {9, 0}};
+        int samples = 244_000;
+        ByteBuffer wav = ByteBuffer.allocate(44 + samples * 2).order(ByteOrder.LITTLE_ENDIAN);
+        wav.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(36 + samples * 2).put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        wav.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16).putShort((short) 1).putShort((short) 1)
+                .putInt(8000).putInt(16000).putShort((short) 2).putShort((short) 16);
+        wav.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(samples * 2);
+        for (double[] part : parts) {
+            for (int i = 0; i < Math.round(part[0] * 8000); i++) {
+                wav.putShort((short) (8000 * Math.sin(2 * Math.PI * 440 * i / 8000)));
+            }
+            for (int i = 0; i < Math.round(part[1] * 8000); i++) {
+                wav.putShort((short) 0);
+            }
+        }
+        return wav.array();
+    }
+
+    /**
+     * An hour of 16 bit mono PCM at 8000 Hz with a pause of a second every five minutes, generated while it is read.
+     * The sizes in the header are unknown, as streaming encoders write them.
+     */
+    private static InputStream hourOfStreamedWavWithPauses() {
+        ByteBuffer header = ByteBuffer.allocate(44).order(ByteOrder.LITTLE_ENDIAN);
+        header.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(-1).put("WAVE".getBytes(StandardCharsets.US_ASCII));
+        header.put("fmt ".getBytes(StandardCharsets.US_ASCII)).putInt(16).putShort((short) 1).putShort((short) 1)
+                .putInt(8000).putInt(16000).putShort((short) 2).putShort((short) 16);
+        header.put("data".getBytes(StandardCharsets.US_ASCII)).putInt(-1);
+        ByteBuffer tone = ByteBuffer.allocate(16000).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 8000; i++) {
+            tone.putShort((short) (8000 * Math.sin(2 * Math.PI * 400 * i / 8000)));
+        }
+        byte[] silence = new byte[16000];
+        List<InputStream> seconds = new ArrayList<>();
+        seconds.add(new ByteArrayInputStream(header.array()));
+        for (int second = 0; second < 3600; second++) {
+            seconds.add(new ByteArrayInputStream(second % 300 == 299 ? silence : tone.array()));
+        }
+        return new SequenceInputStream(Collections.enumeration(seconds));
+    }
+
+    /**
+     * MPEG-1 Layer III frames at 128 kbit/s, 44100 Hz, stereo. Silent frames spend no bits on any granule.
+     */
+    private static byte[] mp3(int frames, boolean silent) {
+        byte[] audio = new byte[frames * 417];
+        for (int offset = 0; offset < audio.length; offset += 417) {
+            audio[offset] = (byte) 0xFF;
+            audio[offset + 1] = (byte) 0xFB;
+            audio[offset + 2] = (byte) 0x90;
+            if (!silent) {
+                // part2_3_length of the first granule
+                audio[offset + 6] = 0x0F;
+                audio[offset + 7] = (byte) 0xFF;
+            }
+        }
+        return audio;
+    }
 }
@@ -4,17 +4,28 @@ import com.productdock.exception.ComprehendRepositoryException;
 import com.productdock.exception.PollyRepositoryException;
 import com.productdock.exception.TextToSpeechServiceException;
 import com.productdock.model.VoiceSelection;
+import com.productdock.repository.AudioCacheRepository;
 import com.productdock.repository.ComprehendRepository;
 import com.productdock.repository.PollyRepository;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.core.io.InputStreamResource;
+import com.productdock.exception.AudioNotFoundException;
+import com.productdock.model.SynthesizedSpeech;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -34,17 +45,28 @@ class TextToSpeechServiceTest {
     @Mock
     private SupportedVoicesService supportedVoicesService;
 
+    @Mock
+    private AudioCacheRepository audioCacheRepository;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
     private TextToSpeechService textToSpeechService;
 
     private static final String SAMPLE_TEXT = "Hello, this is a test";
 
     @BeforeEach
     void setUp() {
-        textToSpeechService = new TextToSpeechService(comprehendRepository, pollyRepository, supportedVoicesService);
+        textToSpeechService = new TextToSpeechService(comprehendRepository, pollyRepository, supportedVoicesService, audioCacheRepository, executor);
+        ReflectionTestUtils.setField(textToSpeechService, "firstSegmentMaxChars", 300);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
     }
 
     @Test
-    void shouldConvertTextToSpeechSuccessfully() throws ComprehendRepositoryException {
+    void shouldConvertTextToSpeechSuccessfully() throws Exception {
         // Given
         InputStream audio = new ByteArrayInputStream("audio data".getBytes());
         VoiceSelection mockVoice = new VoiceSelection("en-US", "Joanna");
@@ -54,14 +76,99 @@ class TextToSpeechServiceTest {
         when(pollyRepository.convertTextToSpeech(SAMPLE_TEXT, mockVoice.getPollyVoiceId(), mockVoice.getPollyLocaleCode())).thenReturn(audio);
 
         // When
-        InputStreamResource result = textToSpeechService.convertTextToSpeech(SAMPLE_TEXT);
+        SynthesizedSpeech result = textToSpeechService.convertTextToSpeech(SAMPLE_TEXT);
         assertNotNull(result, "The response should not be null");
-        assertDoesNotThrow(() -> result.getInputStream(), "Should return a valid InputStream");
+        assertFalse(result.isSeekable());
+        assertArrayEquals("audio data".getBytes(), result.getAudio().getInputStream().readAllBytes());
 
         // Then
         verify(comprehendRepository, times(1)).detectLanguage(SAMPLE_TEXT);
         verify(supportedVoicesService, times(1)).selectVoice("en");
         verify(pollyRepository, times(1)).convertTextToSpeech(SAMPLE_TEXT, mockVoice.getPollyVoiceId(), mockVoice.getPollyLocaleCode());
+        verify(audioCacheRepository, times(1)).store(anyString(), eq("audio data".getBytes()));
+    }
+
+    @Test
+    void shouldServeCachedAudioWithoutCallingPolly() throws Exception {
+        // Given
+        VoiceSelection mockVoice = new VoiceSelection("en-US", "Joanna");
+
+        when(comprehendRepository.detectLanguage(SAMPLE_TEXT)).thenReturn("en");
+        when(supportedVoicesService.selectVoice("en")).thenReturn(mockVoice);
+        when(audioCacheRepository.find(anyString())).thenReturn(Optional.of(new ByteArrayResource("cached audio".getBytes())));
+
+        // When
+        SynthesizedSpeech result = textToSpeechService.convertTextToSpeech(SAMPLE_TEXT);
+
+        // Then
+        assertTrue(result.isSeekable());
+        assertEquals(12L, result.getContentLength());
+        assertArrayEquals("cached audio".getBytes(), result.getAudio().getInputStream().readAllBytes());
+        verify(pollyRepository, never()).convertTextToSpeech(anyString(), anyString(), anyString());
+        verify(audioCacheRepository, never()).store(anyString(), any());
+    }
+
+    @Test
+    void shouldNotCacheAudioThatWasNotReadCompletely() throws Exception {
+        // Given
+        VoiceSelection mockVoice = new VoiceSelection("en-US", "Joanna");
+
+        when(comprehendRepository.detectLanguage(SAMPLE_TEXT)).thenReturn("en");
+        when(supportedVoicesService.selectVoice("en")).thenReturn(mockVoice);
+        when(pollyRepository.convertTextToSpeech(anyString(), anyString(), anyString()))
+                .thenReturn(new ByteArrayInputStream("audio data".getBytes()));
+
+        // When
+        SynthesizedSpeech result = textToSpeechService.convertTextToSpeech(SAMPLE_TEXT);
+        try (InputStream audio = result.getAudio().getInputStream()) {
+            audio.read(new byte[4]);
+        }
+
+        // Then
+        verify(audioCacheRepository, never()).store(anyString(), any());
+    }
+
+    @Test
+    void shouldReturnCachedSpeechByAudioId() throws Exception {
+        // Given
+        String audioId = "a".repeat(64);
+        when(audioCacheRepository.find(audioId)).thenReturn(Optional.of(new ByteArrayResource("cached audio".getBytes())));
+
+        // When
+        SynthesizedSpeech result = textToSpeechService.getSynthesizedSpeech(audioId);
+
+        // Then
+        assertEquals(audioId, result.getAudioId());
+        assertTrue(result.isSeekable());
+    }
+
+    @Test
+    void shouldRejectMalformedAudioIdWithoutCacheLookup() {
+        // When/Then
+        assertThrows(AudioNotFoundException.class, () -> textToSpeechService.getSynthesizedSpeech("../../etc/passwd"));
+        verify(audioCacheRepository, never()).find(anyString());
+    }
+
+    @Test
+    void shouldUseSameCacheKeyForTextDifferingOnlyInWhitespace() throws Exception {
+        // Given
+        VoiceSelection mockVoice = new VoiceSelection("en-US", "Joanna");
+
+        when(comprehendRepository.detectLanguage(anyString())).thenReturn("en");
+        when(supportedVoicesService.selectVoice("en")).thenReturn(mockVoice);
+        when(pollyRepository.convertTextToSpeech(anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> new ByteArrayInputStream("audio data".getBytes()));
+
+        // When
+        try (InputStream audio = textToSpeechService.convertTextToSpeech(SAMPLE_TEXT).getAudio().getInputStream()) {
+            audio.readAllBytes();
+        }
+        textToSpeechService.convertTextToSpeech("  Hello,   this is a test\n");
+
+        // Then
+        ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
+        verify(audioCacheRepository, times(2)).find(keyCaptor.capture());
+        assertEquals(keyCaptor.getAllValues().get(0), keyCaptor.getAllValues().get(1));
     }
 
     @Test
@@ -85,4 +192,195 @@ class TextToSpeechServiceTest {
         assertEquals("Error processing text-to-speech request", exception.getMessage());
         assertInstanceOf(PollyRepositoryException.class, exception.getCause());
     }
+
+    @Test
+    void shouldSplitLongTextAtSentenceBoundaries() {
+        // Given
+        ReflectionTestUtils.setField(textToSpeechService, "segmentMaxChars", 40);
+        String text = "First sentence. Second sentence is here. Third one follows. And a fourth.";
+
+        // When
+        List<String> segments = textToSpeechService.splitIntoSegments(text, Locale.US);
+
+        // Then
+        assertEquals(List.of("First sentence.", "Second sentence is here.", "Third one follows. And a fourth."), segments);
+        assertEquals(text.replace(" ", ""), String.join("", segments).replace(" ", ""));
+    }
+
+    @Test
+    void shouldKeepFirstSegmentShort() {
+        // Given
+        ReflectionTestUtils.setField(textToSpeechService, "segmentMaxChars", 40);
+        ReflectionTestUtils.setField(textToSpeechService, "firstSegmentMaxChars", 20);
+        String text = "First sentence. Second sentence is here. Third one follows.";
+
+        // When
+        List<String> segments = textToSpeechService.splitIntoSegments(text, Locale.US);
+
+        // Then
+        assertEquals(List.of("First sentence.", "Second sentence is here.", "Third one follows."), segments);
+    }
+
+    @Test
+    void shouldSplitOversizedSentenceAtWhitespace() {
+        // Given
+        ReflectionTestUtils.setField(textToSpeechService, "segmentMaxChars", 10);
+
+        // When
+        List<String> segments = textToSpeechService.splitIntoSegments("aaaa bbbb cccc dddd", Locale.US);
+
+        // Then
+        assertEquals(List.of("aaaa bbbb", "cccc dddd"), segments);
+    }
+
+    @Test
+    void shouldSynthesizeLongTextInSegmentsAndStitchInOrder() throws Exception {
+        // Given
+        ReflectionTestUtils.setField(textToSpeechService, "segmentMaxChars", 20);
+        ReflectionTestUtils.setField(textToSpeechService, "longTextParallelism", 2);
+        VoiceSelection mockVoice = new VoiceSelection("en-US", "Joanna");
+        String text = "One one one. Two two two. Three three.";
+
+        when(comprehendRepository.detectLanguage(text)).thenReturn("en");
+        when(supportedVoicesService.selectVoice("en")).thenReturn(mockVoice);
+        when(pollyRepository.convertTextToSpeech(anyString(), eq("Joanna"), eq("en-US")))
+                .thenAnswer(invocation -> new ByteArrayInputStream(("[" + invocation.getArgument(0) + "]").getBytes()));
+
+        // When
+        SynthesizedSpeech result = textToSpeechService.convertTextToSpeech(text);
+        byte[] audio = result.getAudio().getInputStream().readAllBytes();
+
+        // Then
+        assertEquals("[One one one.][Two two two.][Three three.]", new String(audio));
+        assertNull(result.getContentLength());
+        verify(pollyRepository, times(3)).convertTextToSpeech(anyString(), anyString(), anyString());
+        verify(audioCacheRepository, times(1)).store(anyString(), eq(audio));
+    }
+
+    @Test
+    void shouldFailLongTextWhenFirstSegmentFails() {
+        // Given
+        ReflectionTestUtils.setField(textToSpeechService, "segmentMaxChars", 20);
+        ReflectionTestUtils.setField(textToSpeechService, "longTextParallelism", 2);
+        VoiceSelection mockVoice = new VoiceSelection("en-US", "Joanna");
+        String text = "One one one. Two two two. Three three.";
+
+        when(comprehendRepository.detectLanguage(text)).thenReturn("en");
+        when(supportedVoicesService.selectVoice("en")).thenReturn(mockVoice);
+        when(pollyRepository.convertTextToSpeech(anyString(), anyString(), anyString()))
+                .thenThrow(new PollyRepositoryException("Repository error", new RuntimeException("Mock error")));
+
+        // When
+        TextToSpeechServiceException exception = assertThrows(TextToSpeechServiceException.class,
+                () -> textToSpeechService.convertTextToSpeech(text));
+
+        // Then
+        assertInstanceOf(PollyRepositoryException.class, exception.getCause());
+    }
+
+    @Test
+    void shouldShareInFlightSynthesisBetweenConcurrentRequests() throws Exception {
+        // Given
+        VoiceSelection mockVoice = new VoiceSelection("en-US", "Joanna");
+
+        when(comprehendRepository.detectLanguage(SAMPLE_TEXT)).thenReturn("en");
+        when(supportedVoicesService.selectVoice("en")).thenReturn(mockVoice);
+        when(pollyRepository.convertTextToSpeech(anyString(), anyString(), anyString()))
+                .thenReturn(new ByteArrayInputStream("audio data".getBytes()));
+
+        // When
+        SynthesizedSpeech leader = textToSpeechService.convertTextToSpeech(SAMPLE_TEXT);
+        SynthesizedSpeech follower = textToSpeechService.convertTextToSpeech(" Hello, this is a test ");
+        byte[] followerAudio = follower.getAudio().getInputStream().readAllBytes();
+        byte[] leaderAudio = leader.getAudio().getInputStream().readAllBytes();
+
+        // Then
+        assertArrayEquals("audio data".getBytes(), leaderAudio);
+        assertArrayEquals("audio data".getBytes(), followerAudio);
+        assertEquals(leader.getAudioId(), follower.getAudioId());
+        verify(comprehendRepository, times(1)).detectLanguage(anyString());
+        verify(pollyRepository, times(1)).convertTextToSpeech(anyString(), anyString(), anyString());
+        verify(audioCacheRepository, times(1)).store(anyString(), eq("audio data".getBytes()));
+    }
+
+    @Test
+    void shouldKeepSynthesisForFollowersWhenLeaderDisconnects() throws Exception {
+        // Given
+        VoiceSelection mockVoice = new VoiceSelection("en-US", "Joanna");
+
+        when(comprehendRepository.detectLanguage(SAMPLE_TEXT)).thenReturn("en");
+        when(supportedVoicesService.selectVoice("en")).thenReturn(mockVoice);
+        when(pollyRepository.convertTextToSpeech(anyString(), anyString(), anyString()))
+                .thenReturn(new ByteArrayInputStream("audio data".getBytes()));
+
+        // When
+        SynthesizedSpeech leader = textToSpeechService.convertTextToSpeech(SAMPLE_TEXT);
+        SynthesizedSpeech follower = textToSpeechService.convertTextToSpeech(SAMPLE_TEXT);
+        try (InputStream audio = leader.getAudio().getInputStream()) {
+            audio.read(new byte[4]);
+        }
+
+        // Then
+        assertArrayEquals("audio data".getBytes(), follower.getAudio().getInputStream().readAllBytes());
+        verify(pollyRepository, times(1)).convertTextToSpeech(anyString(), anyString(), anyString());
+        verify(audioCacheRepository, times(1)).store(anyString(), eq("audio data".getBytes()));
+    }
+
+    @Test
+    void shouldLetFollowerTakeOverWhenLeaderFails() throws Exception {
+        // Given
+        VoiceSelection mockVoice = new VoiceSelection("en-US", "Joanna");
+        CountDownLatch leaderCalledPolly = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+        AtomicInteger pollyCalls = new AtomicInteger();
+
+        when(comprehendRepository.detectLanguage(SAMPLE_TEXT)).thenReturn("en");
+        when(supportedVoicesService.selectVoice("en")).thenReturn(mockVoice);
+        when(pollyRepository.convertTextToSpeech(anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> {
+                    if (pollyCalls.incrementAndGet() == 1) {
+                        leaderCalledPolly.countDown();
+                        releaseLeader.await(5, TimeUnit.SECONDS);
+                        throw new PollyRepositoryException("Repository error", new RuntimeException("Mock error"));
+                    }
+                    return new ByteArrayInputStream("audio data".getBytes());
+                });
+
+        // When
+        Future<SynthesizedSpeech> leader = executor.submit(() -> textToSpeechService.convertTextToSpeech(SAMPLE_TEXT));
+        assertTrue(leaderCalledPolly.await(5, TimeUnit.SECONDS));
+        Future<SynthesizedSpeech> follower = executor.submit(() -> textToSpeechService.convertTextToSpeech(SAMPLE_TEXT));
+        Thread.sleep(100);
+        releaseLeader.countDown();
+
+        // Then
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TextToSpeechServiceException.class, exception.getCause());
+        assertArrayEquals("audio data".getBytes(), follower.get(5, TimeUnit.SECONDS).getAudio().getInputStream().readAllBytes());
+        assertEquals(2, pollyCalls.get());
+    }
+
+    @Test
+    void shouldConvertTextToSpeechWithAsyncRepositories() throws Exception {
+        // Given
+        VoiceSelection mockVoice = new VoiceSelection("en-US", "Joanna");
+        CompletableFuture<InputStream> pollyAudio = new CompletableFuture<>();
+
+        when(comprehendRepository.detectLanguageAsync(SAMPLE_TEXT)).thenReturn(CompletableFuture.completedFuture("en"));
+        when(supportedVoicesService.selectVoice("en")).thenReturn(mockVoice);
+        when(pollyRepository.convertTextToSpeechAsync(SAMPLE_TEXT, "Joanna", "en-US")).thenReturn(pollyAudio);
+
+        // When
+        CompletableFuture<SynthesizedSpeech> leader = textToSpeechService.convertTextToSpeechAsync(SAMPLE_TEXT);
+        CompletableFuture<SynthesizedSpeech> follower = textToSpeechService.convertTextToSpeechAsync(SAMPLE_TEXT);
+        assertFalse(leader.isDone());
+        pollyAudio.complete(new ByteArrayInputStream("audio data".getBytes()));
+
+        // Then
+        assertArrayEquals("audio data".getBytes(), leader.get(5, TimeUnit.SECONDS).getAudio().getInputStream().readAllBytes());
+        assertArrayEquals("audio data".getBytes(), follower.get(5, TimeUnit.SECONDS).getAudio().getInputStream().readAllBytes());
+        verify(pollyRepository, times(1)).convertTextToSpeechAsync(anyString(), anyString(), anyString());
+        verify(pollyRepository, never()).convertTextToSpeech(anyString(), anyString(), anyString());
+        verify(audioCacheRepository, times(1)).store(anyString(), eq("audio data".getBytes()));
+    }
 }
@@ -0,0 +1,45 @@
+package com.productdock.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+
+    @Test
+    void shouldTakeOutItemsOnceTheirTickIsReached() {
+        // Given
+        TimingWheel<String> wheel = new TimingWheel<>(8, 100);
+        wheel.schedule("a", 102);
+        wheel.schedule("b", 105);
+        wheel.schedule("late", 90);
+
+        // When
+        List<String> first = wheel.advanceTo(102);
+        List<String> second = wheel.advanceTo(104);
+
+        // Then
+        assertEquals(List.of("late", "a"), first);
+        assertEquals(List.of(), second);
+        assertEquals(List.of("b"), wheel.advanceTo(105));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void shouldKeepItemsOfLaterRotationsInTheirSlot() {
+        // Given
+        TimingWheel<String> wheel = new TimingWheel<>(4, 0);
+        wheel.schedule("next", 1);
+        wheel.schedule("later", 9);
+
+        // When
+        List<String> due = wheel.advanceTo(5);
+
+        // Then
+        assertEquals(List.of("next"), due);
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("later"), wheel.advanceTo(100));
+    }
+}
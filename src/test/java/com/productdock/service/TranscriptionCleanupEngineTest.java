@@ -0,0 +1,249 @@
+package com.productdock.service;
+
+import com.productdock.exception.S3RepositoryException;
+import com.productdock.exception.TranscribeRepositoryException;
+import com.productdock.model.RegisteredJob;
+import com.productdock.model.SplitTranscriptionJob;
+import com.productdock.model.TranscriptItem;
+import com.productdock.repository.AudioDeduplicationRepository;
+import com.productdock.repository.JobRegistryRepository;
+import com.productdock.repository.S3Repository;
+import com.productdock.repository.TranscribeRepository;
+import com.productdock.repository.TranscriptIndexRepository;
+import com.productdock.repository.TranscriptionResultCacheRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TranscriptionCleanupEngineTest {
+
+    @Mock
+    private TranscribeRepository transcribeRepository;
+
+    @Mock
+    private S3Repository s3Repository;
+
+    @TempDir
+    private Path registryDirectory;
+
+    @TempDir
+    private Path indexDirectory;
+
+    private MeterRegistry meterRegistry;
+    private JobRegistryRepository jobRegistryRepository;
+    private TranscriptIndexRepository transcriptIndexRepository;
+    private TranscriptionResultCacheRepository transcriptionResultCacheRepository;
+    private AudioDeduplicationRepository audioDeduplicationRepository;
+    private TranscriptionCleanupEngine transcriptionCleanupEngine;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jobRegistryRepository = new JobRegistryRepository(meterRegistry);
+        ReflectionTestUtils.setField(jobRegistryRepository, "directory", registryDirectory.toString());
+        ReflectionTestUtils.setField(jobRegistryRepository, "initialBytes", 4096);
+        ReflectionTestUtils.setField(jobRegistryRepository, "maxJobs", 100);
+        jobRegistryRepository.init();
+        transcriptIndexRepository = new TranscriptIndexRepository(meterRegistry);
+        ReflectionTestUtils.setField(transcriptIndexRepository, "directory", indexDirectory.toString());
+        ReflectionTestUtils.setField(transcriptIndexRepository, "maxBytes", 1024L * 1024);
+        transcriptIndexRepository.init();
+        transcriptionResultCacheRepository = new TranscriptionResultCacheRepository(meterRegistry);
+        ReflectionTestUtils.setField(transcriptionResultCacheRepository, "maxBytes", 1024L * 1024);
+        ReflectionTestUtils.setField(transcriptionResultCacheRepository, "unknownTtlMillis", 60_000L);
+        ReflectionTestUtils.setField(transcriptionResultCacheRepository, "unknownMaxEntries", 100);
+        transcriptionResultCacheRepository.init();
+        audioDeduplicationRepository = new AudioDeduplicationRepository(meterRegistry);
+        ReflectionTestUtils.setField(audioDeduplicationRepository, "maxEntries", 100);
+        ReflectionTestUtils.setField(audioDeduplicationRepository, "ttlMillis", 60_000L);
+        audioDeduplicationRepository.init();
+    }
+
+    @Test
+    void shouldCleanUpFinishedJobsInBatches() {
+        // Given
+        initEngine();
+        transcriptionCleanupEngine.register(job("job-1", RegisteredJob.State.STARTED), 0);
+        transcriptionCleanupEngine.register(job("job-2", RegisteredJob.State.STARTED), 0);
+        transcriptionCleanupEngine.register(job("job-3", RegisteredJob.State.STARTED), 0);
+        when(transcribeRepository.listActiveJobStatuses()).thenReturn(Map.of("job-3", "IN_PROGRESS"));
+
+        // When
+        transcriptionCleanupEngine.runDueCleanups();
+
+        // Then
+        verify(transcribeRepository, times(1)).listActiveJobStatuses();
+        verify(transcribeRepository, never()).getJobStatus(anyString());
+        verify(s3Repository).deleteAudioFiles(argThat(keys -> Set.copyOf(keys).equals(Set.of("audio-job-1.mp3", "audio-job-2.mp3"))));
+        verify(s3Repository).deleteTranscripts(argThat(jobNames -> Set.copyOf(jobNames).equals(Set.of("job-1", "job-2"))));
+        verify(transcribeRepository).deleteTranscriptionJob("job-1");
+        verify(transcribeRepository).deleteTranscriptionJob("job-2");
+        verify(transcribeRepository, never()).deleteTranscriptionJob("job-3");
+        assertEquals(List.of("job-3"), jobRegistryRepository.findAll().stream().map(RegisteredJob::jobName).toList());
+        assertEquals(2, meterRegistry.get("stt.cleanup.jobs").tag("outcome", "cleaned").counter().count());
+        assertEquals(1, meterRegistry.get("stt.cleanup.backlog").gauge().value());
+    }
+
+    @Test
+    void shouldDeleteTranscriptIndexOfCleanedJobs() throws Exception {
+        // Given
+        initEngine();
+        transcriptionCleanupEngine.register(job("job-1", RegisteredJob.State.STARTED), 0);
+        transcriptionCleanupEngine.register(job("job-2", RegisteredJob.State.STARTED), 0);
+        TranscriptItem item = new TranscriptItem(TranscriptItem.PRONUNCIATION, "hello", 0.5, 0.9, 0.99);
+        transcriptIndexRepository.write("job-1", sink -> sink.accept(item));
+        transcriptIndexRepository.write("job-2", sink -> sink.accept(item));
+        when(transcribeRepository.listActiveJobStatuses()).thenReturn(Map.of("job-2", "IN_PROGRESS"));
+
+        // When
+        transcriptionCleanupEngine.runDueCleanups();
+
+        // Then
+        assertFalse(transcriptIndexRepository.contains("job-1"));
+        assertFalse(Files.exists(indexDirectory.resolve("job-1.items")));
+        assertTrue(transcriptIndexRepository.contains("job-2"));
+    }
+
+    @Test
+    void shouldCleanUpSegmentsOfSplitJobTogether() throws Exception {
+        // Given
+        initEngine();
+        transcriptionCleanupEngine.register(job("job-1", RegisteredJob.State.STARTED), 0);
+        transcriptionCleanupEngine.register(job("job-2", RegisteredJob.State.STARTED), 0);
+        jobRegistryRepository.registerSplit(new SplitTranscriptionJob("split-1", List.of(
+                new SplitTranscriptionJob.SegmentJob("job-1", 0), new SplitTranscriptionJob.SegmentJob("job-2", 600))));
+        transcriptIndexRepository.write("split-1", sink -> sink.accept(new TranscriptItem(TranscriptItem.PRONUNCIATION, "hello", 0.5, 0.9, 0.99)));
+        when(transcribeRepository.listActiveJobStatuses()).thenReturn(Map.of("job-2", "IN_PROGRESS"), Map.of());
+        ReflectionTestUtils.setField(transcriptionCleanupEngine, "recheckDelayMillis", 0L);
+
+        // When
+        transcriptionCleanupEngine.runDueCleanups();
+        List<RegisteredJob> deferred = jobRegistryRepository.findAll();
+        Thread.sleep(5);
+        transcriptionCleanupEngine.runDueCleanups();
+
+        // Then
+        assertEquals(List.of("job-1", "job-2"), deferred.stream().map(RegisteredJob::jobName).toList());
+        assertTrue(deferred.stream().allMatch(job -> job.state() == RegisteredJob.State.STARTED));
+        verify(transcribeRepository).deleteTranscriptionJob("job-1");
+        verify(transcribeRepository).deleteTranscriptionJob("job-2");
+        assertTrue(jobRegistryRepository.findSplit("split-1").isEmpty());
+        assertFalse(transcriptIndexRepository.contains("split-1"));
+    }
+
+    @Test
+    void shouldResumeInterruptedCleanupAfterRestart() {
+        // Given
+        jobRegistryRepository.register(job("job-1", RegisteredJob.State.CLEANING));
+        initEngine();
+
+        // When
+        transcriptionCleanupEngine.runDueCleanups();
+
+        // Then
+        verify(transcribeRepository, never()).listActiveJobStatuses();
+        verify(transcribeRepository).deleteTranscriptionJob("job-1");
+        assertTrue(jobRegistryRepository.findAll().isEmpty());
+    }
+
+    @Test
+    void shouldKeepJobWhoseCleanupFailed() {
+        // Given
+        initEngine();
+        transcriptionCleanupEngine.register(job("job-1", RegisteredJob.State.STARTED), 0);
+        transcriptionCleanupEngine.register(job("job-2", RegisteredJob.State.STARTED), 0);
+        when(transcribeRepository.listActiveJobStatuses()).thenReturn(Map.of());
+        when(s3Repository.deleteAudioFiles(any())).thenReturn(Set.of("audio-job-1.mp3"));
+        doThrow(new TranscribeRepositoryException("Failed to delete transcription job", null))
+                .when(transcribeRepository).deleteTranscriptionJob("job-2");
+
+        // When
+        transcriptionCleanupEngine.runDueCleanups();
+
+        // Then
+        List<RegisteredJob> jobs = jobRegistryRepository.findAll();
+        assertEquals(2, jobs.size());
+        assertTrue(jobs.stream().allMatch(job -> job.state() == RegisteredJob.State.CLEANING));
+        assertEquals(2, meterRegistry.get("stt.cleanup.jobs").tag("outcome", "failed").counter().count());
+    }
+
+    @Test
+    void shouldDeferDueJobsWhenStatusesAreUnknown() {
+        // Given
+        initEngine();
+        transcriptionCleanupEngine.register(job("job-1", RegisteredJob.State.STARTED), 0);
+        when(transcribeRepository.listActiveJobStatuses()).thenThrow(new TranscribeRepositoryException("Failed to list transcription jobs", null));
+
+        // When
+        transcriptionCleanupEngine.runDueCleanups();
+
+        // Then
+        verifyNoInteractions(s3Repository);
+        assertEquals(RegisteredJob.State.STARTED, jobRegistryRepository.findAll().get(0).state());
+        assertEquals(1, meterRegistry.get("stt.cleanup.jobs").tag("outcome", "deferred").counter().count());
+    }
+
+    @Test
+    void shouldNotCleanUpJobsBeforeTheyAreDue() {
+        // Given
+        initEngine();
+        ReflectionTestUtils.setField(transcriptionCleanupEngine, "retentionMillis", 60_000L);
+        transcriptionCleanupEngine.register(job("job-1", RegisteredJob.State.STARTED), 0);
+
+        // When
+        transcriptionCleanupEngine.runDueCleanups();
+
+        // Then
+        verifyNoInteractions(transcribeRepository, s3Repository);
+    }
+
+    @Test
+    void shouldNotFailWhenS3RejectsTheBatch() {
+        // Given
+        initEngine();
+        transcriptionCleanupEngine.register(job("job-1", RegisteredJob.State.STARTED), 0);
+        when(transcribeRepository.listActiveJobStatuses()).thenReturn(Map.of());
+        when(s3Repository.deleteAudioFiles(any())).thenThrow(new S3RepositoryException("S3 is unavailable", null));
+
+        // When
+        assertDoesNotThrow(() -> transcriptionCleanupEngine.runDueCleanups());
+
+        // Then
+        assertEquals(1, jobRegistryRepository.size());
+    }
+
+    private void initEngine() {
+        TranscriptionStatusPoller transcriptionStatusPoller = new TranscriptionStatusPoller(transcribeRepository, meterRegistry);
+        transcriptionStatusPoller.init();
+        transcriptionCleanupEngine = new TranscriptionCleanupEngine(jobRegistryRepository, transcribeRepository, s3Repository,
+                transcriptionStatusPoller, transcriptIndexRepository, transcriptionResultCacheRepository, audioDeduplicationRepository,
+                meterRegistry, Runnable::run);
+        ReflectionTestUtils.setField(transcriptionCleanupEngine, "tickMillis", 1L);
+        ReflectionTestUtils.setField(transcriptionCleanupEngine, "wheelSlots", 64);
+        ReflectionTestUtils.setField(transcriptionCleanupEngine, "recheckDelayMillis", 60_000L);
+        transcriptionCleanupEngine.init();
+    }
+
+    private static RegisteredJob job(String jobName, RegisteredJob.State state) {
+        // Created a while ago, so the job is due without waiting
+        return new RegisteredJob(jobName, "audio-" + jobName + ".mp3", "hash-" + jobName, Instant.now().minusSeconds(1), state);
+    }
+}
@@ -0,0 +1,135 @@
+package com.productdock.service;
+
+import com.productdock.repository.TranscribeRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TranscriptionStatusPollerTest {
+
+    @Mock
+    private TranscribeRepository transcribeRepository;
+
+    private MeterRegistry meterRegistry;
+    private TranscriptionStatusPoller transcriptionStatusPoller;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        transcriptionStatusPoller = new TranscriptionStatusPoller(transcribeRepository, meterRegistry);
+        // Every job is due right away unless a test sets a longer interval
+        ReflectionTestUtils.setField(transcriptionStatusPoller, "minIntervalMillis", 0L);
+        ReflectionTestUtils.setField(transcriptionStatusPoller, "maxIntervalMillis", 60_000L);
+        ReflectionTestUtils.setField(transcriptionStatusPoller, "intervalPerMbMillis", 0L);
+        ReflectionTestUtils.setField(transcriptionStatusPoller, "retentionMillis", 60_000L);
+        transcriptionStatusPoller.init();
+    }
+
+    @Test
+    void shouldAnswerStatusOfTrackedJobLocally() {
+        // Given
+        transcriptionStatusPoller.track("job-123", 1024);
+
+        // When
+        String status = transcriptionStatusPoller.getStatus("job-123");
+
+        // Then
+        assertEquals("IN_PROGRESS", status);
+        verifyNoInteractions(transcribeRepository);
+    }
+
+    @Test
+    void shouldRefreshAllTrackedJobsWithOneListing() {
+        // Given
+        transcriptionStatusPoller.track("job-1", 1024);
+        transcriptionStatusPoller.track("job-2", 1024);
+        transcriptionStatusPoller.track("job-3", 1024);
+        when(transcribeRepository.listActiveJobStatuses()).thenReturn(Map.of("job-1", "QUEUED", "job-2", "IN_PROGRESS"));
+        when(transcribeRepository.getJobStatus("job-3")).thenReturn("COMPLETED");
+
+        // When
+        transcriptionStatusPoller.refreshTrackedJobs();
+
+        // Then
+        assertEquals("QUEUED", transcriptionStatusPoller.getStatus("job-1"));
+        assertEquals("IN_PROGRESS", transcriptionStatusPoller.getStatus("job-2"));
+        assertEquals("COMPLETED", transcriptionStatusPoller.getStatus("job-3"));
+        verify(transcribeRepository, times(1)).listActiveJobStatuses();
+        verify(transcribeRepository, times(1)).getJobStatus(anyString());
+    }
+
+    @Test
+    void shouldNotRefreshFinishedJobs() {
+        // Given
+        transcriptionStatusPoller.track("job-123", 1024);
+        when(transcribeRepository.listActiveJobStatuses()).thenReturn(Map.of());
+        when(transcribeRepository.getJobStatus("job-123")).thenReturn("FAILED");
+        transcriptionStatusPoller.refreshTrackedJobs();
+
+        // When
+        transcriptionStatusPoller.refreshTrackedJobs();
+
+        // Then
+        verify(transcribeRepository, times(1)).listActiveJobStatuses();
+        assertEquals("FAILED", transcriptionStatusPoller.getStatus("job-123"));
+    }
+
+    @Test
+    void shouldWaitLongerForLongerAudio() {
+        // Given
+        ReflectionTestUtils.setField(transcriptionStatusPoller, "intervalPerMbMillis", 5_000L);
+        transcriptionStatusPoller.track("job-123", 4 * 1024 * 1024);
+
+        // When
+        transcriptionStatusPoller.refreshTrackedJobs();
+
+        // Then
+        verify(transcribeRepository, never()).listActiveJobStatuses();
+    }
+
+    @Test
+    void shouldShareLookupOfUntrackedJob() throws Exception {
+        // Given
+        CountDownLatch lookupStarted = new CountDownLatch(1);
+        CountDownLatch lookupReleased = new CountDownLatch(1);
+        when(transcribeRepository.getJobStatus("job-123")).thenAnswer(invocation -> {
+            lookupStarted.countDown();
+            lookupReleased.await(5, TimeUnit.SECONDS);
+            return "IN_PROGRESS";
+        });
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+
+        try {
+            // When
+            Future<String> first = callers.submit(() -> transcriptionStatusPoller.getStatus("job-123"));
+            lookupStarted.await(5, TimeUnit.SECONDS);
+            CompletableFuture<String> second = transcriptionStatusPoller.getStatusAsync("job-123");
+            lookupReleased.countDown();
+
+            // Then
+            assertEquals("IN_PROGRESS", first.get(5, TimeUnit.SECONDS));
+            assertEquals("IN_PROGRESS", second.get(5, TimeUnit.SECONDS));
+            assertEquals("IN_PROGRESS", transcriptionStatusPoller.getStatus("job-123"));
+            verify(transcribeRepository, times(1)).getJobStatus("job-123");
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.productdock.service;
+
+import com.productdock.exception.DependencyUnavailableException;
+import com.productdock.exception.SpeechToTextServiceException;
+import com.productdock.exception.TranscribeRepositoryException;
+import com.productdock.model.TranscriptionJobResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.transcribe.model.BadRequestException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TranscriptionStatusWatcherTest {
+
+    @Mock
+    private SpeechToTextService speechToTextService;
+
+    private MeterRegistry meterRegistry;
+    private TranscriptionStatusWatcher transcriptionStatusWatcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        transcriptionStatusWatcher = new TranscriptionStatusWatcher(speechToTextService, meterRegistry, Runnable::run);
+        ReflectionTestUtils.setField(transcriptionStatusWatcher, "subscriptionTimeoutMillis", 60_000L);
+        transcriptionStatusWatcher.init();
+    }
+
+    @Test
+    void shouldCheckJobOnceForAllSubscribers() {
+        // Given
+        when(speechToTextService.getTranscriptionJobStatus("job-123"))
+                .thenReturn(new TranscriptionJobResponse("job-123", "IN_PROGRESS", null));
+        transcriptionStatusWatcher.subscribe("job-123");
+        transcriptionStatusWatcher.subscribe("job-123");
+        transcriptionStatusWatcher.subscribe("job-123");
+
+        // When
+        transcriptionStatusWatcher.checkWatchedJobs();
+
+        // Then
+        verify(speechToTextService, times(1)).getTranscriptionJobStatus("job-123");
+        assertEquals(1.0, meterRegistry.get("transcribe.watch.jobs").gauge().value());
+        assertEquals(3.0, meterRegistry.get("transcribe.watch.subscriptions").gauge().value());
+    }
+
+    @Test
+    void shouldStopWatchingJobAfterFinalStatus() {
+        // Given
+        when(speechToTextService.getTranscriptionJobStatus("job-123"))
+                .thenReturn(new TranscriptionJobResponse("job-123", "IN_PROGRESS", null))
+                .thenReturn(new TranscriptionJobResponse("job-123", "COMPLETED", "Hello"));
+        transcriptionStatusWatcher.subscribe("job-123");
+
+        // When
+        transcriptionStatusWatcher.checkWatchedJobs();
+        transcriptionStatusWatcher.checkWatchedJobs();
+        transcriptionStatusWatcher.checkWatchedJobs();
+
+        // Then
+        verify(speechToTextService, times(2)).getTranscriptionJobStatus("job-123");
+        assertEquals(0.0, meterRegistry.get("transcribe.watch.jobs").gauge().value());
+    }
+
+    @Test
+    void shouldKeepWatchingJobWhenTranscribeIsUnavailable() {
+        // Given
+        when(speechToTextService.getTranscriptionJobStatus("job-123"))
+                .thenThrow(new SpeechToTextServiceException("Failed to check job status or fetch transcript",
+                        new TranscribeRepositoryException("Transcribe is temporarily unavailable",
+                                new DependencyUnavailableException("Transcribe is temporarily unavailable", Duration.ofSeconds(30)))));
+        transcriptionStatusWatcher.subscribe("job-123");
+
+        // When
+        transcriptionStatusWatcher.checkWatchedJobs();
+
+        // Then
+        assertEquals(1.0, meterRegistry.get("transcribe.watch.jobs").gauge().value());
+    }
+
+    @Test
+    void shouldStopWatchingJobThatCannotBeChecked() {
+        // Given
+        when(speechToTextService.getTranscriptionJobStatus("job-unknown"))
+                .thenThrow(new SpeechToTextServiceException("Failed to check job status or fetch transcript",
+                        new TranscribeRepositoryException("Failed to get transcription job status",
+                                BadRequestException.builder().message("The requested job couldn't be found").statusCode(400).build())));
+        transcriptionStatusWatcher.subscribe("job-unknown");
+
+        // When
+        transcriptionStatusWatcher.checkWatchedJobs();
+
+        // Then
+        assertEquals(0.0, meterRegistry.get("transcribe.watch.jobs").gauge().value());
+    }
+
+    @Test
+    void shouldCheckJobWithoutBlockingInAsyncMode() {
+        // Given
+        ReflectionTestUtils.setField(transcriptionStatusWatcher, "asyncEnabled", true);
+        CompletableFuture<TranscriptionJobResponse> status = new CompletableFuture<>();
+        when(speechToTextService.getTranscriptionJobStatusAsync("job-123")).thenReturn(status);
+        transcriptionStatusWatcher.subscribe("job-123");
+
+        // When
+        transcriptionStatusWatcher.checkWatchedJobs();
+        transcriptionStatusWatcher.checkWatchedJobs();
+        status.complete(new TranscriptionJobResponse("job-123", "COMPLETED", "Hello"));
+
+        // Then
+        verify(speechToTextService, times(1)).getTranscriptionJobStatusAsync("job-123");
+        verify(speechToTextService, never()).getTranscriptionJobStatus(any());
+        assertEquals(0.0, meterRegistry.get("transcribe.watch.jobs").gauge().value());
+    }
+
+    @Test
+    void shouldNotCheckJobsWithoutSubscribers() {
+        // When
+        transcriptionStatusWatcher.checkWatchedJobs();
+
+        // Then
+        verifyNoInteractions(speechToTextService);
+    }
+}